@@ -0,0 +1,20 @@
+-- Chạy một lần trên database có từ trước khi PIN được thu hồi lúc game kết thúc
+-- (PinAllocator). Chạy lại nhiều lần cũng không sao.
+--
+--   psql "$DATABASE_URL" -f db/games-pin-code-nullable.sql
+--   docker compose -f infra/docker-compose.yml exec -T db psql -U postgres kkunquizapp < QuizAppBackend/db/games-pin-code-nullable.sql
+--
+-- Sau đó khởi động lại backend: PinAllocator dựng lại bitmap từ các PIN còn trên game.
+
+BEGIN;
+
+-- ddl-auto: update không gỡ NOT NULL của schema cũ
+ALTER TABLE games ALTER COLUMN pin_code DROP NOT NULL;
+
+-- Game đã kết thúc trả PIN lại để dùng cho game mới
+UPDATE games
+SET pin_code = NULL
+WHERE pin_code IS NOT NULL
+  AND game_status IN ('FINISHED', 'CANCELLED');
+
+COMMIT;
@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Chạy cùng một tải với app.game.events.mode=local rồi kafka, mỗi mode một backend mới,
+# và in game.event.delivery + số đo phía client cạnh nhau.
+#
+#   QUIZ_ID=<uuid> loadtest/compare-event-modes.sh [--games=20 --players=100 ...]
+#
+# Chạy từ thư mục QuizAppBackend. Các tham số thêm được chuyển nguyên cho quiz-loadtest.jar.
+set -euo pipefail
+
+: "${QUIZ_ID:?QUIZ_ID=<published quiz uuid> is required}"
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+# Local mode vẫn ghi audit xuống Kafka như production, để hai bên cùng tải lên broker
+AUDIT="${GAME_EVENTS_AUDIT:-true}"
+OUT="${OUT:-target/loadtest}"
+
+cd "$(dirname "$0")/.."
+mkdir -p "$OUT"
+
+docker compose -f loadtest/docker-compose.yml --profile kafka up -d
+./mvnw -q -DskipTests package
+(cd loadtest && mvn -q package)
+BACKEND_JAR="$(ls target/QuizAppBackend-*.jar | grep -v original | head -n 1)"
+
+backend_pid=""
+stop_backend() {
+  if [[ -n "$backend_pid" ]]; then
+    kill "$backend_pid" 2>/dev/null || true
+    wait "$backend_pid" 2>/dev/null || true
+    backend_pid=""
+  fi
+}
+trap stop_backend EXIT
+
+for mode in local kafka; do
+  echo "=== events mode: $mode ==="
+  GAME_EVENTS_MODE="$mode" GAME_EVENTS_AUDIT="$AUDIT" \
+    java -jar "$BACKEND_JAR" --spring.profiles.active=loadtest > "$OUT/backend-$mode.log" 2>&1 &
+  backend_pid=$!
+
+  # Actuator cần đăng nhập → 401 cũng có nghĩa là backend đã lên
+  for _ in $(seq 1 120); do
+    code="$(curl -s -o /dev/null -w '%{http_code}' "$BASE_URL/actuator/health" || true)"
+    [[ "$code" == "200" || "$code" == "401" ]] && break
+    sleep 1
+  done
+
+  java -jar loadtest/target/quiz-loadtest.jar --base-url="$BASE_URL" --quiz-id="$QUIZ_ID" \
+    --report="$OUT/report-$mode.json" "$@"
+  stop_backend
+done
+
+java -jar loadtest/target/quiz-loadtest.jar --compare="$OUT/report-local.json,$OUT/report-kafka.json"
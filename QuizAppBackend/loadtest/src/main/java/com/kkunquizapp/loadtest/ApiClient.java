@@ -0,0 +1,143 @@
+package com.kkunquizapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The REST calls a host and a player make before the STOMP part of a game:
+ * accounts, create, join, start, plus the backend's actuator metrics. REST auth
+ * is the {@code accessToken} cookie, same as the web client.
+ */
+final class ApiClient {
+
+    record CreatedGame(UUID gameId, String pinCode) {
+    }
+
+    private final String baseUrl;
+    private final ObjectMapper mapper;
+    private final HttpClient http;
+
+    ApiClient(String baseUrl, ObjectMapper mapper) {
+        this.baseUrl = baseUrl;
+        this.mapper = mapper;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    /** Register a throwaway account and return its access token. */
+    String register(String username, String password) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", username);
+        body.put("email", username + "@loadtest.local");
+        body.put("password", password);
+        body.put("name", username);
+        return post("/api/auth/register", null, body).path("accessToken").asText();
+    }
+
+    String login(String username, String password) {
+        return post("/api/auth/login", null, Map.of("username", username, "password", password))
+                .path("accessToken").asText();
+    }
+
+    CreatedGame createGame(String hostToken, UUID quizId, int maxPlayers) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("quizId", quizId);
+        body.put("maxPlayers", maxPlayers);
+        body.put("allowAnonymous", true);
+        body.put("showLeaderboard", true);
+        JsonNode game = post("/api/games/create", hostToken, body);
+        return new CreatedGame(UUID.fromString(game.path("gameId").asText()), game.path("pinCode").asText());
+    }
+
+    /** @param token null joins anonymously */
+    UUID join(String token, String pinCode, String nickname) {
+        String path = (token != null ? "/api/games/join" : "/api/games/join-anonymous")
+                + "?pinCode=" + URLEncoder.encode(pinCode, StandardCharsets.UTF_8);
+        JsonNode participant = post(path, token, Map.of("nickname", nickname));
+        return UUID.fromString(participant.path("participantId").asText());
+    }
+
+    void startGame(String hostToken, UUID gameId) {
+        post("/api/games/" + gameId + "/start", hostToken, Map.of());
+    }
+
+    /**
+     * {@code GET /actuator/metrics/{name}} filtered by {@code tag=key:value} pairs.
+     *
+     * @return null if the backend has no such meter (yet), 404
+     */
+    JsonNode metric(String token, String name, Map<String, String> tags) {
+        StringBuilder path = new StringBuilder("/actuator/metrics/").append(name);
+        char separator = '?';
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            path.append(separator).append("tag=")
+                    .append(URLEncoder.encode(tag.getKey() + ":" + tag.getValue(), StandardCharsets.UTF_8));
+            separator = '&';
+        }
+        try {
+            return send("GET " + path, token, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+        } catch (ApiException e) {
+            if (e.status == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private JsonNode post(String path, String token, Object body) {
+        try {
+            return send("POST " + path, token, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body))));
+        } catch (IOException e) {
+            throw new ApiException("POST " + path, -1, e.toString());
+        }
+    }
+
+    private JsonNode send(String call, String token, HttpRequest.Builder request) {
+        try {
+            request.timeout(Duration.ofSeconds(30)).header("Accept", "application/json");
+            if (token != null) {
+                request.header("Cookie", "accessToken=" + token);
+            }
+            HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new ApiException(call, response.statusCode(),
+                        new String(response.body(), StandardCharsets.UTF_8));
+            }
+            return response.body().length == 0 ? mapper.createObjectNode() : mapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new ApiException(call, -1, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(call, -1, "interrupted");
+        }
+    }
+
+    static final class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(String call, int status, String body) {
+            super(call + " -> " + (status > 0 ? status : "I/O error") + ": " + abbreviate(body));
+            this.status = status;
+        }
+
+        private static String abbreviate(String text) {
+            return text.length() > 300 ? text.substring(0, 300) + "…" : text;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.kkunquizapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Everything the run measures. Latencies go into HdrHistograms in microseconds
+ * so p999 stays exact; errors are counted per kind.
+ */
+final class LoadMetrics {
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    /** SEND /app/game/{id}/answer → frame on /user/queue/answer-result. */
+    final Histogram answerAck = new ConcurrentHistogram(MAX_MICROS, 3);
+    /** Per game and question: last client to receive QUESTION_STARTED minus first. */
+    final Histogram broadcastSkew = new ConcurrentHistogram(MAX_MICROS, 3);
+    /** REST join (account registration not included). */
+    final Histogram join = new ConcurrentHistogram(MAX_MICROS, 3);
+    /** STOMP CONNECT → CONNECTED. */
+    final Histogram connect = new ConcurrentHistogram(MAX_MICROS, 3);
+
+    final LongAdder joinAttempts = new LongAdder();
+    final LongAdder connectAttempts = new LongAdder();
+    final LongAdder answersSent = new LongAdder();
+    final LongAdder answersAcked = new LongAdder();
+    final LongAdder skipsSent = new LongAdder();
+    final LongAdder questionsReceived = new LongAdder();
+    final LongAdder gamesCompleted = new LongAdder();
+
+    /** Backend side of the same run; empty if its actuator metrics could not be read. */
+    volatile List<ServerDelivery.Row> serverDelivery = List.of();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void error(String kind) {
+        errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    }
+
+    static void record(Histogram histogram, long startNanos) {
+        histogram.recordValue(Math.min(MAX_MICROS, Math.max(0, (System.nanoTime() - startNanos) / 1_000)));
+    }
+
+    long errors(String kind) {
+        LongAdder adder = errors.get(kind);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    // ==================== REPORT ====================
+
+    void print(PrintStream out, LoadTestConfig config, long elapsedMillis) {
+        out.println();
+        out.printf("=== Live game load test: %d games x %d players, %.1fs ===%n",
+                config.games(), config.players(), elapsedMillis / 1000.0);
+        out.printf("%-22s %8s %9s %9s %9s %9s %9s%n", "latency (ms)", "count", "p50", "p99", "p999", "max", "mean");
+        line(out, "answer -> ack", answerAck);
+        line(out, "broadcast skew", broadcastSkew);
+        line(out, "join (REST)", join);
+        line(out, "STOMP connect", connect);
+
+        out.println();
+        out.printf("games completed   %d / %d%n", gamesCompleted.sum(), config.games());
+        out.printf("questions seen    %d%n", questionsReceived.sum());
+        out.printf("answers sent      %d (acked %d), skips %d%n", answersSent.sum(), answersAcked.sum(), skipsSent.sum());
+        out.printf("join error rate   %s%n", rate(errors("join") + errors("join_full"), joinAttempts.sum()));
+        out.printf("connect err rate  %s%n", rate(errors("connect"), connectAttempts.sum()));
+        out.printf("answer error rate %s%n", rate(errors("ack_timeout") + errors("answer"), answersSent.sum()));
+
+        if (!serverDelivery.isEmpty()) {
+            out.println();
+            out.printf("%-22s %8s %9s %9s %9s %9s%n", "server " + ServerDelivery.METRIC, "count", "mean", "p50", "p99", "max");
+            for (ServerDelivery.Row row : serverDelivery) {
+                out.printf("%-22s %8d %9.2f %9s %9s %9.2f%n", row.path() + " " + row.type(), row.count(), row.meanMs(),
+                        optional(row.p50Ms()), optional(row.p99Ms()), row.maxMs());
+            }
+        }
+
+        Map<String, Long> sorted = errorCounts();
+        if (!sorted.isEmpty()) {
+            out.println();
+            out.println("errors:");
+            sorted.forEach((kind, count) -> out.printf("  %-20s %d%n", kind, count));
+        }
+    }
+
+    void writeJson(Path file, ObjectMapper mapper, LoadTestConfig config, long elapsedMillis) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("games", config.games());
+        root.put("playersPerGame", config.players());
+        root.put("elapsedMs", elapsedMillis);
+        root.set("answerAckMs", json(mapper, answerAck));
+        root.set("broadcastSkewMs", json(mapper, broadcastSkew));
+        root.set("joinMs", json(mapper, join));
+        root.set("connectMs", json(mapper, connect));
+        root.put("gamesCompleted", gamesCompleted.sum());
+        root.put("joinAttempts", joinAttempts.sum());
+        root.put("connectAttempts", connectAttempts.sum());
+        root.put("answersSent", answersSent.sum());
+        root.put("answersAcked", answersAcked.sum());
+        root.put("skipsSent", skipsSent.sum());
+        ObjectNode errorNode = root.putObject("errors");
+        errorCounts().forEach(errorNode::put);
+        root.set("serverDelivery", mapper.valueToTree(serverDelivery));
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+    }
+
+    private Map<String, Long> errorCounts() {
+        Map<String, Long> sorted = new TreeMap<>();
+        errors.forEach((kind, adder) -> sorted.put(kind, adder.sum()));
+        return sorted;
+    }
+
+    private static void line(PrintStream out, String name, Histogram h) {
+        if (h.getTotalCount() == 0) {
+            out.printf("%-22s %8d %9s %9s %9s %9s %9s%n", name, 0, "-", "-", "-", "-", "-");
+            return;
+        }
+        out.printf("%-22s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, h.getTotalCount(),
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)),
+                ms(h.getMaxValue()), h.getMean() / 1000.0);
+    }
+
+    private static ObjectNode json(ObjectMapper mapper, Histogram h) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("count", h.getTotalCount());
+        node.put("p50", ms(h.getValueAtPercentile(50)));
+        node.put("p99", ms(h.getValueAtPercentile(99)));
+        node.put("p999", ms(h.getValueAtPercentile(99.9)));
+        node.put("max", ms(h.getMaxValue()));
+        node.put("mean", h.getMean() / 1000.0);
+        return node;
+    }
+
+    private static String optional(Double ms) {
+        return ms != null ? String.format("%.2f", ms) : "-";
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String rate(long errors, long attempts) {
+        if (attempts == 0) {
+            return "-";
+        }
+        return String.format("%.3f%% (%d / %d)", 100.0 * errors / attempts, errors, attempts);
+    }
+}
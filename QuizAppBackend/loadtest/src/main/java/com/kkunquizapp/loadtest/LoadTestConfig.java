@@ -0,0 +1,107 @@
+package com.kkunquizapp.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Run parameters, read from {@code --key=value} arguments.
+ *
+ * @param players        STOMP clients per game
+ * @param accounts       true: players register accounts and join via /api/games/join;
+ *                       false: /api/games/join-anonymous
+ * @param thinkMedian    median think time before answering (log-normal)
+ * @param thinkSigma     spread of the log-normal think time
+ * @param noAnswerRate   share of questions a player lets run out instead of answering
+ * @param rampUp         joins of one game are spread over this period
+ */
+public record LoadTestConfig(
+        String baseUrl,
+        int games,
+        int players,
+        UUID quizId,
+        String hostUsername,
+        String hostPassword,
+        boolean accounts,
+        Duration thinkMedian,
+        double thinkSigma,
+        double noAnswerRate,
+        Duration rampUp,
+        Duration ackTimeout,
+        Duration runTimeout,
+        int connectThreads,
+        String reportFile) {
+
+    static final String USAGE = """
+            Usage: java -jar quiz-loadtest.jar --quiz-id=<published quiz> [options]
+
+              --base-url=http://localhost:8080   backend under test
+              --games=10                         concurrent games
+              --players=50                       STOMP clients per game
+              --host-username= --host-password=  existing host account (default: register one)
+              --auth=account|anonymous           how players join (default: account)
+              --think-median-ms=3000             median think time (log-normal)
+              --think-sigma=0.6                  think time spread
+              --no-answer-rate=0.05              share of questions left unanswered
+              --ramp-up-ms=10000                 spread the joins of each game
+              --ack-timeout-ms=10000             answer without ack after this = error
+              --run-timeout-minutes=30           abort the run after this
+              --connect-threads=32               parallel join + connect
+              --report=report.json               also write the summary as JSON
+
+            Usage: java -jar quiz-loadtest.jar --compare=local.json,kafka.json
+              print the --report files of several runs side by side
+            """;
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String quizId = values.remove("quiz-id");
+        if (quizId == null) {
+            throw new IllegalArgumentException("--quiz-id is required");
+        }
+
+        LoadTestConfig config = new LoadTestConfig(
+                stripSlash(values.getOrDefault("base-url", "http://localhost:8080")),
+                Integer.parseInt(values.getOrDefault("games", "10")),
+                Integer.parseInt(values.getOrDefault("players", "50")),
+                UUID.fromString(quizId),
+                values.get("host-username"),
+                values.get("host-password"),
+                !"anonymous".equals(values.getOrDefault("auth", "account")),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("think-median-ms", "3000"))),
+                Double.parseDouble(values.getOrDefault("think-sigma", "0.6")),
+                Double.parseDouble(values.getOrDefault("no-answer-rate", "0.05")),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("ramp-up-ms", "10000"))),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("ack-timeout-ms", "10000"))),
+                Duration.ofMinutes(Long.parseLong(values.getOrDefault("run-timeout-minutes", "30"))),
+                Integer.parseInt(values.getOrDefault("connect-threads", "32")),
+                values.get("report"));
+
+        for (String key : new String[] {"base-url", "games", "players", "host-username", "host-password", "auth",
+                "think-median-ms", "think-sigma", "no-answer-rate", "ramp-up-ms", "ack-timeout-ms",
+                "run-timeout-minutes", "connect-threads", "report"}) {
+            values.remove(key);
+        }
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        return config;
+    }
+
+    String webSocketUrl() {
+        // Endpoint /ws dùng SockJS; /ws/websocket là WebSocket thuần, không cần bước /info
+        return baseUrl.replaceFirst("^http", "ws") + "/ws/websocket";
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
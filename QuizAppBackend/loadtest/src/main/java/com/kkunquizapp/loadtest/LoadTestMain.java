@@ -0,0 +1,238 @@
+package com.kkunquizapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Synthetic live-game load: N games hosted at once, M STOMP players each.
+ *
+ * Per game the host creates the game over REST, the players join over REST
+ * (spread over the ramp-up), connect to {@code /ws} and subscribe like the web
+ * client; once every game's lobby is filled the hosts start them all and the
+ * server's timers drive the questions. The run ends when every player has seen
+ * GAME_ENDED (or the run timeout hits) and prints the latency report.
+ */
+public final class LoadTestMain {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestMain.class);
+
+    private static final long CONNECT_TIMEOUT_SECONDS = 30;
+
+    private final LoadTestConfig config;
+    private final ObjectMapper mapper;
+    private final ApiClient api;
+    private final LoadMetrics metrics = new LoadMetrics();
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    LoadTestMain(LoadTestConfig config, ObjectMapper mapper) {
+        this.config = config;
+        this.mapper = mapper;
+        this.api = new ApiClient(config.baseUrl(), mapper);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && args[0].startsWith("--compare=")) {
+            ObjectMapper reader = new ObjectMapper();
+            System.exit(ReportComparison.print(System.out, reader, args[0].substring("--compare=".length()).split(",")));
+            return;
+        }
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        try {
+            System.exit(new LoadTestMain(config, mapper).run());
+        } catch (ApiClient.ApiException e) {
+            // Host không đăng nhập / tạo được game → không có gì để đo
+            System.err.println("Setup failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    int run() throws Exception {
+        String hostToken = config.hostUsername() != null
+                ? api.login(config.hostUsername(), config.hostPassword())
+                : api.register("lt-host-" + runId, "LoadTest#" + runId);
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(4, Runtime.getRuntime().availableProcessors()));
+        ExecutorService connectPool = Executors.newFixedThreadPool(config.connectThreads());
+        WebSocketStompClient stompClient = stompClient();
+        SimulatedPlayer.Context ctx = new SimulatedPlayer.Context(config, metrics, stompClient, scheduler);
+
+        ServerDelivery serverDelivery = new ServerDelivery(api, hostToken);
+        ServerDelivery.Snapshot serverBefore = serverSnapshot(serverDelivery);
+
+        long startedAt = System.currentTimeMillis();
+        List<SimulatedGame> games = new ArrayList<>();
+        try {
+            // 1. Tạo phòng + lấp đầy lobby
+            List<CompletableFuture<Void>> lobbies = new ArrayList<>();
+            for (int g = 0; g < config.games(); g++) {
+                ApiClient.CreatedGame created = api.createGame(hostToken, config.quizId(), config.players());
+                SimulatedGame game = new SimulatedGame(g, created.gameId(), created.pinCode());
+                games.add(game);
+                lobbies.add(fillLobby(game, ctx, connectPool));
+            }
+            CompletableFuture.allOf(lobbies.toArray(CompletableFuture[]::new)).join();
+            log.info("Lobbies filled: {} players connected in {} games",
+                    games.stream().mapToInt(game -> game.players.size()).sum(), games.size());
+
+            // 2. Bắt đầu tất cả cùng lúc, timer của server lo phần còn lại
+            for (SimulatedGame game : games) {
+                game.started(game.players.size());
+                try {
+                    api.startGame(hostToken, game.gameId);
+                } catch (ApiClient.ApiException e) {
+                    log.warn("Game {} did not start: {}", game.index, e.getMessage());
+                    metrics.error("start");
+                    game.startFailed = true;
+                    game.finished.complete(null);
+                }
+            }
+
+            // 3. Chờ GAME_ENDED ở mọi người chơi
+            try {
+                CompletableFuture.allOf(games.stream().map(game -> game.finished).toArray(CompletableFuture[]::new))
+                        .get(config.runTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Run timeout reached before every game ended");
+            }
+        } finally {
+            for (SimulatedGame game : games) {
+                if (game.finished.isDone() && !game.startFailed) {
+                    metrics.gamesCompleted.increment();
+                } else {
+                    metrics.error("game_not_finished");
+                }
+                game.collect(metrics, game.players.size());
+                game.players.forEach(SimulatedPlayer::disconnect);
+            }
+            connectPool.shutdownNow();
+            scheduler.shutdownNow();
+            stompClient.stop();
+        }
+
+        long elapsed = System.currentTimeMillis() - startedAt;
+        if (serverBefore != null) {
+            try {
+                metrics.serverDelivery = serverDelivery.since(serverBefore);
+            } catch (ApiClient.ApiException e) {
+                log.warn("Server metrics unavailable after the run: {}", e.getMessage());
+            }
+        }
+        metrics.print(System.out, config, elapsed);
+        if (config.reportFile() != null) {
+            metrics.writeJson(Path.of(config.reportFile()), mapper, config, elapsed);
+        }
+        return metrics.gamesCompleted.sum() > 0 ? 0 : 1;
+    }
+
+    /** Null if the backend's actuator metrics cannot be read; the run still goes on. */
+    private static ServerDelivery.Snapshot serverSnapshot(ServerDelivery serverDelivery) {
+        try {
+            return serverDelivery.snapshot();
+        } catch (ApiClient.ApiException e) {
+            log.warn("Server metrics unavailable, reporting client side only: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /** Join and connect every player of one game, spread over the ramp-up. */
+    private CompletableFuture<Void> fillLobby(SimulatedGame game, SimulatedPlayer.Context ctx,
+                                              ExecutorService connectPool) {
+        List<CompletableFuture<Void>> joins = new ArrayList<>();
+        long rampUpMs = config.rampUp().toMillis();
+        for (int p = 0; p < config.players(); p++) {
+            int playerIndex = p;
+            long delayMs = config.players() > 1 ? rampUpMs * p / config.players() : 0;
+            CompletableFuture<Void> joined = new CompletableFuture<>();
+            ctx.scheduler().schedule(() -> connectPool.execute(() -> {
+                try {
+                    joinAndConnect(game, playerIndex, ctx);
+                } finally {
+                    joined.complete(null);
+                }
+            }), delayMs, TimeUnit.MILLISECONDS);
+            joins.add(joined);
+        }
+        return CompletableFuture.allOf(joins.toArray(CompletableFuture[]::new));
+    }
+
+    private void joinAndConnect(SimulatedGame game, int playerIndex, SimulatedPlayer.Context ctx) {
+        String nickname = "lt" + game.index + "p" + playerIndex;
+        String token = null;
+        if (config.accounts()) {
+            try {
+                token = api.register("lt-" + runId + "-" + nickname, "LoadTest#" + runId);
+            } catch (ApiClient.ApiException e) {
+                log.debug("Register failed for {}: {}", nickname, e.getMessage());
+                metrics.error("register");
+                return;
+            }
+        }
+
+        UUID participantId;
+        metrics.joinAttempts.increment();
+        long joinStartedAt = System.nanoTime();
+        try {
+            participantId = api.join(token, game.pinCode, nickname);
+            LoadMetrics.record(metrics.join, joinStartedAt);
+        } catch (ApiClient.ApiException e) {
+            log.debug("Join failed for {}: {}", nickname, e.getMessage());
+            metrics.error(e.status == 409 ? "join_full" : "join");
+            return;
+        }
+
+        SimulatedPlayer player = new SimulatedPlayer(ctx, game, token, participantId);
+        try {
+            player.connect().get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            game.players.add(player);
+        } catch (Exception e) {
+            log.debug("STOMP connect failed for {}: {}", nickname, e.toString());
+            metrics.error("connect");
+            player.disconnect();
+        }
+    }
+
+    private WebSocketStompClient stompClient() {
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        // Roster / leaderboard của phòng đông vượt xa buffer 8KB mặc định của Tomcat
+        container.setDefaultMaxTextMessageBufferSize(1024 * 1024);
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient(container));
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(mapper);
+        client.setMessageConverter(converter);
+        client.setInboundMessageSizeLimit(1024 * 1024);
+        // Không có TaskScheduler cho heart-beat STOMP; presence dùng /heartbeat của ứng dụng
+        client.setDefaultHeartbeat(new long[] {0, 0});
+        return client;
+    }
+}
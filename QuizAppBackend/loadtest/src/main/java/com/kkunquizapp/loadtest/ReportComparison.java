@@ -0,0 +1,94 @@
+package com.kkunquizapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * {@code --compare=a.json,b.json}: the {@code --report} files of several runs
+ * in columns, e.g. the same load against {@code app.game.events.mode=local}
+ * and {@code kafka}. Each column is headed by the delivery path the backend
+ * reported (falls back to the file name).
+ */
+final class ReportComparison {
+
+    private ReportComparison() {
+    }
+
+    static int print(PrintStream out, ObjectMapper mapper, String[] files) throws IOException {
+        List<String> labels = new ArrayList<>();
+        List<JsonNode> reports = new ArrayList<>();
+        for (String file : files) {
+            JsonNode report = mapper.readTree(Path.of(file.trim()).toFile());
+            reports.add(report);
+            labels.add(label(report, file.trim()));
+        }
+
+        out.println();
+        out.printf("%-34s", "p50 / p99 ms");
+        labels.forEach(label -> out.printf(" %20s", label));
+        out.println();
+
+        clientLine(out, "answer -> ack", "answerAckMs", reports);
+        clientLine(out, "broadcast skew", "broadcastSkewMs", reports);
+
+        // Cùng một type, mỗi run một cột; path khác nhau nên chỉ so theo type
+        TreeSet<String> types = new TreeSet<>();
+        reports.forEach(report -> report.path("serverDelivery")
+                .forEach(row -> types.add(row.path("type").asText())));
+        for (String type : types) {
+            out.printf("%-34s", ServerDelivery.METRIC + " " + type);
+            for (JsonNode report : reports) {
+                JsonNode row = serverRow(report, type);
+                out.printf(" %20s", row == null ? "-"
+                        : ServerDelivery.ALL_TYPES.equals(type)
+                        ? String.format("mean %.2f", row.path("meanMs").asDouble())
+                        : pair(row.path("p50Ms"), row.path("p99Ms")));
+            }
+            out.println();
+        }
+
+        out.printf("%-34s", "games completed");
+        reports.forEach(report -> out.printf(" %20s",
+                report.path("gamesCompleted").asLong() + " / " + report.path("games").asLong()));
+        out.println();
+        return 0;
+    }
+
+    private static void clientLine(PrintStream out, String name, String field, List<JsonNode> reports) {
+        out.printf("%-34s", name);
+        for (JsonNode report : reports) {
+            JsonNode h = report.path(field);
+            out.printf(" %20s", h.path("count").asLong() > 0 ? pair(h.path("p50"), h.path("p99")) : "-");
+        }
+        out.println();
+    }
+
+    /** Row of {@code type} with the most events; its path is the events mode the run went through. */
+    private static JsonNode serverRow(JsonNode report, String type) {
+        JsonNode best = null;
+        for (JsonNode row : report.path("serverDelivery")) {
+            if (type.equals(row.path("type").asText())
+                    && (best == null || row.path("count").asLong() > best.path("count").asLong())) {
+                best = row;
+            }
+        }
+        return best;
+    }
+
+    private static String label(JsonNode report, String file) {
+        JsonNode all = serverRow(report, ServerDelivery.ALL_TYPES);
+        return all != null ? all.path("path").asText() : Path.of(file).getFileName().toString();
+    }
+
+    private static String pair(JsonNode p50, JsonNode p99) {
+        return (p50.isNumber() ? String.format("%.2f", p50.asDouble()) : "-")
+                + " / " + (p99.isNumber() ? String.format("%.2f", p99.asDouble()) : "-");
+    }
+}
@@ -0,0 +1,129 @@
+package com.kkunquizapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * {@code game.event.delivery} as the backend measured it: publish → last frame
+ * handed to the broker, tagged with {@code path} (kafka | local, i.e. the
+ * {@code app.game.events.mode} of the node) and the event {@code type}.
+ *
+ * Read from {@code /actuator/metrics} right before the games start and again
+ * after they end; count and mean are the difference, so a backend that already
+ * served other games does not skew them. Max and p50 / p99 are the timer's own
+ * decaying window at the end of the run (a few minutes), not exact for the run.
+ */
+final class ServerDelivery {
+
+    static final String METRIC = "game.event.delivery";
+    static final String ALL_TYPES = "*";
+
+    private static final String[] PATHS = {"local", "kafka"};
+
+    /** One path / event type. Latencies in milliseconds; percentiles null if the backend does not publish them. */
+    record Row(String path, String type, long count, double meanMs, double maxMs, Double p50Ms, Double p99Ms) {
+    }
+
+    /** Cumulative count and total time per path and per path / type. */
+    static final class Snapshot {
+        private final Map<String, double[]> totals = new LinkedHashMap<>();
+    }
+
+    private final ApiClient api;
+    private final String token;
+
+    ServerDelivery(ApiClient api, String token) {
+        this.api = api;
+        this.token = token;
+    }
+
+    Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        for (String path : PATHS) {
+            JsonNode all = api.metric(token, METRIC, Map.of("path", path));
+            if (all == null) {
+                continue;
+            }
+            snapshot.totals.put(path + "|" + ALL_TYPES, countAndTotal(all));
+            for (String type : types(all)) {
+                JsonNode byType = api.metric(token, METRIC, Map.of("path", path, "type", type));
+                if (byType != null) {
+                    snapshot.totals.put(path + "|" + type, countAndTotal(byType));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /** Rows with at least one event between the two snapshots; the all-types row of a path comes first. */
+    List<Row> since(Snapshot before) {
+        Snapshot after = snapshot();
+        List<Row> rows = new ArrayList<>();
+        after.totals.forEach((key, end) -> {
+            double[] start = before.totals.getOrDefault(key, new double[2]);
+            long count = (long) (end[0] - start[0]);
+            if (count <= 0) {
+                return;
+            }
+            String path = key.substring(0, key.indexOf('|'));
+            String type = key.substring(key.indexOf('|') + 1);
+            double meanMs = (end[1] - start[1]) * 1000.0 / count;
+            rows.add(row(path, type, count, meanMs));
+        });
+        return rows;
+    }
+
+    private Row row(String path, String type, long count, double meanMs) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("path", path);
+        if (!ALL_TYPES.equals(type)) {
+            tags.put("type", type);
+        }
+        JsonNode timer = api.metric(token, METRIC, tags);
+        double maxMs = timer != null ? statistic(timer, "MAX") * 1000.0 : 0;
+
+        // Percentile gauge của nhiều type cộng dồn lại thì vô nghĩa → chỉ lấy theo từng type
+        Double p50 = null;
+        Double p99 = null;
+        if (!ALL_TYPES.equals(type)) {
+            p50 = percentile(tags, "0.5");
+            p99 = percentile(tags, "0.99");
+        }
+        return new Row(path, type, count, meanMs, maxMs, p50, p99);
+    }
+
+    private Double percentile(Map<String, String> tags, String phi) {
+        Map<String, String> withPhi = new LinkedHashMap<>(tags);
+        withPhi.put("phi", phi);
+        JsonNode gauge = api.metric(token, METRIC + ".percentile", withPhi);
+        return gauge != null ? statistic(gauge, "VALUE") * 1000.0 : null;
+    }
+
+    private static double[] countAndTotal(JsonNode metric) {
+        return new double[] {statistic(metric, "COUNT"), statistic(metric, "TOTAL_TIME")};
+    }
+
+    private static double statistic(JsonNode metric, String name) {
+        for (JsonNode measurement : metric.path("measurements")) {
+            if (name.equals(measurement.path("statistic").asText())) {
+                return measurement.path("value").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    private static TreeSet<String> types(JsonNode metric) {
+        TreeSet<String> types = new TreeSet<>();
+        for (JsonNode tag : metric.path("availableTags")) {
+            if ("type".equals(tag.path("tag").asText())) {
+                tag.path("values").forEach(value -> types.add(value.asText()));
+            }
+        }
+        return types;
+    }
+}
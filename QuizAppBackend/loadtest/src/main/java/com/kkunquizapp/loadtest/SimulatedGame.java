@@ -0,0 +1,78 @@
+package com.kkunquizapp.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One hosted game and its simulated players.
+ *
+ * Keeps, per question, when the first and the last client received
+ * QUESTION_STARTED; the spread is the broadcast skew of that question.
+ */
+final class SimulatedGame {
+
+    final int index;
+    final UUID gameId;
+    final String pinCode;
+    final List<SimulatedPlayer> players = new CopyOnWriteArrayList<>();
+    final CompletableFuture<Void> finished = new CompletableFuture<>();
+    volatile boolean startFailed;
+
+    private final Map<Integer, Arrival> arrivals = new ConcurrentHashMap<>();
+    private final AtomicInteger playing = new AtomicInteger();
+
+    SimulatedGame(int index, UUID gameId, String pinCode) {
+        this.index = index;
+        this.gameId = gameId;
+        this.pinCode = pinCode;
+    }
+
+    void questionReceived(int questionNumber, long nanos) {
+        arrivals.computeIfAbsent(questionNumber, n -> new Arrival()).add(nanos);
+    }
+
+    /** Called once the connected players are known, right before the host starts the game. */
+    void started(int connectedPlayers) {
+        // Người rớt mạng trước khi bắt đầu đã trừ sẵn
+        if (playing.addAndGet(connectedPlayers) <= 0) {
+            finished.complete(null);
+        }
+    }
+
+    void playerFinished() {
+        if (playing.decrementAndGet() == 0) {
+            finished.complete(null);
+        }
+    }
+
+    /** Fold the per-question arrivals into the run metrics; players that never saw a question count as errors. */
+    void collect(LoadMetrics metrics, int connectedPlayers) {
+        arrivals.values().forEach(arrival -> {
+            synchronized (arrival) {
+                if (arrival.count > 1) {
+                    metrics.broadcastSkew.recordValue((arrival.last - arrival.first) / 1_000);
+                }
+                for (int i = arrival.count; i < connectedPlayers; i++) {
+                    metrics.error("missed_question");
+                }
+            }
+        });
+    }
+
+    private static final class Arrival {
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        int count;
+
+        synchronized void add(long nanos) {
+            first = Math.min(first, nanos);
+            last = Math.max(last, nanos);
+            count++;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.kkunquizapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One player's STOMP session, behaving like the web client.
+ *
+ * Subscribes to {@code /topic/game/{id}} and {@code /user/queue/answer-result},
+ * sends the presence heartbeat, and answers every QUESTION_STARTED after a
+ * log-normal think time. Answer-to-ack time is measured from the SEND to the
+ * matching answer-result frame; a player has at most one answer in flight.
+ */
+final class SimulatedPlayer extends StompSessionHandlerAdapter {
+
+    /** Shared by every player of the run. */
+    record Context(LoadTestConfig config, LoadMetrics metrics, WebSocketStompClient client,
+                   ScheduledExecutorService scheduler) {
+    }
+
+    private static final long HEARTBEAT_MS = 10_000;
+    private static final long MIN_THINK_MS = 200;
+
+    private final Context ctx;
+    private final SimulatedGame game;
+    private final String token;
+    private final UUID participantId;
+
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+    private final Set<Integer> seenQuestions = ConcurrentHashMap.newKeySet();
+    /** nanoTime of the answer waiting for its ack, 0 if none. */
+    private final AtomicLong answerSentAt = new AtomicLong();
+
+    private volatile StompSession session;
+    private volatile ScheduledFuture<?> heartbeat;
+    private volatile boolean finished;
+    private long connectStartedAt;
+
+    /** @param token null for an anonymous player */
+    SimulatedPlayer(Context ctx, SimulatedGame game, String token, UUID participantId) {
+        this.ctx = ctx;
+        this.game = game;
+        this.token = token;
+        this.participantId = participantId;
+    }
+
+    CompletableFuture<Void> connect() {
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        StompHeaders connectHeaders = new StompHeaders();
+        if (token != null) {
+            // Handshake đọc cookie, CONNECT đọc Authorization — gửi cả hai như web client
+            handshakeHeaders.add("Cookie", "accessToken=" + token);
+            connectHeaders.add("Authorization", "Bearer " + token);
+        }
+        ctx.metrics().connectAttempts.increment();
+        connectStartedAt = System.nanoTime();
+        ctx.client().connectAsync(ctx.config().webSocketUrl(), handshakeHeaders, connectHeaders, this)
+                .whenComplete((s, e) -> {
+                    if (e != null) {
+                        connected.completeExceptionally(e);
+                    }
+                });
+        return connected;
+    }
+
+    void disconnect() {
+        finished = true;
+        cancelHeartbeat();
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            synchronized (this) {
+                current.disconnect();
+            }
+        }
+    }
+
+    // ==================== STOMP CALLBACKS ====================
+
+    @Override
+    public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+        LoadMetrics.record(ctx.metrics().connect, connectStartedAt);
+        this.session = session;
+        synchronized (this) {
+            session.subscribe("/topic/game/" + game.gameId, handler(this::onGameEvent));
+            session.subscribe("/user/queue/answer-result", handler(result -> onAnswerResult()));
+        }
+        long jitter = ThreadLocalRandom.current().nextLong(HEARTBEAT_MS);
+        heartbeat = ctx.scheduler().scheduleAtFixedRate(this::sendHeartbeat, jitter, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+        connected.complete(null);
+    }
+
+    /** ERROR frames from the broker end up here. */
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        ctx.metrics().error("stomp_error");
+    }
+
+    @Override
+    public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                byte[] payload, Throwable exception) {
+        ctx.metrics().error("stomp_exception");
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        if (!connected.isDone()) {
+            connected.completeExceptionally(exception);
+            return;
+        }
+        if (!finished) {
+            ctx.metrics().error("transport");
+            finish();
+        }
+    }
+
+    // ==================== GAME ====================
+
+    private void onGameEvent(JsonNode event) {
+        long receivedAt = System.nanoTime();
+        switch (event.path("eventType").asText()) {
+            case "QUESTION_STARTED" -> onQuestionStarted(event.path("data"), receivedAt);
+            case "GAME_ENDED", "GAME_AUTO_ENDED", "GAME_CANCELLED" -> finish();
+            default -> {
+            }
+        }
+    }
+
+    private void onQuestionStarted(JsonNode data, long receivedAt) {
+        int number = data.path("questionNumber").asInt();
+        // Cùng một câu có thể tới lại (catch-up / replay) — chỉ tính lần đầu
+        if (!seenQuestions.add(number)) {
+            return;
+        }
+        ctx.metrics().questionsReceived.increment();
+        game.questionReceived(number, receivedAt);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < ctx.config().noAnswerRate()) {
+            return;
+        }
+        JsonNode question = data.path("question");
+        long limitMs = TimeUnit.SECONDS.toMillis(data.path("timeLimit").asLong(question.path("timeLimitSeconds").asLong(20)));
+        long thinkMs = (long) (ctx.config().thinkMedian().toMillis() * Math.exp(ctx.config().thinkSigma() * random.nextGaussian()));
+        thinkMs = Math.max(MIN_THINK_MS, Math.min(thinkMs, limitMs - 500));
+        ctx.scheduler().schedule(() -> answer(question), thinkMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void answer(JsonNode question) {
+        if (finished || session == null) {
+            return;
+        }
+        Object answer = pickAnswer(question);
+        try {
+            if (answer == null) {
+                send("/app/game/" + game.gameId + "/skip", Map.of());
+                ctx.metrics().skipsSent.increment();
+                return;
+            }
+            long sentAt = System.nanoTime();
+            if (answerSentAt.getAndSet(sentAt) != 0) {
+                // Câu trước vẫn chưa có ack khi câu mới đã được trả lời
+                ctx.metrics().error("ack_overtaken");
+            }
+            send("/app/game/" + game.gameId + "/answer",
+                    Map.of("submittedAnswer", answer, "submittedAt", LocalDateTime.now()));
+            ctx.metrics().answersSent.increment();
+            ctx.scheduler().schedule(() -> {
+                if (answerSentAt.compareAndSet(sentAt, 0)) {
+                    ctx.metrics().error("ack_timeout");
+                }
+            }, ctx.config().ackTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            ctx.metrics().error("answer");
+        }
+    }
+
+    private void onAnswerResult() {
+        long sentAt = answerSentAt.getAndSet(0);
+        if (sentAt == 0) {
+            ctx.metrics().error("unexpected_ack");
+            return;
+        }
+        LoadMetrics.record(ctx.metrics().answerAck, sentAt);
+        ctx.metrics().answersAcked.increment();
+    }
+
+    /**
+     * A random answer in the shape the web client sends. Choice questions are
+     * answered by position in the displayed list, which the server maps back
+     * to the option id (works with shuffled options too).
+     */
+    private static Object pickAnswer(JsonNode question) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int options = question.path("options").size();
+        return switch (question.path("type").asText()) {
+            case "SINGLE_CHOICE", "IMAGE_SELECTION", "DROPDOWN" -> options > 0 ? random.nextInt(options) : null;
+            case "MULTIPLE_CHOICE" -> {
+                if (options == 0) {
+                    yield null;
+                }
+                List<Integer> picked = new ArrayList<>();
+                for (int i = 0; i < options; i++) {
+                    if (random.nextBoolean()) {
+                        picked.add(i);
+                    }
+                }
+                yield picked.isEmpty() ? List.of(random.nextInt(options)) : picked;
+            }
+            case "TRUE_FALSE" -> random.nextBoolean();
+            case "SHORT_ANSWER", "FILL_IN_THE_BLANK" -> "loadtest";
+            default -> null;
+        };
+    }
+
+    private void sendHeartbeat() {
+        if (finished) {
+            return;
+        }
+        try {
+            send("/app/game/" + game.gameId + "/heartbeat", Map.of());
+        } catch (RuntimeException e) {
+            ctx.metrics().error("heartbeat");
+        }
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        cancelHeartbeat();
+        game.playerFinished();
+    }
+
+    private void cancelHeartbeat() {
+        ScheduledFuture<?> current = heartbeat;
+        if (current != null) {
+            current.cancel(false);
+        }
+    }
+
+    /** The WebSocket session is not safe for concurrent writes: answers, heartbeats and subscribes take turns. */
+    private void send(String destination, Object payload) {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination(destination);
+        headers.add("participantId", participantId.toString());
+        synchronized (this) {
+            session.send(headers, payload);
+        }
+    }
+
+    private static StompFrameHandler handler(Consumer<JsonNode> consumer) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return JsonNode.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                consumer.accept((JsonNode) payload);
+            }
+        };
+    }
+}
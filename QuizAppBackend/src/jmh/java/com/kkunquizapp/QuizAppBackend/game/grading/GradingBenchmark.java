@@ -0,0 +1,91 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+import com.kkunquizapp.QuizAppBackend.game.mapper.GameMapperImpl;
+import com.kkunquizapp.QuizAppBackend.question.model.Option;
+import com.kkunquizapp.QuizAppBackend.question.model.Question;
+import com.kkunquizapp.QuizAppBackend.question.model.enums.QuestionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of grading one answer, per question type.
+ *
+ * - {@link #grade}: {@link AnswerKey#grade} on an already resolved submission.
+ * - {@link #submit}: what {@code submitAnswer} does per answer — map the
+ *   client's positions back to option ids with shuffled options, grade, score.
+ * - {@link #compileKey}: building the key when a question starts
+ *   (includes the display text of the correct answer).
+ *
+ * Run with {@code -prof gc} (the default of the jmh profile) to get the
+ * allocation rate per call next to the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradingBenchmark {
+
+    /** Distinct submissions cycled through, so branch prediction does not learn one answer. */
+    private static final int POOL_SIZE = 64;
+    private static final int MASK = POOL_SIZE - 1;
+
+    @Param({"SINGLE_CHOICE", "MULTIPLE_CHOICE", "TRUE_FALSE", "FILL_IN_THE_BLANK", "MATCHING", "ORDERING",
+            "DRAG_DROP", "SHORT_ANSWER", "ESSAY", "HOTSPOT", "IMAGE_SELECTION", "DROPDOWN", "MATRIX", "RANKING"})
+    public QuestionType type;
+
+    private AnswerKeyCompiler compiler;
+    private Question question;
+    private AnswerKey key;
+    private Object[] resolved;
+    private Object[] wire;
+    private List<UUID> optionIds;
+    private Integer optionSeed;
+    private UUID participantId;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GradingFixtures.Fixture fixture = GradingFixtures.create(type, POOL_SIZE, 42L);
+        compiler = new AnswerKeyCompiler(new GameMapperImpl());
+        question = fixture.question();
+        key = compiler.compile(question);
+        resolved = fixture.resolved().toArray();
+        wire = fixture.wire().toArray();
+        optionIds = question.getOptions().stream().map(Option::getOptionId).toList();
+        optionSeed = OptionShuffle.questionSeed(7L, question.getQuestionId());
+        participantId = new UUID(1L, 2L);
+    }
+
+    @Benchmark
+    public AnswerGradingResult grade() {
+        return key.grade(resolved[next++ & MASK]);
+    }
+
+    @Benchmark
+    public int submit() {
+        Object submitted = OptionShuffle.resolve(wire[next++ & MASK], optionIds, optionSeed, participantId);
+        AnswerGradingResult result = key.grade(submitted);
+        return AnswerScoring.points(result.correct(), 1000, 4_000, 20);
+    }
+
+    @Benchmark
+    public AnswerKey compileKey() {
+        return compiler.compile(question);
+    }
+}
@@ -0,0 +1,234 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+import com.kkunquizapp.QuizAppBackend.question.model.*;
+import com.kkunquizapp.QuizAppBackend.question.model.enums.QuestionType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Realistic questions and submissions for the grading benchmarks.
+ *
+ * Submissions have the shapes Jackson produces from the STOMP payload
+ * ({@code LinkedHashMap}, {@code ArrayList}, {@code Integer}, {@code String}),
+ * roughly 70% of them correct. Ids come from a fixed seed so runs compare.
+ */
+final class GradingFixtures {
+
+    static final double CORRECT_SHARE = 0.7;
+
+    private GradingFixtures() {
+    }
+
+    /** One question plus a pool of submissions: resolved (option ids) and as sent by the web client. */
+    record Fixture(Question question, List<Object> resolved, List<Object> wire) {
+    }
+
+    static Fixture create(QuestionType type, int poolSize, long seed) {
+        Random random = new Random(seed);
+        Question question = question(type, random);
+        List<UUID> ids = question.getOptions().stream().map(Option::getOptionId).toList();
+
+        List<Object> resolved = new ArrayList<>(poolSize);
+        List<Object> wire = new ArrayList<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            boolean correct = random.nextDouble() < CORRECT_SHARE;
+            Submission submission = submission(type, question.getOptions(), ids, correct, random);
+            resolved.add(submission.resolved);
+            wire.add(submission.wire);
+        }
+        return new Fixture(question, resolved, wire);
+    }
+
+    // ==================== QUESTIONS ====================
+
+    private static Question question(QuestionType type, Random random) {
+        List<Option> options = switch (type) {
+            // 4 đáp án, 1 đúng
+            case SINGLE_CHOICE -> choices(4, 1, i -> SingleChoiceOption.builder().text("Đáp án " + i), random);
+            case IMAGE_SELECTION -> choices(4, 1, i -> ImageSelectionOption.builder()
+                    .imageUrl("https://cdn.example.com/q/" + i + ".png").imageLabel("Hình " + i), random);
+            case DROPDOWN -> choices(6, 1, i -> DropdownOption.builder()
+                    .dropdownValue("v" + i).displayLabel("Lựa chọn " + i), random);
+            // 6 đáp án, 3 đúng
+            case MULTIPLE_CHOICE -> choices(6, 3, i -> MultipleChoiceOption.builder().text("Đáp án " + i), random);
+            case TRUE_FALSE -> List.of(
+                    TrueFalseOption.builder().optionId(uuid(random)).text("Đúng").correct(true).build(),
+                    TrueFalseOption.builder().optionId(uuid(random)).text("Sai").build());
+            case SHORT_ANSWER -> List.of(ShortAnswerOption.builder().optionId(uuid(random))
+                    .expectedAnswer("quang hợp")
+                    .requiredKeywords("[\"ánh sáng\", \"diệp lục\"]")
+                    .caseInsensitive(true).build());
+            case FILL_IN_THE_BLANK -> List.of(FillInTheBlankOption.builder().optionId(uuid(random))
+                    .correctAnswer("Hà Nội")
+                    .acceptedVariations("[\"ha noi\", \"hanoi\", \"thủ đô hà nội\"]")
+                    .caseInsensitive(true).build());
+            case ESSAY -> List.of(EssayOption.builder().optionId(uuid(random))
+                    .minWords(50).maxWords(300)
+                    .sampleAnswer(words(120, random)).build());
+            // 10 cặp ghép nối
+            case MATCHING -> indexed(10, i -> MatchingOption.builder().optionId(uuid(random))
+                    .leftItem("Quốc gia " + i).rightItem("Thủ đô " + i).build());
+            // 8 mục sắp xếp
+            case ORDERING -> indexed(8, i -> OrderingOption.builder().optionId(uuid(random))
+                    .item("Bước " + (i + 1)).correctPosition(i + 1).build());
+            // 6 mục kéo vào 3 vùng
+            case DRAG_DROP -> indexed(6, i -> DragDropOption.builder().optionId(uuid(random))
+                    .draggableItem("Mục " + i).dropZoneId("zone-" + (i % 3)).dropZoneLabel("Vùng " + (i % 3)).build());
+            case HOTSPOT -> List.of(HotspotOption.builder().optionId(uuid(random))
+                    .hotspotCoordinates("320,180").hotspotLabel("Tim").build());
+            // Lưới 5×5, 1 ô đúng
+            case MATRIX -> indexed(25, i -> MatrixOption.builder().optionId(uuid(random))
+                    .rowId("r" + (i / 5)).columnId("c" + (i % 5))
+                    .rowLabel("Hàng " + (i / 5)).columnLabel("Cột " + (i % 5))
+                    .isCorrectCell(i == 12).build());
+            // 5 mục xếp hạng
+            case RANKING -> indexed(5, i -> RankingOption.builder().optionId(uuid(random))
+                    .rankableItem("Mục " + i).correctRank(i + 1).rankingScale(5).build());
+        };
+
+        return Question.builder()
+                .questionId(uuid(random))
+                .questionText("Câu hỏi " + type)
+                .type(type)
+                .options(new ArrayList<>(options))
+                .build();
+    }
+
+    private static List<Option> choices(int count, int correctCount,
+                                        IntFunction<Option.OptionBuilder<?, ?>> builder, Random random) {
+        List<Option> options = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            options.add(builder.apply(i).optionId(uuid(random)).correct(i < correctCount).build());
+        }
+        Collections.shuffle(options, random);
+        return options;
+    }
+
+    private static List<Option> indexed(int count, IntFunction<Option> factory) {
+        List<Option> options = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            options.add(factory.apply(i));
+        }
+        return options;
+    }
+
+    // ==================== SUBMISSIONS ====================
+
+    private record Submission(Object resolved, Object wire) {
+        static Submission same(Object value) {
+            return new Submission(value, value);
+        }
+    }
+
+    private static Submission submission(QuestionType type, List<Option> options, List<UUID> ids,
+                                         boolean correct, Random random) {
+        return switch (type) {
+            case SINGLE_CHOICE, IMAGE_SELECTION, DROPDOWN -> {
+                int position = correct ? correctPositions(options).get(0) : wrongPosition(options, random);
+                yield new Submission(ids.get(position).toString(), position);
+            }
+            case MULTIPLE_CHOICE -> {
+                List<Integer> positions = new ArrayList<>(correctPositions(options));
+                if (!correct) {
+                    positions.remove(positions.size() - 1);
+                    positions.add(wrongPosition(options, random));
+                }
+                Collections.shuffle(positions, random);
+                List<Object> picked = new ArrayList<>(positions.size());
+                positions.forEach(p -> picked.add(ids.get(p).toString()));
+                yield new Submission(picked, new ArrayList<Object>(positions));
+            }
+            case TRUE_FALSE -> Submission.same(correct);
+            case SHORT_ANSWER -> Submission.same(correct
+                    ? "Quang hợp là quá trình cây dùng ánh sáng và diệp lục để tạo chất hữu cơ"
+                    : "Hô hấp tế bào tạo ra năng lượng");
+            case FILL_IN_THE_BLANK -> Submission.same(correct ? "  ha noi " : "Hải Phòng");
+            case ESSAY -> Submission.same(words(correct ? 50 + random.nextInt(250) : 20, random));
+            case MATCHING -> {
+                Map<String, Object> pairs = new LinkedHashMap<>();
+                for (UUID id : ids) {
+                    pairs.put(id.toString(), id.toString());
+                }
+                if (!correct) {
+                    pairs.put(ids.get(0).toString(), ids.get(1).toString());
+                }
+                yield Submission.same(pairs);
+            }
+            case ORDERING -> {
+                List<Object> order = new ArrayList<>(ids.size());
+                ids.forEach(id -> order.add(id.toString()));
+                if (!correct) {
+                    Collections.swap(order, 0, order.size() - 1);
+                }
+                yield Submission.same(order);
+            }
+            case DRAG_DROP -> {
+                Map<String, Object> placements = new LinkedHashMap<>();
+                for (Option option : options) {
+                    placements.put(option.getOptionId().toString(), ((DragDropOption) option).getDropZoneId());
+                }
+                if (!correct) {
+                    placements.put(ids.get(0).toString(), "zone-2");
+                }
+                yield Submission.same(placements);
+            }
+            case HOTSPOT -> {
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("x", correct ? 320 + random.nextInt(9) - 4 : 100);
+                point.put("y", correct ? 180 + random.nextInt(9) - 4 : 400);
+                yield Submission.same(point);
+            }
+            case MATRIX -> Submission.same(correct ? "r2-c2" : "r" + random.nextInt(2) + "-c" + random.nextInt(5));
+            case RANKING -> {
+                Map<String, Object> ranks = new LinkedHashMap<>();
+                for (Option option : options) {
+                    ranks.put(option.getOptionId().toString(), ((RankingOption) option).getCorrectRank());
+                }
+                if (!correct) {
+                    ranks.put(ids.get(0).toString(), 5);
+                }
+                yield Submission.same(ranks);
+            }
+        };
+    }
+
+    private static List<Integer> correctPositions(List<Option> options) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < options.size(); i++) {
+            if (options.get(i).isCorrect()) {
+                positions.add(i);
+            }
+        }
+        return positions;
+    }
+
+    private static int wrongPosition(List<Option> options, Random random) {
+        int position;
+        do {
+            position = random.nextInt(options.size());
+        } while (options.get(position).isCorrect());
+        return position;
+    }
+
+    private static String words(int count, Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(random.nextInt(12) == 0 ? "\n" : " ");
+            }
+            text.append("từ").append(random.nextInt(1000));
+        }
+        return text.toString();
+    }
+
+    private static UUID uuid(Random random) {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+}
@@ -0,0 +1,51 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AnswerScoring#points} over a spread of response times covering all
+ * three bonus bands, correct and wrong answers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+    private static final int MASK = POOL_SIZE - 1;
+    private static final int TIME_LIMIT_SECONDS = 20;
+
+    private final long[] responseTimes = new long[POOL_SIZE];
+    private final boolean[] correct = new boolean[POOL_SIZE];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            responseTimes[i] = random.nextInt(TIME_LIMIT_SECONDS * 1000);
+            correct[i] = random.nextDouble() < GradingFixtures.CORRECT_SHARE;
+        }
+    }
+
+    @Benchmark
+    public int points() {
+        int i = next++ & MASK;
+        return AnswerScoring.points(correct[i], 1000, responseTimes[i], TIME_LIMIT_SECONDS);
+    }
+}
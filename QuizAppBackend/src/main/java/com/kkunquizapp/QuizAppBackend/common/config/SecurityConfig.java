@@ -87,6 +87,8 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/api/games/*/leave").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/games/{gameId}/answer").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/games/{gameId}/skip").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/games/{gameId}/replay").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/games/{gameId}/presence").permitAll()
 
                         // Public read-only
                         .requestMatchers(
@@ -1,9 +1,14 @@
 package com.kkunquizapp.QuizAppBackend.common.config;
 
 import com.kkunquizapp.QuizAppBackend.common.interceptor.JwtHandshakeInterceptor;
+import com.kkunquizapp.QuizAppBackend.game.cluster.ClusterBrokerBridge;
+import com.kkunquizapp.QuizAppBackend.game.broadcast.OutboundQueueGauge;
+import com.kkunquizapp.QuizAppBackend.game.session.ParticipantConnections;
+import com.kkunquizapp.QuizAppBackend.game.trace.FrameWriteTracer;
 import com.kkunquizapp.QuizAppBackend.common.interceptor.UserIdPrincipalHandshakeHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -27,6 +32,11 @@ import java.security.Principal;
  * - Connection lifecycle logging
  * - Heartbeat configuration
  * - Thread pool optimization
+ * - Pluggable broker (app.websocket.broker.mode):
+ *   simple = in-memory broker, single node
+ *   relay  = external STOMP broker (RabbitMQ/ActiveMQ) shared by all nodes
+ *   redis  = in-memory broker per node, frames fanned out via Redis pub/sub
+ *   local  = like redis, but over an in-JVM bus (multi-node tests in one JVM)
  */
 @Configuration
 @EnableWebSocketMessageBroker
@@ -36,6 +46,28 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
     private final UserIdPrincipalHandshakeHandler userIdPrincipalHandshakeHandler;
+    private final ClusterBrokerBridge clusterBrokerBridge;
+    private final ParticipantConnections participantConnections;
+    private final OutboundQueueGauge outboundQueueGauge;
+    private final FrameWriteTracer frameWriteTracer;
+
+    private static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user-destination";
+    private static final String USER_REGISTRY_BROADCAST = "/topic/simp-user-registry";
+
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
 
     /**
      * Register WebSocket endpoints
@@ -71,12 +103,30 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Enable simple in-memory broker for pub/sub
-        registry.enableSimpleBroker("/topic", "/queue")
-                // Set heartbeat: [server-to-client, client-to-server] in milliseconds
-                .setHeartbeatValue(new long[]{25000, 25000})
-                // Task scheduler for heartbeat
-                .setTaskScheduler(createTaskScheduler());
+        switch (brokerMode) {
+            case "relay" -> {
+                // Broker ngoài giữ subscription của mọi node → mọi frame tới đủ client
+                registry.enableStompBrokerRelay("/topic", "/queue")
+                        .setRelayHost(relayHost)
+                        .setRelayPort(relayPort)
+                        .setClientLogin(relayLogin)
+                        .setClientPasscode(relayPasscode)
+                        .setSystemLogin(relayLogin)
+                        .setSystemPasscode(relayPasscode)
+                        .setSystemHeartbeatSendInterval(25000)
+                        .setSystemHeartbeatReceiveInterval(25000)
+                        // Message /user/... cho user đang kết nối ở node khác
+                        .setUserDestinationBroadcast(USER_DESTINATION_BROADCAST)
+                        .setUserRegistryBroadcast(USER_REGISTRY_BROADCAST);
+            }
+            case "redis", "local" -> {
+                enableSimpleBroker(registry);
+                // Frame /topic và /user của node này được phát sang node khác qua ClusterMessageBus
+                registry.configureBrokerChannel().interceptors(clusterBrokerBridge);
+            }
+            case "simple" -> enableSimpleBroker(registry);
+            default -> throw new IllegalStateException("Unknown app.websocket.broker.mode: " + brokerMode);
+        }
 
         // Prefix for messages FROM client TO server
         registry.setApplicationDestinationPrefixes("/app");
@@ -84,7 +134,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Prefix for user-specific messages
         registry.setUserDestinationPrefix("/user");
 
-        log.info("Message broker configured: /topic, /queue, /user");
+        log.info("Message broker configured ({}): /topic, /queue, /user", brokerMode);
+    }
+
+    private void enableSimpleBroker(MessageBrokerRegistry registry) {
+        // Enable simple in-memory broker for pub/sub
+        registry.enableSimpleBroker("/topic", "/queue")
+                // Set heartbeat: [server-to-client, client-to-server] in milliseconds
+                .setHeartbeatValue(new long[]{25000, 25000})
+                // Task scheduler for heartbeat
+                .setTaskScheduler(createTaskScheduler());
     }
 
     /**
@@ -140,6 +199,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             }
         });
 
+        // Ghi nhận participantId ↔ session để gửi frame riêng cho guest
+        registration.interceptors(participantConnections);
+
         // Configure thread pool for inbound messages
         registration.taskExecutor()
                 .corePoolSize(10)
@@ -172,6 +234,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             }
         });
 
+        // Số frame đang chờ gửi theo loại event (game.ws.outbound.queue.depth)
+        registration.interceptors(outboundQueueGauge);
+        // Thời điểm frame được ghi xuống từng session (hop cuối của trace)
+        registration.interceptors(frameWriteTracer);
+
         // Configure thread pool for outbound messages
         registration.taskExecutor()
                 .corePoolSize(10)
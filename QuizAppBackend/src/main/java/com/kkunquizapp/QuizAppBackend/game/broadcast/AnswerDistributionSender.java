@@ -0,0 +1,88 @@
+package com.kkunquizapp.QuizAppBackend.game.broadcast;
+
+import com.kkunquizapp.QuizAppBackend.game.cluster.GameOwnershipService;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import com.kkunquizapp.QuizAppBackend.game.model.enums.GameStatus;
+import com.kkunquizapp.QuizAppBackend.game.session.AnswerDistribution;
+import com.kkunquizapp.QuizAppBackend.game.session.GameSession;
+import com.kkunquizapp.QuizAppBackend.game.session.GameSessionRegistry;
+import com.kkunquizapp.QuizAppBackend.game.session.QuestionState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pushes the live answer histogram of the open question to the host only.
+ *
+ * Runs on a fixed delay ({@code app.game.distribution.push-interval-ms}); a game
+ * whose counters did not move since the last tick is skipped, so a quiet room
+ * costs nothing. The host gets an ANSWER_DISTRIBUTION event on
+ * /user/queue/game-updates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AnswerDistributionSender {
+
+    private static final String DESTINATION = "/queue/game-updates";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final GameSessionRegistry sessionRegistry;
+    private final GameOwnershipService ownershipService;
+
+    @Scheduled(fixedDelayString = "${app.game.distribution.push-interval-ms:250}")
+    public void pushLiveDistributions() {
+        for (GameSession session : sessionRegistry.all()) {
+            QuestionState question = session.getCurrentQuestion();
+            if (session.getStatus() != GameStatus.IN_PROGRESS
+                    || question == null
+                    || question.distribution().isFinished()
+                    || !ownershipService.isOwnedHere(session.getGameId())) {
+                continue;
+            }
+
+            question.distribution().pollChange().ifPresent(snapshot -> {
+                try {
+                    send(session, payload(session, question, snapshot, false));
+                } catch (Exception e) {
+                    log.warn("Failed to push answer distribution of game {}: {}",
+                            session.getGameId(), e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Payload shared by the live push and the QUESTION_ENDED reveal.
+     */
+    public Map<String, Object> payload(GameSession session, QuestionState question,
+                                       AnswerDistribution.Snapshot snapshot, boolean isFinal) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("questionId", question.questionId());
+        data.put("questionNumber", question.index() + 1);
+        data.put("answered", snapshot.answered());
+        data.put("correct", snapshot.correct());
+        data.put("skipped", snapshot.skipped());
+        data.put("counts", snapshot.counts());
+        data.put("activePlayers", session.presentParticipantCount());
+        data.put("final", isFinal);
+        return data;
+    }
+
+    private void send(GameSession session, Map<String, Object> data) {
+        GameEvent event = GameEvent.builder()
+                .gameId(session.getGameId())
+                .eventType("ANSWER_DISTRIBUTION")
+                .userId(session.getHostId())
+                .data(data)
+                .timestamp(LocalDateTime.now())
+                .build();
+        messagingTemplate.convertAndSendToUser(session.getHostId().toString(), DESTINATION, event);
+    }
+}
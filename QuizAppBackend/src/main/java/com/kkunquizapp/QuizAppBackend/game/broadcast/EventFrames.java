@@ -0,0 +1,146 @@
+package com.kkunquizapp.QuizAppBackend.game.broadcast;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import com.kkunquizapp.QuizAppBackend.game.trace.EventTrace;
+import com.kkunquizapp.QuizAppBackend.game.trace.FrameStamp;
+import com.kkunquizapp.QuizAppBackend.game.trace.GameLatencyTracker;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.Temporal;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Frames of one game event. Not thread-safe: one instance per event, one thread.
+ *
+ * Every object is serialized at most once: the same payload sent to several
+ * destinations reuses its bytes, and large parts (question, leaderboard) embedded
+ * in several reshaped payloads are written once and spliced in as raw JSON.
+ */
+public final class EventFrames {
+
+    private final GameFrameSender sender;
+    private final String eventType;
+    private final GameLatencyTracker.Delivery delivery;
+    private final long startNanos;
+
+    /** Serialized JSON by payload identity. */
+    private final Map<Object, byte[]> serialized = new IdentityHashMap<>();
+    /** Raw JSON fragment by value identity. */
+    private final Map<Object, RawValue> fragments = new IdentityHashMap<>();
+
+    private long serializedBytes;
+    private int framesSent;
+
+    EventFrames(GameFrameSender sender, String eventType, GameLatencyTracker.Delivery delivery, long startNanos) {
+        this.sender = sender;
+        this.eventType = eventType;
+        this.delivery = delivery;
+        this.startNanos = startNanos;
+    }
+
+    // ==================== SHARED FRAGMENTS ====================
+
+    /**
+     * Pre-serialized JSON of {@code value}, to embed in other payloads without
+     * serializing it again. Scalars are returned unchanged.
+     */
+    public Object raw(Object value) {
+        if (value == null || isScalar(value)) {
+            return value;
+        }
+        RawValue fragment = fragments.get(value);
+        if (fragment == null) {
+            byte[] json = bytes(value);
+            fragment = new RawValue(new String(json, StandardCharsets.UTF_8));
+            fragments.put(value, fragment);
+            // Fragment gửi nguyên khối (vd. leaderboard) dùng lại đúng bytes này
+            serialized.put(fragment, json);
+        }
+        return fragment;
+    }
+
+    /**
+     * Copy of the event whose structured data values are shared fragments,
+     * so handlers embedding the same values do not serialize them again.
+     */
+    public GameEvent share(GameEvent event) {
+        if (event.getData() == null || event.getData().isEmpty()) {
+            return event;
+        }
+        Map<String, Object> data = new LinkedHashMap<>(event.getData().size() * 2);
+        event.getData().forEach((key, value) -> data.put(key, raw(value)));
+        return GameEvent.builder()
+                .gameId(event.getGameId())
+                .eventType(event.getEventType())
+                .userId(event.getUserId())
+                .sequence(event.getSequence())
+                .data(data)
+                .timestamp(event.getTimestamp())
+                .trace(event.getTrace())
+                .build();
+    }
+
+    // ==================== SEND ====================
+
+    public void send(String destination, Object payload) {
+        sender.messagingTemplate().send(destination, message(bytes(payload)));
+        framesSent++;
+    }
+
+    public void sendToUser(String user, String destination, Object payload) {
+        String prefix = sender.messagingTemplate().getUserDestinationPrefix();
+        send(prefix + user + destination, payload);
+    }
+
+    public void finish() {
+        sender.record(eventType, startNanos, serializedBytes, framesSent);
+    }
+
+    // ==================== INTERNAL ====================
+
+    private byte[] bytes(Object payload) {
+        byte[] json = serialized.get(payload);
+        if (json == null) {
+            try {
+                json = sender.objectMapper().writeValueAsBytes(payload);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize " + eventType + " frame", e);
+            }
+            serialized.put(payload, json);
+            serializedBytes += json.length;
+        }
+        return json;
+    }
+
+    private Message<byte[]> message(byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (eventType != null) {
+            accessor.setHeader(OutboundQueueGauge.EVENT_TYPE_HEADER, eventType);
+        }
+        if (delivery != null) {
+            accessor.setHeader(FrameStamp.HEADER, new FrameStamp(delivery, EventTrace.nowMicros()));
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof CharSequence
+                || value instanceof Number
+                || value instanceof Boolean
+                || value instanceof Enum<?>
+                || value instanceof UUID
+                || value instanceof Temporal
+                || value instanceof RawValue;
+    }
+}
@@ -0,0 +1,78 @@
+package com.kkunquizapp.QuizAppBackend.game.broadcast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kkunquizapp.QuizAppBackend.game.trace.GameLatencyTracker;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of the serialize-once broadcast pipeline.
+ *
+ * Uses the primary ObjectMapper, the same one Spring's STOMP message converter
+ * uses, so pre-serialized frames are byte-for-byte what {@code convertAndSend}
+ * would have produced.
+ */
+@Component
+public class GameFrameSender {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public GameFrameSender(SimpMessagingTemplate messagingTemplate,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Start the frames of one game event; call {@link EventFrames#finish()} after the last send.
+     */
+    public EventFrames begin(String eventType) {
+        return begin(eventType, null);
+    }
+
+    /**
+     * Same, stamping every frame with {@code delivery} so its write to each
+     * session is timed; null for untraced events.
+     */
+    public EventFrames begin(String eventType, GameLatencyTracker.Delivery delivery) {
+        return new EventFrames(this, eventType, delivery, System.nanoTime());
+    }
+
+    SimpMessagingTemplate messagingTemplate() {
+        return messagingTemplate;
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    void record(String eventType, long startNanos, long serializedBytes, int framesSent) {
+        String type = eventType != null ? eventType : "unknown";
+        DistributionSummary.builder("game.broadcast.serialized.bytes")
+                .description("JSON bytes serialized to broadcast one game event")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(serializedBytes);
+        DistributionSummary.builder("game.broadcast.frames")
+                .description("Destinations one game event was sent to")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(framesSent);
+        Timer.builder("game.broadcast.latency")
+                .description("Time to serialize and hand one game event to the broker")
+                .tag("type", type)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,63 @@
+package com.kkunquizapp.QuizAppBackend.game.broadcast;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Frames waiting in (or being written by) the client outbound channel, by game
+ * event type: gauge {@code game.ws.outbound.queue.depth}, tag {@code type}.
+ *
+ * {@link EventFrames} stamps each frame with {@link #EVENT_TYPE_HEADER}; the
+ * simple broker copies it onto every per-session MESSAGE. Frames without it
+ * (answer results, chat, frames relayed from another node) count as "other".
+ * The header is not a STOMP native header, so it never reaches the client.
+ */
+@Component
+public class OutboundQueueGauge implements ExecutorChannelInterceptor {
+
+    public static final String EVENT_TYPE_HEADER = "gameEventType";
+
+    private static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> depth = new ConcurrentHashMap<>();
+
+    public OutboundQueueGauge(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        counter(message).incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // Executor từ chối (queue đầy) → frame không bao giờ tới afterMessageHandled
+        if (!sent || ex != null) {
+            counter(message).decrementAndGet();
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        counter(message).decrementAndGet();
+    }
+
+    private AtomicInteger counter(Message<?> message) {
+        Object type = message.getHeaders().get(EVENT_TYPE_HEADER);
+        return depth.computeIfAbsent(type != null ? type.toString() : OTHER, t -> meterRegistry.gauge(
+                "game.ws.outbound.queue.depth", Tags.of("type", t), new AtomicInteger()));
+    }
+}
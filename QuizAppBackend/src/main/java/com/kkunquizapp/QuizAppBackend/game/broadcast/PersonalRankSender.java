@@ -0,0 +1,83 @@
+package com.kkunquizapp.QuizAppBackend.game.broadcast;
+
+import com.kkunquizapp.QuizAppBackend.game.dto.LeaderboardEntryDTO;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import com.kkunquizapp.QuizAppBackend.game.session.GameSession;
+import com.kkunquizapp.QuizAppBackend.game.session.ParticipantState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends every player their own position after a question reveal.
+ *
+ * The room only gets the top N; each player additionally receives a small
+ * PERSONAL_RANK event with their rank, score and the entries right above and
+ * below them. Logged-in players get it on /user/queue/game-updates by userId;
+ * guests have no Principal and subscribe to /topic/game/{gameId}/rank/{participantId}.
+ * Both are bridged to every node, so the player gets it wherever they are connected.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PersonalRankSender {
+
+    private static final String USER_DESTINATION = "/queue/game-updates";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * @param ranked the whole leaderboard in rank order, previousRank filled in
+     */
+    public void send(GameSession session, List<LeaderboardEntryDTO> ranked) {
+        LocalDateTime now = LocalDateTime.now();
+        int sent = 0;
+
+        for (int i = 0; i < ranked.size(); i++) {
+            LeaderboardEntryDTO entry = ranked.get(i);
+            ParticipantState participant = session.participant(entry.getParticipantId());
+            if (participant == null || !participant.isActive()) {
+                continue;
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("participantId", entry.getParticipantId());
+            data.put("rank", entry.getRank());
+            data.put("previousRank", entry.getPreviousRank());
+            data.put("score", entry.getScore());
+            data.put("totalPlayers", ranked.size());
+            data.put("above", i > 0 ? ranked.get(i - 1) : null);
+            data.put("below", i + 1 < ranked.size() ? ranked.get(i + 1) : null);
+
+            GameEvent event = GameEvent.builder()
+                    .gameId(session.getGameId())
+                    .eventType("PERSONAL_RANK")
+                    .userId(participant.getUserId())
+                    .data(data)
+                    .timestamp(now)
+                    .build();
+
+            try {
+                if (participant.getUserId() != null) {
+                    messagingTemplate.convertAndSendToUser(participant.getUserId().toString(), USER_DESTINATION, event);
+                } else {
+                    messagingTemplate.convertAndSend(guestDestination(session, entry), event);
+                }
+                sent++;
+            } catch (Exception e) {
+                log.warn("Failed to send rank to participant {}: {}", entry.getParticipantId(), e.getMessage());
+            }
+        }
+        log.debug("Sent personal rank to {}/{} players of game {}", sent, ranked.size(), session.getGameId());
+    }
+
+    private static String guestDestination(GameSession session, LeaderboardEntryDTO entry) {
+        return "/topic/game/" + session.getGameId() + "/rank/" + entry.getParticipantId();
+    }
+}
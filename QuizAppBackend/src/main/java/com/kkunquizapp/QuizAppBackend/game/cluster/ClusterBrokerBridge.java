@@ -0,0 +1,123 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bridges the local simple broker of every node through a {@link ClusterMessageBus}.
+ *
+ * Installed as an interceptor on the broker channel: each /topic frame sent by
+ * application code on this node is published once on the bus (payload already
+ * serialized). Frames from other nodes are injected into the local broker
+ * channel, so local subscribers receive them as if the event had happened here.
+ *
+ * /user destinations are bridged before resolution, so each node delivers them to
+ * the user's sessions connected there; messages already resolved for one local
+ * session stay local.
+ */
+@Component
+@Slf4j
+public class ClusterBrokerBridge implements ChannelInterceptor {
+
+    /** Marks frames injected from the bus so they are not published again. */
+    static final String RELAYED_HEADER = "clusterRelayed";
+
+    private final ClusterNode node;
+    private final ObjectProvider<ClusterMessageBus> bus;
+    private final ObjectProvider<MessageChannel> brokerChannel;
+
+    public ClusterBrokerBridge(ClusterNode node,
+                               ObjectProvider<ClusterMessageBus> bus,
+                               @Qualifier("brokerChannel") ObjectProvider<MessageChannel> brokerChannel) {
+        this.node = node;
+        this.bus = bus;
+        this.brokerChannel = brokerChannel;
+    }
+
+    public boolean isActive() {
+        return bus.getIfAvailable() != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ClusterMessageBus clusterBus = bus.getIfAvailable();
+        if (clusterBus != null) {
+            clusterBus.subscribe(this::onFrame);
+            log.info("STOMP broadcasts bridged across nodes via {}", clusterBus.getClass().getSimpleName());
+        }
+    }
+
+    // ==================== OUTBOUND ====================
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        ClusterMessageBus clusterBus = bus.getIfAvailable();
+        if (clusterBus == null || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null
+                || accessor.getMessageType() != SimpMessageType.MESSAGE
+                || accessor.getHeader(RELAYED_HEADER) != null
+                || accessor.getHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION) != null) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (destination == null || !(destination.startsWith("/topic/") || destination.startsWith("/user/"))) {
+            return message;
+        }
+
+        Map<String, String> nativeHeaders = new HashMap<>();
+        Map<String, List<String>> headers = accessor.toNativeHeaderMap();
+        headers.forEach((name, values) -> {
+            if (!values.isEmpty()) {
+                nativeHeaders.put(name, values.get(0));
+            }
+        });
+
+        try {
+            clusterBus.publish(new ClusterFrame(node.getNodeId(), destination,
+                    accessor.getContentType() != null ? accessor.getContentType().toString() : null,
+                    nativeHeaders, payload));
+        } catch (Exception e) {
+            // Subscriber trên node này vẫn nhận bình thường, chỉ node khác bị lỡ frame
+            log.error("Failed to publish {} to other nodes: {}", destination, e.getMessage());
+        }
+        return message;
+    }
+
+    // ==================== INBOUND ====================
+
+    private void onFrame(ClusterFrame frame) {
+        if (node.isSelf(frame.originNodeId())) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(frame.destination());
+        if (frame.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(frame.contentType()));
+        }
+        frame.nativeHeaders().forEach(accessor::setNativeHeader);
+        accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+
+        brokerChannel.getObject().send(MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders()));
+    }
+}
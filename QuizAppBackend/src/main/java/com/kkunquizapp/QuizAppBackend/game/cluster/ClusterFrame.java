@@ -0,0 +1,60 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An already serialized STOMP broadcast travelling between nodes.
+ *
+ * @param originNodeId  node whose application code sent the frame
+ * @param destination   broker destination, e.g. /topic/game/{gameId}
+ * @param contentType   MIME type of {@code payload}, may be null
+ * @param nativeHeaders STOMP native headers to keep (first value only)
+ */
+public record ClusterFrame(String originNodeId, String destination, String contentType,
+                           Map<String, String> nativeHeaders, byte[] payload) {
+
+    public byte[] encode() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(payload.length + 128);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeUTF(originNodeId);
+            out.writeUTF(destination);
+            out.writeUTF(contentType != null ? contentType : "");
+            out.writeShort(nativeHeaders.size());
+            for (Map.Entry<String, String> header : nativeHeaders.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeUTF(header.getValue());
+            }
+            out.writeInt(payload.length);
+            out.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static ClusterFrame decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            String origin = in.readUTF();
+            String destination = in.readUTF();
+            String contentType = in.readUTF();
+            int headerCount = in.readShort();
+            Map<String, String> nativeHeaders = new HashMap<>(headerCount * 2);
+            for (int i = 0; i < headerCount; i++) {
+                nativeHeaders.put(in.readUTF(), in.readUTF());
+            }
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            return new ClusterFrame(origin, destination, contentType.isEmpty() ? null : contentType,
+                    nativeHeaders, payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
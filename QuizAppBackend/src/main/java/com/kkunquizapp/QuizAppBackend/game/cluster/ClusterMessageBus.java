@@ -0,0 +1,16 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Node-to-node channel used to fan STOMP broadcasts out to every node's local broker.
+ *
+ * Every published frame reaches every subscribed node once, including the
+ * publisher itself; receivers skip their own frames by {@link ClusterFrame#originNodeId()}.
+ */
+public interface ClusterMessageBus {
+
+    void publish(ClusterFrame frame);
+
+    void subscribe(Consumer<ClusterFrame> listener);
+}
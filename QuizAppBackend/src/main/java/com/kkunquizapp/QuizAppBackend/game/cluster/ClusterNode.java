@@ -0,0 +1,51 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Identity of this backend instance inside the game cluster.
+ *
+ * With {@code app.cluster.enabled=false} (single box) every game is owned
+ * locally and nothing is forwarded.
+ */
+@Component
+@Getter
+@Slf4j
+public class ClusterNode {
+
+    private final boolean enabled;
+    private final String nodeId;
+    /** Base URL other nodes use to forward game commands here, e.g. http://10.0.0.5:8080 */
+    private final String advertisedUrl;
+
+    public ClusterNode(@Value("${app.cluster.enabled:false}") boolean enabled,
+                       @Value("${app.cluster.node-id:}") String nodeId,
+                       @Value("${app.cluster.advertised-url:http://localhost:${server.port:8080}}") String advertisedUrl) {
+        this.enabled = enabled;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.advertisedUrl = advertisedUrl;
+        if (enabled) {
+            log.info("Cluster mode enabled: node {} at {}", this.nodeId, advertisedUrl);
+        }
+    }
+
+    public boolean isSelf(String otherNodeId) {
+        return nodeId.equals(otherNodeId);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
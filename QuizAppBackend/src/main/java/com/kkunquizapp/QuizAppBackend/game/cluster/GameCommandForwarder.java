@@ -0,0 +1,178 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kkunquizapp.QuizAppBackend.game.dto.AnswerResultDTO;
+import com.kkunquizapp.QuizAppBackend.game.dto.GameReplayDTO;
+import com.kkunquizapp.QuizAppBackend.game.dto.PresenceBatchRequest;
+import com.kkunquizapp.QuizAppBackend.game.dto.SubmitAnswerRequest;
+import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Sends game commands received on a non-owner node to the node that owns the game.
+ *
+ * Forwarded calls carry {@value #FORWARDED_HEADER}; the receiving node always
+ * handles such calls itself, so a stale lease can never make two nodes bounce
+ * a command back and forth.
+ */
+@Component
+@Slf4j
+public class GameCommandForwarder {
+
+    public static final String FORWARDED_HEADER = "X-Forwarded-By-Node";
+
+    private final GameOwnershipService ownershipService;
+    private final ClusterNode node;
+    private final ObjectMapper objectMapper;
+    private final RestClient restClient;
+
+    public GameCommandForwarder(GameOwnershipService ownershipService,
+                                ClusterNode node,
+                                ObjectMapper objectMapper,
+                                RestClient.Builder restClientBuilder,
+                                @Value("${app.cluster.forward-timeout-ms:3000}") int timeoutMs) {
+        this.ownershipService = ownershipService;
+        this.node = node;
+        this.objectMapper = objectMapper;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        this.restClient = restClientBuilder.requestFactory(requestFactory).build();
+    }
+
+    /**
+     * Base URL of the owner node if the game is owned by another live node.
+     */
+    public Optional<String> ownerUrl(UUID gameId) {
+        return ownershipService.remoteOwner(gameId).flatMap(ownershipService::nodeUrl);
+    }
+
+    // ==================== HTTP PROXY ====================
+
+    /**
+     * Replay an incoming REST call on the owner and return its response untouched.
+     */
+    public ResponseEntity<byte[]> proxy(String ownerUrl, HttpServletRequest request, byte[] body) {
+        String uri = ownerUrl + request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+
+        return restClient.method(HttpMethod.valueOf(request.getMethod()))
+                .uri(uri)
+                .headers(headers -> {
+                    copyHeader(request, headers, HttpHeaders.AUTHORIZATION);
+                    copyHeader(request, headers, HttpHeaders.CONTENT_TYPE);
+                    copyHeader(request, headers, HttpHeaders.COOKIE);
+                    copyHeader(request, headers, "X-Participant-Id");
+                    headers.set(FORWARDED_HEADER, node.getNodeId());
+                })
+                .body(body != null ? body : new byte[0])
+                .retrieve()
+                // Trả nguyên status lỗi của owner cho client
+                .onStatus(status -> true, (req, res) -> { })
+                .toEntity(byte[].class);
+    }
+
+    private static void copyHeader(HttpServletRequest request, HttpHeaders headers, String name) {
+        String value = request.getHeader(name);
+        if (value != null) {
+            headers.set(name, value);
+        }
+    }
+
+    // ==================== STOMP COMMANDS ====================
+
+    public AnswerResultDTO forwardAnswer(String ownerUrl, UUID gameId, UUID participantId,
+                                         SubmitAnswerRequest request) {
+        return restClient.post()
+                .uri(ownerUrl + "/api/games/{gameId}/answer", gameId)
+                .header("X-Participant-Id", participantId.toString())
+                .header(FORWARDED_HEADER, node.getNodeId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(request)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, (req, res) -> {
+                    throw ownerError(res.getStatusCode(), res.getBody());
+                })
+                .body(AnswerResultDTO.class);
+    }
+
+    public void forwardSkip(String ownerUrl, UUID gameId, UUID participantId) {
+        restClient.post()
+                .uri(ownerUrl + "/api/games/{gameId}/skip", gameId)
+                .header("X-Participant-Id", participantId.toString())
+                .header(FORWARDED_HEADER, node.getNodeId())
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, (req, res) -> {
+                    throw ownerError(res.getStatusCode(), res.getBody());
+                })
+                .toBodilessEntity();
+    }
+
+    /** Missed events live in the owner's replay buffer → ask the owner. */
+    public GameReplayDTO forwardResume(String ownerUrl, UUID gameId, UUID participantId, long lastSequence) {
+        return restClient.post()
+                .uri(ownerUrl + "/api/games/{gameId}/replay", gameId)
+                .headers(headers -> {
+                    if (participantId != null) {
+                        headers.set("X-Participant-Id", participantId.toString());
+                    }
+                    headers.set(FORWARDED_HEADER, node.getNodeId());
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("lastSequence", lastSequence))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, (req, res) -> {
+                    throw ownerError(res.getStatusCode(), res.getBody());
+                })
+                .body(GameReplayDTO.class);
+    }
+
+    /** Presence of sockets held here; {@code awaiting} of the open question lives on the owner. */
+    public void forwardPresence(String ownerUrl, UUID gameId, Collection<UUID> wentOffline, Collection<UUID> cameBack) {
+        restClient.post()
+                .uri(ownerUrl + "/api/games/{gameId}/presence", gameId)
+                .header(FORWARDED_HEADER, node.getNodeId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new PresenceBatchRequest(List.copyOf(wentOffline), List.copyOf(cameBack)))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, (req, res) -> {
+                    throw ownerError(res.getStatusCode(), res.getBody());
+                })
+                .toBodilessEntity();
+    }
+
+    /** Re-raise the owner's error locally with its original message and status. */
+    private GameException ownerError(HttpStatusCode status, InputStream body) {
+        String message = "Game owner rejected the command";
+        try {
+            JsonNode error = objectMapper.readTree(body);
+            if (error != null && error.hasNonNull("message")) {
+                message = error.get("message").asText();
+            }
+        } catch (Exception e) {
+            log.debug("Unreadable error body from game owner: {}", e.getMessage());
+        }
+        HttpStatus httpStatus = HttpStatus.resolve(status.value());
+        return new GameException(message, "GAME_ERROR", httpStatus);
+    }
+}
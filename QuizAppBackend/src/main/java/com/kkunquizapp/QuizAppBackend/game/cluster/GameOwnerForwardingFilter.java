@@ -0,0 +1,155 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chuyển các lệnh REST thay đổi trạng thái game sang node đang giữ game.
+ *
+ * Chỉ áp dụng cho POST /api/games/{gameId}/(start|pause|...|leave). Các request
+ * đọc dữ liệu vẫn xử lý tại chỗ (fallback DB). Nếu owner không phản hồi thì xử lý
+ * local: lease của owner chết sẽ hết hạn và node này nhận game.
+ */
+@Component
+@Order(20)
+@Slf4j
+public class GameOwnerForwardingFilter implements Filter {
+
+    private static final Pattern GAME_COMMAND = Pattern.compile(
+            "^/api/games/([0-9a-fA-F-]{36})/(start|pause|resume|next-question|end|cancel|kick/[^/]+|answer|skip|leave|replay)$");
+
+    private final ClusterNode node;
+    private final GameCommandForwarder forwarder;
+
+    public GameOwnerForwardingFilter(ClusterNode node, GameCommandForwarder forwarder) {
+        this.node = node;
+        this.forwarder = forwarder;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+
+        if (!node.isEnabled()
+                || !"POST".equalsIgnoreCase(req.getMethod())
+                || req.getHeader(GameCommandForwarder.FORWARDED_HEADER) != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Matcher matcher = GAME_COMMAND.matcher(req.getRequestURI());
+        if (!matcher.matches()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        UUID gameId;
+        try {
+            gameId = UUID.fromString(matcher.group(1));
+        } catch (IllegalArgumentException e) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<String> ownerUrl = forwarder.ownerUrl(gameId);
+        if (ownerUrl.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = req.getInputStream().readAllBytes();
+        ResponseEntity<byte[]> forwarded;
+        try {
+            forwarded = forwarder.proxy(ownerUrl.get(), req, body);
+        } catch (ResourceAccessException e) {
+            log.warn("Owner of game {} unreachable at {}, handling locally: {}",
+                    gameId, ownerUrl.get(), e.getMessage());
+            chain.doFilter(new CachedBodyRequest(req, body), response);
+            return;
+        }
+
+        res.setStatus(forwarded.getStatusCode().value());
+        String contentType = forwarded.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+        if (contentType != null) {
+            res.setContentType(contentType);
+        }
+        if (forwarded.getBody() != null) {
+            res.getOutputStream().write(forwarded.getBody());
+        }
+    }
+
+    /** Body đã bị đọc để forward → phát lại cho controller khi xử lý local. */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /** Cả body đã nằm trong bộ nhớ → báo có dữ liệu rồi báo đọc xong ngay. */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException | RuntimeException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
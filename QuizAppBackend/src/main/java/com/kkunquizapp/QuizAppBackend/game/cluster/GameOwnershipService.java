@@ -0,0 +1,158 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import com.kkunquizapp.QuizAppBackend.game.session.GameSessionRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pins every running game to exactly one node through a Redis lease.
+ *
+ * The lease {@code game:owner:{gameId}} holds the owner's node id and expires
+ * unless the owner renews it. Only the owner keeps the live {@code GameSession}
+ * and fires the game's timers; other nodes forward commands to it. If the
+ * owner dies, the lease runs out and the next node that touches the game
+ * (a forwarded command or the timer sweep) takes it over.
+ *
+ * Live nodes advertise their URL under {@code cluster:node:{nodeId}} so
+ * forwarders can reach the owner.
+ */
+@Service
+@Slf4j
+public class GameOwnershipService {
+
+    private static final String OWNER_PREFIX = "game:owner:";
+    private static final String NODE_PREFIX = "cluster:node:";
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ClusterNode node;
+    private final GameSessionRegistry sessionRegistry;
+    private final Duration leaseTtl;
+
+    /** Games whose lease this node currently holds. */
+    private final Set<UUID> owned = ConcurrentHashMap.newKeySet();
+
+    public GameOwnershipService(StringRedisTemplate redis,
+                                ClusterNode node,
+                                GameSessionRegistry sessionRegistry,
+                                @Value("${app.cluster.lease-ttl-ms:15000}") long leaseTtlMs) {
+        this.redis = redis;
+        this.node = node;
+        this.sessionRegistry = sessionRegistry;
+        this.leaseTtl = Duration.ofMillis(leaseTtlMs);
+    }
+
+    public boolean isClustered() {
+        return node.isEnabled();
+    }
+
+    /**
+     * Claim the game for this node unless another live node holds it.
+     *
+     * @return true if this node owns the game afterwards
+     */
+    public boolean acquire(UUID gameId) {
+        if (!node.isEnabled() || owned.contains(gameId)) {
+            return true;
+        }
+        String key = OWNER_PREFIX + gameId;
+        if (Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(key, node.getNodeId(), leaseTtl))) {
+            owned.add(gameId);
+            log.info("Node {} now owns game {}", node.getNodeId(), gameId);
+            return true;
+        }
+        if (node.isSelf(redis.opsForValue().get(key))) {
+            owned.add(gameId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether timers and state changes for this game may run here.
+     */
+    public boolean isOwnedHere(UUID gameId) {
+        return !node.isEnabled() || owned.contains(gameId);
+    }
+
+    /**
+     * Node id of the owner if it is another node; empty if this node owns the
+     * game or nobody does.
+     */
+    public Optional<String> remoteOwner(UUID gameId) {
+        if (!node.isEnabled() || owned.contains(gameId)) {
+            return Optional.empty();
+        }
+        String owner = redis.opsForValue().get(OWNER_PREFIX + gameId);
+        if (owner == null || node.isSelf(owner)) {
+            return Optional.empty();
+        }
+        return Optional.of(owner);
+    }
+
+    public Optional<String> nodeUrl(String nodeId) {
+        return Optional.ofNullable(redis.opsForValue().get(NODE_PREFIX + nodeId));
+    }
+
+    public void release(UUID gameId) {
+        if (!node.isEnabled() || !owned.remove(gameId)) {
+            return;
+        }
+        redis.execute(RELEASE_SCRIPT, List.of(OWNER_PREFIX + gameId), node.getNodeId());
+    }
+
+    // ==================== LEASE RENEWAL ====================
+
+    @Scheduled(fixedDelayString = "${app.cluster.renew-interval-ms:5000}")
+    public void renewLeases() {
+        if (!node.isEnabled()) {
+            return;
+        }
+        try {
+            redis.opsForValue().set(NODE_PREFIX + node.getNodeId(), node.getAdvertisedUrl(), leaseTtl);
+
+            String ttl = String.valueOf(leaseTtl.toMillis());
+            for (UUID gameId : owned) {
+                Long renewed = redis.execute(RENEW_SCRIPT, List.of(OWNER_PREFIX + gameId), node.getNodeId(), ttl);
+                if (renewed == null || renewed == 0) {
+                    // Lease đã hết hạn và node khác đã nhận game → bỏ state cục bộ
+                    log.warn("Node {} lost the lease of game {}", node.getNodeId(), gameId);
+                    owned.remove(gameId);
+                    sessionRegistry.remove(gameId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to renew game leases: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        if (!node.isEnabled()) {
+            return;
+        }
+        // Nhả lease ngay để node khác nhận game mà không phải đợi hết TTL
+        for (UUID gameId : List.copyOf(owned)) {
+            release(gameId);
+        }
+        redis.delete(NODE_PREFIX + node.getNodeId());
+    }
+}
@@ -0,0 +1,60 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for the Redis bus (app.websocket.broker.mode=local).
+ *
+ * Subscribers are shared by the whole JVM, so several application contexts
+ * started in one JVM (e.g. a multi-node integration test) behave like separate
+ * nodes on a real bus. Delivery is asynchronous and in publish order, as with Redis.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker.mode", havingValue = "local")
+@Slf4j
+public class LocalClusterMessageBus implements ClusterMessageBus {
+
+    private static final List<Consumer<ClusterFrame>> SUBSCRIBERS = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<ClusterFrame>> ownSubscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService delivery = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "local-cluster-bus");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void publish(ClusterFrame frame) {
+        delivery.execute(() -> {
+            for (Consumer<ClusterFrame> subscriber : SUBSCRIBERS) {
+                try {
+                    subscriber.accept(frame);
+                } catch (Exception e) {
+                    log.error("Local cluster subscriber failed for {}: {}", frame.destination(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterFrame> listener) {
+        ownSubscribers.add(listener);
+        SUBSCRIBERS.add(listener);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Context này dừng → gỡ subscriber để các "node" khác không gửi tiếp vào
+        SUBSCRIBERS.removeAll(ownSubscribers);
+        delivery.shutdown();
+    }
+}
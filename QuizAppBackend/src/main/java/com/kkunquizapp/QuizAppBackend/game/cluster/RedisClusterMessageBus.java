@@ -0,0 +1,66 @@
+package com.kkunquizapp.QuizAppBackend.game.cluster;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * {@link ClusterMessageBus} over Redis pub/sub (app.websocket.broker.mode=redis).
+ *
+ * Frames are published as raw bytes on one channel; each node receives each
+ * frame once and hands it to its local simple broker.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker.mode", havingValue = "redis")
+@Slf4j
+public class RedisClusterMessageBus implements ClusterMessageBus {
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer container;
+    private final byte[] channel;
+    private final ChannelTopic topic;
+
+    public RedisClusterMessageBus(StringRedisTemplate redis,
+                                  RedisConnectionFactory connectionFactory,
+                                  @Value("${app.websocket.broker.redis-channel:ws:broadcast}") String channel) {
+        this.redis = redis;
+        this.channel = channel.getBytes(StandardCharsets.UTF_8);
+        this.topic = new ChannelTopic(channel);
+
+        this.container = new RedisMessageListenerContainer();
+        this.container.setConnectionFactory(connectionFactory);
+        this.container.afterPropertiesSet();
+        this.container.start();
+    }
+
+    @Override
+    public void publish(ClusterFrame frame) {
+        byte[] message = frame.encode();
+        redis.execute(connection -> connection.publish(channel, message), true);
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterFrame> listener) {
+        container.addMessageListener((message, pattern) -> {
+            try {
+                listener.accept(ClusterFrame.decode(message.getBody()));
+            } catch (Exception e) {
+                log.error("Dropping unreadable cluster frame: {}", e.getMessage());
+            }
+        }, topic);
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        container.destroy();
+    }
+}
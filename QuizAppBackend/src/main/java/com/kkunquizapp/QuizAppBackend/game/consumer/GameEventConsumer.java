@@ -1,12 +1,22 @@
 package com.kkunquizapp.QuizAppBackend.game.consumer;
 
+import com.kkunquizapp.QuizAppBackend.game.broadcast.EventFrames;
+import com.kkunquizapp.QuizAppBackend.game.broadcast.GameFrameSender;
 import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEventPublisher;
+import com.kkunquizapp.QuizAppBackend.game.trace.EventTrace;
+import com.kkunquizapp.QuizAppBackend.game.trace.GameLatencyTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -33,7 +43,9 @@ import java.util.Map;
 @Slf4j
 public class GameEventConsumer {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final GameFrameSender frameSender;
+    private final MeterRegistry meterRegistry;
+    private final GameLatencyTracker latencyTracker;
 
     // ==================== KAFKA LISTENER ====================
 
@@ -47,28 +59,60 @@ public class GameEventConsumer {
     @KafkaListener(
             topics = "${app.kafka.topics.game-events}",
             groupId = "game-websocket-group",
-            concurrency = "3"
+            concurrency = "3",
+            // Mode local: node owner tự broadcast, Kafka chỉ còn là bản ghi audit
+            autoStartup = "#{'${app.game.events.mode:kafka}' == 'kafka'}"
     )
-    public void consumeGameEvent(GameEvent event) {
+    public void consumeGameEvent(ConsumerRecord<String, GameEvent> record) {
+        GameEvent event = record.value();
+        if (event != null) {
+            // Trace không nằm trong JSON → lấy lại từ header của record
+            event.setTrace(EventTrace.readFrom(record.headers()));
+        }
+        dispatch(event, "kafka");
+    }
+
+    /**
+     * Broadcast one game event to WebSocket subscribers.
+     * Called by the Kafka listener, or directly by {@link GameEventPublisher} in local mode.
+     *
+     * @param path how the event got here ("kafka" / "local"), used as metric tag
+     */
+    public void dispatch(GameEvent event, String path) {
         try {
             if (event == null || event.getGameId() == null) {
                 log.warn("Received null or invalid game event");
                 return;
             }
 
+            recordLag(event, path);
+            GameLatencyTracker.Delivery delivery = latencyTracker.received(event);
+
             log.debug("Consuming event: {} for game: {} (userId: {})",
                     event.getEventType(), event.getGameId(), event.getUserId());
 
-            // 1. Broadcast to all participants in the game room
-            broadcastToGameRoom(event);
-
-            // 2. Send user-specific notifications if userId is present
-            if (event.getUserId() != null) {
-                sendToUser(event);
+            // Mỗi object (event, question, leaderboard) chỉ serialize một lần cho mọi destination
+            EventFrames frames = frameSender.begin(event.getEventType(), delivery);
+            try {
+                GameEvent shared = frames.share(event);
+
+                // 1. Broadcast to all participants in the game room
+                broadcastToGameRoom(frames, shared);
+
+                // 2. Send user-specific notifications if userId is present
+                if (event.getUserId() != null) {
+                    sendToUser(frames, shared);
+                }
+
+                // 3. Handle specific event types with custom logic
+                // (event gốc: frames.raw() vẫn trả fragment đã serialize ở bước 1)
+                handleSpecificEventTypes(frames, event);
+            } finally {
+                frames.finish();
+                latencyTracker.brokered(delivery);
             }
 
-            // 3. Handle specific event types with custom logic
-            handleSpecificEventTypes(event);
+            recordDelivery(event, path);
 
             log.debug("Event {} processed successfully for game {}",
                     event.getEventType(), event.getGameId());
@@ -81,6 +125,32 @@ public class GameEventConsumer {
         }
     }
 
+    /** Time from publishGameEvent until this consumer starts on the event (queue / Kafka lag). */
+    private void recordLag(GameEvent event, String path) {
+        record("game.event.consumer.lag", "Delay between publishing a game event and starting to process it",
+                event, path);
+    }
+
+    /** Time from publishGameEvent to the last frame handed to the broker. */
+    private void recordDelivery(GameEvent event, String path) {
+        record("game.event.delivery", "Delay between publishing a game event and broadcasting it",
+                event, path);
+    }
+
+    private void record(String name, String description, GameEvent event, String path) {
+        if (event.getTimestamp() == null) {
+            return;
+        }
+        Duration latency = Duration.between(event.getTimestamp(), LocalDateTime.now());
+        Timer.builder(name)
+                .description(description)
+                .tag("path", path)
+                .tag("type", event.getEventType() != null ? event.getEventType() : "unknown")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(latency.isNegative() ? Duration.ZERO : latency);
+    }
+
     // ==================== BROADCAST METHODS ====================
 
     /**
@@ -89,11 +159,11 @@ public class GameEventConsumer {
      *
      * All players in the game receive this notification
      */
-    private void broadcastToGameRoom(GameEvent event) {
+    private void broadcastToGameRoom(EventFrames frames, GameEvent event) {
         String destination = "/topic/game/" + event.getGameId();
 
         try {
-            messagingTemplate.convertAndSend(destination, event);
+            frames.send(destination, event);
             log.trace("Broadcasted {} to {}", event.getEventType(), destination);
         } catch (Exception e) {
             log.error("Failed to broadcast to game room {}: {}",
@@ -107,12 +177,13 @@ public class GameEventConsumer {
      *
      * Only the specified user receives this notification
      */
-    private void sendToUser(GameEvent event) {
+    private void sendToUser(EventFrames frames, GameEvent event) {
         String userId = event.getUserId().toString();
         String destination = "/queue/game-updates";
 
         try {
-            messagingTemplate.convertAndSendToUser(userId, destination, event);
+            // Cùng object với frame của game room → dùng lại bytes đã serialize
+            frames.sendToUser(userId, destination, event);
             log.trace("Sent {} to user: {}", event.getEventType(), userId);
         } catch (Exception e) {
             log.error("Failed to send event to user {}: {}",
@@ -124,9 +195,9 @@ public class GameEventConsumer {
      * Broadcast data to specific topic
      * Used for targeted broadcasts (e.g., leaderboard, participants)
      */
-    private void broadcastToTopic(String destination, Object payload) {
+    private void broadcastToTopic(EventFrames frames, String destination, Object payload) {
         try {
-            messagingTemplate.convertAndSend(destination, payload);
+            frames.send(destination, payload);
             log.trace("Broadcasted to {}", destination);
         } catch (Exception e) {
             log.error("Failed to broadcast to {}: {}", destination, e.getMessage());
@@ -138,23 +209,21 @@ public class GameEventConsumer {
     /**
      * Route events to specific handlers based on event type
      */
-    private void handleSpecificEventTypes(GameEvent event) {
+    private void handleSpecificEventTypes(EventFrames frames, GameEvent event) {
         try {
             switch (event.getEventType()) {
-                case "GAME_CREATED" -> handleGameCreated(event);
-                case "GAME_STARTING" -> handleGameStarting(event);
-                case "GAME_STARTED" -> handleGameStarted(event);
-                case "GAME_PAUSED" -> handleGamePaused(event);
-                case "GAME_RESUMED" -> handleGameResumed(event);
-                case "GAME_ENDED" -> handleGameEnded(event);
-                case "GAME_CANCELLED" -> handleGameCancelled(event);
-                case "GAME_AUTO_ENDED" -> handleGameAutoEnded(event);
-                case "PARTICIPANT_JOINED" -> handleParticipantJoined(event);
-                case "PARTICIPANT_LEFT" -> handleParticipantLeft(event);
-                case "PARTICIPANT_KICKED" -> handleParticipantKicked(event);
-                case "QUESTION_STARTED" -> handleQuestionStarted(event);
-                case "QUESTION_ENDED" -> handleQuestionEnded(event);
-                case "GAME_START_FAILED" -> handleGameStartFailed(event);
+                case "GAME_CREATED" -> handleGameCreated(frames, event);
+                case "GAME_STARTING" -> handleGameStarting(frames, event);
+                case "GAME_STARTED" -> handleGameStarted(frames, event);
+                case "GAME_PAUSED" -> handleGamePaused(frames, event);
+                case "GAME_RESUMED" -> handleGameResumed(frames, event);
+                case "GAME_ENDED" -> handleGameEnded(frames, event);
+                case "GAME_CANCELLED" -> handleGameCancelled(frames, event);
+                case "GAME_AUTO_ENDED" -> handleGameAutoEnded(frames, event);
+                case "ROSTER_UPDATED" -> handleRosterUpdated(frames, event);
+                case "QUESTION_STARTED" -> handleQuestionStarted(frames, event);
+                case "QUESTION_ENDED" -> handleQuestionEnded(frames, event);
+                case "GAME_START_FAILED" -> handleGameStartFailed(frames, event);
                 default -> log.debug("No specific handler for event type: {}", event.getEventType());
             }
         } catch (Exception e) {
@@ -165,7 +234,7 @@ public class GameEventConsumer {
 
     // ==================== GAME LIFECYCLE HANDLERS ====================
 
-    private void handleGameCreated(GameEvent event) {
+    private void handleGameCreated(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         if (data != null) {
             String pinCode = (String) data.get("pinCode");
@@ -177,7 +246,7 @@ public class GameEventConsumer {
 
             // Broadcast to waiting room
             String destination = "/topic/game/" + event.getGameId() + "/created";
-            broadcastToTopic(destination, Map.of(
+            broadcastToTopic(frames, destination, Map.of(
                     "gameId", event.getGameId(),
                     "pinCode", pinCode,
                     "quizTitle", quizTitle,
@@ -186,7 +255,7 @@ public class GameEventConsumer {
         }
     }
 
-    private void handleGameStarting(GameEvent event) {
+    private void handleGameStarting(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         if (data != null) {
             Integer countdown = (Integer) data.get("countdown");
@@ -197,14 +266,14 @@ public class GameEventConsumer {
 
             // Alert all players - game starting soon
             String destination = "/topic/game/" + event.getGameId() + "/countdown";
-            broadcastToTopic(destination, Map.of(
+            broadcastToTopic(frames, destination, Map.of(
                     "countdown", countdown,
                     "totalQuestions", totalQuestions
             ));
         }
     }
 
-    private void handleGameStarted(GameEvent event) {
+    private void handleGameStarted(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         if (data != null) {
             Integer totalQuestions = (Integer) data.get("totalQuestions");
@@ -214,28 +283,28 @@ public class GameEventConsumer {
 
             // Notify all players game has started
             String destination = "/topic/game/" + event.getGameId() + "/started";
-            broadcastToTopic(destination, Map.of(
+            broadcastToTopic(frames, destination, Map.of(
                     "status", "started",
                     "totalQuestions", totalQuestions
             ));
         }
     }
 
-    private void handleGamePaused(GameEvent event) {
+    private void handleGamePaused(EventFrames frames, GameEvent event) {
         log.info("Game {} paused", event.getGameId());
 
         String destination = "/topic/game/" + event.getGameId() + "/status";
-        broadcastToTopic(destination, Map.of("status", "paused"));
+        broadcastToTopic(frames, destination, Map.of("status", "paused"));
     }
 
-    private void handleGameResumed(GameEvent event) {
+    private void handleGameResumed(EventFrames frames, GameEvent event) {
         log.info("Game {} resumed", event.getGameId());
 
         String destination = "/topic/game/" + event.getGameId() + "/status";
-        broadcastToTopic(destination, Map.of("status", "resumed"));
+        broadcastToTopic(frames, destination, Map.of("status", "resumed"));
     }
 
-    private void handleGameEnded(GameEvent event) {
+    private void handleGameEnded(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         if (data != null) {
             Integer totalPlayers = (Integer) data.get("totalPlayers");
@@ -247,12 +316,12 @@ public class GameEventConsumer {
             // Broadcast final leaderboard
             if (data.containsKey("leaderboard")) {
                 String leaderboardDestination = "/topic/game/" + event.getGameId() + "/final-leaderboard";
-                broadcastToTopic(leaderboardDestination, data.get("leaderboard"));
+                broadcastToTopic(frames, leaderboardDestination, frames.raw(data.get("leaderboard")));
             }
 
             // Send game ended notification
             String endedDestination = "/topic/game/" + event.getGameId() + "/ended";
-            broadcastToTopic(endedDestination, Map.of(
+            broadcastToTopic(frames, endedDestination, Map.of(
                     "status", "ended",
                     "totalPlayers", totalPlayers,
                     "averageScore", averageScore
@@ -260,40 +329,40 @@ public class GameEventConsumer {
         }
     }
 
-    private void handleGameCancelled(GameEvent event) {
+    private void handleGameCancelled(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         String reason = data != null ? (String) data.get("reason") : "Unknown reason";
 
         log.info("Game {} cancelled - Reason: {}", event.getGameId(), reason);
 
         String destination = "/topic/game/" + event.getGameId() + "/cancelled";
-        broadcastToTopic(destination, Map.of(
+        broadcastToTopic(frames, destination, Map.of(
                 "status", "cancelled",
                 "reason", reason
         ));
     }
 
-    private void handleGameAutoEnded(GameEvent event) {
+    private void handleGameAutoEnded(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         String reason = data != null ? (String) data.get("reason") : "Unknown reason";
 
         log.warn("Game {} auto-ended - Reason: {}", event.getGameId(), reason);
 
         String destination = "/topic/game/" + event.getGameId() + "/auto-ended";
-        broadcastToTopic(destination, Map.of(
+        broadcastToTopic(frames, destination, Map.of(
                 "status", "auto-ended",
                 "reason", reason
         ));
     }
 
-    private void handleGameStartFailed(GameEvent event) {
+    private void handleGameStartFailed(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         String error = data != null ? (String) data.get("error") : "Unknown error";
 
         log.error("Game {} start failed - Error: {}", event.getGameId(), error);
 
         String destination = "/topic/game/" + event.getGameId() + "/start-failed";
-        broadcastToTopic(destination, Map.of(
+        broadcastToTopic(frames, destination, Map.of(
                 "status", "start-failed",
                 "error", error
         ));
@@ -301,80 +370,38 @@ public class GameEventConsumer {
 
     // ==================== PARTICIPANT HANDLERS ====================
 
-    private void handleParticipantJoined(GameEvent event) {
-        Map<String, Object> data = event.getData();
-        if (data != null) {
-            Object participantId = data.get("participantId");
-            String nickname = (String) data.get("nickname");
-            Boolean isAnonymous = (Boolean) data.get("isAnonymous");
-            Integer playerCount = (Integer) data.get("playerCount");
-
-            log.info("Player {} joined game {} (total: {}, anonymous: {})",
-                    nickname, event.getGameId(), playerCount, isAnonymous);
-
-            // Update participants list for all players
-            String destination = "/topic/game/" + event.getGameId() + "/player-joined";
-            broadcastToTopic(destination, Map.of(
-                    "participantId", participantId,
-                    "nickname", nickname,
-                    "isAnonymous", isAnonymous,
-                    "playerCount", playerCount
-            ));
-        }
-    }
-
-    private void handleParticipantLeft(GameEvent event) {
+    /**
+     * Lobby roster delta (joins/leaves/kicks of one coalescing window).
+     * The room already got it via /topic/game/{gameId}; kicked players also get
+     * their personal notice here.
+     */
+    @SuppressWarnings("unchecked")
+    private void handleRosterUpdated(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
-        if (data != null) {
-            Object participantId = data.get("participantId");
-            String nickname = (String) data.get("nickname");
-            Integer playerCount = (Integer) data.get("playerCount");
-
-            log.info("Player {} left game {} (remaining: {})",
-                    nickname, event.getGameId(), playerCount);
-
-            String destination = "/topic/game/" + event.getGameId() + "/player-left";
-            broadcastToTopic(destination, Map.of(
-                    "participantId", participantId,
-                    "nickname", nickname,
-                    "playerCount", playerCount
-            ));
+        if (data == null) {
+            return;
         }
-    }
-
-    private void handleParticipantKicked(GameEvent event) {
-        Map<String, Object> data = event.getData();
-        if (data != null) {
-            Object participantId = data.get("participantId");
-            String nickname = (String) data.get("nickname");
-            String reason = (String) data.get("reason");
-            Integer playerCount = (Integer) data.get("playerCount");
-
-            log.info("Participant {} ({}) kicked from game {} - Reason: {}",
-                    participantId, nickname, event.getGameId(), reason);
-
-            // Send direct notification to kicked player
-            String kickDestination = "/topic/game/" + event.getGameId() + "/kick/" + participantId;
-            broadcastToTopic(kickDestination, Map.of(
-                    "kicked", true,
-                    "reason", reason,
-                    "nickname", nickname
-            ));
 
-            // Notify others
-            String otherDestination = "/topic/game/" + event.getGameId() + "/player-kicked";
-            broadcastToTopic(otherDestination, Map.of(
-                    "participantId", participantId,
-                    "nickname", nickname,
-                    "reason", reason,
-                    "playerCount", playerCount
-            ));
+        log.info("Roster of game {} updated: {} players ({} events merged)",
+                event.getGameId(), data.get("playerCount"), data.get("mergedEvents"));
+
+        Object kicked = data.get("kicked");
+        if (kicked instanceof List<?> kickedList) {
+            for (Object item : kickedList) {
+                Map<String, Object> entry = (Map<String, Object>) item;
+                String kickDestination = "/topic/game/" + event.getGameId() + "/kick/" + entry.get("participantId");
+                broadcastToTopic(frames, kickDestination, Map.of(
+                        "kicked", true,
+                        "reason", entry.get("reason"),
+                        "nickname", entry.get("nickname")
+                ));
+            }
         }
     }
 
     // ==================== QUESTION HANDLERS ====================
 
-    private void handleQuestionStarted(GameEvent event) {
+    private void handleQuestionStarted(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         if (data != null) {
             Object question = data.get("question");
@@ -387,8 +414,8 @@ public class GameEventConsumer {
 
             // Broadcast new question to all players
             String destination = "/topic/game/" + event.getGameId() + "/question";
-            broadcastToTopic(destination, Map.of(
-                    "question", question,
+            broadcastToTopic(frames, destination, Map.of(
+                    "question", frames.raw(question),
                     "questionNumber", questionNumber,
                     "totalQuestions", totalQuestions,
                     "timeLimit", timeLimit
@@ -396,7 +423,7 @@ public class GameEventConsumer {
         }
     }
 
-    private void handleQuestionEnded(GameEvent event) {
+    private void handleQuestionEnded(EventFrames frames, GameEvent event) {
         Map<String, Object> data = event.getData();
         if (data != null) {
             Object leaderboard = data.get("leaderboard");
@@ -409,14 +436,14 @@ public class GameEventConsumer {
             // Broadcast updated leaderboard
             String leaderboardDestination = "/topic/game/" + event.getGameId() + "/leaderboard";
             if (leaderboard != null) {
-                broadcastToTopic(leaderboardDestination, leaderboard);
+                broadcastToTopic(frames, leaderboardDestination, frames.raw(leaderboard));
             }
 
             // Broadcast correct answer
             String answerDestination = "/topic/game/" + event.getGameId() + "/answer";
-            broadcastToTopic(answerDestination, Map.of(
+            broadcastToTopic(frames, answerDestination, Map.of(
                     "questionNumber", questionNumber,
-                    "correctAnswer", correctAnswer
+                    "correctAnswer", frames.raw(correctAnswer)
             ));
         }
     }
@@ -1,6 +1,7 @@
 package com.kkunquizapp.QuizAppBackend.game.controller;
 
 import com.kkunquizapp.QuizAppBackend.common.dto.ApiResponseDTO;
+import com.kkunquizapp.QuizAppBackend.game.cluster.GameCommandForwarder;
 import com.kkunquizapp.QuizAppBackend.game.dto.*;
 import com.kkunquizapp.QuizAppBackend.game.service.GameScheduler;
 import com.kkunquizapp.QuizAppBackend.game.service.GameService;
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -192,7 +194,6 @@ public class GameController {
 
     @PostMapping("/{gameId}/answer")
     @Operation(summary = "Nộp câu trả lời (cả user và guest)")
-    @Transactional
     public ResponseEntity<AnswerResultDTO> submitAnswer(
             @PathVariable UUID gameId,
             @RequestHeader("X-Participant-Id") UUID participantId,
@@ -205,7 +206,6 @@ public class GameController {
 
     @PostMapping("/{gameId}/skip")
     @Operation(summary = "Bỏ qua câu hỏi")
-    @Transactional
     public ResponseEntity<ApiResponseDTO> skipQuestion(
             @PathVariable UUID gameId,
             @RequestHeader("X-Participant-Id") UUID participantId) {
@@ -215,6 +215,33 @@ public class GameController {
         return ResponseEntity.ok(ApiResponseDTO.success("Question skipped"));
     }
 
+    @PostMapping("/{gameId}/replay")
+    @Operation(summary = "Event bị lỡ sau khi reconnect (node khác chuyển sang owner)")
+    public ResponseEntity<GameReplayDTO> replay(
+            @PathVariable UUID gameId,
+            @RequestHeader(value = "X-Participant-Id", required = false) UUID participantId,
+            @RequestBody(required = false) Map<String, Object> body) {
+
+        long lastSequence = body != null && body.get("lastSequence") instanceof Number number
+                ? number.longValue()
+                : 0L;
+        log.debug("Participant {} resuming game {} after sequence {}", participantId, gameId, lastSequence);
+        return ResponseEntity.ok(gameService.resume(gameId, participantId, lastSequence));
+    }
+
+    @PostMapping("/{gameId}/presence")
+    @Operation(summary = "Lô online/offline từ node giữ kết nối (chỉ gọi giữa các node)")
+    public ResponseEntity<Void> presence(
+            @PathVariable UUID gameId,
+            @RequestHeader(GameCommandForwarder.FORWARDED_HEADER) String fromNode,
+            @RequestBody PresenceBatchRequest batch) {
+
+        log.debug("Presence of game {} from node {}: {} offline, {} back",
+                gameId, fromNode, batch.getOffline().size(), batch.getOnline().size());
+        gameService.applyPresence(gameId, batch.getOffline(), batch.getOnline());
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/{gameId}/leave")
     @Operation(summary = "Rời phòng chơi")
     @Transactional
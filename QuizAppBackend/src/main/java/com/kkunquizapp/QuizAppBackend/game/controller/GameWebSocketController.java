@@ -1,9 +1,12 @@
 package com.kkunquizapp.QuizAppBackend.game.controller;
 
+import com.kkunquizapp.QuizAppBackend.game.cluster.GameCommandForwarder;
 import com.kkunquizapp.QuizAppBackend.game.dto.*;
 import com.kkunquizapp.QuizAppBackend.game.service.GameService;
+import com.kkunquizapp.QuizAppBackend.game.session.PresenceTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -11,11 +14,14 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.ResourceAccessException;
 
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Game WebSocket Controller - Real-time Communication
@@ -33,12 +39,17 @@ import java.util.UUID;
 public class GameWebSocketController {
 
     private final GameService gameService;
+    private final GameCommandForwarder commandForwarder;
+    private final PresenceTracker presenceTracker;
+
+    // Cả phòng trả lời cùng lúc → không log INFO từng answer, chỉ debug theo mẫu
+    @Value("${app.game.log.answer-sample-rate:0.01}")
+    private double answerLogSampleRate;
 
     // ==================== ANSWER & SKIP ====================
 
     @MessageMapping("/game/{gameId}/answer")
     @SendToUser("/queue/answer-result")
-    @Transactional(rollbackFor = Exception.class)
     public AnswerResultDTO submitAnswer(
             @DestinationVariable UUID gameId,
             @Header(value = "participantId", required = false) String participantIdStr,
@@ -47,19 +58,22 @@ public class GameWebSocketController {
 
         UUID participantId = parseParticipantId(participantIdStr, principal);
 
-        log.info("Participant {} submitting answer in game {}", participantId, gameId);
-
-        AnswerResultDTO result = gameService.submitAnswer(gameId, participantId, request);
+        // Game do node khác giữ → gửi sang owner, kết quả vẫn trả về qua session STOMP này
+        Optional<String> ownerUrl = commandForwarder.ownerUrl(gameId);
+        AnswerResultDTO result = ownerUrl.isPresent()
+                ? commandForwarder.forwardAnswer(ownerUrl.get(), gameId, participantId, request)
+                : gameService.submitAnswer(gameId, participantId, request);
 
-        log.info("Answer processed - participant: {}, correct: {}, points: {}",
-                participantId, result.isCorrect(), result.getPointsEarned());
+        if (sampleAnswerLog()) {
+            log.debug("Answer processed - game: {}, participant: {}, correct: {}, points: {}",
+                    gameId, participantId, result.isCorrect(), result.getPointsEarned());
+        }
 
         return result;
     }
 
     @MessageMapping("/game/{gameId}/skip")
     @SendToUser("/queue/skip-ack")
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Boolean> skipQuestion(
             @DestinationVariable UUID gameId,
             @Header(value = "participantId", required = false) String participantIdStr,
@@ -69,7 +83,12 @@ public class GameWebSocketController {
 
         log.debug("Participant {} skipping question in game {}", participantId, gameId);
 
-        gameService.skipQuestion(gameId, participantId);
+        Optional<String> ownerUrl = commandForwarder.ownerUrl(gameId);
+        if (ownerUrl.isPresent()) {
+            commandForwarder.forwardSkip(ownerUrl.get(), gameId, participantId);
+        } else {
+            gameService.skipQuestion(gameId, participantId);
+        }
 
         return Map.of("success", true);
     }
@@ -84,6 +103,8 @@ public class GameWebSocketController {
 
         try {
             UUID participantId = parseParticipantId(participantIdStr, principal);
+            // Chỉ dời hạn trong bộ nhớ; số người active được cập nhật theo lô khi sweep
+            presenceTracker.touch(gameId, participantId);
             log.trace("Heartbeat from participant {} in game {}", participantId, gameId);
         } catch (Exception e) {
             log.debug("Invalid heartbeat received: {}", e.getMessage());
@@ -116,6 +137,40 @@ public class GameWebSocketController {
         }
     }
 
+    // ==================== RESUME AFTER RECONNECT ====================
+
+    /**
+     * Client gửi sequence cuối cùng đã nhận; trả về các event bị lỡ
+     * hoặc snapshot gọn nếu chúng đã rơi khỏi replay buffer.
+     */
+    @MessageMapping("/game/{gameId}/resume")
+    @SendToUser("/queue/replay")
+    public GameReplayDTO resume(
+            @DestinationVariable UUID gameId,
+            @Header(value = "participantId", required = false) String participantIdStr,
+            @Payload(required = false) Map<String, Object> body,
+            Principal principal) {
+
+        UUID participantId = participantIdStr != null ? parseParticipantId(participantIdStr, principal) : null;
+        long lastSequence = body != null && body.get("lastSequence") instanceof Number number
+                ? number.longValue()
+                : 0L;
+
+        log.debug("Participant {} resuming game {} after sequence {}", participantId, gameId, lastSequence);
+
+        // Replay buffer nằm trên node owner → hỏi owner; owner không phản hồi thì trả snapshot tại chỗ
+        Optional<String> ownerUrl = commandForwarder.ownerUrl(gameId);
+        if (ownerUrl.isPresent()) {
+            try {
+                return commandForwarder.forwardResume(ownerUrl.get(), gameId, participantId, lastSequence);
+            } catch (ResourceAccessException e) {
+                log.warn("Owner of game {} unreachable at {}, resuming locally: {}",
+                        gameId, ownerUrl.get(), e.getMessage());
+            }
+        }
+        return gameService.resume(gameId, participantId, lastSequence);
+    }
+
     // ==================== REAL-TIME DATA REQUESTS ====================
 
     @MessageMapping("/game/{gameId}/leaderboard")
@@ -196,6 +251,11 @@ public class GameWebSocketController {
 
     // ==================== UTILITY METHODS ====================
 
+    /** One answer in {@code app.game.log.answer-sample-rate}, and only with debug on. */
+    private boolean sampleAnswerLog() {
+        return log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < answerLogSampleRate;
+    }
+
     /**
      * Parse và validate participantId từ header
      */
@@ -0,0 +1,27 @@
+package com.kkunquizapp.QuizAppBackend.game.dto;
+
+import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+// Trả lời khi client kết nối lại: các event bị lỡ, hoặc snapshot gọn nếu khoảng hở quá lớn
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameReplayDTO {
+    public static final String MODE_EVENTS = "EVENTS";
+    public static final String MODE_SNAPSHOT = "SNAPSHOT";
+
+    private UUID gameId;
+    private String mode;
+    private long lastSequence;          // client tiếp tục đếm từ đây
+    private List<GameEvent> events;     // MODE_EVENTS: event có sequence > sequence client gửi lên
+    private String status;              // MODE_SNAPSHOT
+    private CurrentQuestionResponseDTO currentQuestion;
+    private boolean questionRevealed;   // câu hiện tại đã hết giờ / đã reveal
+    private Integer score;              // điểm của người chơi, null với host
+}
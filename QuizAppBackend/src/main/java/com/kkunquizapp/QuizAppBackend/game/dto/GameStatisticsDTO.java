@@ -2,6 +2,7 @@ package com.kkunquizapp.QuizAppBackend.game.dto;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 // Thống kê tổng quan của game (dành cho host xem sau game)
 @Getter
@@ -18,4 +19,5 @@ public class GameStatisticsDTO {
     private int correctAnswers;
     private double averageScore;
     private double averageAccuracy;
+    private List<QuestionStatsDTO> questions;
 }
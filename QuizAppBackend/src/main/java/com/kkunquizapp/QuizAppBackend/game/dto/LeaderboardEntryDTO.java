@@ -18,4 +18,5 @@ public class LeaderboardEntryDTO {
     private int currentStreak;
     private Long averageTimeMs;
     private boolean isAnonymous;
+    private Integer previousRank;   // hạng ở lần reveal trước, null nếu chưa có
 }
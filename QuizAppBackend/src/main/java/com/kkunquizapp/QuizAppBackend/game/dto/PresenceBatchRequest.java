@@ -0,0 +1,18 @@
+package com.kkunquizapp.QuizAppBackend.game.dto;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+// Lô thay đổi online/offline của một game, node giữ kết nối gửi sang owner
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresenceBatchRequest {
+    @Builder.Default
+    private List<UUID> offline = new ArrayList<>();
+    @Builder.Default
+    private List<UUID> online = new ArrayList<>();
+}
@@ -41,6 +41,7 @@ public class QuestionResponseDTO {
 
     // ==================== QUESTION SETTINGS ====================
     private boolean shuffleOptions;
+    private Integer optionShuffleSeed;  // null → giữ nguyên thứ tự options; xem OptionShuffle
     private boolean caseInsensitive;
     private boolean partialCredit;
     private boolean allowMultipleCorrect;
@@ -0,0 +1,19 @@
+package com.kkunquizapp.QuizAppBackend.game.dto;
+import lombok.*;
+
+import java.util.Map;
+import java.util.UUID;
+// Phân bố câu trả lời của một câu hỏi (host xem sau game)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionStatsDTO {
+    private UUID questionId;
+    private int questionNumber;
+    private long answered;
+    private long correct;
+    private long skipped;
+    private Map<String, Long> distribution;
+}
@@ -1,9 +1,13 @@
 package com.kkunquizapp.QuizAppBackend.game.event;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.kkunquizapp.QuizAppBackend.game.trace.EventTrace;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -23,8 +27,15 @@ import java.util.UUID;
  * - PARTICIPANT_JOINED: Player joined
  * - PARTICIPANT_LEFT: Player left
  * - PARTICIPANT_KICKED: Player kicked by host
+ * - ROSTER_UPDATED: Joins/leaves/kicks of one lobby window merged into one delta
  * - QUESTION_STARTED: New question broadcasted
  * - QUESTION_ENDED: Question time ended, show results
+ * - ANSWER_DISTRIBUTION: Live answer histogram, host only
+ *
+ * Events published through {@link GameEventPublisher} carry a per-game
+ * {@code sequence} (1, 2, 3...) used by clients to resume after a reconnect.
+ * They also carry an {@link EventTrace}, which travels in Kafka headers and is
+ * never part of the JSON.
  */
 @Data
 @Builder
@@ -38,11 +49,18 @@ public class GameEvent {
 
     private UUID userId; // Can be null for system events
 
+    private Long sequence; // Per-game, assigned by GameEventLog on publish
+
     private Map<String, Object> data; // Additional event data
 
     @Builder.Default
     private LocalDateTime timestamp = LocalDateTime.now();
 
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private EventTrace trace; // Set by GameEventPublisher
+
     // Helper methods
     public boolean isGameLifecycleEvent() {
         return eventType.startsWith("GAME_");
@@ -0,0 +1,210 @@
+package com.kkunquizapp.QuizAppBackend.game.event;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Per-game sequence numbers and a bounded replay buffer of published events.
+ *
+ * Every event gets the next sequence of its game when it is published. The
+ * counter lives in Redis ({@code game:events:seq:{gameId}}) and each node
+ * reserves a block of {@code app.game.events.sequence-block-size} numbers from
+ * it at a time, handing them out locally, so publishing does not wait on Redis
+ * per event. Numbers never collide across nodes: lobby roster updates published
+ * by the node a player joined through do not clash with the owner's events, and
+ * a node that takes over a game after failover continues above the old owner.
+ * Across nodes sequences are only roughly ordered (each node's block is kept at
+ * most {@code sequence-block-max-age-ms}); clients accept lower ones. If Redis
+ * cannot be reached the node keeps counting locally and retries later.
+ *
+ * The last {@code app.game.events.replay-buffer-size} events this node published
+ * are kept in a ring so a reconnecting client can ask for everything after the
+ * last sequence it saw; resume requests are forwarded to the owner, which
+ * publishes nearly all of a game's events. Sequences published elsewhere are
+ * simply absent from the replay. If the requested sequence already fell out of
+ * the ring, {@link #since} returns empty and the caller sends a snapshot instead.
+ */
+@Component
+@Slf4j
+public class GameEventLog {
+
+    private static final String SEQUENCE_PREFIX = "game:events:seq:";
+
+    /** Redis lỗi → đếm tại chỗ, không thử lại trong khoảng này để event không phải chờ timeout. */
+    private static final long REDIS_RETRY_MS = 5_000;
+
+    /**
+     * KEYS[1] counter; ARGV[1] block size, ARGV[2] ttl ms, ARGV[3] last sequence of the caller.
+     * Returns the end of the reserved block. The counter is first raised to ARGV[3]
+     * so numbers counted locally during an outage are not handed out again.
+     */
+    private static final DefaultRedisScript<Long> RESERVE_BLOCK_SCRIPT = new DefaultRedisScript<>("""
+            local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local floor = tonumber(ARGV[3])
+            if current < floor then
+                redis.call('SET', KEYS[1], floor)
+            end
+            local last = redis.call('INCRBY', KEYS[1], ARGV[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return last""", Long.class);
+
+    private final StringRedisTemplate redis;
+    private final int capacity;
+    private final long retentionMs;
+    private final String sequenceTtlMs;
+    private final int blockSize;
+    private final long blockMaxAgeMs;
+    private final Map<UUID, Ring> rings = new ConcurrentHashMap<>();
+
+    public GameEventLog(StringRedisTemplate redis,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.game.events.replay-buffer-size:128}") int capacity,
+                        @Value("${app.game.events.replay-retention-ms:600000}") long retentionMs,
+                        @Value("${app.game.events.sequence-ttl-ms:86400000}") long sequenceTtlMs,
+                        @Value("${app.game.events.sequence-block-size:64}") int blockSize,
+                        @Value("${app.game.events.sequence-block-max-age-ms:1000}") long blockMaxAgeMs) {
+        this.redis = redis;
+        this.capacity = capacity;
+        this.retentionMs = retentionMs;
+        this.sequenceTtlMs = String.valueOf(sequenceTtlMs);
+        this.blockSize = blockSize;
+        this.blockMaxAgeMs = blockMaxAgeMs;
+        meterRegistry.gaugeMapSize("game.event.replay.games", List.of(), rings);
+    }
+
+    /**
+     * Number the event, keep it, and hand it to {@code emit} while still holding
+     * the game's lock, so events leave in sequence order.
+     */
+    public void append(GameEvent event, Consumer<GameEvent> emit) {
+        Ring ring = rings.computeIfAbsent(event.getGameId(), id -> new Ring(capacity));
+        synchronized (ring) {
+            long sequence = nextSequence(event.getGameId(), ring);
+            ring.last = Math.max(ring.last, sequence);
+            event.setSequence(sequence);
+            ring.events[(int) (sequence % capacity)] = event;
+            ring.touchedAt = System.currentTimeMillis();
+            emit.accept(event);
+        }
+    }
+
+    /**
+     * Last sequence this node published for the game; if it has published nothing
+     * yet, the highest one reserved by any node (0 if none).
+     */
+    public long lastSequence(UUID gameId) {
+        Ring ring = rings.get(gameId);
+        if (ring != null) {
+            synchronized (ring) {
+                // Số cuối trong block đang giữ chưa phát → snapshot chỉ tính tới event đã gửi
+                return ring.last;
+            }
+        }
+        try {
+            String shared = redis.opsForValue().get(sequenceKey(gameId));
+            return shared != null ? Long.parseLong(shared) : 0;
+        } catch (Exception e) {
+            log.warn("Failed to read event sequence of game {}: {}", gameId, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Events this node published after {@code afterSequence}, oldest first.
+     * Sequences another node published in between are skipped.
+     *
+     * @return empty if the gap is no longer in the buffer, or this node has not
+     *         published anything for the game (e.g. it just took the game over)
+     */
+    public Optional<List<GameEvent>> since(UUID gameId, long afterSequence) {
+        Ring ring = rings.get(gameId);
+        if (ring == null) {
+            return Optional.empty();
+        }
+        synchronized (ring) {
+            long missed = ring.last - afterSequence;
+            if (afterSequence < 0 || missed > capacity) {
+                return Optional.empty();
+            }
+            if (missed <= 0) {
+                // Client đã thấy sequence mới hơn (do node khác phát) → không có gì để gửi lại
+                return Optional.of(List.of());
+            }
+            List<GameEvent> events = new ArrayList<>((int) missed);
+            for (long sequence = afterSequence + 1; sequence <= ring.last; sequence++) {
+                GameEvent event = ring.events[(int) (sequence % capacity)];
+                // Slot trống hoặc còn event cũ hơn: sequence đó do node khác phát
+                if (event != null && event.getSequence() == sequence) {
+                    events.add(event);
+                }
+            }
+            return Optional.of(events);
+        }
+    }
+
+    /** Drop games that published nothing for the retention period (finished or abandoned). */
+    @Scheduled(fixedDelayString = "${app.game.events.replay-retention-ms:600000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        rings.entrySet().removeIf(entry -> entry.getValue().touchedAt < cutoff);
+    }
+
+    /** Called under the ring's lock; Redis is only asked when the block is used up or too old. */
+    private long nextSequence(UUID gameId, Ring ring) {
+        long now = System.currentTimeMillis();
+        boolean blockLeft = ring.next <= ring.blockEnd;
+        if (blockLeft && now - ring.blockReservedAt < blockMaxAgeMs) {
+            return ring.next++;
+        }
+        if (now >= ring.retryRedisAt) {
+            try {
+                Long end = redis.execute(RESERVE_BLOCK_SCRIPT, List.of(sequenceKey(gameId)),
+                        String.valueOf(blockSize), sequenceTtlMs, String.valueOf(ring.last));
+                if (end != null) {
+                    ring.next = end - blockSize + 1;
+                    ring.blockEnd = end;
+                    ring.blockReservedAt = now;
+                    return ring.next++;
+                }
+            } catch (Exception e) {
+                ring.retryRedisAt = now + REDIS_RETRY_MS;
+                log.warn("Failed to reserve event sequences of game {} in Redis, counting locally: {}",
+                        gameId, e.getMessage());
+            }
+        }
+        // Dùng nốt block đang giữ, hết thì đếm tiếp tại chỗ
+        return blockLeft ? ring.next++ : ring.last + 1;
+    }
+
+    private static String sequenceKey(UUID gameId) {
+        return SEQUENCE_PREFIX + gameId;
+    }
+
+    private static final class Ring {
+        private final GameEvent[] events;
+        private long last;
+        // Block đang giữ: next..blockEnd chưa phát
+        private long next = 1;
+        private long blockEnd;
+        private long blockReservedAt;
+        private long retryRedisAt;
+        private volatile long touchedAt = System.currentTimeMillis();
+
+        private Ring(int capacity) {
+            this.events = new GameEvent[capacity];
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.kkunquizapp.QuizAppBackend.game.event;
+
+import com.kkunquizapp.QuizAppBackend.game.consumer.GameEventConsumer;
+import com.kkunquizapp.QuizAppBackend.game.trace.EventTrace;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes game events according to {@code app.game.events.mode}.
+ *
+ * kafka (default): event → Kafka → {@link GameEventConsumer} → WebSocket, as before.
+ *
+ * local: the node that owns the game broadcasts the event itself through an
+ * in-process queue, so question start/reveal no longer waits for a broker round
+ * trip. Events are striped by gameId over single-threaded lanes, which keeps
+ * per-game order like the Kafka partition key did. The same event is still
+ * written to Kafka in the background for durability and analytics; the Kafka
+ * listener does not start in this mode, so nothing is broadcast twice.
+ * {@code app.game.events.audit=false} drops that copy, for runs without a broker.
+ *
+ * Compare both paths with the {@code game.event.delivery} timer (tag {@code path}).
+ * {@code game.event.kafka.publish} times each Kafka send until the broker acks it.
+ * Each event gets an {@link EventTrace} here; on Kafka it rides in the record headers.
+ *
+ * Either way the event is first numbered and kept by {@link GameEventLog}, so
+ * reconnecting clients can replay what they missed.
+ */
+@Component
+@Slf4j
+public class GameEventPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final GameEventConsumer dispatcher;
+    private final GameEventLog eventLog;
+    private final MeterRegistry meterRegistry;
+    private final String topic;
+    private final boolean local;
+
+    private final ExecutorService[] lanes;
+    private final ExecutorService auditSink;
+
+    public GameEventPublisher(KafkaTemplate<String, Object> kafkaTemplate,
+                              GameEventConsumer dispatcher,
+                              GameEventLog eventLog,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.kafka.topics.game-events}") String topic,
+                              @Value("${app.game.events.mode:kafka}") String mode,
+                              @Value("${app.game.events.dispatch-threads:4}") int dispatchThreads,
+                              @Value("${app.game.events.audit:true}") boolean audit) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.dispatcher = dispatcher;
+        this.eventLog = eventLog;
+        this.meterRegistry = meterRegistry;
+        this.topic = topic;
+        this.local = switch (mode) {
+            case "local" -> true;
+            case "kafka" -> false;
+            default -> throw new IllegalStateException("Unknown app.game.events.mode: " + mode);
+        };
+
+        if (local) {
+            this.lanes = new ExecutorService[dispatchThreads];
+            for (int i = 0; i < dispatchThreads; i++) {
+                ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(), new DefaultThreadFactory("game-event-" + i, true));
+                meterRegistry.gauge("game.event.queue.depth", List.of(Tag.of("lane", String.valueOf(i))),
+                        lane, e -> e.getQueue().size());
+                this.lanes[i] = lane;
+            }
+            // Một luồng duy nhất → bản ghi Kafka vẫn đúng thứ tự phát
+            this.auditSink = audit
+                    ? Executors.newSingleThreadExecutor(new DefaultThreadFactory("game-event-audit", true))
+                    : null;
+            log.info("Game events dispatched in-process on {} lanes, Kafka audit {}",
+                    dispatchThreads, audit ? "on" : "off");
+        } else {
+            this.lanes = new ExecutorService[0];
+            this.auditSink = null;
+        }
+    }
+
+    public void publish(GameEvent event) {
+        if (event.getTrace() == null) {
+            event.setTrace(EventTrace.begin());
+        }
+        // Đánh số và gửi trong cùng lock của game → thứ tự gửi đúng thứ tự sequence
+        eventLog.append(event, numbered -> {
+            numbered.getTrace().markPublished();
+            if (!local) {
+                sendToKafka(numbered);
+                return;
+            }
+
+            lanes[Math.floorMod(numbered.getGameId().hashCode(), lanes.length)]
+                    .execute(() -> dispatcher.dispatch(numbered, "local"));
+            if (auditSink != null) {
+                auditSink.execute(() -> sendToKafka(numbered));
+            }
+        });
+    }
+
+    private void sendToKafka(GameEvent event) {
+        long start = System.nanoTime();
+        try {
+            ProducerRecord<String, Object> record = new ProducerRecord<>(topic, event.getGameId().toString(), event);
+            if (event.getTrace() != null) {
+                event.getTrace().writeTo(record.headers());
+            }
+            kafkaTemplate.send(record)
+                    .whenComplete((result, ex) -> recordPublish(event, start, ex == null));
+            log.debug("Published event: {} for game: {}", event.getEventType(), event.getGameId());
+        } catch (Exception e) {
+            recordPublish(event, start, false);
+            log.error("Failed to publish game event: {} for game: {}", event.getEventType(), event.getGameId(), e);
+        }
+    }
+
+    /** Time from handing the event to the producer until the broker acked (or refused) it. */
+    private void recordPublish(GameEvent event, long startNanos, boolean success) {
+        Timer.builder("game.event.kafka.publish")
+                .description("Time to publish a game event to Kafka, until acknowledged")
+                .tag("type", event.getEventType() != null ? event.getEventType() : "unknown")
+                .tag("mode", local ? "audit" : "kafka")
+                .tag("result", success ? "ok" : "error")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        if (auditSink != null) {
+            // Cho phần audit còn lại kịp ghi xuống Kafka
+            auditSink.shutdown();
+            try {
+                auditSink.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+/**
+ * Outcome of grading one submission.
+ *
+ * @param correctAnswer human readable correct answer shown to the player
+ */
+public record AnswerGradingResult(boolean correct, String correctAnswer) {
+
+    static final String GRADING_ERROR = "Lỗi khi chấm điểm";
+
+    static AnswerGradingResult error() {
+        return new AnswerGradingResult(false, GRADING_ERROR);
+    }
+}
@@ -0,0 +1,304 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable, precompiled answer key of one question.
+ *
+ * Built once by {@link AnswerKeyCompiler} when the question starts; grading a
+ * submission only touches these fields, never the Hibernate entities or Jackson.
+ * Implementations are plain records and safe to share between threads.
+ */
+public sealed interface AnswerKey {
+
+    AnswerGradingResult grade(Object submitted);
+
+    // ==================== SINGLE CHOICE / IMAGE SELECTION / DROPDOWN ====================
+
+    /** Exactly one option is picked; correct if it is one of {@code correctIds}. */
+    record SelectedOption(Set<UUID> correctIds, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            UUID selectedId = toUuid(submitted);
+            if (selectedId == null) {
+                return AnswerGradingResult.error();
+            }
+            return new AnswerGradingResult(correctIds.contains(selectedId), correctAnswer);
+        }
+    }
+
+    // ==================== MULTIPLE CHOICE ====================
+
+    record MultipleOptions(Set<UUID> correctIds, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            if (!(submitted instanceof List<?> list)) {
+                return AnswerGradingResult.error();
+            }
+            Set<UUID> selected = new HashSet<>(list.size() * 2);
+            for (Object item : list) {
+                UUID id = toUuid(item);
+                if (id == null) {
+                    return AnswerGradingResult.error();
+                }
+                selected.add(id);
+            }
+            return new AnswerGradingResult(selected.equals(correctIds), correctAnswer);
+        }
+    }
+
+    // ==================== TRUE / FALSE ====================
+
+    record TrueFalse(boolean correctValue, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            boolean value;
+            if (submitted instanceof Boolean b) {
+                value = b;
+            } else if (submitted instanceof String s) {
+                value = s.equalsIgnoreCase("true");
+            } else {
+                return AnswerGradingResult.error();
+            }
+            return new AnswerGradingResult(value == correctValue, correctAnswer);
+        }
+    }
+
+    // ==================== SHORT ANSWER ====================
+
+    /**
+     * @param expected         normalized expected answer (trimmed, lower-cased if case-insensitive)
+     * @param requiredKeywords normalized keywords that must all appear
+     */
+    record ShortAnswer(String expected, String[] requiredKeywords, boolean caseInsensitive,
+                       String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            String answer = normalize(String.valueOf(submitted), caseInsensitive);
+            boolean correct = answer.contains(expected);
+            for (int i = 0; correct && i < requiredKeywords.length; i++) {
+                correct = answer.contains(requiredKeywords[i]);
+            }
+            return new AnswerGradingResult(correct, correctAnswer);
+        }
+    }
+
+    // ==================== FILL IN THE BLANK ====================
+
+    /** @param accepted normalized expected answer plus every accepted variation */
+    record FillInBlank(Set<String> accepted, boolean caseInsensitive, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            String answer = normalize(String.valueOf(submitted), caseInsensitive);
+            return new AnswerGradingResult(accepted.contains(answer), correctAnswer);
+        }
+    }
+
+    // ==================== ESSAY ====================
+
+    record Essay(int minWords, int maxWords, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            String text = String.valueOf(submitted).trim();
+            int words = countWords(text);
+            boolean correct = !text.isEmpty() && words >= minWords && words <= maxWords;
+            return new AnswerGradingResult(correct, correctAnswer);
+        }
+    }
+
+    // ==================== MATCHING ====================
+
+    /**
+     * @param leftIds        option ids of the left-hand items
+     * @param expectedRight  expected right item for {@code leftIds[i]}
+     * @param rightItemById  right item text of every matching option, by option id
+     */
+    record Matching(String[] leftIds, String[] expectedRight, Map<String, String> rightItemById,
+                    String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            if (!(submitted instanceof Map<?, ?> pairs)) {
+                return new AnswerGradingResult(false, "Định dạng ghép nối không hợp lệ");
+            }
+            int correctCount = 0;
+            for (int i = 0; i < leftIds.length; i++) {
+                Object picked = pairs.get(leftIds[i]);
+                if (picked != null && expectedRight[i] != null
+                        && expectedRight[i].equals(rightItemById.get(picked.toString()))) {
+                    correctCount++;
+                }
+            }
+            return new AnswerGradingResult(leftIds.length > 0 && correctCount == leftIds.length, correctAnswer);
+        }
+    }
+
+    // ==================== ORDERING ====================
+
+    /**
+     * @param positionById 1-based correct position of each ordering option
+     * @param optionCount  total number of options of the question
+     */
+    record Ordering(Map<String, Integer> positionById, int optionCount, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            if (!(submitted instanceof List<?> order)) {
+                return new AnswerGradingResult(false, "Định dạng sắp xếp không hợp lệ");
+            }
+            if (order.size() != optionCount) {
+                return new AnswerGradingResult(false, "Số lượng mục không khớp");
+            }
+            int correctCount = 0;
+            for (int i = 0; i < order.size(); i++) {
+                Integer position = positionById.get(String.valueOf(order.get(i)));
+                if (position != null && position == i + 1) {
+                    correctCount++;
+                }
+            }
+            return new AnswerGradingResult(correctCount == optionCount, correctAnswer);
+        }
+    }
+
+    // ==================== DRAG & DROP ====================
+
+    record DragDrop(String[] itemIds, String[] expectedZones, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            if (!(submitted instanceof Map<?, ?> placements)) {
+                return new AnswerGradingResult(false, "Định dạng kéo thả không hợp lệ");
+            }
+            int correctCount = 0;
+            for (int i = 0; i < itemIds.length; i++) {
+                Object zone = placements.get(itemIds[i]);
+                if (zone != null && zone.toString().equals(expectedZones[i])) {
+                    correctCount++;
+                }
+            }
+            return new AnswerGradingResult(itemIds.length > 0 && correctCount == itemIds.length, correctAnswer);
+        }
+    }
+
+    // ==================== HOTSPOT ====================
+
+    record Hotspot(int expectedX, int expectedY, int tolerance, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            if (!(submitted instanceof Map<?, ?> point)) {
+                return new AnswerGradingResult(false, "Định dạng hotspot không hợp lệ");
+            }
+            Integer x = toInt(point.get("x"));
+            Integer y = toInt(point.get("y"));
+            if (x == null || y == null) {
+                return new AnswerGradingResult(false, "Tọa độ không hợp lệ");
+            }
+            boolean correct = Math.abs(x - expectedX) <= tolerance && Math.abs(y - expectedY) <= tolerance;
+            return new AnswerGradingResult(correct, correctAnswer);
+        }
+    }
+
+    // ==================== MATRIX ====================
+
+    /** Coordinates of the correct cell; {@code rowId} is null when the question has none. */
+    record Matrix(String rowId, String columnId, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            if (!(submitted instanceof String cell)) {
+                return new AnswerGradingResult(false, "Định dạng matrix không hợp lệ");
+            }
+            String[] parts = cell.split("-"); // "rowId-columnId"
+            if (parts.length != 2) {
+                return new AnswerGradingResult(false, "Định dạng tọa độ không hợp lệ");
+            }
+            boolean correct = rowId != null && rowId.equals(parts[0]) && parts[1].equals(columnId);
+            return new AnswerGradingResult(correct, correctAnswer);
+        }
+    }
+
+    // ==================== RANKING ====================
+
+    record Ranking(String[] itemIds, int[] correctRanks, String correctAnswer) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            if (!(submitted instanceof Map<?, ?> ranks)) {
+                return new AnswerGradingResult(false, "Định dạng xếp hạng không hợp lệ");
+            }
+            int correctCount = 0;
+            for (int i = 0; i < itemIds.length; i++) {
+                Object rank = ranks.get(itemIds[i]);
+                if (rank != null) {
+                    try {
+                        if (Integer.parseInt(rank.toString()) == correctRanks[i]) {
+                            correctCount++;
+                        }
+                    } catch (NumberFormatException ignored) {
+                        // hạng không hợp lệ → coi như sai
+                    }
+                }
+            }
+            return new AnswerGradingResult(itemIds.length > 0 && correctCount == itemIds.length, correctAnswer);
+        }
+    }
+
+    // ==================== FIXED RESULT ====================
+
+    /** Question that can never be answered correctly (unsupported type or broken key data). */
+    record Fixed(AnswerGradingResult result) implements AnswerKey {
+        @Override
+        public AnswerGradingResult grade(Object submitted) {
+            return result;
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    static String normalize(String value, boolean caseInsensitive) {
+        String trimmed = value.trim();
+        return caseInsensitive ? trimmed.toLowerCase() : trimmed;
+    }
+
+    private static UUID toUuid(Object value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        if (value instanceof String s) {
+            try {
+                return UUID.fromString(s);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Integer toInt(Object value) {
+        if (value instanceof Number n) {
+            return n.intValue();
+        }
+        if (value instanceof String s) {
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /** Same result as {@code text.split("\\s+").length} on trimmed text, without the array. */
+    private static int countWords(String text) {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean space = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            if (!space && !inWord) {
+                words++;
+            }
+            inWord = !space;
+        }
+        return words;
+    }
+}
@@ -0,0 +1,242 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+import com.kkunquizapp.QuizAppBackend.game.mapper.GameMapper;
+import com.kkunquizapp.QuizAppBackend.question.model.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Turns a {@link Question} (options already fetched) into an {@link AnswerKey}.
+ *
+ * Runs once per question when it starts, so all the entity walking,
+ * JSON parsing and string building happens here instead of per submission.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AnswerKeyCompiler {
+
+    private static final int HOTSPOT_TOLERANCE_PX = 10;
+
+    private final GameMapper gameMapper;
+
+    public AnswerKey compile(Question question) {
+        List<Option> options = question.getOptions() != null ? question.getOptions() : List.of();
+        try {
+            return switch (question.getType()) {
+                case SINGLE_CHOICE -> selectedOption(options, Option.class,
+                        this::getOptionDisplayText, "Không có đáp án đúng");
+                case IMAGE_SELECTION -> selectedOption(options, ImageSelectionOption.class,
+                        ImageSelectionOption::getImageLabel, "Không có hình ảnh đúng");
+                case DROPDOWN -> selectedOption(options, DropdownOption.class,
+                        DropdownOption::getDisplayLabel, "Không có tùy chọn đúng");
+                case MULTIPLE_CHOICE -> multipleChoice(options);
+                case TRUE_FALSE -> trueFalse(options);
+                case SHORT_ANSWER -> shortAnswer(options);
+                case FILL_IN_THE_BLANK -> fillInBlank(options);
+                case ESSAY -> essay(options);
+                case MATCHING -> matching(options);
+                case ORDERING -> ordering(options);
+                case DRAG_DROP -> dragDrop(options);
+                case HOTSPOT -> hotspot(options);
+                case MATRIX -> matrix(options);
+                case RANKING -> ranking(options);
+                default -> {
+                    log.warn("Unsupported question type: {}", question.getType());
+                    yield new AnswerKey.Fixed(new AnswerGradingResult(false, "Unsupported question type"));
+                }
+            };
+        } catch (Exception e) {
+            log.error("Cannot compile answer key for question {}: {}", question.getQuestionId(), e.getMessage(), e);
+            return new AnswerKey.Fixed(AnswerGradingResult.error());
+        }
+    }
+
+    // ==================== CHOICE TYPES ====================
+
+    /**
+     * Any correct option counts; the displayed answer only lists correct options of {@code labelled} type.
+     */
+    private <T extends Option> AnswerKey selectedOption(List<Option> options, Class<T> labelled,
+                                                        Function<T, String> label, String noneText) {
+        List<Option> correct = options.stream().filter(Option::isCorrect).toList();
+        List<String> texts = ofType(correct, labelled).stream().map(label).toList();
+        return new AnswerKey.SelectedOption(correctIds(correct), texts.isEmpty() ? noneText : String.join(", ", texts));
+    }
+
+    private AnswerKey multipleChoice(List<Option> options) {
+        List<Option> correct = options.stream().filter(Option::isCorrect).toList();
+        List<String> texts = correct.stream().map(this::getOptionDisplayText).toList();
+        return new AnswerKey.MultipleOptions(correctIds(correct),
+                texts.isEmpty() ? "Không có đáp án đúng" : String.join(", ", texts));
+    }
+
+    private AnswerKey trueFalse(List<Option> options) {
+        // Đáp án đúng lấy theo cờ correct của option đầu tiên
+        boolean correctValue = !options.isEmpty() && options.get(0).isCorrect();
+        return new AnswerKey.TrueFalse(correctValue, correctValue ? "Đúng" : "Sai");
+    }
+
+    private static Set<UUID> correctIds(List<Option> correct) {
+        return correct.stream().map(Option::getOptionId).collect(Collectors.toUnmodifiableSet());
+    }
+
+    // ==================== TEXT TYPES ====================
+
+    private AnswerKey shortAnswer(List<Option> options) {
+        ShortAnswerOption sao = (ShortAnswerOption) options.get(0);
+        String expected = sao.getExpectedAnswer().trim();
+        boolean caseInsensitive = sao.isCaseInsensitive();
+
+        String[] keywords = gameMapper.parseJsonArray(sao.getRequiredKeywords()).stream()
+                .map(k -> caseInsensitive ? k.toLowerCase() : k)
+                .toArray(String[]::new);
+
+        return new AnswerKey.ShortAnswer(AnswerKey.normalize(expected, caseInsensitive), keywords,
+                caseInsensitive, expected);
+    }
+
+    private AnswerKey fillInBlank(List<Option> options) {
+        FillInTheBlankOption fbo = (FillInTheBlankOption) options.get(0);
+        String expected = fbo.getCorrectAnswer().trim();
+        boolean caseInsensitive = fbo.isCaseInsensitive();
+
+        Set<String> accepted = new HashSet<>();
+        accepted.add(AnswerKey.normalize(expected, caseInsensitive));
+        for (String variation : gameMapper.parseJsonArray(fbo.getAcceptedVariations())) {
+            accepted.add(caseInsensitive ? variation.toLowerCase() : variation);
+        }
+
+        return new AnswerKey.FillInBlank(Set.copyOf(accepted), caseInsensitive, expected);
+    }
+
+    private AnswerKey essay(List<Option> options) {
+        EssayOption eo = (EssayOption) options.get(0);
+        int minWords = eo.getMinWords();
+        int maxWords = eo.getMaxWords();
+
+        String samplePreview = eo.getSampleAnswer() != null
+                ? eo.getSampleAnswer().substring(0, Math.min(50, eo.getSampleAnswer().length())) + "..."
+                : "Không có";
+
+        return new AnswerKey.Essay(minWords, maxWords,
+                String.format("Bài luận hợp lệ (%d-%d từ). Mẫu: %s", minWords, maxWords, samplePreview));
+    }
+
+    // ==================== STRUCTURED TYPES ====================
+
+    private AnswerKey matching(List<Option> options) {
+        List<MatchingOption> pairs = ofType(options, MatchingOption.class);
+
+        Map<String, String> rightItemById = new HashMap<>();
+        String[] leftIds = new String[pairs.size()];
+        String[] expectedRight = new String[pairs.size()];
+        List<String> mappings = new ArrayList<>(pairs.size());
+
+        for (int i = 0; i < pairs.size(); i++) {
+            MatchingOption mo = pairs.get(i);
+            leftIds[i] = mo.getOptionId().toString();
+            expectedRight[i] = mo.getRightItem();
+            rightItemById.putIfAbsent(leftIds[i], mo.getRightItem());
+            mappings.add(mo.getLeftItem() + " → " + mo.getRightItem());
+        }
+
+        return new AnswerKey.Matching(leftIds, expectedRight, rightItemById, String.join("; ", mappings));
+    }
+
+    private AnswerKey ordering(List<Option> options) {
+        List<OrderingOption> items = ofType(options, OrderingOption.class);
+
+        Map<String, Integer> positionById = new HashMap<>();
+        for (OrderingOption oo : items) {
+            positionById.putIfAbsent(oo.getOptionId().toString(), oo.getCorrectPosition());
+        }
+        String correctOrder = items.stream().map(OrderingOption::getItem).collect(Collectors.joining(" → "));
+
+        return new AnswerKey.Ordering(positionById, options.size(), correctOrder);
+    }
+
+    private AnswerKey dragDrop(List<Option> options) {
+        List<DragDropOption> items = ofType(options, DragDropOption.class);
+
+        String[] itemIds = new String[items.size()];
+        String[] zones = new String[items.size()];
+        List<String> placements = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            DragDropOption ddo = items.get(i);
+            itemIds[i] = ddo.getOptionId().toString();
+            zones[i] = ddo.getDropZoneId();
+            placements.add(ddo.getDraggableItem() + " → " + ddo.getDropZoneId());
+        }
+
+        return new AnswerKey.DragDrop(itemIds, zones, String.join("; ", placements));
+    }
+
+    private AnswerKey hotspot(List<Option> options) {
+        HotspotOption ho = (HotspotOption) options.get(0);
+        String coords = ho.getHotspotCoordinates(); // Format: "x,y" or "x:y"
+
+        String[] parts = coords.contains(",") ? coords.split(",") : coords.split(":");
+        if (parts.length < 2) {
+            return new AnswerKey.Fixed(new AnswerGradingResult(false, "Tọa độ hotspot không hợp lệ"));
+        }
+
+        int expectedX = Integer.parseInt(parts[0].trim());
+        int expectedY = Integer.parseInt(parts[1].trim());
+        return new AnswerKey.Hotspot(expectedX, expectedY, HOTSPOT_TOLERANCE_PX,
+                String.format("Tọa độ đúng: (%d, %d)", expectedX, expectedY));
+    }
+
+    private AnswerKey matrix(List<Option> options) {
+        return ofType(options, MatrixOption.class).stream()
+                .filter(MatrixOption::isCorrectCell)
+                .findFirst()
+                .<AnswerKey>map(cell -> new AnswerKey.Matrix(cell.getRowId(), cell.getColumnId(),
+                        String.format("%s - %s", cell.getRowLabel(), cell.getColumnLabel())))
+                .orElseGet(() -> new AnswerKey.Matrix(null, null, "Không có ô đúng"));
+    }
+
+    private AnswerKey ranking(List<Option> options) {
+        List<RankingOption> items = ofType(options, RankingOption.class);
+
+        String[] itemIds = new String[items.size()];
+        int[] ranks = new int[items.size()];
+        List<String> rankings = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            RankingOption ro = items.get(i);
+            itemIds[i] = ro.getOptionId().toString();
+            ranks[i] = ro.getCorrectRank();
+            rankings.add(ro.getRankableItem() + " (#" + ro.getCorrectRank() + ")");
+        }
+
+        return new AnswerKey.Ranking(itemIds, ranks, String.join("; ", rankings));
+    }
+
+    // ==================== HELPERS ====================
+
+    private static <T extends Option> List<T> ofType(List<Option> options, Class<T> type) {
+        List<T> result = new ArrayList<>(options.size());
+        for (Option option : options) {
+            if (type.isInstance(option)) {
+                result.add(type.cast(option));
+            }
+        }
+        return result;
+    }
+
+    private String getOptionDisplayText(Option option) {
+        return switch (option) {
+            case SingleChoiceOption sco -> sco.getText();
+            case MultipleChoiceOption mco -> mco.getText();
+            case TrueFalseOption tfo -> tfo.getText();
+            case ImageSelectionOption iso -> iso.getImageLabel() != null ? iso.getImageLabel() : "Hình ảnh";
+            case DropdownOption dro -> dro.getDisplayLabel() != null ? dro.getDisplayLabel() : dro.getDropdownValue();
+            default -> "Đáp án";
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+/**
+ * Points for one graded answer: the question's base points, with a speed
+ * bonus for correct answers given early in the time limit.
+ */
+public final class AnswerScoring {
+
+    private AnswerScoring() {
+    }
+
+    public static int points(boolean correct, int basePoints, long responseTimeMs, int timeLimitSeconds) {
+        if (!correct) {
+            return 0;
+        }
+
+        int points = basePoints;
+        long timeLimitMs = timeLimitSeconds * 1000L;
+
+        // Bonus for fast correct answers
+        if (responseTimeMs < timeLimitMs * 0.25) {
+            points = (int) (points * 1.2); // 20% bonus
+        } else if (responseTimeMs < timeLimitMs * 0.5) {
+            points = (int) (points * 1.1); // 10% bonus
+        }
+
+        return Math.max(0, points);
+    }
+}
@@ -0,0 +1,101 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-player option order derived from the game seed.
+ *
+ * Nothing is stored per player: the order of a question's options for a
+ * participant is a Fisher-Yates shuffle driven by
+ * {@code mulberry32(fnv1a(questionSeed + ":" + participantId))}, where the
+ * question seed is {@code fnv1a(gameSeed + ":" + questionId)}. The frontend
+ * (src/utils/optionShuffle.ts) runs the same 32-bit arithmetic, so both sides
+ * agree on the order without exchanging it.
+ *
+ * Players may submit positions in their shuffled list instead of option ids;
+ * {@link #resolve} maps them back before grading.
+ */
+public final class OptionShuffle {
+
+    private OptionShuffle() {
+    }
+
+    /** Seed of one question, sent to players with the question (fits a JS number). */
+    public static int questionSeed(long gameSeed, UUID questionId) {
+        return fnv1a(gameSeed + ":" + questionId);
+    }
+
+    /**
+     * @return {@code order[displayedPosition] = canonical option index}
+     */
+    public static int[] permutation(int questionSeed, UUID participantId, int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int state = fnv1a(questionSeed + ":" + participantId);
+        for (int i = size - 1; i > 0; i--) {
+            state += 0x6D2B79F5;
+            int t = (state ^ (state >>> 15)) * (1 | state);
+            t = (t + ((t ^ (t >>> 7)) * (61 | t))) ^ t;
+            long random = (t ^ (t >>> 14)) & 0xFFFFFFFFL;
+            int j = (int) ((random * (i + 1)) >>> 32);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    /**
+     * Map submitted positions (an int, or a list of ints) back to option ids.
+     * Anything else, e.g. option ids, is returned unchanged.
+     *
+     * @param optionIds   option ids in canonical order
+     * @param questionSeed null when the game does not shuffle options (identity order)
+     */
+    public static Object resolve(Object submitted, List<UUID> optionIds, Integer questionSeed, UUID participantId) {
+        if (submitted instanceof Number position) {
+            UUID id = optionAt(position.intValue(), optionIds, questionSeed, participantId, null);
+            return id != null ? id.toString() : submitted;
+        }
+        if (submitted instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof Number) {
+            int[] order = questionSeed != null ? permutation(questionSeed, participantId, optionIds.size()) : null;
+            List<Object> ids = new ArrayList<>(list.size());
+            for (Object item : list) {
+                UUID id = item instanceof Number position
+                        ? optionAt(position.intValue(), optionIds, questionSeed, participantId, order)
+                        : null;
+                // Vị trí không hợp lệ → giữ nguyên, grader sẽ chấm sai
+                ids.add(id != null ? id.toString() : item);
+            }
+            return ids;
+        }
+        return submitted;
+    }
+
+    private static UUID optionAt(int position, List<UUID> optionIds, Integer questionSeed,
+                                 UUID participantId, int[] order) {
+        if (position < 0 || position >= optionIds.size()) {
+            return null;
+        }
+        if (questionSeed == null) {
+            return optionIds.get(position);
+        }
+        if (order == null) {
+            order = permutation(questionSeed, participantId, optionIds.size());
+        }
+        return optionIds.get(order[position]);
+    }
+
+    private static int fnv1a(String value) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,398 @@
+package com.kkunquizapp.QuizAppBackend.game.journal;
+
+import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
+import com.kkunquizapp.QuizAppBackend.game.session.ParticipantState;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind journal for the answer hot path.
+ *
+ * Graded answers and the latest score snapshot of each participant are queued
+ * in memory and written in batches: one multi-row INSERT into user_answers and
+ * one UPDATE ... FROM (VALUES ...) into game_participants per flush, inside a
+ * single short transaction. Submitting an answer therefore never holds a
+ * database connection.
+ *
+ * Flushes run on a fixed delay, when a question ends, before end-of-game
+ * statistics are computed, and on shutdown. Each flush commits in its own
+ * transaction (REQUIRES_NEW), also when called from a transactional caller,
+ * so a rollback there never takes journaled rows with it.
+ *
+ * A batch rejected by the database for one of its rows (constraint, bad JSON)
+ * is retried row by row; rows that still fail are dead-lettered (logged and
+ * counted) instead of blocking the queue. Any other failure (database down)
+ * puts the batch back to be retried on the next flush.
+ */
+@Component
+@Slf4j
+public class AnswerJournal {
+
+    private static final String INSERT_ANSWERS_PREFIX = """
+            INSERT INTO user_answers (answer_id, game_id, participant_id, question_id,
+                submitted_answer_json, submitted_answer_text, correct, points_earned, max_points,
+                accuracy, response_time_ms, is_skipped, is_timeout, attempt_number, total_attempts,
+                explanation, client_submitted_at, server_received_at)
+            VALUES\s""";
+    private static final String INSERT_ANSWERS_ROW = "(?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?, ?, ?, ?, ?, 1, 1, ?, ?, ?)";
+
+    private static final String UPDATE_PARTICIPANTS_PREFIX = """
+            UPDATE game_participants AS p SET
+                score = v.score,
+                correct_count = v.correct_count,
+                incorrect_count = v.incorrect_count,
+                skipped_count = v.skipped_count,
+                total_time_ms = v.total_time_ms,
+                average_response_time_ms = v.average_response_time_ms,
+                current_streak = v.current_streak,
+                best_streak = v.best_streak
+            FROM (VALUES\s""";
+    private static final String UPDATE_PARTICIPANTS_ROW = "(CAST(? AS uuid), ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_PARTICIPANTS_SUFFIX = """
+            ) AS v(participant_id, score, correct_count, incorrect_count, skipped_count,
+                   total_time_ms, average_response_time_ms, current_streak, best_streak)
+            WHERE p.participant_id = v.participant_id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentLinkedDeque<JournaledAnswer> pendingAnswers = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pendingAnswerCount = new AtomicInteger();
+
+    /** Latest snapshot per participant; a newer snapshot simply replaces an unflushed one. */
+    private final Map<UUID, ParticipantState.Snapshot> dirtyParticipants = new ConcurrentHashMap<>();
+
+    /** Answers dead-lettered per game, reported when the game ends. */
+    private final Map<UUID, LongAdder> deadLettersByGame = new ConcurrentHashMap<>();
+
+    private final Timer flushTimer;
+    private final Timer flushLagTimer;
+    private final DistributionSummary batchSize;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.game.journal.batch-size:500}")
+    private int maxRowsPerStatement;
+
+    @Value("${app.game.journal.max-answers-per-flush:5000}")
+    private int maxAnswersPerFlush;
+
+    public AnswerJournal(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Không nhập vào transaction của endQuestion/endGame: caller rollback thì answer đã rút khỏi hàng đợi sẽ mất
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+
+        this.flushTimer = Timer.builder("game.journal.flush")
+                .description("Time spent writing one journal batch")
+                .register(meterRegistry);
+        this.flushLagTimer = Timer.builder("game.journal.lag")
+                .description("Time from grading an answer to its row being committed")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("game.journal.batch.size")
+                .description("Answers written per flush")
+                .register(meterRegistry);
+
+        meterRegistry.gauge("game.journal.pending.answers", pendingAnswerCount);
+        meterRegistry.gaugeMapSize("game.journal.pending.participants", Collections.emptyList(), dirtyParticipants);
+        // Gauge giữ hàng đợi chứ không giữ this: không lộ đối tượng khi constructor chưa chạy xong
+        meterRegistry.gauge("game.journal.oldest.pending.ms", pendingAnswers, AnswerJournal::oldestPendingMillis);
+    }
+
+    // ==================== ENQUEUE ====================
+
+    public void append(JournaledAnswer answer, ParticipantState.Snapshot participant) {
+        pendingAnswers.addLast(answer);
+        pendingAnswerCount.incrementAndGet();
+        markDirty(participant);
+    }
+
+    /**
+     * Queue a participant's score without an answer row, e.g. after a kick,
+     * so a concurrent entity save can never leave a stale score behind.
+     */
+    public void markDirty(ParticipantState.Snapshot participant) {
+        dirtyParticipants.put(participant.participantId(), participant);
+    }
+
+    // ==================== FLUSH ====================
+
+    @Scheduled(fixedDelayString = "${app.game.journal.flush-interval-ms:200}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Write everything queued so far. Safe to call from any thread; concurrent
+     * callers wait for the running flush instead of writing twice.
+     *
+     * @return false if a write failed and rows are still queued for the next flush
+     */
+    public synchronized boolean flush() {
+        while (!pendingAnswers.isEmpty() || !dirtyParticipants.isEmpty()) {
+            if (!flushOnce()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flush before the game's final statistics are computed.
+     *
+     * @return answers of the game that were dead-lettered, so they are missing from the statistics
+     * @throws GameException 503 if queued rows could not be written; ending the game must be retried
+     */
+    public synchronized int flushBeforeGameEnd(UUID gameId) {
+        if (!flush()) {
+            throw new GameException("Answers could not be saved yet, please try ending the game again",
+                    "JOURNAL_FLUSH_FAILED", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        LongAdder lost = deadLettersByGame.remove(gameId);
+        return lost != null ? lost.intValue() : 0;
+    }
+
+    private boolean flushOnce() {
+        List<JournaledAnswer> answers = drainAnswers();
+        List<ParticipantState.Snapshot> participants = drainParticipants();
+        if (answers.isEmpty() && participants.isEmpty()) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        try {
+            write(answers, participants);
+        } catch (DataIntegrityViolationException e) {
+            // Một dòng lỗi không được chặn cả hàng đợi: ghi lại từng dòng
+            log.warn("Answer journal batch rejected ({} answers, {} participants), retrying row by row: {}",
+                    answers.size(), participants.size(), e.getMessage());
+            return writeRowByRow(answers, participants);
+        } catch (Exception e) {
+            log.error("Answer journal flush failed ({} answers, {} participants), will retry: {}",
+                    answers.size(), participants.size(), e.getMessage(), e);
+            requeue(answers, participants);
+            meterRegistry.counter("game.journal.flush.failures").increment();
+            return false;
+        }
+
+        long committedAt = System.nanoTime();
+        flushTimer.record(committedAt - start, TimeUnit.NANOSECONDS);
+        batchSize.record(answers.size());
+        recordLag(answers, committedAt);
+
+        log.debug("Answer journal flushed {} answers, {} participants in {}ms",
+                answers.size(), participants.size(), TimeUnit.NANOSECONDS.toMillis(committedAt - start));
+        return true;
+    }
+
+    private void write(List<JournaledAnswer> answers, List<ParticipantState.Snapshot> participants) {
+        transactionTemplate.executeWithoutResult(status -> {
+            insertAnswers(answers);
+            updateParticipants(participants);
+        });
+    }
+
+    /**
+     * One transaction per row. Rows the database rejects are dead-lettered; on
+     * any other failure the rest goes back to the queue.
+     */
+    private boolean writeRowByRow(List<JournaledAnswer> answers, List<ParticipantState.Snapshot> participants) {
+        for (int i = 0; i < answers.size(); i++) {
+            JournaledAnswer answer = answers.get(i);
+            try {
+                write(List.of(answer), List.of());
+                recordLag(List.of(answer), System.nanoTime());
+            } catch (DuplicateKeyException e) {
+                // Lần flush trước đã commit dòng này nhưng không nhận được kết quả
+                log.debug("Answer {} already journaled", answer.answerId());
+            } catch (DataIntegrityViolationException e) {
+                deadLetter(answer, e);
+            } catch (Exception e) {
+                log.error("Answer journal row retry failed, will retry: {}", e.getMessage(), e);
+                requeue(answers.subList(i, answers.size()), participants);
+                meterRegistry.counter("game.journal.flush.failures").increment();
+                return false;
+            }
+        }
+        for (int i = 0; i < participants.size(); i++) {
+            ParticipantState.Snapshot participant = participants.get(i);
+            try {
+                write(List.of(), List.of(participant));
+            } catch (DataIntegrityViolationException e) {
+                deadLetter(participant, e);
+            } catch (Exception e) {
+                log.error("Answer journal row retry failed, will retry: {}", e.getMessage(), e);
+                requeue(List.of(), participants.subList(i, participants.size()));
+                meterRegistry.counter("game.journal.flush.failures").increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void deadLetter(JournaledAnswer answer, Exception e) {
+        log.error("Dead-lettered answer {} (game {}, participant {}, question {}, correct {}, points {}, answer {}): {}",
+                answer.answerId(), answer.gameId(), answer.participantId(), answer.questionId(),
+                answer.correct(), answer.pointsEarned(), answer.submittedAnswerJson(), e.getMessage());
+        meterRegistry.counter("game.journal.dead.letters", "kind", "answer").increment();
+        deadLettersByGame.computeIfAbsent(answer.gameId(), id -> new LongAdder()).increment();
+    }
+
+    private void deadLetter(ParticipantState.Snapshot participant, Exception e) {
+        log.error("Dead-lettered score of participant {} (score {}, correct {}, incorrect {}): {}",
+                participant.participantId(), participant.score(), participant.correctCount(),
+                participant.incorrectCount(), e.getMessage());
+        meterRegistry.counter("game.journal.dead.letters", "kind", "participant").increment();
+    }
+
+    private void recordLag(List<JournaledAnswer> answers, long committedAt) {
+        for (JournaledAnswer answer : answers) {
+            flushLagTimer.record(committedAt - answer.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private List<JournaledAnswer> drainAnswers() {
+        List<JournaledAnswer> answers = new ArrayList<>();
+        JournaledAnswer answer;
+        while (answers.size() < maxAnswersPerFlush && (answer = pendingAnswers.pollFirst()) != null) {
+            answers.add(answer);
+        }
+        pendingAnswerCount.addAndGet(-answers.size());
+        return answers;
+    }
+
+    private List<ParticipantState.Snapshot> drainParticipants() {
+        List<ParticipantState.Snapshot> participants = new ArrayList<>();
+        Iterator<UUID> ids = dirtyParticipants.keySet().iterator();
+        while (ids.hasNext()) {
+            ParticipantState.Snapshot snapshot = dirtyParticipants.remove(ids.next());
+            if (snapshot != null) {
+                participants.add(snapshot);
+            }
+        }
+        return participants;
+    }
+
+    private void requeue(List<JournaledAnswer> answers, List<ParticipantState.Snapshot> participants) {
+        for (int i = answers.size() - 1; i >= 0; i--) {
+            pendingAnswers.addFirst(answers.get(i));
+        }
+        pendingAnswerCount.addAndGet(answers.size());
+        // Một snapshot mới hơn có thể đã được ghi vào trong lúc flush → giữ bản mới
+        for (ParticipantState.Snapshot snapshot : participants) {
+            dirtyParticipants.putIfAbsent(snapshot.participantId(), snapshot);
+        }
+    }
+
+    private void insertAnswers(List<JournaledAnswer> answers) {
+        for (int from = 0; from < answers.size(); from += maxRowsPerStatement) {
+            List<JournaledAnswer> chunk = answers.subList(from, Math.min(from + maxRowsPerStatement, answers.size()));
+
+            StringBuilder sql = new StringBuilder(INSERT_ANSWERS_PREFIX);
+            List<Object> args = new ArrayList<>(chunk.size() * 16);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append(INSERT_ANSWERS_ROW);
+
+                JournaledAnswer a = chunk.get(i);
+                args.add(a.answerId());
+                args.add(a.gameId());
+                args.add(a.participantId());
+                args.add(a.questionId());
+                args.add(a.submittedAnswerJson());
+                args.add(a.submittedAnswerText());
+                args.add(a.correct());
+                args.add(a.pointsEarned());
+                args.add(a.maxPoints());
+                args.add(a.maxPoints() > 0 ? (double) a.pointsEarned() * 100 / a.maxPoints() : 0.0);
+                args.add(a.responseTimeMs());
+                args.add(a.skipped());
+                args.add(a.timeout());
+                args.add(a.explanation());
+                args.add(toTimestamp(a.clientSubmittedAt()));
+                args.add(toTimestamp(a.serverReceivedAt()));
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    private void updateParticipants(List<ParticipantState.Snapshot> participants) {
+        for (int from = 0; from < participants.size(); from += maxRowsPerStatement) {
+            List<ParticipantState.Snapshot> chunk =
+                    participants.subList(from, Math.min(from + maxRowsPerStatement, participants.size()));
+
+            StringBuilder sql = new StringBuilder(UPDATE_PARTICIPANTS_PREFIX);
+            List<Object> args = new ArrayList<>(chunk.size() * 9);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append(UPDATE_PARTICIPANTS_ROW);
+
+                ParticipantState.Snapshot s = chunk.get(i);
+                args.add(s.participantId().toString());
+                args.add(s.score());
+                args.add(s.correctCount());
+                args.add(s.incorrectCount());
+                args.add(s.skippedCount());
+                args.add(s.totalTimeMs());
+                args.add(s.averageResponseTimeMs());
+                args.add(s.currentStreak());
+                args.add(s.bestStreak());
+            }
+            sql.append(UPDATE_PARTICIPANTS_SUFFIX);
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    private static double oldestPendingMillis(Deque<JournaledAnswer> pendingAnswers) {
+        JournaledAnswer oldest = pendingAnswers.peekFirst();
+        return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAtNanos());
+    }
+
+    // ==================== SHUTDOWN ====================
+
+    @PreDestroy
+    public void drain() {
+        log.info("Draining answer journal ({} answers, {} participants pending)",
+                pendingAnswerCount.get(), dirtyParticipants.size());
+        flush();
+        if (!pendingAnswers.isEmpty() || !dirtyParticipants.isEmpty()) {
+            log.error("Answer journal could not be fully drained: {} answers, {} participants lost",
+                    pendingAnswerCount.get(), dirtyParticipants.size());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.kkunquizapp.QuizAppBackend.game.journal;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A graded answer waiting in {@link AnswerJournal} to be written to user_answers.
+ *
+ * @param enqueuedAtNanos {@link System#nanoTime()} when the answer was queued, used for flush lag
+ */
+public record JournaledAnswer(
+        UUID answerId,
+        UUID gameId,
+        UUID participantId,
+        UUID questionId,
+        String submittedAnswerJson,
+        String submittedAnswerText,
+        boolean correct,
+        int pointsEarned,
+        int maxPoints,
+        long responseTimeMs,
+        boolean skipped,
+        boolean timeout,
+        String explanation,
+        LocalDateTime clientSubmittedAt,
+        LocalDateTime serverReceivedAt,
+        long enqueuedAtNanos
+) {}
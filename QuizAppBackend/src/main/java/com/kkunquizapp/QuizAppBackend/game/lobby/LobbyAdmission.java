@@ -0,0 +1,208 @@
+package com.kkunquizapp.QuizAppBackend.game.lobby;
+
+import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
+import com.kkunquizapp.QuizAppBackend.game.model.Game;
+import com.kkunquizapp.QuizAppBackend.game.model.enums.ParticipantStatus;
+import com.kkunquizapp.QuizAppBackend.game.repository.GameParticipantRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Seats of a lobby, counted atomically in Redis instead of on the game row.
+ *
+ * While a game is WAITING, {@code game:lobby:{gameId}:count} holds the number
+ * of seated players and {@code game:lobby:{gameId}:users} the signed-in users
+ * that already have a participant row. One script call checks membership,
+ * increments the count and rejects the join past {@code maxPlayers}, so
+ * concurrent joins on any node neither overfill the room nor lose updates.
+ *
+ * The game row is written once, with the final count, when the lobby closes
+ * (start, cancel or end). If the keys are missing (Redis flushed, game created
+ * before this existed) they are seeded again from the participant rows.
+ */
+@Component
+@Slf4j
+public class LobbyAdmission {
+
+    private static final String KEY_PREFIX = "game:lobby:";
+    private static final String CLOSED = "closed";
+
+    private static final List<ParticipantStatus> SEATED =
+            List.of(ParticipantStatus.JOINED, ParticipantStatus.READY, ParticipantStatus.PLAYING);
+
+    private static final long NOT_OPEN = -3;
+    private static final long LOBBY_CLOSED = -4;
+    private static final long ALREADY_JOINED = -2;
+    private static final long FULL = -1;
+
+    /** KEYS[1] count, KEYS[2] users; ARGV[1] maxPlayers, ARGV[2] ttl ms, ARGV[3] userId or ''. */
+    private static final DefaultRedisScript<Long> ADMIT_SCRIPT = new DefaultRedisScript<>("""
+            local count = redis.call('GET', KEYS[1])
+            if not count then return -3 end
+            if count == 'closed' then return -4 end
+            if ARGV[3] ~= '' and redis.call('SISMEMBER', KEYS[2], ARGV[3]) == 1 then return -2 end
+            local seated = redis.call('INCR', KEYS[1])
+            if seated > tonumber(ARGV[1]) then
+              redis.call('DECR', KEYS[1])
+              return -1
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            if ARGV[3] ~= '' then
+              redis.call('SADD', KEYS[2], ARGV[3])
+              redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            end
+            return seated""", Long.class);
+
+    /** KEYS[1] count, KEYS[2] users; ARGV[1] userId to forget, or ''. */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local count = redis.call('GET', KEYS[1])
+            if not count or count == 'closed' then return -1 end
+            if ARGV[1] ~= '' then redis.call('SREM', KEYS[2], ARGV[1]) end
+            if tonumber(count) > 0 then return redis.call('DECR', KEYS[1]) end
+            return 0""", Long.class);
+
+    /** KEYS[1] count, KEYS[2] users; ARGV[1] count, ARGV[2] ttl ms, ARGV[3..] user ids. */
+    private static final DefaultRedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+              for i = 3, #ARGV do redis.call('SADD', KEYS[2], ARGV[i]) end
+              if #ARGV > 2 then redis.call('PEXPIRE', KEYS[2], ARGV[2]) end
+              return 1
+            end
+            return 0""", Long.class);
+
+    /** KEYS[1] count, KEYS[2] users; ARGV[1] ttl ms of the tombstone. */
+    private static final DefaultRedisScript<Long> CLOSE_SCRIPT = new DefaultRedisScript<>("""
+            local count = redis.call('GET', KEYS[1])
+            redis.call('SET', KEYS[1], 'closed', 'PX', ARGV[1])
+            redis.call('DEL', KEYS[2])
+            if not count or count == 'closed' then return -1 end
+            return tonumber(count)""", Long.class);
+
+    private final StringRedisTemplate redis;
+    private final GameParticipantRepo participantRepository;
+    private final Duration ttl;
+    private final String ttlMs;
+    private final String closedTtlMs;
+
+    private final Counter rejectedFull;
+
+    public LobbyAdmission(StringRedisTemplate redis,
+                          GameParticipantRepo participantRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.game.lobby.seat-ttl-ms:21600000}") long ttlMs) {
+        this.redis = redis;
+        this.participantRepository = participantRepository;
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.ttlMs = String.valueOf(ttlMs);
+        // Đủ lâu để các lượt join đang bay tới sau khi lobby đóng bị từ chối
+        this.closedTtlMs = String.valueOf(Math.min(ttlMs, 600_000));
+
+        this.rejectedFull = Counter.builder("game.lobby.join.rejected")
+                .tag("reason", "full")
+                .description("Joins rejected because the lobby reached maxPlayers")
+                .register(meterRegistry);
+    }
+
+    /** New game: an empty lobby, so the first join does not have to seed it. */
+    public void open(UUID gameId) {
+        redis.opsForValue().setIfAbsent(countKey(gameId), "0", ttl);
+    }
+
+    /**
+     * Take a seat for a new participant.
+     *
+     * @param userId null for anonymous players
+     * @return false if this user already has a participant row in the game
+     *         (no seat was taken; the caller looks the row up)
+     * @throws GameException if the lobby is full or already closed
+     */
+    public boolean admit(Game game, UUID userId) {
+        return admit(game, userId != null ? userId.toString() : "");
+    }
+
+    /** Seat for a user coming back after leaving; their row already exists. */
+    public void readmit(Game game) {
+        admit(game, "");
+    }
+
+    private boolean admit(Game game, String member) {
+        UUID gameId = game.getGameId();
+        String maxPlayers = String.valueOf(game.getMaxPlayers());
+        Long result = redis.execute(ADMIT_SCRIPT, keys(gameId), maxPlayers, ttlMs, member);
+        if (result != null && result == NOT_OPEN) {
+            seed(gameId);
+            result = redis.execute(ADMIT_SCRIPT, keys(gameId), maxPlayers, ttlMs, member);
+        }
+        if (result == null || result == NOT_OPEN || result == LOBBY_CLOSED) {
+            throw new GameException("Game already started or ended");
+        }
+        if (result == FULL) {
+            rejectedFull.increment();
+            throw new GameException("Game is full", "GAME_FULL", HttpStatus.CONFLICT);
+        }
+        return result != ALREADY_JOINED;
+    }
+
+    /**
+     * Give a seat back: a player left or was kicked in the lobby, or their row
+     * could not be inserted ({@code userId} then also loses its membership).
+     */
+    public void release(UUID gameId, UUID userId) {
+        try {
+            redis.execute(RELEASE_SCRIPT, keys(gameId), userId != null ? userId.toString() : "");
+        } catch (Exception e) {
+            log.warn("Failed to release lobby seat of game {}: {}", gameId, e.getMessage());
+        }
+    }
+
+    /** Seated players while the lobby is open; empty once it closed or if unknown. */
+    public Optional<Integer> playerCount(UUID gameId) {
+        String count = redis.opsForValue().get(countKey(gameId));
+        if (count == null || CLOSED.equals(count)) {
+            return Optional.empty();
+        }
+        return Optional.of(Integer.parseInt(count));
+    }
+
+    /**
+     * Close the lobby: later joins are refused and the final count is returned
+     * for the one write to the game row.
+     */
+    public int close(Game game) {
+        Long count = redis.execute(CLOSE_SCRIPT, keys(game.getGameId()), closedTtlMs);
+        if (count == null || count < 0) {
+            return (int) participantRepository.countByGameAndStatusIn(game, SEATED);
+        }
+        return count.intValue();
+    }
+
+    private void seed(UUID gameId) {
+        int seated = (int) participantRepository.countByGameGameIdAndStatusIn(gameId, SEATED);
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(seated));
+        args.add(ttlMs);
+        participantRepository.findUserIdsByGameId(gameId).forEach(userId -> args.add(userId.toString()));
+        redis.execute(SEED_SCRIPT, keys(gameId), args.toArray());
+        log.info("Lobby of game {} seeded from the database: {} players", gameId, seated);
+    }
+
+    private static List<String> keys(UUID gameId) {
+        return List.of(countKey(gameId), KEY_PREFIX + gameId + ":users");
+    }
+
+    private static String countKey(UUID gameId) {
+        return KEY_PREFIX + gameId + ":count";
+    }
+}
@@ -0,0 +1,189 @@
+package com.kkunquizapp.QuizAppBackend.game.lobby;
+
+import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
+import com.kkunquizapp.QuizAppBackend.game.model.GameParticipant;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for lobby joins.
+ *
+ * A joining request queues its participant row and waits; one writer thread
+ * takes everything queued so far and inserts it with a multi-row INSERT in a
+ * single transaction. While a batch is being written the next joins pile up
+ * and go out together, so a join burst costs a handful of statements instead
+ * of one transaction per player, and a quiet lobby adds no delay.
+ *
+ * The join only returns once its row is committed, so the participant id the
+ * client receives can be used right away.
+ */
+@Component
+@Slf4j
+public class ParticipantInserter {
+
+    private static final String INSERT_PREFIX = """
+            INSERT INTO game_participants (participant_id, game_id, user_id, nickname, is_anonymous,
+                score, correct_count, incorrect_count, skipped_count, total_time_ms,
+                average_response_time_ms, current_streak, best_streak, is_kicked,
+                status, guest_token, guest_expires_at, joined_at)
+            VALUES\s""";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, 0, 0, 0, 0, 0, 0, 0, 0, false, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService writer;
+    private final int maxBatchSize;
+    private final long timeoutMs;
+
+    private final Timer insertTimer;
+    private final DistributionSummary batchSize;
+
+    public ParticipantInserter(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.game.lobby.insert-batch-size:500}") int maxBatchSize,
+                               @Value("${app.game.lobby.insert-timeout-ms:5000}") long timeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMs = timeoutMs;
+
+        this.insertTimer = Timer.builder("game.lobby.insert")
+                .description("Time to insert one batch of joined participants")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("game.lobby.insert.batch.size")
+                .description("Participants inserted per batch")
+                .register(meterRegistry);
+        meterRegistry.gaugeCollectionSize("game.lobby.insert.pending", List.of(), queue);
+
+        this.writer = Executors.newSingleThreadExecutor(new DefaultThreadFactory("lobby-insert", true));
+        this.writer.execute(this::writeLoop);
+    }
+
+    /**
+     * Insert a new participant (id, joinedAt already set) and wait for the commit.
+     */
+    public void insert(GameParticipant participant) {
+        Pending pending = new Pending(participant, new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            try {
+                pending.done.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Chưa được lấy ra thì huỷ hẳn; đang ghi dở thì phải chờ kết quả thật
+                if (queue.remove(pending)) {
+                    throw new GameException("Joining took too long, please try again",
+                            "JOIN_TIMEOUT", HttpStatus.SERVICE_UNAVAILABLE);
+                }
+                pending.done.get();
+            }
+        } catch (ExecutionException e) {
+            throw new GameException("Could not join the game", "JOIN_FAILED",
+                    HttpStatus.INTERNAL_SERVER_ERROR, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(pending);
+            throw new GameException("Join interrupted", "JOIN_FAILED", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // ==================== WRITER ====================
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertRows(batch));
+            batch.forEach(pending -> pending.done.complete(null));
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.error("Failed to insert participant {}: {}",
+                        batch.get(0).participant.getParticipantId(), e.getMessage(), e);
+                batch.get(0).done.completeExceptionally(e);
+                return;
+            }
+            // Một dòng lỗi không được kéo cả lô: ghi lại từng dòng
+            log.warn("Participant batch of {} failed, retrying row by row: {}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                write(List.of(pending));
+            }
+            return;
+        }
+        insertTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSize.record(batch.size());
+    }
+
+    private void insertRows(List<Pending> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> args = new ArrayList<>(batch.size() * 9);
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(INSERT_ROW);
+
+            GameParticipant p = batch.get(i).participant;
+            args.add(p.getParticipantId());
+            args.add(p.getGame().getGameId());
+            args.add(p.getUser() != null ? p.getUser().getUserId() : null);
+            args.add(p.getNickname());
+            args.add(p.isAnonymous());
+            args.add(p.getStatus().name());
+            args.add(p.getGuestToken());
+            args.add(toTimestamp(p.getGuestExpiresAt()));
+            args.add(toTimestamp(p.getJoinedAt()));
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdownNow();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.done.completeExceptionally(new IllegalStateException("Node is shutting down"));
+        }
+    }
+
+    private record Pending(GameParticipant participant, CompletableFuture<Void> done) {
+    }
+}
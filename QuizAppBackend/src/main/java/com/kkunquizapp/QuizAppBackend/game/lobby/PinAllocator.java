@@ -0,0 +1,287 @@
+package com.kkunquizapp.QuizAppBackend.game.lobby;
+
+import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hands out six-digit game PINs from a Redis bitmap over the 1,000,000-code space.
+ *
+ * Bit {@code n} of {@code game:pins:taken} is set while PIN {@code n} belongs to
+ * a game. Allocation is one script call: a few random SETBIT probes (a probe
+ * that flips 0 → 1 wins the code), then a BITPOS scan as a fallback when the
+ * space is nearly full. No database round trip.
+ *
+ * A finished or cancelled game's PIN is not freed at once: it waits in the
+ * {@code game:pins:quarantine} sorted set for {@code app.game.pin.quarantine-ms},
+ * so a player holding an old PIN cannot land in somebody else's new room.
+ * Releases happen after the game's transaction commits; a PIN allocated by a
+ * transaction that rolls back is freed immediately.
+ *
+ * At startup the bitmap is rebuilt from the PINs still on games, so codes
+ * leaked by a crash between allocate and commit come back. Codes handed out in
+ * the last minutes are kept in {@code game:pins:recent}, so a rebuild does not
+ * free a PIN another node just gave to a game it has not committed yet.
+ */
+@Component
+@Slf4j
+public class PinAllocator {
+
+    public static final int CODE_SPACE = 1_000_000;
+
+    private static final String TAKEN_KEY = "game:pins:taken";
+    private static final String QUARANTINE_KEY = "game:pins:quarantine";
+    private static final String RECENT_KEY = "game:pins:recent";
+    private static final String REBUILD_KEY_PREFIX = "game:pins:rebuild:";
+
+    // Transaction tạo game chưa commit lâu hơn thế này thì coi như đã rollback
+    private static final long RECENT_WINDOW_MS = 300_000;
+    private static final Duration REBUILD_KEY_TTL = Duration.ofMinutes(10);
+
+    /** KEYS[1] bitmap, KEYS[2] recent; ARGV[1] code space, ARGV[2] now, ARGV[3..] random candidates. */
+    private static final DefaultRedisScript<Long> ALLOCATE_SCRIPT = new DefaultRedisScript<>("""
+            local space = tonumber(ARGV[1])
+            for i = 3, #ARGV do
+              if redis.call('SETBIT', KEYS[1], ARGV[i], 1) == 0 then
+                redis.call('ZADD', KEYS[2], ARGV[2], ARGV[i])
+                return tonumber(ARGV[i])
+              end
+            end
+            local code = redis.call('BITPOS', KEYS[1], 0, math.floor(tonumber(ARGV[#ARGV]) / 8))
+            if code < 0 or code >= space then code = redis.call('BITPOS', KEYS[1], 0) end
+            if code < 0 or code >= space then return -1 end
+            redis.call('SETBIT', KEYS[1], code, 1)
+            redis.call('ZADD', KEYS[2], ARGV[2], code)
+            return -2 - code""", Long.class);
+
+    /** KEYS[1] bitmap, KEYS[2] recent; ARGV[1] code. */
+    private static final DefaultRedisScript<Long> FREE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[2], ARGV[1])
+            return redis.call('SETBIT', KEYS[1], ARGV[1], 0)""", Long.class);
+
+    /**
+     * KEYS[1] rebuilt bitmap, KEYS[2] bitmap, KEYS[3] quarantine, KEYS[4] recent; ARGV[1] recent since.
+     * Thêm code đang cách ly và code vừa cấp rồi thay bitmap cũ trong một bước.
+     */
+    private static final DefaultRedisScript<Long> SWAP_REBUILT_SCRIPT = new DefaultRedisScript<>("""
+            for _, code in ipairs(redis.call('ZRANGE', KEYS[3], 0, -1)) do redis.call('SETBIT', KEYS[1], code, 1) end
+            for _, code in ipairs(redis.call('ZRANGEBYSCORE', KEYS[4], ARGV[1], '+inf')) do
+              redis.call('SETBIT', KEYS[1], code, 1)
+            end
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              redis.call('DEL', KEYS[2])
+              return 0
+            end
+            redis.call('RENAME', KEYS[1], KEYS[2])
+            redis.call('PERSIST', KEYS[2])
+            return redis.call('BITCOUNT', KEYS[2])""", Long.class);
+
+    /** KEYS[1] bitmap, KEYS[2] quarantine, ARGV[1] now, ARGV[2] batch size. */
+    private static final DefaultRedisScript<Long> UNQUARANTINE_SCRIPT = new DefaultRedisScript<>("""
+            local codes = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+            for _, code in ipairs(codes) do redis.call('SETBIT', KEYS[1], code, 0) end
+            if #codes > 0 then redis.call('ZREM', KEYS[2], unpack(codes)) end
+            return #codes""", Long.class);
+
+    private final StringRedisTemplate redis;
+    private final JdbcTemplate jdbcTemplate;
+    private final int randomProbes;
+    private final long quarantineMs;
+
+    private final Counter allocatedCounter;
+    private final Counter scanCounter;
+
+    public PinAllocator(StringRedisTemplate redis,
+                        JdbcTemplate jdbcTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.game.pin.random-probes:8}") int randomProbes,
+                        @Value("${app.game.pin.quarantine-ms:600000}") long quarantineMs) {
+        this.redis = redis;
+        this.jdbcTemplate = jdbcTemplate;
+        this.randomProbes = Math.max(1, randomProbes);
+        this.quarantineMs = quarantineMs;
+
+        this.allocatedCounter = Counter.builder("game.pin.allocated")
+                .description("PIN codes handed out")
+                .register(meterRegistry);
+        this.scanCounter = Counter.builder("game.pin.scans")
+                .description("Allocations where every random probe hit a taken code and the bitmap was scanned")
+                .register(meterRegistry);
+    }
+
+    // ==================== ALLOCATE / RELEASE ====================
+
+    /**
+     * Take a free PIN. Inside a transaction the PIN is given back if the
+     * transaction rolls back.
+     */
+    public String allocate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] args = new String[randomProbes + 2];
+        args[0] = String.valueOf(CODE_SPACE);
+        args[1] = String.valueOf(System.currentTimeMillis());
+        for (int i = 2; i < args.length; i++) {
+            args[i] = String.valueOf(random.nextInt(CODE_SPACE));
+        }
+
+        Long result = redis.execute(ALLOCATE_SCRIPT, List.of(TAKEN_KEY, RECENT_KEY), (Object[]) args);
+        if (result == null || result == -1) {
+            throw new GameException("No PIN code available, please try again later",
+                    "PIN_EXHAUSTED", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        // Script trả về -2 - code khi phải quét bitmap
+        int code = (int) (result >= 0 ? result : -2 - result);
+        if (result < 0) {
+            scanCounter.increment();
+        }
+        allocatedCounter.increment();
+
+        String pin = format(code);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        free(code);
+                    }
+                }
+            });
+        }
+        return pin;
+    }
+
+    /**
+     * Put a game's PIN into quarantine once the caller's transaction commits
+     * (right away if there is none).
+     */
+    public void release(String pin) {
+        Integer code = parse(pin);
+        if (code == null) {
+            return;
+        }
+        Runnable quarantine = () -> {
+            try {
+                redis.opsForZSet().add(QUARANTINE_KEY, String.valueOf(code), System.currentTimeMillis() + quarantineMs);
+            } catch (Exception e) {
+                log.warn("Failed to release PIN {}: {}", pin, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() {
+                    quarantine.run();
+                }
+            });
+        } else {
+            quarantine.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.game.pin.sweep-interval-ms:10000}")
+    public void releaseQuarantined() {
+        try {
+            Long freed;
+            long now = System.currentTimeMillis();
+            do {
+                freed = redis.execute(UNQUARANTINE_SCRIPT, List.of(TAKEN_KEY, QUARANTINE_KEY),
+                        String.valueOf(now), "1000");
+            } while (freed != null && freed == 1000);
+            redis.opsForZSet().removeRangeByScore(RECENT_KEY, 0, now - RECENT_WINDOW_MS);
+        } catch (Exception e) {
+            log.warn("Failed to release quarantined PINs: {}", e.getMessage());
+        }
+    }
+
+    private void free(int code) {
+        try {
+            redis.execute(FREE_SCRIPT, List.of(TAKEN_KEY, RECENT_KEY), String.valueOf(code));
+        } catch (Exception e) {
+            log.warn("Failed to free PIN {}: {}", format(code), e.getMessage());
+        }
+    }
+
+    // ==================== STARTUP ====================
+
+    /**
+     * Rebuild the bitmap from the PINs still on games before games are created.
+     *
+     * The codes are written to a fresh key and swapped in atomically, so a PIN
+     * left set by a crash (allocated, never committed) is free again. Codes in
+     * quarantine or handed out during the last {@value #RECENT_WINDOW_MS} ms stay
+     * taken. Clearing PINs of games that ended before they were released on end
+     * is a one-off migration: db/games-pin-code-nullable.sql.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void syncWithDatabase() {
+        // Trước khi đọc DB: code cấp sau mốc này có thể chưa commit
+        long recentSince = System.currentTimeMillis() - RECENT_WINDOW_MS;
+        String rebuildKey = REBUILD_KEY_PREFIX + UUID.randomUUID();
+        try {
+            List<Integer> codes = new ArrayList<>();
+            jdbcTemplate.query("SELECT pin_code FROM games WHERE pin_code IS NOT NULL", rs -> {
+                Integer code = parse(rs.getString(1));
+                if (code != null) {
+                    codes.add(code);
+                }
+            });
+
+            byte[] key = rebuildKey.getBytes(StandardCharsets.UTF_8);
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                for (int code : codes) {
+                    connection.stringCommands().setBit(key, code, true);
+                }
+                // Node chết giữa chừng → key tạm tự biến mất
+                connection.keyCommands().pExpire(key, REBUILD_KEY_TTL.toMillis());
+                return null;
+            });
+
+            Long taken = redis.execute(SWAP_REBUILT_SCRIPT,
+                    List.of(rebuildKey, TAKEN_KEY, QUARANTINE_KEY, RECENT_KEY), String.valueOf(recentSince));
+            log.info("PIN allocator rebuilt: {} codes on games, {} taken in total", codes.size(), taken);
+        } catch (Exception e) {
+            log.error("Failed to rebuild PIN allocator from the database: {}", e.getMessage(), e);
+            try {
+                redis.delete(rebuildKey);
+            } catch (Exception ignored) {
+                // key tạm có TTL
+            }
+        }
+    }
+
+    private static String format(int code) {
+        return String.format("%06d", code);
+    }
+
+    private static Integer parse(String pin) {
+        if (pin == null || pin.length() != 6) {
+            return null;
+        }
+        try {
+            int code = Integer.parseInt(pin);
+            return code >= 0 && code < CODE_SPACE ? code : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.kkunquizapp.QuizAppBackend.game.lobby;
+
+import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEventPublisher;
+import com.kkunquizapp.QuizAppBackend.game.repository.GameRepo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Merges lobby join/leave/kick and presence changes of one game into a single
+ * {@code ROSTER_UPDATED} event per window.
+ *
+ * The first change of a game opens a window of {@code app.game.lobby.coalesce-window-ms};
+ * every change arriving before it closes goes into the same delta. On close the
+ * room gets one frame with the current count, instead of one frame per player.
+ * The count itself is kept by {@link LobbyAdmission} while the lobby is open
+ * and read from the game row afterwards.
+ *
+ * Windows are per node: in a cluster each node merges the joins it received,
+ * and the count comes from Redis, so every node reports the same number.
+ */
+@Component
+@Slf4j
+public class RosterCoalescer {
+
+    public static final String EVENT_TYPE = "ROSTER_UPDATED";
+
+    private final GameEventPublisher gameEventPublisher;
+    private final GameRepo gameRepository;
+    private final LobbyAdmission lobbyAdmission;
+    private final long windowMs;
+    private final ScheduledExecutorService scheduler;
+    private final Map<UUID, PendingRoster> pending = new ConcurrentHashMap<>();
+
+    private final DistributionSummary mergedEvents;
+
+    public RosterCoalescer(GameEventPublisher gameEventPublisher,
+                           GameRepo gameRepository,
+                           LobbyAdmission lobbyAdmission,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.game.lobby.coalesce-window-ms:150}") long windowMs) {
+        this.gameEventPublisher = gameEventPublisher;
+        this.gameRepository = gameRepository;
+        this.lobbyAdmission = lobbyAdmission;
+        this.windowMs = windowMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("lobby-roster", true));
+
+        this.mergedEvents = DistributionSummary.builder("game.lobby.roster.merged")
+                .description("Join/leave/kick events merged into one ROSTER_UPDATED frame")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("game.lobby.roster.pending", List.of(), pending);
+    }
+
+    // ==================== RECORD ====================
+
+    /** A participant joined (their seat is already taken in {@link LobbyAdmission}). */
+    public void joined(UUID gameId, UUID participantId, String nickname, boolean anonymous) {
+        record(gameId, roster -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("participantId", participantId);
+            entry.put("nickname", nickname);
+            entry.put("isAnonymous", anonymous);
+            roster.joined.put(participantId, entry);
+        });
+    }
+
+    public void left(UUID gameId, UUID participantId, String nickname) {
+        record(gameId, roster -> {
+            // Vào rồi ra trong cùng cửa sổ → phòng không cần biết
+            if (roster.joined.remove(participantId) == null) {
+                roster.left.add(Map.of("participantId", participantId, "nickname", nickname));
+            }
+        });
+    }
+
+    /** Same as {@link #left}, but the kicked player also gets a personal notice. */
+    public void kicked(UUID gameId, UUID participantId, String nickname, String reason) {
+        record(gameId, roster -> {
+            roster.joined.remove(participantId);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("participantId", participantId);
+            entry.put("nickname", nickname);
+            entry.put("reason", reason != null ? reason : "");
+            roster.kicked.add(entry);
+        });
+    }
+
+    /**
+     * Presence changes from heartbeats; the count is untouched, players only show as offline.
+     */
+    public void presence(UUID gameId, Collection<UUID> wentOffline, Collection<UUID> cameBack) {
+        record(gameId, roster -> {
+            wentOffline.forEach(participantId -> roster.connected.put(participantId, false));
+            cameBack.forEach(participantId -> roster.connected.put(participantId, true));
+        });
+    }
+
+    private void record(UUID gameId, Consumer<PendingRoster> change) {
+        boolean[] opened = new boolean[1];
+        pending.compute(gameId, (id, roster) -> {
+            if (roster == null) {
+                roster = new PendingRoster();
+                opened[0] = true;
+            }
+            change.accept(roster);
+            roster.events++;
+            return roster;
+        });
+        if (opened[0]) {
+            scheduler.schedule(() -> flushQuietly(gameId), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ==================== FLUSH ====================
+
+    /**
+     * Close the game's window now, e.g. before the game starts so the room
+     * sees the last joins before the first question.
+     */
+    public void flush(UUID gameId) {
+        PendingRoster roster = pending.remove(gameId);
+        if (roster == null) {
+            return;
+        }
+
+        int playerCount = lobbyAdmission.playerCount(gameId)
+                .orElseGet(() -> gameRepository.findPlayerCount(gameId).orElse(0));
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("joined", List.copyOf(roster.joined.values()));
+        data.put("left", roster.left);
+        data.put("kicked", roster.kicked);
+        List<UUID> offline = new ArrayList<>();
+        List<UUID> online = new ArrayList<>();
+        roster.connected.forEach((participantId, connected) -> (connected ? online : offline).add(participantId));
+        data.put("offline", offline);
+        data.put("online", online);
+        data.put("playerCount", playerCount);
+        data.put("mergedEvents", roster.events);
+
+        gameEventPublisher.publish(GameEvent.builder()
+                .gameId(gameId)
+                .eventType(EVENT_TYPE)
+                .data(data)
+                .timestamp(LocalDateTime.now())
+                .build());
+
+        mergedEvents.record(roster.events);
+        log.debug("Roster of game {} flushed: {} events merged, {} players", gameId, roster.events, playerCount);
+    }
+
+    private void flushQuietly(UUID gameId) {
+        try {
+            flush(gameId);
+        } catch (Exception e) {
+            log.error("Failed to flush lobby roster of game {}: {}", gameId, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        // Các thay đổi đang chờ vẫn được báo cho phòng trước khi node dừng
+        for (UUID gameId : List.copyOf(pending.keySet())) {
+            flushQuietly(gameId);
+        }
+    }
+
+    /** Changes of one window; only touched inside {@code pending.compute}. */
+    private static final class PendingRoster {
+        private final Map<UUID, Map<String, Object>> joined = new LinkedHashMap<>();
+        private final List<Map<String, Object>> left = new ArrayList<>();
+        private final List<Map<String, Object>> kicked = new ArrayList<>();
+        /** Last presence seen in the window: true = back online, false = timed out. */
+        private final Map<UUID, Boolean> connected = new LinkedHashMap<>();
+        private int events;
+    }
+}
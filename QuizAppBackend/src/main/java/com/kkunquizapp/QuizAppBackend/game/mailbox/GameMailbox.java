@@ -0,0 +1,170 @@
+package com.kkunquizapp.QuizAppBackend.game.mailbox;
+
+import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer actor per game for answer ingestion.
+ *
+ * Every command touching a game's live answer state (submit, skip) goes into that
+ * game's bounded mailbox and is executed one at a time by a virtual thread, so
+ * no lock or compare-and-set is needed around the participant state. The thread
+ * only exists while the mailbox has work; idle games cost one empty queue.
+ *
+ * A full mailbox rejects the command right away with 429 instead of letting
+ * request threads pile up behind a slow game.
+ */
+@Component
+@Slf4j
+public class GameMailbox {
+
+    private final int capacity;
+    private final long ackTimeoutMs;
+    private final Map<UUID, Actor> actors = new ConcurrentHashMap<>();
+
+    private final Timer ackTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    /** Chạy ngay trước khi actor nhả quyền chạy; chỉ test dùng để chen command vào khe này. */
+    private volatile Runnable beforeIdle = () -> { };
+
+    public GameMailbox(MeterRegistry meterRegistry,
+                       @Value("${app.game.mailbox.capacity:4096}") int capacity,
+                       @Value("${app.game.mailbox.ack-timeout-ms:5000}") long ackTimeoutMs) {
+        this.capacity = capacity;
+        this.ackTimeoutMs = ackTimeoutMs;
+
+        this.ackTimer = Timer.builder("game.answer.ack")
+                .description("Time from receiving an answer to acknowledging it")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("game.mailbox.wait")
+                .description("Time a command waited in its game's mailbox")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("game.mailbox.rejected")
+                .description("Commands rejected because the game's mailbox was full")
+                .register(meterRegistry);
+        meterRegistry.gauge("game.mailbox.depth", List.of(), actors,
+                m -> m.values().stream().mapToInt(a -> a.queue.size()).sum());
+        meterRegistry.gaugeMapSize("game.mailbox.actors", List.of(), actors);
+    }
+
+    /**
+     * Run {@code command} on the game's actor and wait for its result.
+     * A command that timed out still runs, so commands a client may retry must be idempotent.
+     *
+     * @throws GameException 429 if the mailbox is full, 503 if the actor does not
+     *                       answer in time; exceptions of the command are rethrown as is
+     */
+    public <T> T ask(UUID gameId, Supplier<T> command) {
+        long start = System.nanoTime();
+        Envelope<T> envelope = new Envelope<>(command, start);
+
+        Actor actor = actors.computeIfAbsent(gameId, Actor::new);
+        if (!actor.queue.offer(envelope)) {
+            rejectedCounter.increment();
+            throw new GameException("Too many answers in flight, please retry",
+                    "MAILBOX_FULL", HttpStatus.TOO_MANY_REQUESTS);
+        }
+        actor.schedule();
+
+        try {
+            return envelope.result.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new GameException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new GameException("Answer processing timed out", "MAILBOX_TIMEOUT", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Interrupted while waiting for answer processing",
+                    "MAILBOX_TIMEOUT", HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            ackTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Forget the game's actor (game ended). Commands already queued still run.
+     */
+    public void close(UUID gameId) {
+        actors.remove(gameId);
+    }
+
+    void beforeIdle(Runnable hook) {
+        this.beforeIdle = hook;
+    }
+
+    // ==================== ACTOR ====================
+
+    private final class Actor {
+        private final UUID gameId;
+        private final BlockingQueue<Envelope<?>> queue = new ArrayBlockingQueue<>(capacity);
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private Actor(UUID gameId) {
+            this.gameId = gameId;
+        }
+
+        private void schedule() {
+            if (running.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("game-actor-" + gameId).start(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Envelope<?> envelope;
+                while ((envelope = queue.poll()) != null) {
+                    queueWaitTimer.record(System.nanoTime() - envelope.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+                    envelope.run();
+                }
+                beforeIdle.run();
+                running.set(false);
+                // Command đến giữa poll() rỗng và set(false) → lấy lại quyền chạy
+            } while (!queue.isEmpty() && running.compareAndSet(false, true));
+        }
+    }
+
+    private static final class Envelope<T> {
+        private final Supplier<T> command;
+        private final long enqueuedAtNanos;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Envelope(Supplier<T> command, long enqueuedAtNanos) {
+            this.command = command;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+
+        private void run() {
+            try {
+                result.complete(command.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.kkunquizapp.QuizAppBackend.game.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timers of the answer hot path, one {@code game.answer.stage} timer per
+ * {@link Stage}. Together they split {@code game.answer.ack} into where the
+ * time actually goes.
+ *
+ * Stages are recorded back to back: {@link #stage} records the time since the
+ * previous mark and returns the new mark, so the stages of one answer add up
+ * to its total without overlapping.
+ */
+@Component
+public class AnswerPathMetrics {
+
+    public enum Stage {
+        /** Waiting for the game's actor (the per-game lock). */
+        LOCK,
+        /** Session, participant and current question lookup. */
+        LOAD,
+        /** Option un-shuffle, grading, points, host histogram. */
+        GRADE,
+        /** Participant stats and the answer journal append. */
+        PERSIST,
+        /** Leaderboard ZSET update. */
+        LEADERBOARD,
+        /** Early reveal check and the result DTO. */
+        RESPONSE;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    public enum Outcome {
+        CORRECT, INCORRECT, TIMEOUT;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<Outcome, Counter> outcomeCounters = new EnumMap<>(Outcome.class);
+
+    public AnswerPathMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("game.answer.stage")
+                    .description("Time spent in one stage of answer submission")
+                    .tag("stage", stage.tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomeCounters.put(outcome, Counter.builder("game.answer.result")
+                    .description("Graded answers by outcome")
+                    .tag("outcome", outcome.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /** Start of the first stage. */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record {@code stage} as the time since {@code sinceNanos}.
+     *
+     * @return the mark for the next stage
+     */
+    public long stage(Stage stage, long sinceNanos) {
+        long now = System.nanoTime();
+        stageTimers.get(stage).record(now - sinceNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void outcome(boolean correct, boolean timeout) {
+        outcomeCounters.get(timeout ? Outcome.TIMEOUT : correct ? Outcome.CORRECT : Outcome.INCORRECT).increment();
+    }
+}
@@ -43,7 +43,8 @@ public class Game {
     @JoinColumn(name = "host_id", nullable = false)
     private User host;
 
-    @Column(nullable = false, length = 8, unique = true)
+    // null sau khi game kết thúc: PIN được trả về PinAllocator để dùng lại
+    @Column(length = 8, unique = true)
     private String pinCode;
 
     @Enumerated(EnumType.STRING)
@@ -75,6 +76,9 @@ public class Game {
     @Builder.Default
     private boolean randomizeOptions = false;
 
+    // Seed cố định thứ tự câu hỏi + thứ tự đáp án của từng người chơi (game cũ: null, sinh khi start)
+    private Long randomSeed;
+
     private UUID currentQuestionId;
 
     @Column(nullable = false)
@@ -0,0 +1,58 @@
+package com.kkunquizapp.QuizAppBackend.game.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+// Phân bố câu trả lời của một câu hỏi, ghi một lần khi câu hỏi kết thúc
+@Entity
+@Table(name = "game_question_stats", indexes = {
+        @Index(name = "idx_question_stats_game", columnList = "game_id, questionIndex", unique = true)
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameQuestionStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID statsId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "game_id", nullable = false)
+    private Game game;
+
+    @Column(nullable = false)
+    private UUID questionId;
+
+    @Column(nullable = false)
+    private int questionIndex;
+
+    @Column(nullable = false)
+    private long answeredCount;
+
+    @Column(nullable = false)
+    private long correctCount;
+
+    @Column(nullable = false)
+    private long skippedCount;
+
+    // {"<optionId | true | false | correct | incorrect>": count}
+    @Column(columnDefinition = "JSONB", nullable = false)
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Long> distribution;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,129 @@
+package com.kkunquizapp.QuizAppBackend.game.recovery;
+
+import com.kkunquizapp.QuizAppBackend.game.model.enums.GameStatus;
+import com.kkunquizapp.QuizAppBackend.game.repository.GameRepo;
+import com.kkunquizapp.QuizAppBackend.game.service.GameService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup pass that brings in-progress games back after a restart.
+ *
+ * Deadlines still in Redis are re-armed by {@code GameTimerService} first; this
+ * pass then rebuilds the live session (answer keys, who already answered) of
+ * every IN_PROGRESS game and, for games whose deadline was lost, works out the
+ * time left on the current step and re-arms it, or fires it right away if it
+ * ran out while the node was down.
+ *
+ * Runs on its own thread after the application is ready, with
+ * {@code app.game.recovery.parallelism} games recovered at a time, so hundreds
+ * of games neither delay startup nor exhaust the connection pool.
+ */
+@Component
+@Slf4j
+public class GameRecoveryService {
+
+    private final GameRepo gameRepository;
+    private final GameService gameService;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int parallelism;
+
+    private final Timer passTimer;
+
+    public GameRecoveryService(GameRepo gameRepository,
+                               GameService gameService,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.game.recovery.enabled:true}") boolean enabled,
+                               @Value("${app.game.recovery.parallelism:16}") int parallelism) {
+        this.gameRepository = gameRepository;
+        this.gameService = gameService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.parallelism = parallelism;
+
+        this.passTimer = Timer.builder("game.recovery.duration")
+                .description("Time to recover all in-progress games at startup")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void recoverOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        new DefaultThreadFactory("game-recovery", true).newThread(this::recoverAll).start();
+    }
+
+    void recoverAll() {
+        long start = System.nanoTime();
+        List<UUID> gameIds;
+        try {
+            gameIds = gameRepository.findIdsByStatus(GameStatus.IN_PROGRESS);
+        } catch (Exception e) {
+            log.error("Game recovery could not list in-progress games: {}", e.getMessage(), e);
+            return;
+        }
+        if (gameIds.isEmpty()) {
+            return;
+        }
+        log.info("Recovering {} in-progress games ({} at a time)", gameIds.size(), parallelism);
+
+        ExecutorService workers = Executors.newFixedThreadPool(
+                Math.min(parallelism, gameIds.size()), new DefaultThreadFactory("game-recovery-worker", true));
+        Map<RecoveryOutcome, Integer> outcomes = new EnumMap<>(RecoveryOutcome.class);
+        int failed = 0;
+        try {
+            List<CompletableFuture<RecoveryOutcome>> futures = new ArrayList<>(gameIds.size());
+            for (UUID gameId : gameIds) {
+                futures.add(CompletableFuture.supplyAsync(() -> gameService.recoverGame(gameId), workers)
+                        .whenComplete((outcome, error) -> {
+                            if (error != null) {
+                                log.error("Failed to recover game {}: {}", gameId, error.getMessage());
+                            }
+                        }));
+            }
+            for (CompletableFuture<RecoveryOutcome> future : futures) {
+                try {
+                    outcomes.merge(future.join(), 1, Integer::sum);
+                } catch (Exception e) {
+                    failed++;
+                }
+            }
+        } finally {
+            workers.shutdown();
+        }
+
+        outcomes.forEach((outcome, count) -> counter(outcome.name()).increment(count));
+        counter("FAILED").increment(failed);
+        passTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Game recovery finished in {}ms: {} (failed: {})",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), outcomes, failed);
+    }
+
+    private Counter counter(String outcome) {
+        return Counter.builder("game.recovery.games")
+                .description("In-progress games handled by the startup recovery pass")
+                .tag("outcome", outcome.toLowerCase())
+                .register(meterRegistry);
+    }
+}
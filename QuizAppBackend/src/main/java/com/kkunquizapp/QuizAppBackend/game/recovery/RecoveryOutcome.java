@@ -0,0 +1,15 @@
+package com.kkunquizapp.QuizAppBackend.game.recovery;
+
+/**
+ * What the startup recovery pass did with one in-progress game.
+ */
+public enum RecoveryOutcome {
+    /** Not in progress anymore, or owned by another node. */
+    SKIPPED,
+    /** Its deadline was still in Redis; only the session was rebuilt. */
+    TIMER_RELOADED,
+    /** Time was left on the current step; the deadline was armed for the rest. */
+    RESCHEDULED,
+    /** The current step ran out while the node was down; it fires now. */
+    FAST_FORWARDED
+}
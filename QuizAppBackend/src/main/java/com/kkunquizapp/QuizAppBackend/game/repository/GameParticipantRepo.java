@@ -33,5 +33,11 @@ public interface GameParticipantRepo extends JpaRepository<GameParticipant, UUID
 
     long countByGameAndStatusIn(Game game, List<ParticipantStatus> statuses);
 
+    long countByGameGameIdAndStatusIn(UUID gameId, List<ParticipantStatus> statuses);
+
+    // Nạp lại danh sách user đã có trong lobby khi key Redis bị mất
+    @Query("SELECT p.user.userId FROM GameParticipant p WHERE p.game.gameId = :gameId AND p.user IS NOT NULL")
+    List<UUID> findUserIdsByGameId(@Param("gameId") UUID gameId);
+
     Optional<GameParticipant> findByGuestToken(String guestToken);
 }
\ No newline at end of file
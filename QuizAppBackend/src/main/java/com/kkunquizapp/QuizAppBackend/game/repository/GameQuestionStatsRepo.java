@@ -0,0 +1,19 @@
+package com.kkunquizapp.QuizAppBackend.game.repository;
+
+import com.kkunquizapp.QuizAppBackend.game.model.GameQuestionStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface GameQuestionStatsRepo extends JpaRepository<GameQuestionStats, UUID> {
+
+    List<GameQuestionStats> findByGameGameIdOrderByQuestionIndexAsc(UUID gameId);
+
+    boolean existsByGameGameIdAndQuestionIndex(UUID gameId, int questionIndex);
+
+    Optional<GameQuestionStats> findByGameGameIdAndQuestionIndex(UUID gameId, int questionIndex);
+}
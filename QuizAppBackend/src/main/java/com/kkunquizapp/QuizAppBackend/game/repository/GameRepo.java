@@ -5,9 +5,11 @@ import com.kkunquizapp.QuizAppBackend.game.model.enums.GameStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -37,4 +39,17 @@ public interface GameRepo extends JpaRepository<Game, UUID> {
 
     @Query("SELECT g FROM Game g LEFT JOIN FETCH g.quiz WHERE g.gameId = :gameId")
     Optional<Game> findByIdWithQuiz(UUID gameId);
-}
\ No newline at end of file
+
+    // Số người active tính từ presence trong bộ nhớ, ghi theo lô mỗi lần sweep
+    @Modifying
+    @Transactional
+    @Query("UPDATE Game g SET g.activePlayerCount = :count WHERE g.gameId = :gameId")
+    int setActivePlayerCount(@Param("gameId") UUID gameId, @Param("count") int count);
+
+    // Startup recovery: chỉ lấy ID, từng game được nạp lại song song
+    @Query("SELECT g.gameId FROM Game g WHERE g.gameStatus = :status")
+    List<UUID> findIdsByStatus(@Param("status") GameStatus status);
+
+    @Query("SELECT g.playerCount FROM Game g WHERE g.gameId = :gameId")
+    Optional<Integer> findPlayerCount(@Param("gameId") UUID gameId);
+}
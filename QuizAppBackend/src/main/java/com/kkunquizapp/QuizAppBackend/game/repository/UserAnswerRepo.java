@@ -26,4 +26,9 @@ public interface UserAnswerRepo extends JpaRepository<UserAnswer, java.util.UUID
     // Lấy tất cả answer của một question trong game (dùng cho analytics)
     @Query("SELECT a FROM UserAnswer a WHERE a.game = :game AND a.question = :question")
     List<UserAnswer> findByGameAndQuestion(@Param("game") Game game, @Param("question") Question question);
+
+    // Ai đã trả lời/bỏ qua câu đang mở (dựng lại session sau khi restart)
+    @Query("SELECT a.participant.participantId FROM UserAnswer a WHERE a.game.gameId = :gameId AND a.question.questionId = :questionId")
+    List<java.util.UUID> findParticipantIdsByGameAndQuestion(@Param("gameId") java.util.UUID gameId,
+                                                              @Param("questionId") java.util.UUID questionId);
 }
\ No newline at end of file
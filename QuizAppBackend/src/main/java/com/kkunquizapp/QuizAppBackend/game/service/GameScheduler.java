@@ -38,6 +38,15 @@ public class GameScheduler {
         }
     }
 
+    /**
+     * Mở câu hỏi đầu tiên sau khi game start (sau 500ms để client kịp subscribe)
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void startFirstQuestionTx(UUID gameId, UUID hostId) {
+        log.info("GameScheduler: startFirstQuestion called for game {}", gameId);
+        gameService.startFirstQuestion(gameId, hostId);
+    }
+
     /**
      * Kết thúc câu hỏi hiện tại (sau time limit)
      * Đảm bảo transaction được mở để load question + broadcast
@@ -68,6 +77,20 @@ public class GameScheduler {
         }
     }
 
+    /**
+     * Kết thúc game sau khi hiển thị đáp án câu cuối
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void endGameTx(UUID gameId, UUID hostId) {
+        log.info("GameScheduler: endGame called for game {}", gameId);
+        try {
+            gameService.endGame(gameId, hostId);
+        } catch (Exception e) {
+            log.error("GameScheduler: Failed to end game {}: {}", gameId, e.getMessage(), e);
+            throw e;
+        }
+    }
+
     /**
      * Broadcast câu hỏi hiện tại (đã được lấy từ DB)
      * Được gọi từ moveToNextQuestion() → transaction vẫn mở
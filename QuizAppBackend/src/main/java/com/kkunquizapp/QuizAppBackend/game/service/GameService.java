@@ -2,10 +2,12 @@ package com.kkunquizapp.QuizAppBackend.game.service;
 
 import com.kkunquizapp.QuizAppBackend.game.dto.*;
 import com.kkunquizapp.QuizAppBackend.game.model.Game;
+import com.kkunquizapp.QuizAppBackend.game.recovery.RecoveryOutcome;
 import com.kkunquizapp.QuizAppBackend.question.model.Question;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -40,15 +42,27 @@ public interface GameService {
 
     void kickParticipant(UUID gameId, UUID participantId, UUID hostId, String reason);
 
+    /**
+     * Apply one batch of presence changes (heartbeat timeouts, reconnects) to a game.
+     */
+    void applyPresence(UUID gameId, Collection<UUID> wentOffline, Collection<UUID> cameBack);
+
 //    void actuallyStartGame(UUID gameId, UUID hostId);
     // ==================== QUESTION FLOW ====================
 
     QuestionResponseDTO moveToNextQuestion(UUID gameId, UUID hostId);
 
+    void startFirstQuestion(UUID gameId, UUID hostId);
+
     void broadcastQuestionFromGameSession(UUID gameId, Question currentQuestion);
 
     void endQuestion(UUID gameId);
 
+    /**
+     * Rebuild the session of an in-progress game after a restart and re-arm its next deadline.
+     */
+    RecoveryOutcome recoverGame(UUID gameId);
+
 
     // ==================== ANSWER SUBMISSION ====================
 
@@ -86,4 +100,9 @@ public interface GameService {
     UserQuizStatsDTO getUserStatistics(UUID userId, UUID quizId);
 
     CurrentQuestionResponseDTO getCurrentQuestion(UUID gameId);
+
+    /**
+     * Events missed since {@code lastSequence}, or a snapshot if they are no longer buffered.
+     */
+    GameReplayDTO resume(UUID gameId, UUID participantId, long lastSequence);
 }
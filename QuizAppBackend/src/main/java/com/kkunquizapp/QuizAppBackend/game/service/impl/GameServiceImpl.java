@@ -1,25 +1,55 @@
 package com.kkunquizapp.QuizAppBackend.game.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kkunquizapp.QuizAppBackend.game.broadcast.AnswerDistributionSender;
+import com.kkunquizapp.QuizAppBackend.game.broadcast.PersonalRankSender;
+import com.kkunquizapp.QuizAppBackend.game.cluster.GameOwnershipService;
 import com.kkunquizapp.QuizAppBackend.game.dto.*;
 import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEventLog;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEventPublisher;
 import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
 import com.kkunquizapp.QuizAppBackend.game.exception.GameNotFoundException;
+import com.kkunquizapp.QuizAppBackend.game.grading.AnswerGradingResult;
+import com.kkunquizapp.QuizAppBackend.game.grading.AnswerKey;
+import com.kkunquizapp.QuizAppBackend.game.grading.AnswerKeyCompiler;
+import com.kkunquizapp.QuizAppBackend.game.grading.AnswerScoring;
+import com.kkunquizapp.QuizAppBackend.game.grading.OptionShuffle;
+import com.kkunquizapp.QuizAppBackend.game.journal.AnswerJournal;
+import com.kkunquizapp.QuizAppBackend.game.journal.JournaledAnswer;
+import com.kkunquizapp.QuizAppBackend.game.lobby.LobbyAdmission;
+import com.kkunquizapp.QuizAppBackend.game.lobby.ParticipantInserter;
+import com.kkunquizapp.QuizAppBackend.game.lobby.PinAllocator;
+import com.kkunquizapp.QuizAppBackend.game.lobby.RosterCoalescer;
+import com.kkunquizapp.QuizAppBackend.game.mailbox.GameMailbox;
 import com.kkunquizapp.QuizAppBackend.game.mapper.GameMapper;
+import com.kkunquizapp.QuizAppBackend.game.metrics.AnswerPathMetrics;
+import com.kkunquizapp.QuizAppBackend.game.metrics.AnswerPathMetrics.Stage;
 import com.kkunquizapp.QuizAppBackend.game.model.*;
 import com.kkunquizapp.QuizAppBackend.game.model.enums.*;
+import com.kkunquizapp.QuizAppBackend.game.recovery.RecoveryOutcome;
 import com.kkunquizapp.QuizAppBackend.game.repository.GameParticipantRepo;
+import com.kkunquizapp.QuizAppBackend.game.repository.GameQuestionStatsRepo;
 import com.kkunquizapp.QuizAppBackend.game.repository.GameRepo;
 import com.kkunquizapp.QuizAppBackend.game.repository.UserAnswerRepo;
 import com.kkunquizapp.QuizAppBackend.game.repository.UserQuizStatisticsRepo;
 import com.kkunquizapp.QuizAppBackend.game.service.GameScheduler;
 import com.kkunquizapp.QuizAppBackend.game.service.GameService;
+import com.kkunquizapp.QuizAppBackend.game.session.AnswerDistribution;
+import com.kkunquizapp.QuizAppBackend.game.session.GameSession;
+import com.kkunquizapp.QuizAppBackend.game.session.GameSessionRegistry;
+import com.kkunquizapp.QuizAppBackend.game.session.ParticipantState;
+import com.kkunquizapp.QuizAppBackend.game.session.PresenceTracker;
+import com.kkunquizapp.QuizAppBackend.game.stats.PostGameStatistics;
+import com.kkunquizapp.QuizAppBackend.game.session.QuestionState;
+import com.kkunquizapp.QuizAppBackend.game.timer.GameTimerService;
+import com.kkunquizapp.QuizAppBackend.game.timer.GameTimerType;
 import com.kkunquizapp.QuizAppBackend.question.model.*;
 import com.kkunquizapp.QuizAppBackend.question.repository.QuestionRepo;
 import com.kkunquizapp.QuizAppBackend.quiz.model.Quiz;
 import com.kkunquizapp.QuizAppBackend.quiz.repository.QuizRepo;
 import com.kkunquizapp.QuizAppBackend.quiz.service.QuizService;
+import com.kkunquizapp.QuizAppBackend.redis.service.RedisService;
 import com.kkunquizapp.QuizAppBackend.user.model.User;
 import com.kkunquizapp.QuizAppBackend.user.repository.UserRepo;
 import lombok.RequiredArgsConstructor;
@@ -31,16 +61,19 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.TaskScheduler;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
@@ -60,27 +93,45 @@ public class GameServiceImpl implements GameService {
     private final UserRepo userRepository;
     private final QuizService quizService;
     private final GameMapper gameMapper;
+    private final GameSessionRegistry sessionRegistry;
+    private final AnswerJournal answerJournal;
+    private final RedisService redisService;
+    private final AnswerKeyCompiler answerKeyCompiler;
 
     @Qualifier("redisObjectMapper")
     private final ObjectMapper redisObjectMapper;
 
     private final RedisTemplate<String, Object> redisTemplate;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final TaskScheduler taskScheduler;
+    private final GameEventPublisher gameEventPublisher;
+    private final GameTimerService gameTimerService;
+    private final GameOwnershipService ownershipService;
+    private final GameMailbox gameMailbox;
+    private final PersonalRankSender personalRankSender;
+    private final RosterCoalescer rosterCoalescer;
+    private final AnswerDistributionSender distributionSender;
+    private final GameQuestionStatsRepo questionStatsRepository;
+    private final PresenceTracker presenceTracker;
+    private final GameEventLog gameEventLog;
+    private final PostGameStatistics postGameStatistics;
+    private final PinAllocator pinAllocator;
+    private final LobbyAdmission lobbyAdmission;
+    private final ParticipantInserter participantInserter;
+    private final AnswerPathMetrics answerPathMetrics;
 
     // ==================== CONSTANTS ====================
 
     private static final String GAME_PIN_PREFIX = "game:pin:";
-    private static final String LEADERBOARD_CACHE_PREFIX = "leaderboard:";
     private static final String PARTICIPANTS_CACHE_PREFIX = "participants:";
-    private static final String ANSWER_LOCK_PREFIX = "answer:lock:";
 
     private static final long PIN_CACHE_TTL_SECONDS = 300;
-    private static final long LEADERBOARD_TTL_SECONDS = 5;
     private static final long PARTICIPANTS_TTL_SECONDS = 60;
 
-    @Value("${app.kafka.topics.game-events}")
-    private String KAFKA_TOPIC;
+    // Thời gian xem đáp án / bảng xếp hạng sau khi reveal, trước câu tiếp theo hoặc màn kết thúc
+    private static final Duration NEXT_QUESTION_PAUSE = Duration.ofSeconds(8);
+    private static final Duration END_GAME_PAUSE = Duration.ofSeconds(11);
+
+    @Value("${app.game.leaderboard.top-n:10}")
+    private int leaderboardTopN;
 
     // ==================== CREATE GAME ====================
 
@@ -103,7 +154,7 @@ public class GameServiceImpl implements GameService {
             throw new GameException("Quiz has no questions");
         }
 
-        String pinCode = generateUniquePinCode();
+        String pinCode = pinAllocator.allocate();
 
         Game game = Game.builder()
                 .quiz(quiz)
@@ -115,6 +166,7 @@ public class GameServiceImpl implements GameService {
                 .showLeaderboard(request.isShowLeaderboard())
                 .randomizeQuestions(request.isRandomizeQuestions())
                 .randomizeOptions(request.isRandomizeOptions())
+                .randomSeed(ThreadLocalRandom.current().nextLong())
                 .totalQuestions(questions.size())
                 .playerCount(0)
                 .activePlayerCount(0)
@@ -132,6 +184,7 @@ public class GameServiceImpl implements GameService {
 
         // Cache PIN -> GameId mapping only
         cachePinLookup(pinCode, game.getGameId());
+        lobbyAdmission.open(game.getGameId());
 
         publishGameEvent(game.getGameId(), "GAME_CREATED", hostId, Map.of(
                 "pinCode", pinCode,
@@ -152,51 +205,70 @@ public class GameServiceImpl implements GameService {
     // ==================== JOIN GAME ====================
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // không giữ connection trong lúc chờ lô insert
     public GameParticipantDTO joinGame(String pinCode, JoinGameRequest request, UUID userId) {
         log.info("User {} joining game with PIN: {}", userId, pinCode);
 
         Game game = getGameByPinWithValidation(pinCode);
         validateGameJoinable(game, userId);
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new GameException("User not found"));
+        // Ghế được giữ trong Redis; false = user này đã có participant trong game
+        if (!lobbyAdmission.admit(game, userId)) {
+            return rejoinGame(game, userId);
+        }
 
-        Optional<GameParticipant> existing = participantRepository.findByGameAndUser(game, user);
-        if (existing.isPresent()) {
-            GameParticipant participant = existing.get();
-            if (participant.getStatus() == ParticipantStatus.LEFT) {
-                participant.setStatus(ParticipantStatus.JOINED);
-                participantRepository.save(participant);
-            }
-            return gameMapper.toParticipantDTO(participant);
+        String nickname = request.getNickname();
+        User user;
+        try {
+            user = nickname != null
+                    ? userRepository.getReferenceById(userId)
+                    : userRepository.findById(userId).orElseThrow(() -> new GameException("User not found"));
+        } catch (RuntimeException e) {
+            lobbyAdmission.release(game.getGameId(), userId);
+            throw e;
         }
 
         GameParticipant participant = GameParticipant.builder()
+                .participantId(UUID.randomUUID())
                 .game(game)
                 .user(user)
-                .nickname(request.getNickname() != null ? request.getNickname() : user.getUsername())
+                .nickname(nickname != null ? nickname : user.getUsername())
                 .isAnonymous(false)
                 .status(ParticipantStatus.JOINED)
                 .score(0)
                 .correctCount(0)
+                .joinedAt(LocalDateTime.now())
                 .build();
 
-        participant = participantRepository.save(participant);
+        insertParticipant(participant, userId);
         log.info("User {} joined game {}", userId, game.getGameId());
 
-        updatePlayerCount(game, 1);
+        // Frame cho cả phòng được gộp theo cửa sổ lobby
+        rosterCoalescer.joined(game.getGameId(), participant.getParticipantId(), participant.getNickname(), false);
+        invalidateParticipantsCache(game.getGameId());
 
-        publishGameEvent(game.getGameId(), "PARTICIPANT_JOINED", userId, Map.of(
-                "participantId", participant.getParticipantId(),
-                "nickname", participant.getNickname(),
-                "isAnonymous", false,
-                "playerCount", game.getPlayerCount()
-        ));
+        return gameMapper.toParticipantDTO(participant);
+    }
 
+    /**
+     * User already has a row in this game: hand it back, and take a seat again
+     * if they had left.
+     */
+    private GameParticipantDTO rejoinGame(Game game, UUID userId) {
+        GameParticipant participant = participantRepository.findByGameAndUser_UserId(game, userId)
+                .orElseThrow(() -> new GameException("Participant not found, please join again"));
+        if (participant.getStatus() == ParticipantStatus.LEFT) {
+            lobbyAdmission.readmit(game);
+            participant.setStatus(ParticipantStatus.JOINED);
+            participantRepository.save(participant);
+            rosterCoalescer.joined(game.getGameId(), participant.getParticipantId(), participant.getNickname(), false);
+            invalidateParticipantsCache(game.getGameId());
+        }
         return gameMapper.toParticipantDTO(participant);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public GameParticipantDTO joinGameAnonymous(String pinCode, JoinGameRequest request) {
         log.info("Anonymous user joining game with PIN: {}", pinCode);
 
@@ -211,10 +283,13 @@ public class GameServiceImpl implements GameService {
             throw new GameException("Nickname is required for anonymous players");
         }
 
+        lobbyAdmission.admit(game, null);
+
         String guestToken = UUID.randomUUID().toString();
         LocalDateTime guestExpiry = LocalDateTime.now().plusDays(7);
 
         GameParticipant participant = GameParticipant.builder()
+                .participantId(UUID.randomUUID())
                 .game(game)
                 .user(null)
                 .nickname(request.getNickname().trim())
@@ -224,29 +299,37 @@ public class GameServiceImpl implements GameService {
                 .status(ParticipantStatus.JOINED)
                 .score(0)
                 .correctCount(0)
+                .joinedAt(LocalDateTime.now())
                 .build();
 
-        participant = participantRepository.save(participant);
+        insertParticipant(participant, null);
         log.info("Anonymous user joined game {}", game.getGameId());
 
-        updatePlayerCount(game, 1);
-
-        publishGameEvent(game.getGameId(), "PARTICIPANT_JOINED", null, Map.of(
-                "participantId", participant.getParticipantId(),
-                "nickname", participant.getNickname(),
-                "isAnonymous", true,
-                "playerCount", game.getPlayerCount()
-        ));
+        rosterCoalescer.joined(game.getGameId(), participant.getParticipantId(), participant.getNickname(), true);
+        invalidateParticipantsCache(game.getGameId());
 
         return gameMapper.toParticipantDTO(participant);
     }
 
+    /** Insert through the lobby batch; the seat is given back if the row cannot be written. */
+    private void insertParticipant(GameParticipant participant, UUID userId) {
+        try {
+            participantInserter.insert(participant);
+        } catch (RuntimeException e) {
+            lobbyAdmission.release(participant.getGame().getGameId(), userId);
+            throw e;
+        }
+    }
+
     // ==================== GAME CONTROL ====================
 
     @Override
     public void startGame(UUID gameId, UUID hostId) {
         log.info("Starting game: {} by host: {}", gameId, hostId);
 
+        // Phòng chờ nhận nốt frame của các lượt join cuối trước GAME_STARTED
+        rosterCoalescer.flush(gameId);
+
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
 
@@ -256,43 +339,47 @@ public class GameServiceImpl implements GameService {
             throw new GameException("Game cannot be started in current state: " + game.getGameStatus());
         }
 
-        if (game.getPlayerCount() == 0) {
+        if (lobbyAdmission.playerCount(gameId).orElse(game.getPlayerCount()) == 0) {
             throw new GameException("Cannot start game with no players");
         }
 
-        // Eager load questions
-        List<Question> questions = getGameQuestionsEager(game);
-        if (questions.isEmpty()) {
-            throw new GameException("Quiz has no questions");
+        // Node bắt đầu game sẽ giữ game (session, timer) tới khi kết thúc
+        if (!ownershipService.acquire(gameId)) {
+            throw new GameException("Game is owned by another node", "GAME_OWNED_ELSEWHERE", HttpStatus.CONFLICT);
+        }
+
+        // Game tạo trước khi có seed
+        if (game.getRandomSeed() == null) {
+            game.setRandomSeed(ThreadLocalRandom.current().nextLong());
         }
-        for (Question q : questions) {
-            Hibernate.initialize(q.getOptions());
+
+        // Cố định thứ tự câu hỏi một lần duy nhất cho cả game
+        List<UUID> questionOrder = getGameQuestionOrder(game);
+        if (questionOrder.isEmpty()) {
+            throw new GameException("Quiz has no questions");
         }
 
         // ✅ Set game status to IN_PROGRESS
+        closeLobby(game);
         game.startGame();
+        game.setTotalQuestions(questionOrder.size());
         gameRepository.saveAndFlush(game);
 
         log.info("Game {} status changed to IN_PROGRESS and flushed to DB", gameId);
 
+        // ✅ Build live session: answer path reads only from here
+        sessionRegistry.remove(gameId);
+        GameSession session = sessionRegistry.register(
+                new GameSession(game, questionOrder, participantRepository.findByGame(game)));
+        syncPresence(session);
+        seedLeaderboard(session);
+
         // ✅ FIX 1: ASYNC broadcast with 500ms delay
         // Cho frontend có thời gian subscribe trước khi broadcast Q1
         log.info("🚀 Scheduling first question broadcast in 500ms for game {}", gameId);
 
-        taskScheduler.schedule(
-                () -> {
-                    try {
-                        log.info("📤 [ASYNC] Broadcasting first question for game {}", gameId);
-                        moveToNextQuestion(gameId, hostId);
-                    } catch (Exception e) {
-                        log.error("❌ Failed to move to first question: {}", e.getMessage(), e);
-                        publishGameEvent(gameId, "GAME_START_FAILED", hostId, Map.of(
-                                "error", e.getMessage()
-                        ));
-                    }
-                },
-                Instant.now().plusMillis(500)  // ← 500ms delay để frontend subscribe
-        );
+        gameTimerService.schedule(gameId, GameTimerType.FIRST_QUESTION,
+                Duration.ofMillis(500), hostId); // ← 500ms delay để frontend subscribe
 
         // ✅ API return immediately, không block
         publishGameEvent(gameId, "GAME_STARTED", hostId, Map.of(
@@ -386,6 +473,7 @@ public class GameServiceImpl implements GameService {
 
         game.setGameStatus(GameStatus.PAUSED);
         gameRepository.save(game);
+        sessionRegistry.find(gameId).ifPresent(session -> session.setStatus(GameStatus.PAUSED));
 
         publishGameEvent(gameId, "GAME_PAUSED", hostId, null);
     }
@@ -404,6 +492,7 @@ public class GameServiceImpl implements GameService {
 
         game.setGameStatus(GameStatus.IN_PROGRESS);
         gameRepository.save(game);
+        sessionRegistry.find(gameId).ifPresent(session -> session.setStatus(GameStatus.IN_PROGRESS));
 
         publishGameEvent(gameId, "GAME_RESUMED", hostId, null);
     }
@@ -425,15 +514,31 @@ public class GameServiceImpl implements GameService {
         game = gameRepository.findByIdWithQuiz(gameId)
                 .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
 
-        calculateFinalStatistics(game);
+        // Điểm số đang nằm trong journal phải xuống DB trước khi tính thống kê cuối
+        int lostAnswers = answerJournal.flushBeforeGameEnd(gameId);
+        if (lostAnswers > 0) {
+            log.error("Game {} ends without {} answers that could not be saved (journal dead letters)",
+                    gameId, lostAnswers);
+        }
+        PostGameStatistics.Summary summary = postGameStatistics.summarize(gameId);
+        game.setAverageScore(summary.averageScore());
+        game.setCompletedPlayerCount(summary.completedPlayers());
 
+        closeLobby(game);
         game.endGame();
+        releasePin(game);
         gameRepository.save(game);
+        sessionRegistry.remove(gameId);
+        gameTimerService.cancel(gameId);
+
+        List<LeaderboardEntryDTO> leaderboard = getLeaderboard(gameId);
 
-        quizService.incrementCompletionCount(game.getQuiz().getQuizId());
-        quizService.updateAverageScore(game.getQuiz().getQuizId(), game.getAverageScore());
+        redisService.removeGameData(gameId);
+        ownershipService.release(gameId);
+        gameMailbox.close(gameId);
 
-        List<LeaderboardEntryDTO> leaderboard = getFinalLeaderboard(gameId);
+        // Xếp hạng cuối, thống kê người chơi và của quiz: chạy nền sau khi commit
+        postGameStatistics.submit(gameId, game.getQuiz().getQuizId(), summary.averageScore());
 
         publishGameEvent(gameId, "GAME_ENDED", hostId, Map.of(
                 "leaderboard", leaderboard,
@@ -452,15 +557,35 @@ public class GameServiceImpl implements GameService {
                 .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
         validateHost(game, hostId);
 
+        closeLobby(game);
         game.setGameStatus(GameStatus.CANCELLED);
         game.setEndedAt(LocalDateTime.now());
+        releasePin(game);
         gameRepository.save(game);
+        sessionRegistry.remove(gameId);
+        gameTimerService.cancel(gameId);
+        redisService.removeGameData(gameId);
+        ownershipService.release(gameId);
+        gameMailbox.close(gameId);
 
         publishGameEvent(gameId, "GAME_CANCELLED", hostId, Map.of("reason", "Cancelled by host"));
     }
 
     // ==================== QUESTION FLOW ====================
 
+    @Override
+    public void startFirstQuestion(UUID gameId, UUID hostId) {
+        try {
+            log.info("📤 [ASYNC] Broadcasting first question for game {}", gameId);
+            moveToNextQuestion(gameId, hostId);
+        } catch (Exception e) {
+            log.error("❌ Failed to move to first question: {}", e.getMessage(), e);
+            publishGameEvent(gameId, "GAME_START_FAILED", hostId, Map.of(
+                    "error", e.getMessage()
+            ));
+        }
+    }
+
     @Override
     @Transactional
     public QuestionResponseDTO moveToNextQuestion(UUID gameId, UUID hostId) {
@@ -476,41 +601,43 @@ public class GameServiceImpl implements GameService {
             throw new GameException("Game must be in progress to move to next question");
         }
 
+        GameSession session = requireSession(gameId);
+
         // 2. Kiểm tra còn câu hỏi không
-        if (game.getCurrentQuestionIndex() >= game.getTotalQuestions() - 1) {
+        if (!session.hasNextQuestion()) {
             log.info("No more questions → auto ending game {}", gameId);
             endGame(gameId, hostId);
             throw new GameException("No more questions. Game has ended.");
         }
 
-        // 3. ✅ FIX: Lấy danh sách câu hỏi một lần duy nhất (JOIN FETCH options)
-        List<Question> questions = getGameQuestionsEager(game);
-
-        if (questions.isEmpty()) {
-            throw new GameException("Quiz has no questions");
-        }
+        // 3. ✅ Chỉ load đúng 1 câu hỏi (JOIN FETCH options) theo thứ tự đã cố định trong session
+        int nextIndex = session.getCurrentQuestionIndex() + 1;
+        UUID questionId = session.questionIdAt(nextIndex);
+        Question currentQuestion = questionRepository.findByIdWithOptions(questionId)
+                .orElseThrow(() -> new GameException("Question not found: " + questionId));
 
         // 4. Di chuyển sang câu tiếp theo
         game.moveToNextQuestion(); // tăng currentQuestionIndex
+        game.setCurrentQuestionIndex(nextIndex);
 
-        Question currentQuestion = questions.get(game.getCurrentQuestionIndex());
-
-        // 5. Cập nhật DB
+        // 5. Cập nhật DB (bền vững) + session (hot path)
         game.setCurrentQuestionId(currentQuestion.getQuestionId());
-        game.setQuestionStartTime(LocalDateTime.now());
         gameRepository.save(game);
 
+        QuestionResponseDTO questionDTO = gameMapper.toQuestionDTOWithoutAnswers(currentQuestion);
+        session.startQuestion(openQuestion(session, currentQuestion, nextIndex, Instant.now(), questionDTO));
+
         log.info("Game {} → question {}/{} (ID: {})",
                 gameId,
-                game.getCurrentQuestionIndex() + 1,
-                game.getTotalQuestions(),
+                nextIndex + 1,
+                session.getTotalQuestions(),
                 currentQuestion.getQuestionId());
 
         // 6. ✅ FIX: Gửi câu hỏi ngay tại đây (TRANSACTION VẪN MỞ, OPTIONS ĐÃ LOAD)
         broadcastQuestionFromGameSession(gameId, currentQuestion);
 
         // 7. Trả về DTO cho host
-        return gameMapper.toQuestionDTOWithoutAnswers(currentQuestion);
+        return questionDTO;
     }
 
     @Override
@@ -518,6 +645,12 @@ public class GameServiceImpl implements GameService {
     public CurrentQuestionResponseDTO getCurrentQuestion(UUID gameId) {
         log.debug("Fetching current question for game {}", gameId);
 
+        // Node đang giữ game trả lời từ bộ nhớ, không chạm Postgres
+        Optional<GameSession> live = sessionRegistry.find(gameId);
+        if (live.isPresent()) {
+            return currentQuestionOf(live.get());
+        }
+
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
 
@@ -542,6 +675,11 @@ public class GameServiceImpl implements GameService {
         long remaining = Math.max(0, currentQuestion.getTimeLimitSeconds() - elapsedSeconds);
 
         QuestionResponseDTO questionDTO = gameMapper.toQuestionDTOWithoutAnswers(currentQuestion);
+        if (game.isRandomizeOptions()) {
+            // Cùng fallback 0 với GameSession.optionSeed, để thứ tự khớp với lúc chấm
+            long seed = game.getRandomSeed() != null ? game.getRandomSeed() : 0L;
+            questionDTO.setOptionShuffleSeed(OptionShuffle.questionSeed(seed, currentQuestion.getQuestionId()));
+        }
 
         return CurrentQuestionResponseDTO.builder()
                 .question(questionDTO)
@@ -552,6 +690,76 @@ public class GameServiceImpl implements GameService {
                 .hasCurrentQuestion(true)
                 .build();
     }
+    private CurrentQuestionResponseDTO currentQuestionOf(GameSession session) {
+        QuestionState question = session.getCurrentQuestion();
+        if (session.getStatus() != GameStatus.IN_PROGRESS || question == null) {
+            return CurrentQuestionResponseDTO.builder()
+                    .hasCurrentQuestion(false)
+                    .build();
+        }
+        long remaining = Math.max(0,
+                (question.timeLimitMillis() - question.elapsedMillis(Instant.now())) / 1000);
+        return CurrentQuestionResponseDTO.builder()
+                .question(question.publicView())
+                .questionNumber(question.index() + 1)
+                .totalQuestions(session.getTotalQuestions())
+                .timeLimitSeconds(question.timeLimitSeconds())
+                .remainingTimeSeconds(remaining)
+                .hasCurrentQuestion(true)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GameReplayDTO resume(UUID gameId, UUID participantId, long lastSequence) {
+        Optional<List<GameEvent>> missed = gameEventLog.since(gameId, lastSequence);
+        if (missed.isPresent()) {
+            List<GameEvent> events = missed.get();
+            log.debug("Replaying {} events of game {} after sequence {}", events.size(), gameId, lastSequence);
+            return GameReplayDTO.builder()
+                    .gameId(gameId)
+                    .mode(GameReplayDTO.MODE_EVENTS)
+                    .lastSequence(events.isEmpty() ? lastSequence : events.get(events.size() - 1).getSequence())
+                    .events(events)
+                    .build();
+        }
+
+        // Khoảng hở đã rơi khỏi ring buffer → gửi trạng thái hiện tại thay vì từng event
+        long sequence = gameEventLog.lastSequence(gameId);
+        log.debug("Sending snapshot of game {} to participant {} (last sequence {})",
+                gameId, participantId, lastSequence);
+
+        Optional<GameSession> live = sessionRegistry.find(gameId);
+        if (live.isPresent()) {
+            GameSession session = live.get();
+            QuestionState question = session.getCurrentQuestion();
+            ParticipantState state = participantId != null ? session.participant(participantId) : null;
+            return GameReplayDTO.builder()
+                    .gameId(gameId)
+                    .mode(GameReplayDTO.MODE_SNAPSHOT)
+                    .lastSequence(sequence)
+                    .status(session.getStatus().name())
+                    .currentQuestion(currentQuestionOf(session))
+                    .questionRevealed(question != null && question.closed().get())
+                    .score(state != null ? state.getScore() : null)
+                    .build();
+        }
+
+        Game game = gameRepository.findById(gameId)
+                .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
+        Integer score = participantId != null
+                ? participantRepository.findById(participantId).map(GameParticipant::getScore).orElse(null)
+                : null;
+        return GameReplayDTO.builder()
+                .gameId(gameId)
+                .mode(GameReplayDTO.MODE_SNAPSHOT)
+                .lastSequence(sequence)
+                .status(game.getGameStatus().name())
+                .currentQuestion(getCurrentQuestion(gameId))
+                .score(score)
+                .build();
+    }
+
     /**
      * Broadcast câu hỏi hiện tại cho tất cả người chơi
      * ✅ FIX: Gửi từ danh sách questions đã fetch sẵn (TRONG TRANSACTION)
@@ -571,15 +779,19 @@ public class GameServiceImpl implements GameService {
             }
         }
 
-        QuestionResponseDTO questionDTO = gameMapper.toQuestionDTOWithoutAnswers(currentQuestion);
+        GameSession session = requireSession(gameId);
+        QuestionState state = session.getCurrentQuestion();
 
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
+        // DTO đã được build sẵn khi mở câu hỏi trong session
+        QuestionResponseDTO questionDTO = state != null && state.questionId().equals(currentQuestion.getQuestionId())
+                ? state.publicView()
+                : gameMapper.toQuestionDTOWithoutAnswers(currentQuestion);
+        questionDTO.setOptionShuffleSeed(session.optionSeed(currentQuestion.getQuestionId()));
 
         publishGameEvent(gameId, "QUESTION_STARTED", null, Map.of(
                 "question", questionDTO,
-                "questionNumber", game.getCurrentQuestionIndex() + 1,
-                "totalQuestions", game.getTotalQuestions(),
+                "questionNumber", session.getCurrentQuestionIndex() + 1,
+                "totalQuestions", session.getTotalQuestions(),
                 "timeLimit", currentQuestion.getTimeLimitSeconds(),
                 "catchUp", true
         ));
@@ -590,10 +802,13 @@ public class GameServiceImpl implements GameService {
         // ✅ FIX 2: Schedule ONLY here (not in startGame or anywhere else)
         log.info("⏱️ Scheduling end question in {} seconds", currentQuestion.getTimeLimitSeconds() + 1);
 
-        taskScheduler.schedule(
-                () -> endQuestion(gameId),
-                Instant.now().plusSeconds(currentQuestion.getTimeLimitSeconds() + 1)
-        );
+        gameTimerService.schedule(gameId, GameTimerType.END_QUESTION,
+                Duration.ofSeconds(currentQuestion.getTimeLimitSeconds() + 1), session.getHostId());
+
+        // Mọi người đã trả lời trước khi deadline kịp đặt → reveal ngay
+        if (state != null && state.questionId().equals(currentQuestion.getQuestionId()) && state.allResponded()) {
+            revealEarly(gameId, state);
+        }
     }
 
     @Override
@@ -601,25 +816,34 @@ public class GameServiceImpl implements GameService {
     public void endQuestion(UUID gameId) {
         log.info("Ending current question for game: {}", gameId);
 
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
-
-        if (game.getGameStatus() != GameStatus.IN_PROGRESS) {
+        GameSession session = findLiveSession(gameId).orElse(null);
+        if (session == null || session.getStatus() != GameStatus.IN_PROGRESS) {
             log.info("Game {} already ended or paused → skip endQuestion", gameId);
             return;
         }
 
-        // Lấy câu hỏi hiện tại với options (để lấy đáp án đúng + explanation)
-        Question currentQuestion = questionRepository.findByIdWithOptions(game.getCurrentQuestionId())
-                .orElse(null);
+        // Câu hỏi hiện tại (options đã load sẵn trong session) để lấy đáp án đúng + explanation
+        QuestionState state = session.getCurrentQuestion();
+        Question currentQuestion = state != null ? state.question() : null;
 
-        // Lấy leaderboard realtime
-        List<LeaderboardEntryDTO> leaderboard = getLeaderboard(gameId);
+        // Timer và đóng sớm (mọi người đã trả lời) có thể gọi cùng lúc → chỉ một lần reveal
+        if (state != null && !state.close()) {
+            log.info("Question {} of game {} already revealed → skip endQuestion", state.index() + 1, gameId);
+            return;
+        }
 
-        // ✅ Tạo payload đầy đủ gửi cho frontend
+        // Ghi các câu trả lời còn trong journal xuống DB ở ranh giới câu hỏi
+        answerJournal.flush();
+
+        // Lấy leaderboard realtime (Redis ZSET + session, không đọc Postgres)
+        List<LeaderboardEntryDTO> ranked = liveLeaderboard(session, session.getParticipants().size());
+        applyRankMovements(session, ranked);
+
+        // Cả phòng chỉ nhận top N; từng người nhận hạng của mình qua /user/queue/game-updates
         Map<String, Object> data = new HashMap<>();
-        data.put("leaderboard", leaderboard);
-        data.put("questionNumber", game.getCurrentQuestionIndex() + 1);
+        data.put("leaderboard", List.copyOf(ranked.subList(0, Math.min(leaderboardTopN, ranked.size()))));
+        data.put("totalPlayers", ranked.size());
+        data.put("questionNumber", session.getCurrentQuestionIndex() + 1);
 
         if (currentQuestion != null) {
             // Gửi câu hỏi đầy đủ có đáp án đúng + explanation
@@ -627,190 +851,266 @@ public class GameServiceImpl implements GameService {
             data.put("explanation", currentQuestion.getExplanation());
         }
 
-        data.put("nextQuestionInSeconds", 8); // thời gian chờ trước câu tiếp theo
+        // Phân bố cuối cùng: gửi kèm reveal và ghi DB đúng một lần
+        if (state != null) {
+            state.distribution().finish().ifPresent(snapshot -> {
+                data.put("distribution", distributionSender.payload(session, state, snapshot, true));
+                saveQuestionStats(gameId, state, snapshot);
+            });
+        }
+
+        data.put("nextQuestionInSeconds", NEXT_QUESTION_PAUSE.toSeconds()); // thời gian chờ trước câu tiếp theo
 
         // ✅ Gửi event QUESTION_ENDED với đầy đủ thông tin
         publishGameEvent(gameId, "QUESTION_ENDED", null, data);
-
-        cacheLeaderboard(gameId, leaderboard);
+        personalRankSender.send(session, ranked);
 
         // Tự động chuyển câu tiếp theo hoặc kết thúc game
-        if (game.getCurrentQuestionIndex() < game.getTotalQuestions() - 1) {
-            taskScheduler.schedule(
-                    () -> moveToNextQuestion(gameId, game.getHost().getUserId()),
-                    Instant.now().plusSeconds(8)
-            );
+        UUID hostId = session.getHostId();
+        if (session.hasNextQuestion()) {
+            gameTimerService.schedule(gameId, GameTimerType.NEXT_QUESTION, NEXT_QUESTION_PAUSE, hostId);
+        } else {
+            gameTimerService.schedule(gameId, GameTimerType.END_GAME, END_GAME_PAUSE, hostId);
+        }
+    }
+
+    // ==================== RECOVERY ====================
+
+    @Override
+    public RecoveryOutcome recoverGame(UUID gameId) {
+        GameSession session = findLiveSession(gameId).orElse(null);
+        if (session == null || session.getStatus() != GameStatus.IN_PROGRESS) {
+            return RecoveryOutcome.SKIPPED;
+        }
+        if (gameTimerService.hasPending(gameId)) {
+            return RecoveryOutcome.TIMER_RELOADED;
+        }
+
+        UUID hostId = session.getHostId();
+        QuestionState question = session.getCurrentQuestion();
+
+        // Đã start nhưng chưa kịp mở câu đầu tiên
+        if (question == null) {
+            gameTimerService.schedule(gameId, GameTimerType.FIRST_QUESTION, Duration.ZERO, hostId);
+            return RecoveryOutcome.FAST_FORWARDED;
+        }
+
+        long remainingMs;
+        GameTimerType next;
+        Optional<GameQuestionStats> revealed =
+                questionStatsRepository.findByGameGameIdAndQuestionIndex(gameId, question.index());
+        if (revealed.isPresent()) {
+            // Câu này đã reveal (stats chỉ ghi khi reveal) → chỉ còn thiếu bước chuyển câu / kết thúc
+            question.close();
+            question.distribution().finish();
+            next = session.hasNextQuestion() ? GameTimerType.NEXT_QUESTION : GameTimerType.END_GAME;
+            Duration pause = next == GameTimerType.NEXT_QUESTION ? NEXT_QUESTION_PAUSE : END_GAME_PAUSE;
+            remainingMs = pause.toMillis() - Duration.between(revealed.get().getCreatedAt(), LocalDateTime.now()).toMillis();
         } else {
-            taskScheduler.schedule(
-                    () -> endGame(gameId, game.getHost().getUserId()),
-                    Instant.now().plusSeconds(11)
-            );
+            next = GameTimerType.END_QUESTION;
+            // Mọi người đã trả lời trước khi node dừng → reveal ngay
+            remainingMs = question.allResponded()
+                    ? 0
+                    : question.timeLimitMillis() + 1_000 - question.elapsedMillis(Instant.now());
         }
+
+        gameTimerService.schedule(gameId, next, Duration.ofMillis(Math.max(0, remainingMs)), hostId);
+        log.info("Recovered game {}: {} of question {} in {}ms", gameId, next, question.index() + 1,
+                Math.max(0, remainingMs));
+        return remainingMs > 0 ? RecoveryOutcome.RESCHEDULED : RecoveryOutcome.FAST_FORWARDED;
     }
 
     // ==================== ANSWER SUBMISSION ====================
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AnswerResultDTO submitAnswer(UUID gameId, UUID participantId, SubmitAnswerRequest request) {
         log.debug("Participant {} submitting answer for game {}", participantId, gameId);
 
-        String lockKey = ANSWER_LOCK_PREFIX + participantId + ":" + gameId;
-        Boolean locked = redisTemplate.opsForValue().setIfAbsent(
-                lockKey, "locked", 10, TimeUnit.SECONDS
-        );
-
-        if (Boolean.FALSE.equals(locked)) {
-            throw new GameException("Answer submission in progress");
-        }
-
-        try {
-            return doSubmitAnswer(gameId, participantId, request);
-        } finally {
-            redisTemplate.delete(lockKey);
-        }
+        // Mọi answer của một game chạy tuần tự trên actor của game → không cần lock
+        long queuedAt = answerPathMetrics.start();
+        return gameMailbox.ask(gameId, () -> doSubmitAnswer(gameId, participantId, request,
+                answerPathMetrics.stage(Stage.LOCK, queuedAt)));
     }
 
-    private AnswerResultDTO doSubmitAnswer(UUID gameId, UUID participantId, SubmitAnswerRequest request) {
-        // 1️⃣ Fetch Game
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
+    /** {@code mark}: start of the current stage, see {@link AnswerPathMetrics}. */
+    private AnswerResultDTO doSubmitAnswer(UUID gameId, UUID participantId, SubmitAnswerRequest request, long mark) {
+        // 1️⃣ Live session (in-memory) thay vì load Game từ DB
+        GameSession session = requireSession(gameId);
 
-        if (game.getGameStatus() != GameStatus.IN_PROGRESS) {
+        if (session.getStatus() != GameStatus.IN_PROGRESS) {
             throw new GameException("Game is not in progress");
         }
 
-        // 2️⃣ Fetch Participant
-        GameParticipant participant = participantRepository.findById(participantId)
-                .orElseThrow(() -> new GameException("Participant not found"));
-
-        validateParticipantAccess(game, participant);
+        // 2️⃣ Participant state
+        ParticipantState participant = requireParticipantState(session, participantId);
 
-        // ✅ 3️⃣ FIX: Get currentQuestionId from GAME (not from request)
-        UUID currentQuestionId = game.getCurrentQuestionId();
-        if (currentQuestionId == null) {
+        // ✅ 3️⃣ Current question from SESSION (not from request)
+        QuestionState questionState = session.getCurrentQuestion();
+        if (questionState == null) {
             throw new GameException("No current question in progress");
         }
-
-        // 4️⃣ Fetch Question with Options (eager load)
-        Question question = questionRepository.findByIdWithOptions(currentQuestionId)
-                .orElseThrow(() -> new GameException("Current question not found: " + currentQuestionId));
-
-        log.info("Question loaded: {} (type: {}, options: {})",
-                question.getQuestionId(),
-                question.getType(),
-                question.getOptions().size());
-
-        // 5️⃣ Check if already answered
-        boolean alreadyAnswered = answerRepository.existsByGameAndParticipantAndQuestion(
-                game, participant, question
-        );
-        if (alreadyAnswered) {
+        // Client gửi lại sau MAILBOX_TIMEOUT nhưng lần trước vẫn chạy xong → trả đúng kết quả đó
+        AnswerResultDTO previous = participant.answerResultFor(questionState.index());
+        if (previous != null) {
+            return previous;
+        }
+        // Câu có thể đã reveal sớm khi còn giờ: người không nằm trong awaiting (offline rồi quay lại)
+        // không được trả lời sau khi đáp án đã hiện và journal / leaderboard đã chốt
+        if (questionState.closed().get()) {
+            throw new GameException("Question already revealed", "QUESTION_CLOSED", HttpStatus.CONFLICT);
+        }
+        // 4️⃣ Check if already answered (atomic claim per participant + question)
+        if (!participant.markAnswered(questionState.index())) {
             throw new GameException("Already answered this question");
         }
 
-        // 6️⃣ Calculate response time
-        long responseTime = Duration.between(game.getQuestionStartTime(), LocalDateTime.now()).toMillis();
-        boolean isTimeout = responseTime > (question.getTimeLimitSeconds() * 1000L);
+        mark = answerPathMetrics.stage(Stage.LOAD, mark);
 
-        log.info("Response time: {}ms, timeout: {}, limit: {}s",
-                responseTime, isTimeout, question.getTimeLimitSeconds());
+        // 5️⃣ Calculate response time
+        long responseTime = questionState.elapsedMillis(Instant.now());
+        boolean isTimeout = responseTime > questionState.timeLimitMillis();
 
-        // ✅ 7️⃣ Grade answer using the loaded question with options
-        AnswerGradingResult grading = gradeAnswer(question, request.getSubmittedAnswer());
+        log.debug("Response time: {}ms, timeout: {}, limit: {}s",
+                responseTime, isTimeout, questionState.timeLimitSeconds());
 
-        log.info("Grading result: correct={}, answer={}", grading.correct(), grading.correctAnswer());
+        // Người chơi có thể gửi vị trí trong danh sách đã xáo của mình → đổi về optionId.
+        // Chỉ với câu chọn đáp án: số của câu điền số / sắp xếp... không phải vị trí
+        Object submitted = request.getSubmittedAnswer();
+        if (questionState.answerKey() instanceof AnswerKey.SelectedOption
+                || questionState.answerKey() instanceof AnswerKey.MultipleOptions) {
+            submitted = OptionShuffle.resolve(submitted, questionState.optionIds(),
+                    questionState.optionSeed(), participantId);
+        }
+
+        // ✅ 6️⃣ Grade against the answer key compiled when the question started
+        AnswerGradingResult grading = gradeAnswer(questionState, submitted);
+        boolean correct = grading.correct() && !isTimeout;
 
-        // 8️⃣ Calculate points
-        int points = isTimeout ? 0 : calculatePoints(
+        // 7️⃣ Calculate points
+        int points = isTimeout ? 0 : AnswerScoring.points(
                 grading.correct(),
-                question.getPoints(),
+                questionState.points(),
                 responseTime,
-                question.getTimeLimitSeconds()
+                questionState.timeLimitSeconds()
         );
 
-        // 9️⃣ Save answer
-        UserAnswer answer = UserAnswer.builder()
-                .game(game)
-                .participant(participant)
-                .question(question)
-                .submittedAnswerJson(toJsonString(request.getSubmittedAnswer()))
-                .submittedAnswerText(String.valueOf(request.getSubmittedAnswer()))
-                .correct(grading.correct() && !isTimeout)
-                .pointsEarned(points)
-                .maxPoints(question.getPoints())
-                .responseTimeMs(responseTime)
-                .isSkipped(false)
-                .isTimeout(isTimeout)
-                .clientSubmittedAt(request.getSubmittedAt())
-                .explanation(question.getExplanation())
-                .build();
+        // Histogram cho host (LongAdder, không lock)
+        questionState.distribution().record(questionState.answerKey(), submitted, correct);
+        answerPathMetrics.outcome(correct, isTimeout);
+        mark = answerPathMetrics.stage(Stage.GRADE, mark);
 
-        answer = answerRepository.save(answer);
-        log.info("Answer saved: id={}, correct={}, points={}", answer.getAnswerId(), answer.isCorrect(), points);
+        // 8️⃣ Update participant stats in memory
+        if (correct) {
+            participant.recordCorrectAnswer(responseTime, points);
+        } else {
+            participant.recordIncorrectAnswer(responseTime);
+        }
 
-        // 🔟 Update participant stats
-        recordParticipantStats(participant, answer);
-        participant.updateScore(points);
-        participantRepository.save(participant);
+        // 9️⃣ Queue durable result; AnswerJournal ghi theo batch, không giữ connection ở đây
+        ParticipantState.Snapshot stats = participant.snapshot();
+        answerJournal.append(new JournaledAnswer(
+                UUID.randomUUID(),
+                gameId,
+                participantId,
+                questionState.questionId(),
+                toJsonString(submitted),
+                String.valueOf(submitted),
+                correct,
+                points,
+                questionState.points(),
+                responseTime,
+                false,
+                isTimeout,
+                questionState.explanation(),
+                request.getSubmittedAt(),
+                LocalDateTime.now(),
+                System.nanoTime()
+        ), stats);
+        mark = answerPathMetrics.stage(Stage.PERSIST, mark);
 
-        // 1️⃣1️⃣ Invalidate leaderboard cache
-        invalidateLeaderboardCache(gameId);
+        // 🔟 Cập nhật thứ hạng trong ZSET (O(log n))
+        updateLeaderboard(gameId, stats);
+        mark = answerPathMetrics.stage(Stage.LEADERBOARD, mark);
 
-        // 1️⃣2️⃣ Build response DTO
+        // Người cuối cùng còn thiếu vừa trả lời → đóng câu sớm
+        if (questionState.responded(participantId)) {
+            revealEarly(gameId, questionState);
+        }
+
+        // 1️⃣1️⃣ Build response DTO
         AnswerResultDTO result = AnswerResultDTO.builder()
-                .correct(grading.correct() && !isTimeout)
+                .correct(correct)
                 .pointsEarned(points)
                 .responseTimeMs(responseTime)
-                .currentScore(participant.getScore())
+                .currentScore(stats.score())
                 .correctAnswer(grading.correctAnswer())
-                .explanation(question.getExplanation())
+                .explanation(questionState.explanation())
                 .build();
+        participant.rememberAnswer(result);
 
-        log.info("Answer result: correct={}, points={}, score={}",
+        answerPathMetrics.stage(Stage.RESPONSE, mark);
+
+        log.debug("Answer result: correct={}, points={}, score={}",
                 result.isCorrect(), result.getPointsEarned(), result.getCurrentScore());
 
         return result;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void skipQuestion(UUID gameId, UUID participantId) {
         log.debug("Participant {} skipping question in game {}", participantId, gameId);
 
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
-
-        GameParticipant participant = participantRepository.findById(participantId)
-                .orElseThrow(() -> new GameException("Participant not found"));
+        gameMailbox.ask(gameId, () -> {
+            doSkipQuestion(gameId, participantId);
+            return null;
+        });
+    }
 
-        validateParticipantAccess(game, participant);
+    private void doSkipQuestion(UUID gameId, UUID participantId) {
+        GameSession session = requireSession(gameId);
+        ParticipantState participant = requireParticipantState(session, participantId);
 
-        Question question = questionRepository.findById(game.getCurrentQuestionId())
-                .orElseThrow(() -> new GameException("Current question not found"));
+        QuestionState questionState = session.getCurrentQuestion();
+        if (questionState == null) {
+            throw new GameException("Current question not found");
+        }
+        if (questionState.closed().get()) {
+            log.debug("Question {} of game {} already revealed → ignore skip", questionState.index() + 1, gameId);
+            return;
+        }
 
-        boolean alreadyAnswered = answerRepository.existsByGameAndParticipantAndQuestion(
-                game, participant, question
-        );
-        if (alreadyAnswered) {
-            log.debug("Participant {} already answered or skipped question {}", participantId, question.getQuestionId());
+        if (!participant.markAnswered(questionState.index())) {
+            log.debug("Participant {} already answered or skipped question {}", participantId, questionState.questionId());
             return; // Không throw, chỉ return
         }
 
-        UserAnswer answer = UserAnswer.builder()
-                .game(game)
-                .participant(participant)
-                .question(question)
-                .submittedAnswerJson("{}")
-                .submittedAnswerText("SKIPPED")
-                .correct(false)
-                .pointsEarned(0)
-                .maxPoints(question.getPoints())
-                .isSkipped(true)
-                .build();
-
-        answerRepository.save(answer);
-
         participant.recordSkip();
-        participantRepository.save(participant);
+        questionState.distribution().recordSkip();
+
+        answerJournal.append(new JournaledAnswer(
+                UUID.randomUUID(),
+                gameId,
+                participantId,
+                questionState.questionId(),
+                "{}",
+                "SKIPPED",
+                false,
+                0,
+                questionState.points(),
+                0L,
+                true,
+                false,
+                null,
+                null,
+                LocalDateTime.now(),
+                System.nanoTime()
+        ), participant.snapshot());
+
+        if (questionState.responded(participantId)) {
+            revealEarly(gameId, questionState);
+        }
 
         log.debug("Question skipped by participant {}", participantId);
     }
@@ -834,22 +1134,29 @@ public class GameServiceImpl implements GameService {
 
         participant.kick(reason);
         participantRepository.save(participant);
+        sessionRegistry.find(gameId).ifPresent(session -> {
+            ParticipantState state = session.participant(participantId);
+            if (state == null) {
+                return;
+            }
+            QuestionState open = session.getCurrentQuestion();
+            // Câu đang mở không còn phải chờ người này
+            if (state.kick(open != null ? open.index() : -1) && open.responded(participantId)) {
+                revealEarly(gameId, open);
+            }
+            answerJournal.markDirty(state.snapshot());
+        });
 
-        updatePlayerCount(game, -1);
+        removeFromPlayerCount(game, wasActive);
 
         if (wasActive && game.getGameStatus() == GameStatus.IN_PROGRESS) {
-            game.setActivePlayerCount(Math.max(0, game.getActivePlayerCount() - 1));
-            gameRepository.save(game);
+            refreshActivePlayerCount(game);
         }
+        presenceTracker.forget(participantId);
 
         checkAndAutoEndGameIfNeeded(game);
 
-        publishGameEvent(gameId, "PARTICIPANT_KICKED", hostId, Map.of(
-                "participantId", participantId,
-                "nickname", participant.getNickname(),
-                "reason", reason,
-                "playerCount", game.getPlayerCount()
-        ));
+        rosterCoalescer.kicked(gameId, participantId, participant.getNickname(), reason);
 
         invalidateParticipantsCache(gameId);
     }
@@ -870,28 +1177,102 @@ public class GameServiceImpl implements GameService {
 
         participant.leave();
         participantRepository.save(participant);
+        sessionRegistry.find(gameId).ifPresent(session -> {
+            ParticipantState state = session.participant(participantId);
+            if (state == null) {
+                return;
+            }
+            QuestionState open = session.getCurrentQuestion();
+            // Câu đang mở không còn phải chờ người này
+            if (state.leave(open != null ? open.index() : -1) && open.responded(participantId)) {
+                revealEarly(gameId, open);
+            }
+            answerJournal.markDirty(state.snapshot());
+        });
 
-        updatePlayerCount(game, -1);
+        removeFromPlayerCount(game, wasActive);
 
         if (wasActive && game.getGameStatus() == GameStatus.IN_PROGRESS) {
-            game.setActivePlayerCount(Math.max(0, game.getActivePlayerCount() - 1));
-            gameRepository.save(game);
+            refreshActivePlayerCount(game);
         }
+        presenceTracker.forget(participantId);
 
         checkAndAutoEndGameIfNeeded(game);
 
-        publishGameEvent(gameId, "PARTICIPANT_LEFT",
-                participant.getUser() != null ? participant.getUser().getUserId() : null,
-                Map.of(
-                        "participantId", participantId,
-                        "nickname", participant.getNickname(),
-                        "playerCount", game.getPlayerCount()
-                )
-        );
+        rosterCoalescer.left(gameId, participantId, participant.getNickname());
 
         invalidateParticipantsCache(gameId);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void applyPresence(UUID gameId, Collection<UUID> wentOffline, Collection<UUID> cameBack) {
+        Optional<GameSession> live = sessionRegistry.find(gameId);
+        if (live.isEmpty()) {
+            // Lobby (hoặc game do node khác giữ): chỉ báo trạng thái online cho phòng chờ
+            rosterCoalescer.presence(gameId, wentOffline, cameBack);
+            return;
+        }
+
+        GameSession session = live.get();
+        // Cùng actor với answer/skip: không chen giữa markAnswered và responded của một answer
+        Integer present = gameMailbox.ask(gameId, () -> {
+            if (session.getStatus() != GameStatus.IN_PROGRESS) {
+                return null;
+            }
+            markPresence(gameId, session, wentOffline, cameBack);
+            return (int) session.presentParticipantCount();
+        });
+        if (present == null) {
+            return;
+        }
+        log.info("Presence of game {}: {} offline, {} back, {} active players",
+                gameId, wentOffline.size(), cameBack.size(), present);
+
+        // Một UPDATE cho cả lô thay đổi; chỉ load entity khi có thể phải auto-end
+        if (present > 0) {
+            gameRepository.setActivePlayerCount(gameId, present);
+        } else {
+            gameRepository.findById(gameId).ifPresent(game -> {
+                game.setActivePlayerCount(0);
+                gameRepository.save(game);
+                checkAndAutoEndGameIfNeeded(game);
+            });
+        }
+    }
+
+    /** Runs on the game's mailbox. */
+    private void markPresence(UUID gameId, GameSession session, Collection<UUID> wentOffline, Collection<UUID> cameBack) {
+        QuestionState open = session.getCurrentQuestion();
+        boolean revealNow = false;
+
+        for (UUID participantId : wentOffline) {
+            ParticipantState state = session.participant(participantId);
+            if (state == null) {
+                continue;
+            }
+            state.setConnected(false);
+            // Không chờ người đã mất kết nối mới được reveal
+            if (open != null && open.responded(participantId)) {
+                revealNow = true;
+            }
+        }
+        for (UUID participantId : cameBack) {
+            ParticipantState state = session.participant(participantId);
+            if (state == null) {
+                continue;
+            }
+            state.setConnected(true);
+            if (open != null && state.isActive() && !state.hasAnswered(open.index())) {
+                open.await(participantId);
+            }
+        }
+
+        if (revealNow) {
+            revealEarly(gameId, open);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<GameParticipantDTO> getParticipants(UUID gameId) {
@@ -935,19 +1316,14 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional(readOnly = true)
     public List<LeaderboardEntryDTO> getLeaderboard(UUID gameId) {
-        String cacheKey = LEADERBOARD_CACHE_PREFIX + gameId;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
-
-        if (cached != null) {
-            try {
-                String json = (String) cached;
-                return redisObjectMapper.readValue(json,
-                        redisObjectMapper.getTypeFactory().constructCollectionType(List.class, LeaderboardEntryDTO.class));
-            } catch (Exception e) {
-                log.warn("Failed to deserialize cached leaderboard: {}", e.getMessage());
-            }
+        // Game đang chạy → ZSET trong Redis, thông tin người chơi lấy từ session
+        Optional<GameSession> live = findLiveSession(gameId);
+        if (live.isPresent()) {
+            GameSession session = live.get();
+            return liveLeaderboard(session, session.getParticipants().size());
         }
 
+        // Game chưa bắt đầu hoặc đã kết thúc → đọc thẳng DB
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
         List<GameParticipant> participants = participantRepository.findByGameOrderByScoreDescTotalTimeMsAsc(game);
@@ -967,28 +1343,14 @@ public class GameServiceImpl implements GameService {
                     .build());
         }
 
-        cacheLeaderboard(gameId, leaderboard);
-
         return leaderboard;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<LeaderboardEntryDTO> getFinalLeaderboard(UUID gameId) {
-        List<LeaderboardEntryDTO> leaderboard = getLeaderboard(gameId);
-
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
-        List<GameParticipant> participants = participantRepository.findByGameOrderByScoreDescTotalTimeMsAsc(game);
-
-        int rank = 1;
-        for (GameParticipant p : participants) {
-            p.setFinalRank(rank++);
-            p.complete();
-        }
-        participantRepository.saveAll(participants);
-
-        return leaderboard;
+        // finalRank được PostGameStatistics ghi khi game kết thúc; ở đây chỉ đọc
+        return getLeaderboard(gameId);
     }
 
     // ==================== GAME INFO ====================
@@ -1048,8 +1410,21 @@ public class GameServiceImpl implements GameService {
                 .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
         List<GameParticipant> participants = participantRepository.findByGame(game);
 
-        int totalAnswers = answerRepository.countByGame(game);
-        int correctAnswers = answerRepository.countByGameAndCorrectTrue(game);
+        // Phân bố đã ghi khi từng câu kết thúc; game cũ chưa có thì đếm từ user_answers
+        List<QuestionStatsDTO> questions = questionStatsRepository.findByGameGameIdOrderByQuestionIndexAsc(gameId)
+                .stream()
+                .map(this::toQuestionStatsDTO)
+                .toList();
+
+        int totalAnswers;
+        int correctAnswers;
+        if (questions.isEmpty()) {
+            totalAnswers = answerRepository.countByGame(game);
+            correctAnswers = answerRepository.countByGameAndCorrectTrue(game);
+        } else {
+            totalAnswers = (int) questions.stream().mapToLong(q -> q.getAnswered() + q.getSkipped()).sum();
+            correctAnswers = (int) questions.stream().mapToLong(QuestionStatsDTO::getCorrect).sum();
+        }
 
         return GameStatisticsDTO.builder()
                 .gameId(gameId)
@@ -1060,6 +1435,18 @@ public class GameServiceImpl implements GameService {
                 .correctAnswers(correctAnswers)
                 .averageScore(game.getAverageScore())
                 .averageAccuracy(totalAnswers > 0 ? (correctAnswers * 100.0 / totalAnswers) : 0)
+                .questions(questions)
+                .build();
+    }
+
+    private QuestionStatsDTO toQuestionStatsDTO(GameQuestionStats stats) {
+        return QuestionStatsDTO.builder()
+                .questionId(stats.getQuestionId())
+                .questionNumber(stats.getQuestionIndex() + 1)
+                .answered(stats.getAnsweredCount())
+                .correct(stats.getCorrectCount())
+                .skipped(stats.getSkippedCount())
+                .distribution(stats.getDistribution())
                 .build();
     }
 
@@ -1113,19 +1500,18 @@ public class GameServiceImpl implements GameService {
         }
     }
 
-    private void cacheLeaderboard(UUID gameId, List<LeaderboardEntryDTO> leaderboard) {
-        try {
-            String json = redisObjectMapper.writeValueAsString(leaderboard);
-            String cacheKey = LEADERBOARD_CACHE_PREFIX + gameId;
-            redisTemplate.opsForValue().set(cacheKey, json, LEADERBOARD_TTL_SECONDS, TimeUnit.SECONDS);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to cache leaderboard: {}", e.getMessage());
+    /**
+     * Detach the PIN from an ended game so it can be handed out again after
+     * its quarantine; the PIN lookup cache must not point at the old game.
+     */
+    private void releasePin(Game game) {
+        String pinCode = game.getPinCode();
+        if (pinCode == null) {
+            return;
         }
-    }
-
-    private void invalidateLeaderboardCache(UUID gameId) {
-        String cacheKey = LEADERBOARD_CACHE_PREFIX + gameId;
-        redisTemplate.delete(cacheKey);
+        game.setPinCode(null);
+        pinAllocator.release(pinCode);
+        redisTemplate.delete(GAME_PIN_PREFIX + pinCode);
     }
 
     private void invalidateParticipantsCache(UUID gameId) {
@@ -1144,12 +1530,7 @@ public class GameServiceImpl implements GameService {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        try {
-            kafkaTemplate.send(KAFKA_TOPIC, gameId.toString(), event);
-            log.debug("Published event: {} for game: {}", eventType, gameId);
-        } catch (Exception e) {
-            log.error("Failed to publish game event: {} for game: {}", eventType, gameId, e);
-        }
+        gameEventPublisher.publish(event);
     }
 
     // ==================== HELPER METHODS ====================
@@ -1166,806 +1547,337 @@ public class GameServiceImpl implements GameService {
         }
     }
 
-    private void recordParticipantStats(GameParticipant participant, UserAnswer answer) {
-        if (answer.isCorrect() && !answer.isTimeout() && !answer.isSkipped()) {
-            participant.recordCorrectAnswer(answer.getResponseTimeMs());
-        } else if (!answer.isSkipped()) {
-            participant.recordIncorrectAnswer(answer.getResponseTimeMs());
-        } else {
-            participant.recordSkip();
-        }
-    }
-
-    private void checkAndAutoEndGameIfNeeded(Game game) {
-        if (game.getGameStatus() == GameStatus.IN_PROGRESS) {
-            if (game.getActivePlayerCount() <= 0) {
-                log.warn("No more active players in game {}, auto-ending", game.getGameId());
-                game.setGameStatus(GameStatus.FINISHED);
-                game.setEndedAt(LocalDateTime.now());
-                gameRepository.save(game);
-
-                publishGameEvent(game.getGameId(), "GAME_AUTO_ENDED", game.getHost().getUserId(),
-                        Map.of("reason", "No active players remaining"));
-            }
+    private ParticipantState requireParticipantState(GameSession session, UUID participantId) {
+        ParticipantState participant = session.participant(participantId);
+        if (participant == null) {
+            throw new GameException("Participant not found");
         }
-    }
-
-    private String generateUniquePinCode() {
-        String pin;
-        int attempts = 0;
-        Random random = new Random();
-
-        do {
-            pin = String.format("%06d", random.nextInt(1000000));
-            attempts++;
-
-            if (attempts > 10) {
-                throw new GameException("Unable to generate unique PIN code");
-            }
-        } while (gameRepository.existsByPinCode(pin));
-
-        return pin;
-    }
-
-    private void validateGameJoinable(Game game, UUID userId) {
-        if (game.getHost().getUserId().equals(userId)) {
-            throw new GameException("Host cannot join as participant");
-        }
-        if (game.getGameStatus() != GameStatus.WAITING) {
-            throw new GameException("Game already started or ended");
+        if (participant.isKicked()) {
+            throw new GameException("You have been kicked from this game");
         }
-        if (!game.canJoin()) {
-            throw new GameException("Game is full");
+        if (participant.hasLeft()) {
+            throw new GameException("You have left this game");
         }
+        return participant;
     }
 
-    private void validateHost(Game game, UUID hostId) {
-        if (!game.getHost().getUserId().equals(hostId)) {
-            throw new GameException("Only game host can perform this action");
-        }
-    }
+    // ==================== GAME SESSION ====================
 
-    private void updatePlayerCount(Game game, int delta) {
-        game.setPlayerCount(game.getPlayerCount() + delta);
-        game.setActivePlayerCount(Math.max(0, game.getActivePlayerCount() + delta));
-        gameRepository.save(game);
-        invalidateParticipantsCache(game.getGameId());
+    private GameSession requireSession(UUID gameId) {
+        return findLiveSession(gameId)
+                .orElseThrow(() -> new GameException("Game is not in progress"));
     }
 
-    private List<Question> getGameQuestionsEager(Game game) {
-        // ← DÙNG METHOD MỚI TRONG REPO: đã JOIN FETCH options
-        List<Question> questions = questionRepository.findByQuizIdWithOptions(game.getQuiz().getQuizId());
-
-        if (game.isRandomizeQuestions()) {
-            Collections.shuffle(questions);
+    /**
+     * Session của game đang chạy. Nếu node vừa khởi động lại (chưa có session trong RAM)
+     * thì dựng lại từ DB một lần, các lần sau đọc thẳng từ registry.
+     */
+    private Optional<GameSession> findLiveSession(UUID gameId) {
+        Optional<GameSession> existing = sessionRegistry.find(gameId);
+        if (existing.isPresent()) {
+            return existing;
         }
 
-        // Nếu bạn có thiết lập số câu hỏi tối đa khác với số câu trong quiz
-        // thì có thể cắt bớt ở đây, ví dụ:
-        // return questions.stream().limit(game.getTotalQuestions()).collect(Collectors.toList());
-
-        return questions;
-    }
-
-    // ==================== GRADING LOGIC ====================
-
-    // ✅ COMPLETE GRADING LOGIC FOR ALL 14 QUESTION TYPES
-
-    private AnswerGradingResult gradeAnswer(Question question, Object submittedAnswer) {
-        try {
-            // Ensure options are loaded
-            if (question.getOptions() == null || question.getOptions().isEmpty()) {
-                Hibernate.initialize(question.getOptions());
-            }
-
-            log.info("Grading {} question: {}, submitted: {}",
-                    question.getType(), question.getQuestionId(), submittedAnswer);
-
-            return switch (question.getType()) {
-                case SINGLE_CHOICE -> gradeSingleChoice(question, submittedAnswer);
-                case MULTIPLE_CHOICE -> gradeMultipleChoice(question, submittedAnswer);
-                case TRUE_FALSE -> gradeTrueFalse(question, submittedAnswer);
-                case FILL_IN_THE_BLANK -> gradeFillInBlank(question, submittedAnswer);
-                case SHORT_ANSWER -> gradeShortAnswer(question, submittedAnswer);
-                case ESSAY -> gradeEssay(question, submittedAnswer);
-                case MATCHING -> gradeMatching(question, submittedAnswer);
-                case ORDERING -> gradeOrdering(question, submittedAnswer);
-                case DRAG_DROP -> gradeDragDrop(question, submittedAnswer);
-                case HOTSPOT -> gradeHotspot(question, submittedAnswer);
-                case IMAGE_SELECTION -> gradeImageSelection(question, submittedAnswer);
-                case DROPDOWN -> gradeDropdown(question, submittedAnswer);
-                case MATRIX -> gradeMatrix(question, submittedAnswer);
-                case RANKING -> gradeRanking(question, submittedAnswer);
-                default -> {
-                    log.warn("Unsupported question type: {}", question.getType());
-                    yield new AnswerGradingResult(false, "Unsupported question type");
+        Game game = gameRepository.findByIdWithHostAndQuiz(gameId)
+                .orElseThrow(() -> new GameNotFoundException("Game not found: " + gameId));
+        if (game.getGameStatus() != GameStatus.IN_PROGRESS && game.getGameStatus() != GameStatus.PAUSED) {
+            return Optional.empty();
+        }
+
+        // Chỉ node giữ lease mới được dựng session; node khác đọc DB
+        if (!ownershipService.acquire(gameId)) {
+            return Optional.empty();
+        }
+
+        log.info("Rebuilding game session for game {} from database", gameId);
+        GameSession session = new GameSession(game, getGameQuestionOrder(game), participantRepository.findByGame(game));
+        syncPresence(session);
+
+        if (game.getCurrentQuestionId() != null && game.getCurrentQuestionIndex() >= 0) {
+            Question question = questionRepository.findByIdWithOptions(game.getCurrentQuestionId())
+                    .orElseThrow(() -> new GameException("Current question not found"));
+            Instant startedAt = game.getQuestionStartTime() != null
+                    ? game.getQuestionStartTime().atZone(ZoneId.systemDefault()).toInstant()
+                    : Instant.now();
+            // Bộ đếm phân bố bắt đầu lại từ 0 sau khi dựng lại session
+            QuestionState open = openQuestion(session, question, game.getCurrentQuestionIndex(), startedAt,
+                    gameMapper.toQuestionDTOWithoutAnswers(question));
+            // Ai đã trả lời câu này trước khi node dừng thì không được trả lời lại, cũng không còn phải chờ
+            for (UUID participantId : answerRepository.findParticipantIdsByGameAndQuestion(gameId, question.getQuestionId())) {
+                ParticipantState state = session.participant(participantId);
+                if (state != null) {
+                    state.markAnswered(open.index());
                 }
-            };
-        } catch (Exception e) {
-            log.error("Grading error for question {}: {}", question.getQuestionId(), e.getMessage(), e);
-            return new AnswerGradingResult(false, "Grading failed: " + e.getMessage());
-        }
-    }
-
-    // ==================== 1. SINGLE CHOICE ====================
-    private AnswerGradingResult gradeSingleChoice(Question question, Object answer) {
-        try {
-            UUID selectedId;
-            if (answer instanceof String) {
-                selectedId = UUID.fromString((String) answer);
-            } else if (answer instanceof UUID) {
-                selectedId = (UUID) answer;
-            } else {
-                throw new IllegalArgumentException("Invalid answer type for single choice");
+                open.awaiting().remove(participantId);
             }
-
-            List<String> correctTexts = question.getOptions().stream()
-                    .filter(Option::isCorrect)
-                    .map(this::getOptionDisplayText)
-                    .toList();
-
-            boolean isCorrect = question.getOptions().stream()
-                    .filter(Option::isCorrect)
-                    .map(Option::getOptionId)
-                    .anyMatch(id -> id.equals(selectedId));
-
-            String correctAnswer = correctTexts.isEmpty()
-                    ? "Không có đáp án đúng"
-                    : String.join(", ", correctTexts);
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading single choice: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+            session.startQuestion(open);
         }
-    }
 
-    // ==================== 2. MULTIPLE CHOICE ====================
-    private AnswerGradingResult gradeMultipleChoice(Question question, Object answer) {
-        try {
-            List<UUID> selectedIds;
-
-            if (answer instanceof List<?>) {
-                selectedIds = ((List<?>) answer).stream()
-                        .map(id -> id instanceof String ? UUID.fromString((String) id) : (UUID) id)
-                        .toList();
-            } else {
-                throw new IllegalArgumentException("Invalid answer type for multiple choice");
-            }
-
-            List<String> correctTexts = question.getOptions().stream()
-                    .filter(Option::isCorrect)
-                    .map(this::getOptionDisplayText)
-                    .toList();
-
-            Set<UUID> correctIdSet = question.getOptions().stream()
-                    .filter(Option::isCorrect)
-                    .map(Option::getOptionId)
-                    .collect(Collectors.toSet());
-
-            boolean isCorrect = new HashSet<>(selectedIds).equals(correctIdSet);
-
-            String correctAnswer = correctTexts.isEmpty()
-                    ? "Không có đáp án đúng"
-                    : String.join(", ", correctTexts);
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading multiple choice: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+        GameSession registered = sessionRegistry.register(session);
+        if (registered == session) {
+            seedLeaderboard(session);
         }
+        return Optional.of(registered);
     }
 
-    // ==================== 3. TRUE/FALSE ====================
-    private AnswerGradingResult gradeTrueFalse(Question question, Object answer) {
-        try {
-            boolean submitted;
-
-            if (answer instanceof Boolean) {
-                submitted = (Boolean) answer;
-            } else if (answer instanceof String) {
-                submitted = Boolean.parseBoolean((String) answer) ||
-                        ((String) answer).equalsIgnoreCase("true");
-            } else {
-                throw new IllegalArgumentException("Invalid answer type for true/false");
-            }
-
-            // Get correct answer from first option's correct flag
-            boolean correctValue = question.getOptions().stream()
-                    .findFirst()
-                    .map(Option::isCorrect)
-                    .orElse(false);
-
-            boolean isCorrect = submitted == correctValue;
-            String correctAnswer = correctValue ? "Đúng" : "Sai";
+    // ==================== LIVE LEADERBOARD ====================
 
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading true/false: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+    private void seedLeaderboard(GameSession session) {
+        Map<UUID, Double> scores = new HashMap<>();
+        for (ParticipantState participant : session.getParticipants().values()) {
+            ParticipantState.Snapshot stats = participant.snapshot();
+            scores.put(stats.participantId(), RedisService.leaderboardScore(stats.score(), stats.totalTimeMs()));
         }
-    }
-
-    private AnswerGradingResult gradeShortAnswer(Question question, Object answer) {
         try {
-            String submitted = String.valueOf(answer).trim();
-
-            ShortAnswerOption sao = (ShortAnswerOption) question.getOptions().get(0);
-            String expected = sao.getExpectedAnswer().trim();
-
-            // Case sensitivity
-            boolean caseSensitive = !sao.isCaseInsensitive();
-            String submittedCompare = caseSensitive ? submitted : submitted.toLowerCase();
-            String expectedCompare = caseSensitive ? expected : expected.toLowerCase();
-
-            // ✅ FIX: Basic match (contains OR exact match)
-            boolean isCorrect = submittedCompare.equals(expectedCompare) ||
-                    submittedCompare.contains(expectedCompare);
-
-            // Check required keywords - ✅ FIX: Parse from JSON string
-            String requiredKeywordsJson = sao.getRequiredKeywords();
-            if (isCorrect && requiredKeywordsJson != null && !requiredKeywordsJson.isEmpty() && !requiredKeywordsJson.equals("[]")) {
-                List<String> requiredKeywords = gameMapper.parseJsonArray(requiredKeywordsJson);
-                for (int i = 0; i < requiredKeywords.size(); i++) {
-                    String keyword = requiredKeywords.get(i);
-                    String keywordCompare = caseSensitive ? keyword : keyword.toLowerCase();
-                    if (!submittedCompare.contains(keywordCompare)) {
-                        isCorrect = false;
-                        break;
-                    }
-                }
-            }
-
-            return new AnswerGradingResult(isCorrect, expected);
+            redisService.resetLeaderboard(session.getGameId(), scores);
         } catch (Exception e) {
-            log.error("Error grading short answer: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+            log.warn("Failed to seed leaderboard for game {}: {}", session.getGameId(), e.getMessage());
         }
     }
 
-    // ==================== FIX FILL IN THE BLANK GRADING ====================
-    private AnswerGradingResult gradeFillInBlank(Question question, Object answer) {
+    private void updateLeaderboard(UUID gameId, ParticipantState.Snapshot stats) {
         try {
-            String submitted = String.valueOf(answer).trim();
-
-            FillInTheBlankOption fbo = (FillInTheBlankOption) question.getOptions().get(0);
-            String expected = fbo.getCorrectAnswer().trim();
-
-            // Check case sensitivity
-            boolean caseSensitive = !fbo.isCaseInsensitive();
-            String submittedCompare = caseSensitive ? submitted : submitted.toLowerCase();
-            String expectedCompare = caseSensitive ? expected : expected.toLowerCase();
-
-            boolean isCorrect = submittedCompare.equals(expectedCompare);
-
-            // Check accepted variations if provided - ✅ FIX: Parse from JSON string
-            String acceptedVariationsJson = fbo.getAcceptedVariations();
-            if (!isCorrect && acceptedVariationsJson != null && !acceptedVariationsJson.isEmpty() && !acceptedVariationsJson.equals("[]")) {
-                List<String> acceptedVariations = gameMapper.parseJsonArray(acceptedVariationsJson);
-                for (int i = 0; i < acceptedVariations.size(); i++) {
-                    String variation = acceptedVariations.get(i);
-                    String variationCompare = caseSensitive ? variation : variation.toLowerCase();
-                    if (submittedCompare.equals(variationCompare)) {
-                        isCorrect = true;
-                        break;
-                    }
-                }
-            }
-
-            return new AnswerGradingResult(isCorrect, expected);
+            redisService.updateLeaderboardScore(gameId, stats.participantId(),
+                    RedisService.leaderboardScore(stats.score(), stats.totalTimeMs()));
         } catch (Exception e) {
-            log.error("Error grading fill in the blank: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+            log.warn("Failed to update leaderboard for participant {}: {}", stats.participantId(), e.getMessage());
         }
     }
 
-
-    // ==================== 6. ESSAY ====================
-    private AnswerGradingResult gradeEssay(Question question, Object answer) {
+    /**
+     * Top {@code limit} theo ZSET; nếu Redis lỗi/mất key thì sắp xếp trực tiếp trên session.
+     */
+    private List<LeaderboardEntryDTO> liveLeaderboard(GameSession session, int limit) {
+        List<Map.Entry<String, Double>> top = List.of();
         try {
-            String submitted = String.valueOf(answer).trim();
-            EssayOption eo = (EssayOption) question.getOptions().get(0);
-
-            // Validate word count
-            // ✅ FIX: Proper word splitting
-            String[] words = submitted.split("\\s+");
-            int wordCount = words.length > 0 && !words[0].isEmpty() ? words.length : 0;
-
-            Integer minWords = eo.getMinWords();
-            Integer maxWords = eo.getMaxWords();
-
-            int minWordsVal = minWords != null ? minWords : 0;
-            int maxWordsVal = maxWords != null ? maxWords : Integer.MAX_VALUE;
-
-            boolean isCorrect = wordCount >= minWordsVal && wordCount <= maxWordsVal && !submitted.isEmpty();
-
-            String samplePreview = eo.getSampleAnswer() != null
-                    ? eo.getSampleAnswer().substring(0, Math.min(50, eo.getSampleAnswer().length())) + "..."
-                    : "Không có";
-
-            String correctAnswer = String.format(
-                    "Bài luận hợp lệ (%d-%d từ). Mẫu: %s",
-                    minWordsVal, maxWordsVal, samplePreview
-            );
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
+            top = redisService.getTopLeaderboard(session.getGameId(), limit);
         } catch (Exception e) {
-            log.error("Error grading essay: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+            log.warn("Failed to read leaderboard for game {}: {}", session.getGameId(), e.getMessage());
         }
-    }
 
-    // ==================== 7. MATCHING ====================
-    private AnswerGradingResult gradeMatching(Question question, Object answer) {
-        try {
-            if (!(answer instanceof Map)) {
-                return new AnswerGradingResult(false, "Định dạng ghép nối không hợp lệ");
-            }
-
-            Map<?, ?> submitted = (Map<?, ?>) answer;
-            List<String> correctMappings = new ArrayList<>();
-            int totalPairs = 0;
-            int correctCount = 0;
-
-            for (Option opt : question.getOptions()) {
-                if (opt instanceof MatchingOption) {
-                    totalPairs++;
-                    MatchingOption mo = (MatchingOption) opt;
-                    String expectedRightItem = mo.getRightItem();
-                    String optionIdStr = mo.getOptionId().toString();
-
-                    Object submittedValue = submitted.get(optionIdStr);
-
-                    if (submittedValue != null) {
-                        // ✅ FIX: Find the right item text from the selected option
-                        String submittedRightText = null;
-                        for (Option searchOpt : question.getOptions()) {
-                            if (searchOpt instanceof MatchingOption) {
-                                MatchingOption searchMo = (MatchingOption) searchOpt;
-                                if (searchMo.getOptionId().toString().equals(submittedValue.toString())) {
-                                    submittedRightText = searchMo.getRightItem();
-                                    break;
-                                }
-                            }
-                        }
-
-                        if (submittedRightText != null && expectedRightItem.equals(submittedRightText)) {
-                            correctCount++;
-                        }
-                    }
-
-                    correctMappings.add(mo.getLeftItem() + " → " + expectedRightItem);
+        List<ParticipantState> ranked;
+        if (!top.isEmpty() || session.getParticipants().isEmpty()) {
+            ranked = new ArrayList<>(top.size());
+            for (Map.Entry<String, Double> entry : top) {
+                ParticipantState participant = session.participant(UUID.fromString(entry.getKey()));
+                if (participant != null) {
+                    ranked.add(participant);
                 }
             }
+        } else {
+            ranked = session.getParticipants().values().stream()
+                    .sorted(Comparator.comparingDouble((ParticipantState p) ->
+                            RedisService.leaderboardScore(p.getScore(), p.getTotalTimeMs())).reversed())
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
 
-            boolean isCorrect = correctCount == totalPairs && totalPairs > 0;
-            String correctAnswer = String.join("; ", correctMappings);
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading matching: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+        List<LeaderboardEntryDTO> leaderboard = new ArrayList<>(ranked.size());
+        int rank = 1;
+        for (ParticipantState participant : ranked) {
+            ParticipantState.Snapshot stats = participant.snapshot();
+            leaderboard.add(LeaderboardEntryDTO.builder()
+                    .rank(rank++)
+                    .participantId(stats.participantId())
+                    .nickname(participant.getNickname())
+                    .score(stats.score())
+                    .correctCount(stats.correctCount())
+                    .currentStreak(stats.currentStreak())
+                    .averageTimeMs(stats.averageResponseTimeMs())
+                    .isAnonymous(participant.isAnonymous())
+                    .build());
         }
+        return leaderboard;
     }
 
-
-    // ==================== 8. ORDERING ====================
-    private AnswerGradingResult gradeOrdering(Question question, Object answer) {
-        try {
-            if (!(answer instanceof List)) {
-                return new AnswerGradingResult(false, "Định dạng sắp xếp không hợp lệ");
-            }
-
-            List<?> submitted = (List<?>) answer;
-            List<Option> options = question.getOptions();
-
-            if (submitted.size() != options.size()) {
-                return new AnswerGradingResult(false, "Số lượng mục không khớp");
-            }
-
-            int correctCount = 0;
-            List<String> correctOrder = new ArrayList<>();
-
-            for (int i = 0; i < submitted.size(); i++) {
-                Object submittedId = submitted.get(i);
-
-                // ✅ FIX: Find expected option properly
-                OrderingOption expectedOption = null;
-                for (Option opt : options) {
-                    if (opt instanceof OrderingOption) {
-                        OrderingOption oo = (OrderingOption) opt;
-                        if (oo.getOptionId().toString().equals(submittedId.toString())) {
-                            expectedOption = oo;
-                            break;
-                        }
-                    }
-                }
-
-                if (expectedOption != null && expectedOption.getCorrectPosition() == (i + 1)) {
-                    correctCount++;
-                }
-            }
-
-            // Build correct answer
-            for (Option opt : options) {
-                if (opt instanceof OrderingOption) {
-                    OrderingOption oo = (OrderingOption) opt;
-                    correctOrder.add(oo.getItem());
-                }
-            }
-
-            boolean isCorrect = correctCount == options.size();
-            String correctAnswer = String.join(" → ", correctOrder);
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading ordering: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+    /**
+     * Fill previousRank from the last reveal and remember the current ranks for the next one.
+     */
+    private void applyRankMovements(GameSession session, List<LeaderboardEntryDTO> ranked) {
+        Map<UUID, Integer> previous = session.getRevealedRanks();
+        Map<UUID, Integer> current = new HashMap<>(ranked.size() * 2);
+        for (LeaderboardEntryDTO entry : ranked) {
+            entry.setPreviousRank(previous.get(entry.getParticipantId()));
+            current.put(entry.getParticipantId(), entry.getRank());
         }
+        session.setRevealedRanks(current);
     }
 
-    // ==================== 9. DRAG & DROP ====================
-    private AnswerGradingResult gradeDragDrop(Question question, Object answer) {
-        try {
-            if (!(answer instanceof Map)) {
-                return new AnswerGradingResult(false, "Định dạng kéo thả không hợp lệ");
-            }
-
-            Map<?, ?> submitted = (Map<?, ?>) answer;
-
-            // ✅ FIX: Count total drag items properly
-            int totalItems = 0;
-            for (Option opt : question.getOptions()) {
-                if (opt instanceof DragDropOption) {
-                    totalItems++;
-                }
-            }
-
-            int correctCount = 0;
-            List<String> correctPlacements = new ArrayList<>();
-
-            for (Option opt : question.getOptions()) {
-                if (opt instanceof DragDropOption) {
-                    DragDropOption ddo = (DragDropOption) opt;
-                    String expectedZone = ddo.getDropZoneId();
-                    String optionIdStr = ddo.getOptionId().toString();
-
-                    Object submittedZone = submitted.get(optionIdStr);
-
-                    if (submittedZone != null && expectedZone.equals(submittedZone.toString())) {
-                        correctCount++;
-                    }
+    private void checkAndAutoEndGameIfNeeded(Game game) {
+        if (game.getGameStatus() == GameStatus.IN_PROGRESS) {
+            if (game.getActivePlayerCount() <= 0) {
+                log.warn("No more active players in game {}, auto-ending", game.getGameId());
+                game.setGameStatus(GameStatus.FINISHED);
+                game.setEndedAt(LocalDateTime.now());
+                releasePin(game);
+                gameRepository.save(game);
+                sessionRegistry.remove(game.getGameId());
+                gameTimerService.cancel(game.getGameId());
+                redisService.removeGameData(game.getGameId());
+                ownershipService.release(game.getGameId());
+                gameMailbox.close(game.getGameId());
 
-                    correctPlacements.add(ddo.getDraggableItem() + " → " + expectedZone);
-                }
+                publishGameEvent(game.getGameId(), "GAME_AUTO_ENDED", game.getHost().getUserId(),
+                        Map.of("reason", "No active players remaining"));
             }
-
-            boolean isCorrect = correctCount == totalItems && totalItems > 0;
-            String correctAnswer = String.join("; ", correctPlacements);
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading drag drop: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
         }
     }
 
-    // ==================== 10. HOTSPOT ====================
-    private AnswerGradingResult gradeHotspot(Question question, Object answer) {
-        try {
-            if (!(answer instanceof Map)) {
-                return new AnswerGradingResult(false, "Định dạng hotspot không hợp lệ");
-            }
-
-            Map<?, ?> submitted = (Map<?, ?>) answer;
-            Integer submittedX = extractIntFromMap(submitted, "x");
-            Integer submittedY = extractIntFromMap(submitted, "y");
-
-            if (submittedX == null || submittedY == null) {
-                return new AnswerGradingResult(false, "Tọa độ không hợp lệ");
-            }
-
-            HotspotOption ho = (HotspotOption) question.getOptions().get(0);
-            String coords = ho.getHotspotCoordinates(); // Format: "x,y" or "x:y"
-
-            // ✅ FIX: Parse coordinates properly
-            String[] parts = coords.contains(",") ? coords.split(",") : coords.split(":");
-            if (parts.length < 2) {
-                return new AnswerGradingResult(false, "Tọa độ hotspot không hợp lệ");
-            }
-
-            int expectedX = Integer.parseInt(parts[0].trim());
-            int expectedY = Integer.parseInt(parts[1].trim());
-
-            // Allow ±10px tolerance
-            boolean isCorrect = Math.abs(submittedX - expectedX) <= 10 &&
-                    Math.abs(submittedY - expectedY) <= 10;
-
-            String correctAnswer = String.format("Tọa độ đúng: (%d, %d)", expectedX, expectedY);
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading hotspot: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+    private void validateGameJoinable(Game game, UUID userId) {
+        if (game.getHost().getUserId().equals(userId)) {
+            throw new GameException("Host cannot join as participant");
+        }
+        // Sức chứa do LobbyAdmission kiểm tra nguyên tử; playerCount trên game row chỉ cập nhật khi lobby đóng
+        if (game.getGameStatus() != GameStatus.WAITING) {
+            throw new GameException("Game already started or ended");
         }
     }
 
-    // ==================== 11. IMAGE SELECTION ====================
-    private AnswerGradingResult gradeImageSelection(Question question, Object answer) {
-        try {
-            UUID selectedId;
-            if (answer instanceof String) {
-                selectedId = UUID.fromString((String) answer);
-            } else if (answer instanceof UUID) {
-                selectedId = (UUID) answer;
-            } else {
-                throw new IllegalArgumentException("Invalid answer type for image selection");
-            }
-
-            List<String> correctTexts = question.getOptions().stream()
-                    .filter(Option::isCorrect)
-                    .filter(o -> o instanceof ImageSelectionOption)
-                    .map(o -> ((ImageSelectionOption) o).getImageLabel())
-                    .toList();
-
-            boolean isCorrect = question.getOptions().stream()
-                    .filter(Option::isCorrect)
-                    .map(Option::getOptionId)
-                    .anyMatch(id -> id.equals(selectedId));
-
-            String correctAnswer = correctTexts.isEmpty()
-                    ? "Không có hình ảnh đúng"
-                    : String.join(", ", correctTexts);
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading image selection: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+    private void validateHost(Game game, UUID hostId) {
+        if (!game.getHost().getUserId().equals(hostId)) {
+            throw new GameException("Only game host can perform this action");
         }
     }
 
-    // ==================== 12. DROPDOWN ====================
-    private AnswerGradingResult gradeDropdown(Question question, Object answer) {
-        try {
-            UUID selectedId;
-            if (answer instanceof String) {
-                selectedId = UUID.fromString((String) answer);
-            } else if (answer instanceof UUID) {
-                selectedId = (UUID) answer;
-            } else {
-                throw new IllegalArgumentException("Invalid answer type for dropdown");
-            }
-
-            List<String> correctTexts = question.getOptions().stream()
-                    .filter(Option::isCorrect)
-                    .filter(o -> o instanceof DropdownOption)
-                    .map(o -> ((DropdownOption) o).getDisplayLabel())
-                    .toList();
-
-            boolean isCorrect = question.getOptions().stream()
-                    .filter(Option::isCorrect)
-                    .map(Option::getOptionId)
-                    .anyMatch(id -> id.equals(selectedId));
-
-            String correctAnswer = correctTexts.isEmpty()
-                    ? "Không có tùy chọn đúng"
-                    : String.join(", ", correctTexts);
+    private void updatePlayerCount(Game game, int delta) {
+        game.setPlayerCount(game.getPlayerCount() + delta);
+        game.setActivePlayerCount(Math.max(0, game.getActivePlayerCount() + delta));
+        gameRepository.save(game);
+        invalidateParticipantsCache(game.getGameId());
+    }
 
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading dropdown: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+    /**
+     * Game đang chạy: số người active lấy từ session (đã trừ người mất kết nối),
+     * để người offline rồi mới rời không bị trừ hai lần.
+     */
+    private void refreshActivePlayerCount(Game game) {
+        Optional<GameSession> live = sessionRegistry.find(game.getGameId());
+        if (live.isPresent()) {
+            game.setActivePlayerCount((int) live.get().presentParticipantCount());
+        } else {
+            game.setActivePlayerCount(Math.max(0, game.getActivePlayerCount() - 1));
         }
+        gameRepository.save(game);
     }
 
-    // ==================== 13. MATRIX ====================
-    private AnswerGradingResult gradeMatrix(Question question, Object answer) {
-        try {
-            if (!(answer instanceof String)) {
-                return new AnswerGradingResult(false, "Định dạng matrix không hợp lệ");
-            }
-
-            String submitted = (String) answer; // Format: "rowId-columnId"
-            String[] parts = submitted.split("-");
-            if (parts.length != 2) {
-                return new AnswerGradingResult(false, "Định dạng tọa độ không hợp lệ");
-            }
-
-            String submittedRow = parts[0];
-            String submittedCol = parts[1];
-
-            // ✅ FIX: Find correct cell properly
-            MatrixOption correctCell = null;
-            for (Option opt : question.getOptions()) {
-                if (opt instanceof MatrixOption) {
-                    MatrixOption mo = (MatrixOption) opt;
-                    if (mo.isCorrectCell()) {
-                        correctCell = mo;
-                        break;
-                    }
-                }
-            }
-
-            boolean isCorrect = false;
-            String correctAnswer = "Không có ô đúng";
+    private void syncPresence(GameSession session) {
+        session.getParticipants().values()
+                .forEach(state -> state.setConnected(presenceTracker.isOnline(state.getParticipantId())));
+    }
 
-            if (correctCell != null) {
-                isCorrect = correctCell.getRowId().equals(submittedRow) &&
-                        correctCell.getColumnId().equals(submittedCol);
-                correctAnswer = String.format("%s - %s",
-                        correctCell.getRowLabel(),
-                        correctCell.getColumnLabel());
+    /**
+     * Trong lobby chỉ trả ghế trong Redis (game row được ghi khi lobby đóng);
+     * khi game đang chạy thì ghi ngay vì auto-end cần activePlayerCount mới.
+     */
+    private void removeFromPlayerCount(Game game, boolean wasActive) {
+        if (game.getGameStatus() == GameStatus.WAITING) {
+            if (wasActive) {
+                lobbyAdmission.release(game.getGameId(), null);
             }
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading matrix: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+            invalidateParticipantsCache(game.getGameId());
+            return;
         }
+        updatePlayerCount(game, -1);
     }
 
-
-    // ==================== 14. RANKING ====================
-    private AnswerGradingResult gradeRanking(Question question, Object answer) {
-        try {
-            if (!(answer instanceof Map)) {
-                return new AnswerGradingResult(false, "Định dạng xếp hạng không hợp lệ");
-            }
-
-            Map<?, ?> submitted = (Map<?, ?>) answer;
-            int correctCount = 0;
-            int totalItems = 0;
-            List<String> correctRankings = new ArrayList<>();
-
-            for (Option opt : question.getOptions()) {
-                if (opt instanceof RankingOption) {
-                    RankingOption ro = (RankingOption) opt;
-                    totalItems++;
-
-                    Object submittedRankObj = submitted.get(ro.getOptionId().toString());
-
-                    // ✅ FIX: Proper null check with Integer
-                    if (submittedRankObj != null) {
-                        try {
-                            int submittedRank = Integer.parseInt(submittedRankObj.toString());
-                            if (submittedRank == ro.getCorrectRank()) {
-                                correctCount++;
-                            }
-                        } catch (NumberFormatException e) {
-                            log.warn("Invalid rank value: {}", submittedRankObj);
-                        }
-                    }
-
-                    correctRankings.add(ro.getRankableItem() + " (#" + ro.getCorrectRank() + ")");
-                }
-            }
-
-            boolean isCorrect = correctCount == totalItems && totalItems > 0;
-            String correctAnswer = String.join("; ", correctRankings);
-
-            return new AnswerGradingResult(isCorrect, correctAnswer);
-        } catch (Exception e) {
-            log.error("Error grading ranking: {}", e.getMessage());
-            return new AnswerGradingResult(false, "Lỗi khi chấm điểm");
+    /** Lobby đóng: số ghế cuối cùng được ghi vào game row một lần duy nhất. */
+    private void closeLobby(Game game) {
+        if (game.getGameStatus() != GameStatus.WAITING) {
+            return;
         }
+        int playerCount = lobbyAdmission.close(game);
+        game.setPlayerCount(playerCount);
+        game.setActivePlayerCount(playerCount);
     }
 
+    private List<UUID> getGameQuestionOrder(Game game) {
+        // Chỉ lấy ID; options được load theo từng câu khi câu hỏi bắt đầu
+        List<UUID> questions = new ArrayList<>(questionRepository.findIdsByQuizId(game.getQuiz().getQuizId()));
 
-    // ==================== HELPER METHODS ====================
-    private int calculatePoints(boolean isCorrect, int basePoints, long responseTimeMs, int timeLimitSeconds) {
-        if (!isCorrect) {
-            return 0;
+        // Cùng seed → cùng thứ tự, kể cả khi session được dựng lại trên node khác
+        if (game.isRandomizeQuestions()) {
+            // Game cũ chưa có seed → 0, giống GameSession
+            Collections.shuffle(questions, new Random(game.getRandomSeed() != null ? game.getRandomSeed() : 0L));
         }
 
-        int points = basePoints;
-        long timeLimitMs = timeLimitSeconds * 1000L;
-
-        // Bonus for fast correct answers
-        if (responseTimeMs < timeLimitMs * 0.25) {
-            points = (int) (points * 1.2); // 20% bonus
-        } else if (responseTimeMs < timeLimitMs * 0.5) {
-            points = (int) (points * 1.1); // 10% bonus
-        }
+        // Nếu bạn có thiết lập số câu hỏi tối đa khác với số câu trong quiz
+        // thì có thể cắt bớt ở đây, ví dụ:
+        // return questions.stream().limit(game.getTotalQuestions()).collect(Collectors.toList());
 
-        return Math.max(0, points);
+        return questions;
     }
 
-    private String getOptionDisplayText(Option option) {
-        return switch (option) {
-            case SingleChoiceOption sco -> sco.getText();
-            case MultipleChoiceOption mco -> mco.getText();
-            case TrueFalseOption tfo -> tfo.getText();
-            case ImageSelectionOption iso -> iso.getImageLabel() != null ? iso.getImageLabel() : "Hình ảnh";
-            case DropdownOption dro -> dro.getDisplayLabel() != null ? dro.getDisplayLabel() : dro.getDropdownValue();
-            default -> "Đáp án";
-        };
-    }
+    // ==================== GRADING ====================
 
-    private Integer extractIntFromMap(Map<?, ?> map, String key) {
-        Object val = null;
+    private void saveQuestionStats(UUID gameId, QuestionState state, AnswerDistribution.Snapshot snapshot) {
         try {
-            val = map.get(key);
-
-            if (val == null) {
-                return null;
-            } else if (val instanceof Integer) {
-                return (Integer) val;
-            } else if (val instanceof Double) {
-                return ((Double) val).intValue();
-            } else if (val instanceof Long) {
-                return ((Long) val).intValue();
-            } else if (val instanceof String) {
-                return Integer.parseInt((String) val);
-            } else if (val instanceof Number) {
-                return ((Number) val).intValue();
+            if (questionStatsRepository.existsByGameGameIdAndQuestionIndex(gameId, state.index())) {
+                return; // endQuestion chạy lại sau khi dựng lại session
             }
-            return null;
-        } catch (NumberFormatException e) {
-            log.warn("Failed to parse integer from map key '{}': {}", key, val);
-            return null;
+            questionStatsRepository.save(GameQuestionStats.builder()
+                    .game(gameRepository.getReferenceById(gameId))
+                    .questionId(state.questionId())
+                    .questionIndex(state.index())
+                    .answeredCount(snapshot.answered())
+                    .correctCount(snapshot.correct())
+                    .skippedCount(snapshot.skipped())
+                    .distribution(snapshot.counts())
+                    .build());
+        } catch (Exception e) {
+            log.error("Failed to save answer distribution of game {} question {}: {}",
+                    gameId, state.index(), e.getMessage());
         }
     }
 
-    // ==================== STATISTICS ====================
-
-    private void calculateFinalStatistics(Game game) {
-        List<GameParticipant> participants = participantRepository.findByGame(game);
-
-        if (participants.isEmpty()) {
-            game.setAverageScore(0.0);
-            game.setCompletedPlayerCount(0);
-            return;
-        }
-
-        double avgScore = participants.stream()
-                .mapToInt(GameParticipant::getScore)
-                .average()
-                .orElse(0.0);
-
-        game.setAverageScore(avgScore);
-        game.setCompletedPlayerCount((int) participants.stream()
-                .filter(p -> p.getStatus() == ParticipantStatus.COMPLETED)
-                .count());
-
-        for (GameParticipant participant : participants) {
-            if (participant.getUser() != null) {
-                updateUserStatistics(participant);
-            }
-        }
+    private QuestionState openQuestion(GameSession session, Question question, int index, Instant startedAt,
+                                       QuestionResponseDTO publicView) {
+        AnswerKey answerKey = answerKeyCompiler.compile(question);
+        Integer optionSeed = session.optionSeed(question.getQuestionId());
+        publicView.setOptionShuffleSeed(optionSeed);
+        List<UUID> optionIds = publicView.getOptions() != null
+                ? publicView.getOptions().stream().map(OptionDTO::getOptionId).toList()
+                : List.of();
+        return new QuestionState(
+                question.getQuestionId(),
+                index,
+                startedAt,
+                question.getTimeLimitSeconds(),
+                question.getPoints(),
+                question.getExplanation(),
+                question,
+                answerKey,
+                publicView,
+                optionIds,
+                optionSeed,
+                AnswerDistribution.forQuestion(question, answerKey),
+                session.presentParticipantIds(),
+                new AtomicBoolean()
+        );
     }
 
-    private void updateUserStatistics(GameParticipant participant) {
-        UUID userId = participant.getUser().getUserId();
-        UUID quizId = participant.getGame().getQuiz().getQuizId();
-
-        UserQuizStatistics stats = statsRepository.findByUserUserIdAndQuizQuizId(userId, quizId)
-                .orElse(createDefaultStats(userId, quizId));
-
-        stats.recordGamePlayed();
-        if (participant.getStatus() == ParticipantStatus.COMPLETED) {
-            stats.recordGameCompleted();
-        }
-
-        stats.setTotalPoints(stats.getTotalPoints() + participant.getScore());
-        stats.setTotalCorrectAnswers(stats.getTotalCorrectAnswers() + participant.getCorrectCount());
-        stats.setTotalTimeSpentMs(stats.getTotalTimeSpentMs() + participant.getTotalTimeMs());
-
-        if (participant.getScore() > stats.getHighestScore()) {
-            stats.setHighestScore(participant.getScore());
+    /**
+     * Mọi người chơi active đã trả lời → reveal ngay thay vì đợi hết giờ.
+     * Chỉ kéo deadline END_QUESTION đang chờ về hiện tại; nếu timer đang chạy
+     * hoặc câu đã reveal thì không làm gì (endQuestion tự chặn reveal lần hai).
+     */
+    private void revealEarly(UUID gameId, QuestionState question) {
+        if (gameTimerService.fireNow(gameId, GameTimerType.END_QUESTION)) {
+            log.info("All active players answered question {} of game {}, revealing early",
+                    question.index() + 1, gameId);
         }
+    }
 
-        if (participant.getFinalRank() != null) {
-            if (stats.getBestRank() == null || participant.getFinalRank() < stats.getBestRank()) {
-                stats.setBestRank(participant.getFinalRank());
-            }
+    private AnswerGradingResult gradeAnswer(QuestionState question, Object submittedAnswer) {
+        try {
+            return question.answerKey().grade(submittedAnswer);
+        } catch (Exception e) {
+            log.error("Grading error for question {}: {}", question.questionId(), e.getMessage(), e);
+            return new AnswerGradingResult(false, "Grading failed: " + e.getMessage());
         }
-
-        stats.updateAccuracy();
-        stats.updateAverageScore();
-
-        statsRepository.save(stats);
     }
 
+    // ==================== STATISTICS ====================
+
     private UserQuizStatistics createDefaultStats(UUID userId, UUID quizId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new GameException("User not found"));
@@ -1985,8 +1897,4 @@ public class GameServiceImpl implements GameService {
             return "{}";
         }
     }
-
-    // ==================== INNER CLASS ====================
-
-    private record AnswerGradingResult(boolean correct, String correctAnswer) {}
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.kkunquizapp.QuizAppBackend.game.session;
+
+import com.kkunquizapp.QuizAppBackend.game.grading.AnswerKey;
+import com.kkunquizapp.QuizAppBackend.question.model.Option;
+import com.kkunquizapp.QuizAppBackend.question.model.Question;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live answer histogram of one question.
+ *
+ * Buckets are fixed when the question opens: option ids for choice questions,
+ * "true"/"false" for true/false, "correct"/"incorrect" for everything else.
+ * Submissions that do not hit a known bucket still count as answered, so a
+ * client cannot grow the map with made-up values.
+ *
+ * Counters are {@link LongAdder}s: the answer path only increments, the host
+ * push and the reveal read a snapshot without stopping it.
+ */
+public final class AnswerDistribution {
+
+    public static final String CORRECT = "correct";
+    public static final String INCORRECT = "incorrect";
+
+    private final Map<String, LongAdder> counts;
+    private final LongAdder answered = new LongAdder();
+    private final LongAdder correct = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile long pushedResponses = -1;
+
+    private AnswerDistribution(List<String> buckets) {
+        Map<String, LongAdder> map = new LinkedHashMap<>();
+        for (String bucket : buckets) {
+            map.put(bucket, new LongAdder());
+        }
+        this.counts = Collections.unmodifiableMap(map);
+    }
+
+    public static AnswerDistribution forQuestion(Question question, AnswerKey key) {
+        if (key instanceof AnswerKey.SelectedOption || key instanceof AnswerKey.MultipleOptions) {
+            List<Option> options = question.getOptions() != null ? question.getOptions() : List.of();
+            return new AnswerDistribution(options.stream()
+                    .map(option -> String.valueOf(option.getOptionId()))
+                    .toList());
+        }
+        if (key instanceof AnswerKey.TrueFalse) {
+            return new AnswerDistribution(List.of("true", "false"));
+        }
+        return new AnswerDistribution(List.of(CORRECT, INCORRECT));
+    }
+
+    // ==================== RECORD ====================
+
+    public void record(AnswerKey key, Object submitted, boolean isCorrect) {
+        answered.increment();
+        if (isCorrect) {
+            correct.increment();
+        }
+
+        if (key instanceof AnswerKey.SelectedOption) {
+            increment(String.valueOf(submitted));
+        } else if (key instanceof AnswerKey.MultipleOptions) {
+            if (submitted instanceof List<?> selected) {
+                for (Object option : selected) {
+                    increment(String.valueOf(option));
+                }
+            }
+        } else if (key instanceof AnswerKey.TrueFalse) {
+            increment(String.valueOf(submitted).toLowerCase());
+        } else {
+            increment(isCorrect ? CORRECT : INCORRECT);
+        }
+    }
+
+    public void recordSkip() {
+        skipped.increment();
+    }
+
+    private void increment(String bucket) {
+        LongAdder counter = counts.get(bucket);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    // ==================== READ ====================
+
+    public Snapshot snapshot() {
+        Map<String, Long> values = new LinkedHashMap<>(counts.size() * 2);
+        counts.forEach((bucket, counter) -> values.put(bucket, counter.sum()));
+        return new Snapshot(answered.sum(), correct.sum(), skipped.sum(), values);
+    }
+
+    /**
+     * Snapshot to push to the host, or empty if nothing changed since the last push.
+     * Only called from the single push thread.
+     */
+    public Optional<Snapshot> pollChange() {
+        long responses = answered.sum() + skipped.sum();
+        if (responses == pushedResponses) {
+            return Optional.empty();
+        }
+        pushedResponses = responses;
+        return Optional.of(snapshot());
+    }
+
+    /**
+     * Final snapshot, returned only to the first caller so the reveal writes it once.
+     */
+    public Optional<Snapshot> finish() {
+        return finished.compareAndSet(false, true) ? Optional.of(snapshot()) : Optional.empty();
+    }
+
+    public boolean isFinished() {
+        return finished.get();
+    }
+
+    public record Snapshot(long answered, long correct, long skipped, Map<String, Long> counts) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.kkunquizapp.QuizAppBackend.game.session;
+
+import com.kkunquizapp.QuizAppBackend.game.grading.OptionShuffle;
+import com.kkunquizapp.QuizAppBackend.game.model.Game;
+import com.kkunquizapp.QuizAppBackend.game.model.GameParticipant;
+import com.kkunquizapp.QuizAppBackend.game.model.enums.GameStatus;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authoritative live state of a running game.
+ *
+ * Built once when the game starts and kept in {@link GameSessionRegistry}.
+ * The answer hot path grades and scores purely against this object;
+ * Postgres only receives the durable results.
+ */
+@Getter
+public class GameSession {
+
+    private final UUID gameId;
+    private final UUID hostId;
+    private final UUID quizId;
+    private final int totalQuestions;
+    private final long randomSeed;
+    private final boolean randomizeOptions;
+
+    /** Question IDs in play order, fixed when the game starts. */
+    private final List<UUID> questionOrder;
+
+    private final Map<UUID, ParticipantState> participants = new ConcurrentHashMap<>();
+
+    private volatile GameStatus status;
+    private volatile int currentQuestionIndex;
+    private volatile QuestionState currentQuestion;
+
+    /** Rank of every participant at the last question reveal, used for rank movements. */
+    private volatile Map<UUID, Integer> revealedRanks = Map.of();
+
+    public GameSession(Game game, List<UUID> questionOrder, Collection<GameParticipant> participants) {
+        this.gameId = game.getGameId();
+        this.hostId = game.getHost().getUserId();
+        this.quizId = game.getQuiz().getQuizId();
+        this.totalQuestions = questionOrder.size();
+        this.randomSeed = game.getRandomSeed() != null ? game.getRandomSeed() : 0L;
+        this.randomizeOptions = game.isRandomizeOptions();
+        this.questionOrder = List.copyOf(questionOrder);
+        this.status = game.getGameStatus();
+        this.currentQuestionIndex = game.getCurrentQuestionIndex();
+        for (GameParticipant participant : participants) {
+            this.participants.put(participant.getParticipantId(), new ParticipantState(participant));
+        }
+    }
+
+    public ParticipantState participant(UUID participantId) {
+        return participants.get(participantId);
+    }
+
+    /** Seed of a question's per-player option order, null if options are not shuffled. */
+    public Integer optionSeed(UUID questionId) {
+        return randomizeOptions ? OptionShuffle.questionSeed(randomSeed, questionId) : null;
+    }
+
+    public boolean isHost(UUID userId) {
+        return hostId.equals(userId);
+    }
+
+    public boolean hasNextQuestion() {
+        return currentQuestionIndex < totalQuestions - 1;
+    }
+
+    public UUID questionIdAt(int index) {
+        return questionOrder.get(index);
+    }
+
+    public void setStatus(GameStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Publish a new current question. Readers see either the old or the new
+     * question, never a half-built one.
+     */
+    public void startQuestion(QuestionState question) {
+        this.currentQuestion = question;
+        this.currentQuestionIndex = question.index();
+    }
+
+    public void setRevealedRanks(Map<UUID, Integer> revealedRanks) {
+        this.revealedRanks = Map.copyOf(revealedRanks);
+    }
+
+    public long activeParticipantCount() {
+        return participants.values().stream().filter(ParticipantState::isActive).count();
+    }
+
+    /** Active participants that are currently online. */
+    public long presentParticipantCount() {
+        return participants.values().stream().filter(ParticipantState::isPresent).count();
+    }
+
+    /** Players a new question waits for before it can be revealed early. */
+    public Set<UUID> presentParticipantIds() {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        participants.values().stream()
+                .filter(ParticipantState::isPresent)
+                .forEach(state -> ids.add(state.getParticipantId()));
+        return ids;
+    }
+}
@@ -0,0 +1,48 @@
+package com.kkunquizapp.QuizAppBackend.game.session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one {@link GameSession} per live game on this node.
+ */
+@Component
+@Slf4j
+public class GameSessionRegistry {
+
+    private final Map<UUID, GameSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Register a session. If another thread registered one for the same game
+     * first, that one wins and is returned.
+     */
+    public GameSession register(GameSession session) {
+        GameSession existing = sessions.putIfAbsent(session.getGameId(), session);
+        if (existing != null) {
+            return existing;
+        }
+        log.debug("Game session opened for game {} ({} participants)",
+                session.getGameId(), session.getParticipants().size());
+        return session;
+    }
+
+    public Optional<GameSession> find(UUID gameId) {
+        return Optional.ofNullable(sessions.get(gameId));
+    }
+
+    public void remove(UUID gameId) {
+        if (sessions.remove(gameId) != null) {
+            log.debug("Game session closed for game {}", gameId);
+        }
+    }
+
+    public Collection<GameSession> all() {
+        return sessions.values();
+    }
+}
@@ -0,0 +1,78 @@
+package com.kkunquizapp.QuizAppBackend.game.session;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which STOMP session on this node belongs to which participant.
+ *
+ * Learned from the {@code participantId} header that clients put on every
+ * /app/game/** frame. When the current session of a participant closes, the
+ * presence tracker is told right away instead of waiting for missed heartbeats.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ParticipantConnections implements ChannelInterceptor {
+
+    private static final String GAME_APP_PREFIX = "/app/game/";
+
+    private final PresenceTracker presenceTracker;
+
+    private final Map<UUID, String> sessionByParticipant = new ConcurrentHashMap<>();
+    private final Map<String, UUID> participantBySession = new ConcurrentHashMap<>();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SEND.equals(accessor.getCommand())) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+        String header = accessor.getFirstNativeHeader("participantId");
+        String sessionId = accessor.getSessionId();
+        if (destination == null || header == null || sessionId == null || !destination.startsWith(GAME_APP_PREFIX)) {
+            return message;
+        }
+
+        try {
+            bind(UUID.fromString(header), sessionId);
+        } catch (IllegalArgumentException e) {
+            log.trace("Ignoring invalid participantId header: {}", header);
+        }
+        return message;
+    }
+
+    private void bind(UUID participantId, String sessionId) {
+        String previous = sessionByParticipant.put(participantId, sessionId);
+        if (!sessionId.equals(previous)) {
+            // Reconnect → session mới thay session cũ
+            participantBySession.put(sessionId, participantId);
+            if (previous != null) {
+                participantBySession.remove(previous, participantId);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        UUID participantId = participantBySession.remove(event.getSessionId());
+        if (participantId != null && sessionByParticipant.remove(participantId, event.getSessionId())) {
+            // Session hiện tại của người chơi đóng (không phải session cũ sau reconnect)
+            presenceTracker.disconnected(participantId);
+        }
+    }
+}
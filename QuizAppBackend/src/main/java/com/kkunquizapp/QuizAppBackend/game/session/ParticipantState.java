@@ -0,0 +1,169 @@
+package com.kkunquizapp.QuizAppBackend.game.session;
+
+import com.kkunquizapp.QuizAppBackend.game.dto.AnswerResultDTO;
+import com.kkunquizapp.QuizAppBackend.game.model.GameParticipant;
+import com.kkunquizapp.QuizAppBackend.game.model.enums.ParticipantStatus;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Live, in-memory state of one participant while a game is running.
+ *
+ * Mirrors the scoring fields of {@link GameParticipant}; the entity row is only
+ * written from this state, never read back during the game.
+ * All mutators are synchronized on the instance so two answers from the same
+ * player can never interleave.
+ */
+@Getter
+public class ParticipantState {
+
+    private final UUID participantId;
+    private final UUID userId;
+    private final String nickname;
+    private final boolean anonymous;
+
+    private ParticipantStatus status;
+    private int score;
+    private int correctCount;
+    private int incorrectCount;
+    private int skippedCount;
+    private long totalTimeMs;
+    private long averageResponseTimeMs;
+    private int currentStreak;
+    private int bestStreak;
+
+    /** Index of the last question this participant answered or skipped, -1 if none. */
+    private int lastAnsweredQuestionIndex = -1;
+
+    /** Result of the answer to {@link #lastAnsweredQuestionIndex}, null if it was skipped. */
+    private AnswerResultDTO lastAnswerResult;
+
+    /** Presence as last reported by {@link PresenceTracker}. */
+    private volatile boolean connected = true;
+
+    public ParticipantState(GameParticipant participant) {
+        this.participantId = participant.getParticipantId();
+        this.userId = participant.getUser() != null ? participant.getUser().getUserId() : null;
+        this.nickname = participant.getNickname();
+        this.anonymous = participant.isAnonymous();
+        this.status = participant.getStatus();
+        this.score = participant.getScore();
+        this.correctCount = participant.getCorrectCount();
+        this.incorrectCount = participant.getIncorrectCount();
+        this.skippedCount = participant.getSkippedCount();
+        this.totalTimeMs = participant.getTotalTimeMs();
+        this.averageResponseTimeMs = participant.getAverageResponseTimeMs();
+        this.currentStreak = participant.getCurrentStreak();
+        this.bestStreak = participant.getBestStreak();
+    }
+
+    /**
+     * Claim the given question for this participant.
+     *
+     * @return false if the participant already answered or skipped it, or is no longer active
+     */
+    public synchronized boolean markAnswered(int questionIndex) {
+        if (!isActive() || questionIndex <= lastAnsweredQuestionIndex) {
+            return false;
+        }
+        this.lastAnsweredQuestionIndex = questionIndex;
+        this.lastAnswerResult = null;
+        return true;
+    }
+
+    public synchronized void rememberAnswer(AnswerResultDTO result) {
+        this.lastAnswerResult = result;
+    }
+
+    /** What the participant's answer to this question returned, null if not answered (or skipped). */
+    public synchronized AnswerResultDTO answerResultFor(int questionIndex) {
+        return questionIndex == lastAnsweredQuestionIndex ? lastAnswerResult : null;
+    }
+
+    public synchronized boolean hasAnswered(int questionIndex) {
+        return questionIndex <= lastAnsweredQuestionIndex;
+    }
+
+    public synchronized void recordCorrectAnswer(long responseTimeMs, int points) {
+        this.score += points;
+        this.correctCount++;
+        this.currentStreak++;
+        this.totalTimeMs += responseTimeMs;
+        updateAverage();
+        if (this.currentStreak > this.bestStreak) {
+            this.bestStreak = this.currentStreak;
+        }
+    }
+
+    public synchronized void recordIncorrectAnswer(long responseTimeMs) {
+        this.incorrectCount++;
+        this.currentStreak = 0;
+        this.totalTimeMs += responseTimeMs;
+        updateAverage();
+    }
+
+    public synchronized void recordSkip() {
+        this.skippedCount++;
+        this.currentStreak = 0;
+    }
+
+    /**
+     * @param openQuestionIndex index of the question currently open, -1 if none
+     * @return true if the open question was still waiting for this participant
+     */
+    public synchronized boolean leave(int openQuestionIndex) {
+        boolean awaited = isAwaited(openQuestionIndex);
+        this.status = ParticipantStatus.LEFT;
+        return awaited;
+    }
+
+    /** Same contract as {@link #leave(int)}. */
+    public synchronized boolean kick(int openQuestionIndex) {
+        boolean awaited = isAwaited(openQuestionIndex);
+        this.status = ParticipantStatus.KICKED;
+        return awaited;
+    }
+
+    private boolean isAwaited(int openQuestionIndex) {
+        return openQuestionIndex >= 0 && isActive() && openQuestionIndex > lastAnsweredQuestionIndex;
+    }
+
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    /** Active and not timed out: counted as an active player and awaited by new questions. */
+    public boolean isPresent() {
+        return connected && isActive();
+    }
+
+    public synchronized boolean isActive() {
+        return status == ParticipantStatus.JOINED || status == ParticipantStatus.PLAYING;
+    }
+
+    public synchronized boolean isKicked() {
+        return status == ParticipantStatus.KICKED;
+    }
+
+    public synchronized boolean hasLeft() {
+        return status == ParticipantStatus.LEFT;
+    }
+
+    /**
+     * Consistent copy of the scoring counters, safe to hand to other threads.
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(participantId, score, correctCount, incorrectCount, skippedCount,
+                totalTimeMs, averageResponseTimeMs, currentStreak, bestStreak);
+    }
+
+    private void updateAverage() {
+        long answered = this.correctCount + this.incorrectCount;
+        this.averageResponseTimeMs = answered > 0 ? this.totalTimeMs / answered : 0;
+    }
+
+    public record Snapshot(UUID participantId, int score, int correctCount, int incorrectCount,
+                           int skippedCount, long totalTimeMs, long averageResponseTimeMs,
+                           int currentStreak, int bestStreak) {}
+}
@@ -0,0 +1,165 @@
+package com.kkunquizapp.QuizAppBackend.game.session;
+
+import com.kkunquizapp.QuizAppBackend.game.cluster.GameCommandForwarder;
+import com.kkunquizapp.QuizAppBackend.game.service.GameService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory presence of participants, fed by the STOMP heartbeat endpoint and
+ * STOMP DISCONNECT.
+ *
+ * A heartbeat only moves the participant's expiry forward ({@code app.game.presence.timeout-ms});
+ * a DISCONNECT shortens it to {@code disconnect-grace-ms} so a quick reconnect
+ * goes unnoticed. Nothing is written on a heartbeat: a sweep every
+ * {@code sweep-interval-ms} collects who crossed their expiry (or came back)
+ * and hands each game one batch of changes via {@link GameService#applyPresence}.
+ * A game owned by another node gets its batch forwarded there, since the open
+ * question's awaiting set only exists on the owner.
+ *
+ * Participants never seen on this node count as online, so in a cluster a
+ * player whose socket lives on another node is never timed out here.
+ */
+@Component
+@Slf4j
+public class PresenceTracker {
+
+    private final ObjectProvider<GameService> gameService;
+    private final GameCommandForwarder commandForwarder;
+    private final long timeoutMs;
+    private final long disconnectGraceMs;
+    private final long forgetAfterMs;
+    private final Map<UUID, Presence> presence = new ConcurrentHashMap<>();
+
+    private final Counter timedOutCounter;
+    private final Counter returnedCounter;
+
+    public PresenceTracker(ObjectProvider<GameService> gameService,
+                           GameCommandForwarder commandForwarder,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.game.presence.timeout-ms:30000}") long timeoutMs,
+                           @Value("${app.game.presence.disconnect-grace-ms:5000}") long disconnectGraceMs) {
+        this.gameService = gameService;
+        this.commandForwarder = commandForwarder;
+        this.timeoutMs = timeoutMs;
+        this.disconnectGraceMs = disconnectGraceMs;
+        // Offline quá lâu (game đã xong hoặc người chơi bỏ đi hẳn) → xoá khỏi map
+        this.forgetAfterMs = timeoutMs * 10;
+
+        this.timedOutCounter = Counter.builder("game.presence.timed_out")
+                .description("Participants marked offline after missing heartbeats or disconnecting")
+                .register(meterRegistry);
+        this.returnedCounter = Counter.builder("game.presence.returned")
+                .description("Offline participants that sent a heartbeat again")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("game.presence.tracked", List.of(), presence);
+    }
+
+    // ==================== SIGNALS ====================
+
+    /** Heartbeat: one volatile write once the participant is known. */
+    public void touch(UUID gameId, UUID participantId) {
+        long expiresAt = System.currentTimeMillis() + timeoutMs;
+        Presence current = presence.get(participantId);
+        if (current != null && current.gameId.equals(gameId)) {
+            current.expiresAt = expiresAt;
+            return;
+        }
+        presence.put(participantId, new Presence(gameId, expiresAt));
+    }
+
+    /** STOMP DISCONNECT: offline after the grace period unless a heartbeat comes first. */
+    public void disconnected(UUID participantId) {
+        Presence current = presence.get(participantId);
+        if (current != null) {
+            current.expiresAt = Math.min(current.expiresAt, System.currentTimeMillis() + disconnectGraceMs);
+        }
+    }
+
+    /** Participant left or was kicked; their silence must not be reported later. */
+    public void forget(UUID participantId) {
+        presence.remove(participantId);
+    }
+
+    public boolean isOnline(UUID participantId) {
+        Presence current = presence.get(participantId);
+        return current == null || current.reportedOnline;
+    }
+
+    // ==================== SWEEP ====================
+
+    @Scheduled(fixedDelayString = "${app.game.presence.sweep-interval-ms:1000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        Map<UUID, Changes> changes = new HashMap<>();
+
+        presence.forEach((participantId, current) -> {
+            boolean online = current.expiresAt >= now;
+            if (online == current.reportedOnline) {
+                if (!online && now - current.expiresAt > forgetAfterMs) {
+                    presence.remove(participantId, current);
+                }
+                return;
+            }
+            // Chỉ thread sweep đọc/ghi reportedOnline
+            current.reportedOnline = online;
+            Changes game = changes.computeIfAbsent(current.gameId, id -> new Changes());
+            (online ? game.online : game.offline).add(participantId);
+        });
+
+        changes.forEach((gameId, change) -> {
+            timedOutCounter.increment(change.offline.size());
+            returnedCounter.increment(change.online.size());
+            try {
+                apply(gameId, change);
+            } catch (Exception e) {
+                log.error("Failed to apply presence changes of game {}: {}", gameId, e.getMessage(), e);
+            }
+        });
+    }
+
+    /** Owner unreachable → apply here: its lease expires and this node takes the game over. */
+    private void apply(UUID gameId, Changes change) {
+        Optional<String> ownerUrl = commandForwarder.ownerUrl(gameId);
+        if (ownerUrl.isPresent()) {
+            try {
+                commandForwarder.forwardPresence(ownerUrl.get(), gameId, change.offline, change.online);
+                return;
+            } catch (ResourceAccessException e) {
+                log.warn("Owner of game {} unreachable at {}, applying presence locally: {}",
+                        gameId, ownerUrl.get(), e.getMessage());
+            }
+        }
+        gameService.getObject().applyPresence(gameId, change.offline, change.online);
+    }
+
+    private static final class Presence {
+        private final UUID gameId;
+        private volatile long expiresAt;
+        private volatile boolean reportedOnline = true;
+
+        private Presence(UUID gameId, long expiresAt) {
+            this.gameId = gameId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Changes {
+        private final List<UUID> offline = new ArrayList<>();
+        private final List<UUID> online = new ArrayList<>();
+    }
+}
@@ -0,0 +1,78 @@
+package com.kkunquizapp.QuizAppBackend.game.session;
+
+import com.kkunquizapp.QuizAppBackend.game.dto.QuestionResponseDTO;
+import com.kkunquizapp.QuizAppBackend.game.grading.AnswerKey;
+import com.kkunquizapp.QuizAppBackend.question.model.Question;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The question currently open in a {@link GameSession}.
+ *
+ * Built once when the question starts, then only read by the answer path.
+ *
+ * @param question   question with options already fetched, used to reveal the answer
+ * @param answerKey  answer key compiled from {@code question}, used for grading
+ * @param publicView DTO sent to players (no correct flags)
+ * @param optionIds  option ids in canonical order, for mapping submitted positions
+ * @param optionSeed seed of the per-player option order, null if options are not shuffled
+ * @param distribution live per-option answer counters shown to the host
+ * @param awaiting     connected active players that have not answered, skipped or left yet (concurrent set)
+ * @param closed       set by the single call that reveals this question
+ */
+public record QuestionState(
+        UUID questionId,
+        int index,
+        Instant startedAt,
+        int timeLimitSeconds,
+        int points,
+        String explanation,
+        Question question,
+        AnswerKey answerKey,
+        QuestionResponseDTO publicView,
+        List<UUID> optionIds,
+        Integer optionSeed,
+        AnswerDistribution distribution,
+        Set<UUID> awaiting,
+        AtomicBoolean closed
+) {
+
+    public long elapsedMillis(Instant now) {
+        return now.toEpochMilli() - startedAt.toEpochMilli();
+    }
+
+    public long timeLimitMillis() {
+        return timeLimitSeconds * 1000L;
+    }
+
+    /**
+     * The player answered, skipped, left or went offline.
+     *
+     * @return true if that player was awaited and nobody is pending anymore
+     */
+    public boolean responded(UUID participantId) {
+        return awaiting.remove(participantId) && awaiting.isEmpty();
+    }
+
+    /** A player came back online before answering; wait for them again. */
+    public void await(UUID participantId) {
+        if (!closed.get()) {
+            awaiting.add(participantId);
+        }
+    }
+
+    public boolean allResponded() {
+        return awaiting.isEmpty();
+    }
+
+    /**
+     * Claim the reveal of this question; true for exactly one caller.
+     */
+    public boolean close() {
+        return closed.compareAndSet(false, true);
+    }
+}
@@ -0,0 +1,211 @@
+package com.kkunquizapp.QuizAppBackend.game.stats;
+
+import com.kkunquizapp.QuizAppBackend.redis.service.RedisService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-of-game statistics, written set-based instead of row by row.
+ *
+ * {@link #summarize} is the only part on the request path: one aggregate query
+ * for the game's average score and finisher count. Everything else runs after
+ * the end-of-game transaction commits, on a small background pool, as one
+ * transaction of three statements whatever the number of players:
+ * <ol>
+ *   <li>final ranks (ROW_NUMBER over score, then time) and COMPLETED status in
+ *       one UPDATE ... FROM;</li>
+ *   <li>every signed-in player's {@code user_quiz_statistics} row in one
+ *       INSERT ... SELECT ... ON CONFLICT (user_id, quiz_id) DO UPDATE;</li>
+ *   <li>the quiz's completion count and running average score in one UPDATE.</li>
+ * </ol>
+ * The ranking of the GAME_ENDED event comes from the live leaderboard, so
+ * players never wait for this stage.
+ */
+@Component
+@Slf4j
+public class PostGameStatistics {
+
+    /** Ai chưa rời/bị kick khi game kết thúc thì tính là hoàn thành. */
+    private static final String FINISHED_STATUSES = "('JOINED', 'READY', 'PLAYING', 'COMPLETED')";
+
+    private static final String SUMMARIZE = """
+            SELECT COALESCE(AVG(score), 0) AS average_score,
+                   COUNT(*) FILTER (WHERE status IN %s) AS completed
+            FROM game_participants
+            WHERE game_id = ?""".formatted(FINISHED_STATUSES);
+
+    private static final String RANK_PARTICIPANTS = """
+            UPDATE game_participants AS p SET
+                final_rank = r.final_rank,
+                status = CASE WHEN p.status IN %s THEN 'COMPLETED' ELSE p.status END
+            FROM (SELECT participant_id,
+                         ROW_NUMBER() OVER (ORDER BY score DESC, total_time_ms ASC) AS final_rank
+                  FROM game_participants
+                  WHERE game_id = ?) AS r
+            WHERE p.participant_id = r.participant_id""".formatted(FINISHED_STATUSES);
+
+    /**
+     * One row per signed-in user (GROUP BY guards against a user holding two
+     * participants, which ON CONFLICT could not update twice in one statement).
+     * Derived columns are recomputed from the merged totals.
+     */
+    private static final String UPSERT_USER_STATISTICS = """
+            INSERT INTO user_quiz_statistics AS s (statistics_id, user_id, quiz_id,
+                total_games_played, total_games_completed, total_games_abandoned,
+                total_questions_answered, total_correct_answers, total_incorrect_answers, total_skipped_questions,
+                total_points, highest_score, average_score, accuracy,
+                total_time_spent_ms, average_time_per_question_ms, fastest_answer_time_ms,
+                current_streak, longest_streak, daily_streak, best_rank, average_rank,
+                first_played_at, last_played_at, updated_at)
+            SELECT gen_random_uuid(), g.user_id, ?,
+                   g.played, g.completed, g.played - g.completed,
+                   g.answered, g.correct, g.incorrect, g.skipped,
+                   g.points, g.highest,
+                   CASE WHEN g.completed > 0 THEN g.points::float8 / g.completed ELSE 0 END,
+                   CASE WHEN g.answered > 0 THEN g.correct * 100.0 / g.answered ELSE 0 END,
+                   g.time_ms, 0, 0,
+                   0, g.best_streak, 0, g.best_rank, 0,
+                   now(), now(), now()
+            FROM (SELECT user_id,
+                         COUNT(*) AS played,
+                         COUNT(*) FILTER (WHERE status = 'COMPLETED') AS completed,
+                         SUM(correct_count + incorrect_count) AS answered,
+                         SUM(correct_count) AS correct,
+                         SUM(incorrect_count) AS incorrect,
+                         SUM(skipped_count) AS skipped,
+                         SUM(score) AS points,
+                         MAX(score) AS highest,
+                         SUM(total_time_ms) AS time_ms,
+                         MAX(best_streak) AS best_streak,
+                         MIN(final_rank) AS best_rank
+                  FROM game_participants
+                  WHERE game_id = ? AND user_id IS NOT NULL
+                  GROUP BY user_id) AS g
+            ON CONFLICT (user_id, quiz_id) DO UPDATE SET
+                total_games_played = s.total_games_played + EXCLUDED.total_games_played,
+                total_games_completed = s.total_games_completed + EXCLUDED.total_games_completed,
+                total_games_abandoned = s.total_games_abandoned + EXCLUDED.total_games_abandoned,
+                total_questions_answered = s.total_questions_answered + EXCLUDED.total_questions_answered,
+                total_correct_answers = s.total_correct_answers + EXCLUDED.total_correct_answers,
+                total_incorrect_answers = s.total_incorrect_answers + EXCLUDED.total_incorrect_answers,
+                total_skipped_questions = s.total_skipped_questions + EXCLUDED.total_skipped_questions,
+                total_points = s.total_points + EXCLUDED.total_points,
+                highest_score = GREATEST(s.highest_score, EXCLUDED.highest_score),
+                average_score = CASE WHEN s.total_games_completed + EXCLUDED.total_games_completed > 0
+                    THEN (s.total_points + EXCLUDED.total_points)::float8
+                         / (s.total_games_completed + EXCLUDED.total_games_completed)
+                    ELSE 0 END,
+                accuracy = CASE WHEN s.total_questions_answered + EXCLUDED.total_questions_answered > 0
+                    THEN (s.total_correct_answers + EXCLUDED.total_correct_answers) * 100.0
+                         / (s.total_questions_answered + EXCLUDED.total_questions_answered)
+                    ELSE 0 END,
+                total_time_spent_ms = s.total_time_spent_ms + EXCLUDED.total_time_spent_ms,
+                longest_streak = GREATEST(s.longest_streak, EXCLUDED.longest_streak),
+                best_rank = LEAST(s.best_rank, EXCLUDED.best_rank),
+                first_played_at = COALESCE(s.first_played_at, EXCLUDED.first_played_at),
+                last_played_at = EXCLUDED.last_played_at,
+                updated_at = EXCLUDED.updated_at""";
+
+    /** Vế phải đọc giá trị cũ của hàng, nên average là trung bình cộng dồn qua các game. */
+    private static final String UPDATE_QUIZ = """
+            UPDATE quizzes SET
+                completion_count = completion_count + 1,
+                average_score = (average_score * completion_count + ?) / (completion_count + 1)
+            WHERE quiz_id = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisService redisService;
+    private final ExecutorService executor;
+
+    private final Timer stageTimer;
+    private final Counter failures;
+
+    public PostGameStatistics(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              RedisService redisService,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.game.post-game.threads:2}") int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.redisService = redisService;
+        this.executor = Executors.newFixedThreadPool(threads, new DefaultThreadFactory("post-game-stats", true));
+
+        this.stageTimer = Timer.builder("game.post_game.duration")
+                .description("Time to write final ranks, user statistics and quiz aggregates of one game")
+                .register(meterRegistry);
+        this.failures = Counter.builder("game.post_game.failures")
+                .description("End-of-game statistics stages that rolled back")
+                .register(meterRegistry);
+    }
+
+    public record Summary(double averageScore, int completedPlayers) {
+    }
+
+    /** Average score and finisher count of the game, read in one query (journal must be flushed). */
+    public Summary summarize(UUID gameId) {
+        return jdbcTemplate.queryForObject(SUMMARIZE,
+                (rs, rowNum) -> new Summary(rs.getDouble("average_score"), rs.getInt("completed")),
+                gameId);
+    }
+
+    /**
+     * Run the stage once the caller's transaction commits (right away if there
+     * is none), so it never sees the game half-ended.
+     */
+    public void submit(UUID gameId, UUID quizId, double averageScore) {
+        Runnable task = () -> executor.execute(() -> record(gameId, quizId, averageScore));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    void record(UUID gameId, UUID quizId, double averageScore) {
+        long start = System.nanoTime();
+        try {
+            int[] rows = transactionTemplate.execute(status -> new int[] {
+                    jdbcTemplate.update(RANK_PARTICIPANTS, gameId),
+                    jdbcTemplate.update(UPSERT_USER_STATISTICS, quizId, gameId),
+                    jdbcTemplate.update(UPDATE_QUIZ, averageScore, quizId)
+            });
+            redisService.evictQuiz(quizId);
+            log.debug("Post-game statistics of game {}: {} participants ranked, {} user rows upserted",
+                    gameId, rows[0], rows[1]);
+        } catch (Exception e) {
+            failures.increment();
+            log.error("Post-game statistics of game {} failed: {}", gameId, e.getMessage(), e);
+        } finally {
+            stageTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Post-game statistics still running at shutdown, abandoning them");
+            executor.shutdownNow();
+        }
+    }
+}
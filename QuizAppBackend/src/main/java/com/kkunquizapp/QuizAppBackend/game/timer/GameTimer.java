@@ -0,0 +1,25 @@
+package com.kkunquizapp.QuizAppBackend.game.timer;
+
+import java.util.UUID;
+
+/**
+ * A pending game deadline. At most one exists per game; scheduling a new one
+ * replaces the previous.
+ *
+ * @param deadlineEpochMs wall-clock deadline, so it survives a restart
+ */
+public record GameTimer(UUID gameId, GameTimerType type, long deadlineEpochMs, UUID hostId) {
+
+    private static final String SEPARATOR = "|";
+
+    /** Compact form stored in the Redis hash: {@code TYPE|deadline|hostId}. */
+    String encode() {
+        return type + SEPARATOR + deadlineEpochMs + SEPARATOR + hostId;
+    }
+
+    static GameTimer decode(UUID gameId, String value) {
+        String[] parts = value.split("\\|");
+        return new GameTimer(gameId, GameTimerType.valueOf(parts[0]), Long.parseLong(parts[1]),
+                UUID.fromString(parts[2]));
+    }
+}
@@ -0,0 +1,321 @@
+package com.kkunquizapp.QuizAppBackend.game.timer;
+
+import com.kkunquizapp.QuizAppBackend.game.cluster.GameOwnershipService;
+import com.kkunquizapp.QuizAppBackend.game.service.GameScheduler;
+import com.kkunquizapp.QuizAppBackend.game.trace.EventTrace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game deadlines (question end, next question, game end) on a hashed timing wheel.
+ *
+ * Scheduling and cancelling are O(1) regardless of how many games are running.
+ * The wheel thread only detects expiry; handlers run on a small worker pool so a
+ * slow handler never delays other games' deadlines.
+ *
+ * Every pending deadline is also written to the Redis hash {@value #TIMERS_KEY}
+ * (field = gameId) and re-armed on startup, so a restart mid-game does not
+ * leave the game stuck. Overdue deadlines fire immediately after reload.
+ *
+ * In cluster mode only the node holding the game's lease fires its deadlines;
+ * deadlines of games whose owner died are adopted by whichever node takes the
+ * lease over.
+ */
+@Service
+@Slf4j
+public class GameTimerService {
+
+    private static final String TIMERS_KEY = "game:timers";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectProvider<GameScheduler> gameScheduler;
+    private final GameOwnershipService ownershipService;
+
+    private final HashedWheelTimer wheel;
+    private final ExecutorService workers;
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+
+    private final Map<GameTimerType, Timer> driftTimers = new EnumMap<>(GameTimerType.class);
+    private final Map<GameTimerType, Timer> firingLatencyTimers = new EnumMap<>(GameTimerType.class);
+    private final Counter recoveredCounter;
+
+    public GameTimerService(RedisTemplate<String, Object> redisTemplate,
+                            ObjectProvider<GameScheduler> gameScheduler,
+                            GameOwnershipService ownershipService,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.game.timer.tick-ms:10}") long tickMs,
+                            @Value("${app.game.timer.wheel-size:512}") int wheelSize,
+                            @Value("${app.game.timer.worker-threads:8}") int workerThreads) {
+        this.redisTemplate = redisTemplate;
+        this.gameScheduler = gameScheduler;
+        this.ownershipService = ownershipService;
+
+        this.wheel = new HashedWheelTimer(new DefaultThreadFactory("game-timer-wheel", true),
+                tickMs, TimeUnit.MILLISECONDS, wheelSize);
+        this.workers = Executors.newFixedThreadPool(workerThreads, new DefaultThreadFactory("game-timer"));
+
+        // Tag theo loại deadline: END_QUESTION trễ thì người chơi thấy ngay, END_GAME thì không
+        for (GameTimerType type : GameTimerType.values()) {
+            driftTimers.put(type, Timer.builder("game.timer.drift")
+                    .description("Delay between a deadline and the wheel noticing it")
+                    .tag("type", type.name())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+            firingLatencyTimers.put(type, Timer.builder("game.timer.firing.latency")
+                    .description("Delay between a deadline and its handler starting")
+                    .tag("type", type.name())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+        this.recoveredCounter = Counter.builder("game.timer.recovered")
+                .description("Deadlines re-armed from Redis at startup")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("game.timer.pending", List.of(), pending);
+    }
+
+    // ==================== API ====================
+
+    /**
+     * Arm a deadline for the game, replacing any deadline already pending for it.
+     */
+    public void schedule(UUID gameId, GameTimerType type, Duration delay, UUID hostId) {
+        GameTimer timer = new GameTimer(gameId, type, System.currentTimeMillis() + delay.toMillis(), hostId);
+        persist(timer);
+        arm(timer);
+        log.debug("Game {} → {} in {}ms", gameId, type, delay.toMillis());
+    }
+
+    /**
+     * Fire the game's pending deadline right away, but only if it is still of
+     * {@code type}. Swapping the entry is atomic, so it can race with the wheel:
+     * if the deadline is already firing or was replaced, nothing happens.
+     *
+     * @return true if the deadline was brought forward
+     */
+    public boolean fireNow(UUID gameId, GameTimerType type) {
+        Pending current = pending.get(gameId);
+        if (current == null || current.timer.type() != type) {
+            return false;
+        }
+        GameTimer timer = new GameTimer(gameId, type, System.currentTimeMillis(), current.timer.hostId());
+        Pending entry = new Pending(timer);
+        if (!pending.replace(gameId, current, entry)) {
+            return false;
+        }
+        current.cancel();
+        persist(timer);
+        workers.execute(() -> {
+            if (pending.remove(gameId, entry)) {
+                fire(timer);
+            }
+        });
+        log.debug("Game {} → {} brought forward", gameId, type);
+        return true;
+    }
+
+    /** Whether a deadline is armed for the game on this node. */
+    public boolean hasPending(UUID gameId) {
+        return pending.containsKey(gameId);
+    }
+
+    /**
+     * Drop the pending deadline of a game (game ended or cancelled).
+     */
+    public void cancel(UUID gameId) {
+        Pending previous = pending.remove(gameId);
+        if (previous != null) {
+            previous.cancel();
+        }
+        unpersist(gameId, null);
+    }
+
+    // ==================== WHEEL ====================
+
+    private void arm(GameTimer timer) {
+        Pending entry = new Pending(timer);
+        Pending previous = pending.put(timer.gameId(), entry);
+        if (previous != null) {
+            previous.cancel();
+        }
+        long delayMs = Math.max(0, timer.deadlineEpochMs() - System.currentTimeMillis());
+        entry.timeout = wheel.newTimeout(t -> onExpired(entry), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Runs on the wheel thread: keep it short, hand the work to the pool. */
+    private void onExpired(Pending entry) {
+        GameTimer timer = entry.timer;
+        driftTimers.get(timer.type()).record(Math.max(0, System.currentTimeMillis() - timer.deadlineEpochMs()), TimeUnit.MILLISECONDS);
+
+        if (entry.cancelled || !pending.remove(timer.gameId(), entry)) {
+            return;
+        }
+        workers.execute(() -> fire(timer));
+    }
+
+    private void fire(GameTimer timer) {
+        if (!ownershipService.isOwnedHere(timer.gameId())) {
+            // Lease đã chuyển sang node khác → deadline trong Redis để owner mới xử lý
+            log.warn("Skipping {} of game {}: no longer owned by this node", timer.type(), timer.gameId());
+            return;
+        }
+        firingLatencyTimers.get(timer.type()).record(Math.max(0, System.currentTimeMillis() - timer.deadlineEpochMs()),
+                TimeUnit.MILLISECONDS);
+        // Event phát ra trong handler tính trễ từ deadline, không phải từ lúc handler chạy
+        EventTrace.Scope scope = EventTrace.openScope(timer.deadlineEpochMs() * 1000L);
+        try {
+            GameScheduler scheduler = gameScheduler.getObject();
+            switch (timer.type()) {
+                case FIRST_QUESTION -> scheduler.startFirstQuestionTx(timer.gameId(), timer.hostId());
+                case END_QUESTION -> scheduler.endQuestionTx(timer.gameId());
+                case NEXT_QUESTION -> scheduler.moveToNextQuestionTx(timer.gameId(), timer.hostId());
+                case END_GAME -> scheduler.endGameTx(timer.gameId(), timer.hostId());
+            }
+        } catch (Exception e) {
+            log.error("Game timer {} failed for game {}: {}", timer.type(), timer.gameId(), e.getMessage());
+        } finally {
+            scope.close();
+            // Handler có thể đã đặt deadline mới cho game → chỉ xoá nếu vẫn là deadline này
+            unpersist(timer.gameId(), timer.encode());
+        }
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    private HashOperations<String, String, Object> hashOps() {
+        return redisTemplate.opsForHash();
+    }
+
+    private void persist(GameTimer timer) {
+        try {
+            hashOps().put(TIMERS_KEY, timer.gameId().toString(), timer.encode());
+        } catch (Exception e) {
+            log.warn("Failed to persist {} deadline for game {}: {}", timer.type(), timer.gameId(), e.getMessage());
+        }
+    }
+
+    private void unpersist(UUID gameId, String expected) {
+        try {
+            String field = gameId.toString();
+            if (expected == null || expected.equals(hashOps().get(TIMERS_KEY, field))) {
+                hashOps().delete(TIMERS_KEY, field);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to remove deadline of game {}: {}", gameId, e.getMessage());
+        }
+    }
+
+    // Chạy trước GameRecoveryService: game nào đã có deadline trong Redis thì không cần tính lại
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void reloadPersistedTimers() {
+        Map<String, Object> stored;
+        try {
+            stored = hashOps().entries(TIMERS_KEY);
+        } catch (Exception e) {
+            log.error("Could not reload game deadlines from Redis: {}", e.getMessage());
+            return;
+        }
+
+        int recovered = 0;
+        for (Map.Entry<String, Object> entry : stored.entrySet()) {
+            try {
+                GameTimer timer = GameTimer.decode(UUID.fromString(entry.getKey()), String.valueOf(entry.getValue()));
+                if (!pending.containsKey(timer.gameId()) && ownershipService.acquire(timer.gameId())) {
+                    arm(timer);
+                    recovered++;
+                }
+            } catch (Exception e) {
+                log.warn("Dropping unreadable game deadline {}={}: {}", entry.getKey(), entry.getValue(), e.getMessage());
+                hashOps().delete(TIMERS_KEY, entry.getKey());
+            }
+        }
+        recoveredCounter.increment(recovered);
+        if (recovered > 0) {
+            log.info("Re-armed {} game deadlines from Redis", recovered);
+        }
+    }
+
+    /**
+     * Cluster mode: take over deadlines of games whose owner stopped renewing its lease.
+     */
+    @Scheduled(fixedDelayString = "${app.cluster.orphan-sweep-interval-ms:10000}")
+    public void adoptOrphanedTimers() {
+        if (!ownershipService.isClustered()) {
+            return;
+        }
+        try {
+            Map<String, Object> stored = hashOps().entries(TIMERS_KEY);
+            int adopted = 0;
+            for (Map.Entry<String, Object> entry : stored.entrySet()) {
+                UUID gameId = UUID.fromString(entry.getKey());
+                // Game của node này đã có deadline trong RAM (hoặc đang chạy handler) → bỏ qua
+                if (ownershipService.isOwnedHere(gameId) || !ownershipService.acquire(gameId)) {
+                    continue;
+                }
+                arm(GameTimer.decode(gameId, String.valueOf(entry.getValue())));
+                adopted++;
+            }
+            if (adopted > 0) {
+                recoveredCounter.increment(adopted);
+                log.info("Adopted {} game deadlines from dead nodes", adopted);
+            }
+        } catch (Exception e) {
+            log.error("Orphaned game deadline sweep failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Deadline còn lại vẫn nằm trong Redis, node kế tiếp sẽ nạp lại
+        wheel.stop();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Pending {
+        private final GameTimer timer;
+        private volatile Timeout timeout;
+        private volatile boolean cancelled;
+
+        private Pending(GameTimer timer) {
+            this.timer = timer;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+    }
+}
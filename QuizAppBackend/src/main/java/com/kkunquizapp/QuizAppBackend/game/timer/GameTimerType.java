@@ -0,0 +1,15 @@
+package com.kkunquizapp.QuizAppBackend.game.timer;
+
+/**
+ * What happens when a game deadline expires.
+ */
+public enum GameTimerType {
+    /** Countdown after start → open the first question. */
+    FIRST_QUESTION,
+    /** Time limit of the current question is over → reveal answer + leaderboard. */
+    END_QUESTION,
+    /** Reveal pause is over → open the next question. */
+    NEXT_QUESTION,
+    /** Reveal of the last question is over → finish the game. */
+    END_GAME
+}
@@ -0,0 +1,148 @@
+package com.kkunquizapp.QuizAppBackend.game.trace;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace id and hop timestamps of one game event, in epoch microseconds.
+ *
+ * origin    → what caused the event: the deadline of the timer that fired, or
+ *             the moment the event was published when nothing opened a scope
+ * published → numbered by GameEventLog and handed to Kafka / a local lane
+ * received  → picked up by GameEventConsumer
+ * brokered  → last frame handed to the STOMP broker
+ *
+ * Kept in memory next to the event and carried across Kafka in record headers,
+ * never in the JSON body, so clients do not see it. Timestamps from another
+ * node are only as good as the clocks of both nodes.
+ */
+public final class EventTrace {
+
+    public static final String TRACE_ID_HEADER = "x-game-trace-id";
+    public static final String ORIGIN_HEADER = "x-game-origin-us";
+    public static final String PUBLISHED_HEADER = "x-game-published-us";
+
+    private static final ThreadLocal<Long> SCOPE_ORIGIN = new ThreadLocal<>();
+
+    private final String traceId;
+    private final long originMicros;
+    private volatile long publishedMicros;
+    private volatile long receivedMicros;
+    private volatile long brokeredMicros;
+
+    private EventTrace(String traceId, long originMicros, long publishedMicros) {
+        this.traceId = traceId;
+        this.originMicros = originMicros;
+        this.publishedMicros = publishedMicros;
+    }
+
+    /** New trace; origin comes from the scope open on this thread, if any. */
+    public static EventTrace begin() {
+        Long origin = SCOPE_ORIGIN.get();
+        return new EventTrace(newTraceId(), origin != null ? origin : nowMicros(), 0);
+    }
+
+    /**
+     * Events published on this thread until the scope closes take
+     * {@code originMicros} as their origin.
+     */
+    public static Scope openScope(long originMicros) {
+        Long previous = SCOPE_ORIGIN.get();
+        SCOPE_ORIGIN.set(originMicros);
+        return () -> {
+            if (previous != null) {
+                SCOPE_ORIGIN.set(previous);
+            } else {
+                SCOPE_ORIGIN.remove();
+            }
+        };
+    }
+
+    public static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    // ==================== HOPS ====================
+
+    public void markPublished() {
+        publishedMicros = nowMicros();
+    }
+
+    public void markReceived() {
+        receivedMicros = nowMicros();
+    }
+
+    public void markBrokered() {
+        brokeredMicros = nowMicros();
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public long originMicros() {
+        return originMicros;
+    }
+
+    public long publishedMicros() {
+        return publishedMicros;
+    }
+
+    public long receivedMicros() {
+        return receivedMicros;
+    }
+
+    public long brokeredMicros() {
+        return brokeredMicros;
+    }
+
+    // ==================== KAFKA HEADERS ====================
+
+    public void writeTo(Headers headers) {
+        headers.add(TRACE_ID_HEADER, traceId.getBytes(StandardCharsets.UTF_8));
+        headers.add(ORIGIN_HEADER, Long.toString(originMicros).getBytes(StandardCharsets.UTF_8));
+        headers.add(PUBLISHED_HEADER, Long.toString(publishedMicros).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return null if the record was written without trace headers */
+    public static EventTrace readFrom(Headers headers) {
+        String traceId = header(headers, TRACE_ID_HEADER);
+        if (traceId == null) {
+            return null;
+        }
+        try {
+            return new EventTrace(traceId,
+                    Long.parseLong(header(headers, ORIGIN_HEADER)),
+                    Long.parseLong(header(headers, PUBLISHED_HEADER)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null && header.value() != null
+                ? new String(header.value(), StandardCharsets.UTF_8)
+                : null;
+    }
+
+    private static String newTraceId() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+    }
+
+    @Override
+    public String toString() {
+        return traceId;
+    }
+
+    /** Restores the previous scope origin; never throws. */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
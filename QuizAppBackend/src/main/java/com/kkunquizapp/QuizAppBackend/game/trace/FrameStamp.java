@@ -0,0 +1,12 @@
+package com.kkunquizapp.QuizAppBackend.game.trace;
+
+/**
+ * Message header of a traced game frame ({@link #HEADER}): which event it
+ * belongs to and when it was handed to the broker. The simple broker copies it
+ * onto every per-session MESSAGE, so the outbound channel can time each write.
+ * Not a STOMP native header: it never leaves the JVM.
+ */
+public record FrameStamp(GameLatencyTracker.Delivery delivery, long sentMicros) {
+
+    public static final String HEADER = "gameFrameStamp";
+}
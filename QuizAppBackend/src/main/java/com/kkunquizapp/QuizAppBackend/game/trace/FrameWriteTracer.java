@@ -0,0 +1,33 @@
+package com.kkunquizapp.QuizAppBackend.game.trace;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Client outbound channel hook: once the WebSocket handler has written a traced
+ * frame to its session, record the outbound and total hops.
+ *
+ * "Written" means handed to the session; when another thread is already
+ * sending on that session the frame sits in its send buffer a little longer.
+ * Frames relayed from another node carry no stamp and are not timed here.
+ */
+@Component
+public class FrameWriteTracer implements ExecutorChannelInterceptor {
+
+    private final GameLatencyTracker tracker;
+
+    public FrameWriteTracer(GameLatencyTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        if (ex == null && message.getHeaders().get(FrameStamp.HEADER) instanceof FrameStamp stamp) {
+            tracker.written(stamp);
+        }
+    }
+}
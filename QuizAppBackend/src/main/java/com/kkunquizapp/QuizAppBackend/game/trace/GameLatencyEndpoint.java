@@ -0,0 +1,35 @@
+package com.kkunquizapp.QuizAppBackend.game.trace;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@code /actuator/gamelatency}: games traced on this node, slowest first.
+ * {@code /actuator/gamelatency/{gameId}}: per event type and hop, plus the last
+ * events of that game (404 if this node has no data for it).
+ */
+@Component
+@Endpoint(id = "gamelatency")
+public class GameLatencyEndpoint {
+
+    private final GameLatencyTracker tracker;
+
+    public GameLatencyEndpoint(GameLatencyTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @ReadOperation
+    public List<GameLatencyTracker.GameSummary> games() {
+        return tracker.games();
+    }
+
+    @ReadOperation
+    public GameLatencyTracker.GameBreakdown game(@Selector UUID gameId) {
+        return tracker.game(gameId).orElse(null);
+    }
+}
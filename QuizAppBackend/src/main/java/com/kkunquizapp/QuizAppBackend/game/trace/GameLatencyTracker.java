@@ -0,0 +1,283 @@
+package com.kkunquizapp.QuizAppBackend.game.trace;
+
+import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time between "the question should be on screen" and "the frame
+ * was written to the player's socket" goes, per hop:
+ *
+ * handler   origin → published (timer lateness + the service method, incl. DB)
+ * transport published → received (Kafka round trip, or the local lane queue)
+ * broadcast received → brokered (serialize, hand frames to the broker)
+ * outbound  frame handed to the broker → written to one session
+ * total     origin → written to one session
+ *
+ * Every hop goes to the {@code game.event.trace} timer (tags {@code hop},
+ * {@code type}). Per game, the same is aggregated by event type together with
+ * the last few events, for the {@code gamelatency} actuator endpoint.
+ */
+@Component
+public class GameLatencyTracker {
+
+    public enum Hop {
+        HANDLER, TRANSPORT, BROADCAST, OUTBOUND, TOTAL;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final int recentEvents;
+    private final long retentionMs;
+
+    private final Map<String, Timer[]> timers = new ConcurrentHashMap<>();
+    private final Map<UUID, GameLatency> games = new ConcurrentHashMap<>();
+
+    public GameLatencyTracker(MeterRegistry meterRegistry,
+                              @Value("${app.game.trace.recent-events:32}") int recentEvents,
+                              @Value("${app.game.trace.retention-ms:600000}") long retentionMs) {
+        this.meterRegistry = meterRegistry;
+        this.recentEvents = recentEvents;
+        this.retentionMs = retentionMs;
+        meterRegistry.gaugeMapSize("game.event.trace.games", List.of(), games);
+    }
+
+    // ==================== RECORDING ====================
+
+    /**
+     * The consumer picked the event up. Call before sending any frame: the
+     * returned delivery goes into every frame's {@link FrameStamp}.
+     *
+     * @return null if the event carries no trace
+     */
+    public Delivery received(GameEvent event) {
+        EventTrace trace = event.getTrace();
+        if (trace == null) {
+            return null;
+        }
+        trace.markReceived();
+        String type = event.getEventType() != null ? event.getEventType() : "unknown";
+        GameLatency game = games.computeIfAbsent(event.getGameId(), id -> new GameLatency());
+        Delivery delivery = new Delivery(game, type, event.getSequence(), trace);
+
+        record(game, type, Hop.HANDLER, trace.publishedMicros() - trace.originMicros());
+        record(game, type, Hop.TRANSPORT, trace.receivedMicros() - trace.publishedMicros());
+        game.add(delivery, recentEvents);
+        return delivery;
+    }
+
+    /** Last frame of the event handed to the broker. */
+    public void brokered(Delivery delivery) {
+        if (delivery == null) {
+            return;
+        }
+        EventTrace trace = delivery.trace;
+        trace.markBrokered();
+        record(delivery.game, delivery.type, Hop.BROADCAST, trace.brokeredMicros() - trace.receivedMicros());
+    }
+
+    /** One frame of the event was written to one session. */
+    public void written(FrameStamp stamp) {
+        Delivery delivery = stamp.delivery();
+        long now = EventTrace.nowMicros();
+        long outbound = now - stamp.sentMicros();
+        long total = now - delivery.trace.originMicros();
+
+        record(delivery.game, delivery.type, Hop.OUTBOUND, outbound);
+        record(delivery.game, delivery.type, Hop.TOTAL, total);
+        delivery.frames.increment();
+        delivery.outboundMax.accumulate(outbound);
+        delivery.totalMax.accumulate(total);
+    }
+
+    private void record(GameLatency game, String type, Hop hop, long micros) {
+        long value = Math.max(0, micros);
+        timers(type)[hop.ordinal()].record(value, TimeUnit.MICROSECONDS);
+        game.stats(type)[hop.ordinal()].add(value);
+        game.touchedAt = System.currentTimeMillis();
+    }
+
+    private Timer[] timers(String type) {
+        return timers.computeIfAbsent(type, t -> {
+            Timer[] byHop = new Timer[Hop.values().length];
+            for (Hop hop : Hop.values()) {
+                byHop[hop.ordinal()] = Timer.builder("game.event.trace")
+                        .description("Time a game event spent in one hop on its way to the players")
+                        .tag("hop", hop.tag)
+                        .tag("type", t)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry);
+            }
+            return byHop;
+        });
+    }
+
+    // ==================== QUERY ====================
+
+    /** Games with trace data on this node, slowest worst-case delivery first. */
+    public List<GameSummary> games() {
+        List<GameSummary> summaries = new ArrayList<>(games.size());
+        games.forEach((gameId, game) -> summaries.add(game.summary(gameId)));
+        summaries.sort(Comparator.comparingDouble(GameSummary::worstTotalMs).reversed());
+        return summaries;
+    }
+
+    public Optional<GameBreakdown> game(UUID gameId) {
+        GameLatency game = games.get(gameId);
+        return game != null ? Optional.of(game.breakdown(gameId)) : Optional.empty();
+    }
+
+    /** Forget games without events for the retention period (ended or abandoned). */
+    @Scheduled(fixedDelayString = "${app.game.trace.retention-ms:600000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        games.entrySet().removeIf(entry -> entry.getValue().touchedAt < cutoff);
+    }
+
+    // ==================== STATE ====================
+
+    /** One traced event on its way out; opaque outside this package. */
+    public static final class Delivery {
+        private final GameLatency game;
+        private final String type;
+        private final Long sequence;
+        private final EventTrace trace;
+        private final LongAdder frames = new LongAdder();
+        private final LongAccumulator outboundMax = new LongAccumulator(Long::max, 0);
+        private final LongAccumulator totalMax = new LongAccumulator(Long::max, 0);
+
+        private Delivery(GameLatency game, String type, Long sequence, EventTrace trace) {
+            this.game = game;
+            this.type = type;
+            this.sequence = sequence;
+            this.trace = trace;
+        }
+
+        private TraceView view() {
+            long brokered = trace.brokeredMicros();
+            return new TraceView(trace.traceId(), type, sequence,
+                    millis(trace.publishedMicros() - trace.originMicros()),
+                    millis(trace.receivedMicros() - trace.publishedMicros()),
+                    brokered > 0 ? millis(brokered - trace.receivedMicros()) : null,
+                    frames.sum(),
+                    millis(outboundMax.get()),
+                    millis(totalMax.get()));
+        }
+    }
+
+    private static final class GameLatency {
+        private final Map<String, HopStats[]> byType = new ConcurrentHashMap<>();
+        private final Deque<Delivery> recent = new ArrayDeque<>();
+        private volatile long touchedAt = System.currentTimeMillis();
+
+        private HopStats[] stats(String type) {
+            return byType.computeIfAbsent(type, t -> {
+                HopStats[] byHop = new HopStats[Hop.values().length];
+                for (int i = 0; i < byHop.length; i++) {
+                    byHop[i] = new HopStats();
+                }
+                return byHop;
+            });
+        }
+
+        private void add(Delivery delivery, int limit) {
+            synchronized (recent) {
+                recent.addLast(delivery);
+                while (recent.size() > limit) {
+                    recent.removeFirst();
+                }
+            }
+        }
+
+        private GameSummary summary(UUID gameId) {
+            long events = 0;
+            long worstTotal = 0;
+            for (HopStats[] byHop : byType.values()) {
+                events += byHop[Hop.HANDLER.ordinal()].count.sum();
+                worstTotal = Math.max(worstTotal, byHop[Hop.TOTAL.ordinal()].max.get());
+            }
+            return new GameSummary(gameId, events, millis(worstTotal));
+        }
+
+        private GameBreakdown breakdown(UUID gameId) {
+            Map<String, Map<String, HopView>> hops = new LinkedHashMap<>();
+            byType.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> {
+                        Map<String, HopView> byHop = new LinkedHashMap<>();
+                        for (Hop hop : Hop.values()) {
+                            byHop.put(hop.tag, entry.getValue()[hop.ordinal()].view());
+                        }
+                        hops.put(entry.getKey(), byHop);
+                    });
+
+            List<TraceView> traces;
+            synchronized (recent) {
+                traces = new ArrayList<>(recent.size());
+                recent.descendingIterator().forEachRemaining(d -> traces.add(d.view()));
+            }
+            return new GameBreakdown(gameId, hops, traces);
+        }
+    }
+
+    private static final class HopStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumMicros = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        private void add(long micros) {
+            count.increment();
+            sumMicros.add(micros);
+            max.accumulate(micros);
+        }
+
+        private HopView view() {
+            long n = count.sum();
+            return new HopView(n, n > 0 ? millis(sumMicros.sum() / n) : 0, millis(max.get()));
+        }
+    }
+
+    private static double millis(long micros) {
+        return Math.max(0, micros) / 1000.0;
+    }
+
+    // ==================== VIEWS ====================
+
+    public record GameSummary(UUID gameId, long events, double worstTotalMs) {
+    }
+
+    /**
+     * @param hops   event type → hop → stats
+     * @param recent last events, newest first
+     */
+    public record GameBreakdown(UUID gameId, Map<String, Map<String, HopView>> hops, List<TraceView> recent) {
+    }
+
+    public record HopView(long count, double meanMs, double maxMs) {
+    }
+
+    /** One event; outbound / total are the slowest session so far. */
+    public record TraceView(String traceId, String type, Long sequence,
+                            double handlerMs, double transportMs, Double broadcastMs,
+                            long frames, double outboundMaxMs, double totalMaxMs) {
+    }
+}
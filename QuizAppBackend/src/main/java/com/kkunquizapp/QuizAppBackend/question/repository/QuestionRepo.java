@@ -317,4 +317,12 @@ public interface QuestionRepo extends JpaRepository<Question, UUID> {
             "WHERE q.quiz.quizId = :quizId AND q.deleted = false " +
             "ORDER BY q.orderIndex ASC")
     List<Question> findByQuizIdWithOptions(@Param("quizId") UUID quizId);
+
+    /**
+     * Chỉ lấy ID câu hỏi theo thứ tự (dùng để cố định thứ tự câu hỏi khi start game)
+     */
+    @Query("SELECT q.questionId FROM Question q " +
+            "WHERE q.quiz.quizId = :quizId AND q.deleted = false " +
+            "ORDER BY q.orderIndex ASC")
+    List<UUID> findIdsByQuizId(@Param("quizId") UUID quizId);
 }
\ No newline at end of file
@@ -75,6 +75,18 @@ public class RedisService {
     }
 
     // ===================== LEADERBOARD =====================
+    // Điểm trong ZSET = score * 1e9 + (999_999_999 - totalTimeMs):
+    // cùng điểm thì ai tổng thời gian ít hơn đứng trên. Vẫn chính xác tuyệt đối
+    // trong double (53 bit) với score tới ~9 triệu.
+    private static final double LEADERBOARD_TIME_SLOTS = 1_000_000_000d;
+    private static final long LEADERBOARD_MAX_TIME_MS = 999_999_999L;
+    private static final Duration LEADERBOARD_TTL = Duration.ofHours(24);
+
+    public static double leaderboardScore(int score, long totalTimeMs) {
+        long time = Math.min(Math.max(totalTimeMs, 0L), LEADERBOARD_MAX_TIME_MS);
+        return score * LEADERBOARD_TIME_SLOTS + (LEADERBOARD_MAX_TIME_MS - time);
+    }
+
     public void addToLeaderboard(UUID gameId, UUID participantId, double score) {
         zSetOps().add("lb:" + gameId, participantId.toString(), score);
     }
@@ -83,6 +95,32 @@ public class RedisService {
         zSetOps().add("lb:" + gameId, participantId.toString(), newScore); // overwrites
     }
 
+    /**
+     * Replace the whole leaderboard of a game atomically (game start / session rebuild):
+     * DEL, ZADD and EXPIRE run in one MULTI/EXEC, so readers never see an empty board in between.
+     */
+    public void resetLeaderboard(UUID gameId, Map<UUID, Double> scores) {
+        String key = "lb:" + gameId;
+        Set<ZSetOperations.TypedTuple<Object>> tuples = scores.entrySet().stream()
+                .map(e -> ZSetOperations.TypedTuple.<Object>of(e.getKey().toString(), e.getValue()))
+                .collect(Collectors.toSet());
+
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                ops.multi();
+                ops.delete(key);
+                if (!tuples.isEmpty()) {
+                    ops.opsForZSet().add(key, tuples);
+                    ops.expire(key, LEADERBOARD_TTL);
+                }
+                return ops.exec();
+            }
+        });
+    }
+
     public List<Map.Entry<String, Double>> getTopLeaderboard(UUID gameId, int limit) {
         Set<ZSetOperations.TypedTuple<Object>> tuples =
                 zSetOps().reverseRangeWithScores("lb:" + gameId, 0, limit - 1);
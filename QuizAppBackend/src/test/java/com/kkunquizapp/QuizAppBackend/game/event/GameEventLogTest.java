@@ -0,0 +1,166 @@
+package com.kkunquizapp.QuizAppBackend.game.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GameEventLogTest {
+
+    private static final int BLOCK = 4;
+
+    private final UUID gameId = UUID.randomUUID();
+    // Bộ đếm Redis dùng chung giữa các "node" trong test
+    private final AtomicLong counter = new AtomicLong();
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void sharedRedisCounter() {
+        when(redis.execute(reserveScript(), anyList(), any(), any(), any())).thenAnswer(this::reserveBlock);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(values.get(anyString())).thenAnswer(inv -> counter.get() == 0 ? null : String.valueOf(counter.get()));
+        when(redis.opsForValue()).thenReturn(values);
+    }
+
+    @Test
+    void nodesOfTheSameGameNeverReuseASequence() {
+        GameEventLog owner = newLog(redis);
+        GameEventLog lobbyNode = newLog(redis);
+        List<Long> emitted = new ArrayList<>();
+
+        owner.append(event("GAME_CREATED"), e -> emitted.add(e.getSequence()));
+        lobbyNode.append(event("ROSTER_UPDATED"), e -> emitted.add(e.getSequence()));
+        owner.append(event("GAME_STARTED"), e -> emitted.add(e.getSequence()));
+
+        // Mỗi node phát từ block riêng: 1..4 của owner, 5..8 của node lobby
+        assertThat(emitted).containsExactly(1L, 5L, 2L);
+        assertThat(owner.lastSequence(gameId)).isEqualTo(2);
+        assertThat(lobbyNode.lastSequence(gameId)).isEqualTo(5);
+    }
+
+    @Test
+    void reservesOneBlockForManyEvents() {
+        GameEventLog log = newLog(redis);
+        List<Long> emitted = new ArrayList<>();
+        for (int i = 0; i < BLOCK * 2; i++) {
+            log.append(event("ROSTER_UPDATED"), e -> emitted.add(e.getSequence()));
+        }
+
+        assertThat(emitted).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+        verify(redis, times(2)).execute(reserveScript(), anyList(), any(), any(), any());
+    }
+
+    @Test
+    void replaySkipsSequencesPublishedByAnotherNode() {
+        GameEventLog owner = newLog(redis);
+        GameEventLog lobbyNode = newLog(redis);
+
+        owner.append(event("GAME_CREATED"), e -> { });
+        lobbyNode.append(event("ROSTER_UPDATED"), e -> { });
+        owner.append(event("GAME_STARTED"), e -> { });
+
+        assertThat(owner.since(gameId, 0).orElseThrow())
+                .extracting(GameEvent::getSequence)
+                .containsExactly(1L, 2L);
+        // Client đã thấy sequence mới hơn từ node khác → không có gì để replay
+        assertThat(owner.since(gameId, 5)).hasValue(List.of());
+    }
+
+    @Test
+    void nodeTakingOverContinuesTheNumbering() {
+        GameEventLog oldOwner = newLog(redis);
+        oldOwner.append(event("QUESTION_STARTED"), e -> { });
+        oldOwner.append(event("QUESTION_ENDED"), e -> { });
+
+        GameEventLog newOwner = newLog(redis);
+        // Chưa phát gì → không replay được, caller gửi snapshot với sequence chung
+        assertThat(newOwner.since(gameId, 1)).isEmpty();
+        assertThat(newOwner.lastSequence(gameId)).isEqualTo(BLOCK);
+
+        GameEvent next = event("QUESTION_STARTED");
+        newOwner.append(next, e -> { });
+        assertThat(next.getSequence()).isEqualTo(BLOCK + 1);
+    }
+
+    @Test
+    void countsLocallyWhenRedisIsDown() {
+        StringRedisTemplate down = mock(StringRedisTemplate.class);
+        when(down.execute(reserveScript(), anyList(), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(down.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+        GameEventLog log = newLog(down);
+
+        log.append(event("GAME_STARTED"), e -> { });
+        log.append(event("QUESTION_STARTED"), e -> { });
+
+        assertThat(log.lastSequence(gameId)).isEqualTo(2);
+        assertThat(log.since(gameId, 1).orElseThrow())
+                .extracting(GameEvent::getEventType)
+                .containsExactly("QUESTION_STARTED");
+        // Không thử lại Redis cho từng event khi đang lỗi
+        verify(down, times(1)).execute(reserveScript(), anyList(), any(), any(), any());
+    }
+
+    @Test
+    void blockAfterTheCounterWasLostStartsAboveWhatThisNodeSent() {
+        GameEventLog log = newLog(redis);
+        for (int i = 0; i < BLOCK; i++) {
+            log.append(event("ROSTER_UPDATED"), e -> { });
+        }
+        // Key hết hạn / Redis mất dữ liệu (hoặc node đã đếm tại chỗ khi Redis lỗi)
+        counter.set(0);
+
+        GameEvent next = event("GAME_STARTED");
+        log.append(next, e -> { });
+
+        assertThat(next.getSequence()).isEqualTo(BLOCK + 1);
+    }
+
+    @Test
+    void gapOlderThanTheBufferFallsBackToSnapshot() {
+        GameEventLog log = newLog(redis);
+        for (int i = 0; i < 10; i++) {
+            log.append(event("ROSTER_UPDATED"), e -> { });
+        }
+        assertThat(log.since(gameId, 1)).isEmpty();
+        assertThat(log.since(gameId, 6).orElseThrow()).hasSize(4);
+    }
+
+    private GameEventLog newLog(StringRedisTemplate template) {
+        return new GameEventLog(template, new SimpleMeterRegistry(), 8, 600_000, 86_400_000, BLOCK, 600_000);
+    }
+
+    private static RedisScript<Long> reserveScript() {
+        return any();
+    }
+
+    /** Same as RESERVE_BLOCK_SCRIPT: raise to the caller's last sequence, then INCRBY block. */
+    private Long reserveBlock(InvocationOnMock invocation) {
+        long floor = Long.parseLong(invocation.<String>getArgument(4));
+        counter.accumulateAndGet(floor, Math::max);
+        return counter.addAndGet(Long.parseLong(invocation.<String>getArgument(2)));
+    }
+
+    private GameEvent event(String type) {
+        return GameEvent.builder().gameId(gameId).eventType(type).build();
+    }
+}
@@ -0,0 +1,273 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+import com.kkunquizapp.QuizAppBackend.game.mapper.GameMapper;
+import com.kkunquizapp.QuizAppBackend.question.model.*;
+import com.kkunquizapp.QuizAppBackend.question.model.enums.QuestionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Grading table for every {@link QuestionType}: correct, wrong and malformed
+ * submissions. Expected values are what the per-submission grader in
+ * GameServiceImpl returned before answer keys were precompiled.
+ */
+class AnswerKeyCompilerTest {
+
+    private static final String GRADING_ERROR = "Lỗi khi chấm điểm";
+
+    private final AnswerKeyCompiler compiler =
+            new AnswerKeyCompiler(Mockito.mock(GameMapper.class, Mockito.CALLS_REAL_METHODS));
+
+    // ==================== FIXTURES ====================
+
+    private static final UUID A = id(1), B = id(2), C = id(3);
+
+    private static final Question SINGLE_CHOICE = question(QuestionType.SINGLE_CHOICE,
+            SingleChoiceOption.builder().optionId(A).text("Hà Nội").correct(true).build(),
+            SingleChoiceOption.builder().optionId(B).text("Huế").build());
+
+    private static final Question MULTIPLE_CHOICE = question(QuestionType.MULTIPLE_CHOICE,
+            MultipleChoiceOption.builder().optionId(A).text("2").correct(true).build(),
+            MultipleChoiceOption.builder().optionId(B).text("3").correct(true).build(),
+            MultipleChoiceOption.builder().optionId(C).text("4").build());
+
+    private static final Question TRUE_FALSE = question(QuestionType.TRUE_FALSE,
+            TrueFalseOption.builder().optionId(A).text("Đúng").correct(true).build(),
+            TrueFalseOption.builder().optionId(B).text("Sai").build());
+
+    private static final Question SHORT_ANSWER = question(QuestionType.SHORT_ANSWER,
+            ShortAnswerOption.builder().optionId(A).expectedAnswer(" Photosynthesis ")
+                    .requiredKeywords("[\"Light\"]").caseInsensitive(true).build());
+
+    private static final Question SHORT_ANSWER_CASE_SENSITIVE = question(QuestionType.SHORT_ANSWER,
+            ShortAnswerOption.builder().optionId(A).expectedAnswer("DNA").requiredKeywords("[]").build());
+
+    private static final Question FILL_IN_THE_BLANK = question(QuestionType.FILL_IN_THE_BLANK,
+            FillInTheBlankOption.builder().optionId(A).correctAnswer("Paris")
+                    .acceptedVariations("[\"Pari\"]").caseInsensitive(true).build());
+
+    private static final Question FILL_IN_THE_BLANK_CASE_SENSITIVE = question(QuestionType.FILL_IN_THE_BLANK,
+            FillInTheBlankOption.builder().optionId(A).correctAnswer("Paris").acceptedVariations("[]").build());
+
+    private static final Question ESSAY = question(QuestionType.ESSAY,
+            EssayOption.builder().optionId(A).minWords(3).maxWords(5).sampleAnswer("Nước sôi ở 100 độ").build());
+
+    private static final Question MATCHING = question(QuestionType.MATCHING,
+            MatchingOption.builder().optionId(A).leftItem("Cat").rightItem("Meow").build(),
+            MatchingOption.builder().optionId(B).leftItem("Dog").rightItem("Woof").build());
+
+    private static final Question ORDERING = question(QuestionType.ORDERING,
+            OrderingOption.builder().optionId(A).item("Một").correctPosition(1).build(),
+            OrderingOption.builder().optionId(B).item("Hai").correctPosition(2).build(),
+            OrderingOption.builder().optionId(C).item("Ba").correctPosition(3).build());
+
+    private static final Question DRAG_DROP = question(QuestionType.DRAG_DROP,
+            DragDropOption.builder().optionId(A).draggableItem("Táo").dropZoneId("fruit").build(),
+            DragDropOption.builder().optionId(B).draggableItem("Cà rốt").dropZoneId("veg").build());
+
+    private static final Question HOTSPOT = question(QuestionType.HOTSPOT,
+            HotspotOption.builder().optionId(A).hotspotCoordinates("100,200").build());
+
+    private static final Question HOTSPOT_COLON = question(QuestionType.HOTSPOT,
+            HotspotOption.builder().optionId(A).hotspotCoordinates("100:200").build());
+
+    private static final Question HOTSPOT_BROKEN = question(QuestionType.HOTSPOT,
+            HotspotOption.builder().optionId(A).hotspotCoordinates("100").build());
+
+    private static final Question IMAGE_SELECTION = question(QuestionType.IMAGE_SELECTION,
+            ImageSelectionOption.builder().optionId(A).imageLabel("Mèo").correct(true).build(),
+            ImageSelectionOption.builder().optionId(B).imageLabel("Chó").build());
+
+    private static final Question DROPDOWN = question(QuestionType.DROPDOWN,
+            DropdownOption.builder().optionId(A).dropdownValue("blue").displayLabel("Xanh").correct(true).build(),
+            DropdownOption.builder().optionId(B).dropdownValue("red").displayLabel("Đỏ").build());
+
+    private static final Question MATRIX = question(QuestionType.MATRIX,
+            MatrixOption.builder().optionId(A).rowId("r1").columnId("c1").rowLabel("Hàng 1").columnLabel("Cột 1").build(),
+            MatrixOption.builder().optionId(B).rowId("r1").columnId("c2").rowLabel("Hàng 1").columnLabel("Cột 2")
+                    .isCorrectCell(true).build());
+
+    private static final Question RANKING = question(QuestionType.RANKING,
+            RankingOption.builder().optionId(A).rankableItem("Vàng").correctRank(1).build(),
+            RankingOption.builder().optionId(B).rankableItem("Bạc").correctRank(2).build());
+
+    // ==================== TABLE ====================
+
+    /** question, label, submitted answer, expected correct, expected correct answer text */
+    static Stream<Arguments> gradingTable() {
+        return Stream.of(
+                // SINGLE_CHOICE
+                row(SINGLE_CHOICE, "correct id", A.toString(), true, "Hà Nội"),
+                row(SINGLE_CHOICE, "correct UUID", A, true, "Hà Nội"),
+                row(SINGLE_CHOICE, "wrong id", B.toString(), false, "Hà Nội"),
+                row(SINGLE_CHOICE, "malformed uuid", "not-a-uuid", false, GRADING_ERROR),
+                row(SINGLE_CHOICE, "malformed type", 42, false, GRADING_ERROR),
+
+                // MULTIPLE_CHOICE
+                row(MULTIPLE_CHOICE, "correct set", List.of(B.toString(), A.toString()), true, "2, 3"),
+                row(MULTIPLE_CHOICE, "wrong subset", List.of(A.toString()), false, "2, 3"),
+                row(MULTIPLE_CHOICE, "wrong superset", List.of(A.toString(), B.toString(), C.toString()), false, "2, 3"),
+                row(MULTIPLE_CHOICE, "malformed not a list", A.toString(), false, GRADING_ERROR),
+                row(MULTIPLE_CHOICE, "malformed uuid", List.of(A.toString(), "x"), false, GRADING_ERROR),
+
+                // TRUE_FALSE
+                row(TRUE_FALSE, "correct string", "true", true, "Đúng"),
+                row(TRUE_FALSE, "correct upper case", "TRUE", true, "Đúng"),
+                row(TRUE_FALSE, "correct boolean", Boolean.TRUE, true, "Đúng"),
+                row(TRUE_FALSE, "wrong boolean", Boolean.FALSE, false, "Đúng"),
+                row(TRUE_FALSE, "wrong other text", "yes", false, "Đúng"),
+                row(TRUE_FALSE, "malformed type", 1, false, GRADING_ERROR),
+
+                // SHORT_ANSWER
+                row(SHORT_ANSWER, "correct with keyword", "Photosynthesis needs LIGHT", true, "Photosynthesis"),
+                row(SHORT_ANSWER, "wrong missing keyword", "photosynthesis", false, "Photosynthesis"),
+                row(SHORT_ANSWER, "wrong answer", "respiration in light", false, "Photosynthesis"),
+                row(SHORT_ANSWER, "malformed null", null, false, "Photosynthesis"),
+                row(SHORT_ANSWER_CASE_SENSITIVE, "correct exact case", "  DNA ", true, "DNA"),
+                row(SHORT_ANSWER_CASE_SENSITIVE, "wrong case", "dna", false, "DNA"),
+
+                // FILL_IN_THE_BLANK
+                row(FILL_IN_THE_BLANK, "correct trimmed", "  paris ", true, "Paris"),
+                row(FILL_IN_THE_BLANK, "correct variation", "PARI", true, "Paris"),
+                row(FILL_IN_THE_BLANK, "wrong", "London", false, "Paris"),
+                row(FILL_IN_THE_BLANK, "malformed list", List.of("Paris"), false, "Paris"),
+                row(FILL_IN_THE_BLANK_CASE_SENSITIVE, "wrong case", "paris", false, "Paris"),
+
+                // ESSAY
+                row(ESSAY, "correct word count", " Nước  sôi\tở 100 ", true, ESSAY_ANSWER),
+                row(ESSAY, "wrong too short", "quá ngắn", false, ESSAY_ANSWER),
+                row(ESSAY, "wrong too long", "một hai ba bốn năm sáu", false, ESSAY_ANSWER),
+                row(ESSAY, "wrong blank", "   ", false, ESSAY_ANSWER),
+                row(ESSAY, "malformed null", null, false, ESSAY_ANSWER),
+
+                // MATCHING
+                row(MATCHING, "correct pairs", Map.of(A.toString(), A.toString(), B.toString(), B.toString()),
+                        true, MATCHING_ANSWER),
+                row(MATCHING, "wrong swapped", Map.of(A.toString(), B.toString(), B.toString(), A.toString()),
+                        false, MATCHING_ANSWER),
+                row(MATCHING, "wrong missing pair", Map.of(A.toString(), A.toString()), false, MATCHING_ANSWER),
+                row(MATCHING, "malformed unknown option", Map.of(A.toString(), "zzz", B.toString(), B.toString()),
+                        false, MATCHING_ANSWER),
+                row(MATCHING, "malformed type", "Cat=Meow", false, "Định dạng ghép nối không hợp lệ"),
+
+                // ORDERING
+                row(ORDERING, "correct order", List.of(A.toString(), B.toString(), C.toString()),
+                        true, "Một → Hai → Ba"),
+                row(ORDERING, "wrong order", List.of(B.toString(), A.toString(), C.toString()),
+                        false, "Một → Hai → Ba"),
+                row(ORDERING, "malformed size", List.of(A.toString(), B.toString()), false, "Số lượng mục không khớp"),
+                row(ORDERING, "malformed type", Map.of(), false, "Định dạng sắp xếp không hợp lệ"),
+
+                // DRAG_DROP
+                row(DRAG_DROP, "correct zones", Map.of(A.toString(), "fruit", B.toString(), "veg"),
+                        true, "Táo → fruit; Cà rốt → veg"),
+                row(DRAG_DROP, "wrong zones", Map.of(A.toString(), "veg", B.toString(), "fruit"),
+                        false, "Táo → fruit; Cà rốt → veg"),
+                row(DRAG_DROP, "wrong missing item", Map.of(A.toString(), "fruit"), false, "Táo → fruit; Cà rốt → veg"),
+                row(DRAG_DROP, "malformed type", List.of("fruit", "veg"), false, "Định dạng kéo thả không hợp lệ"),
+
+                // HOTSPOT
+                row(HOTSPOT, "correct within tolerance", Map.of("x", 105, "y", 190), true, "Tọa độ đúng: (100, 200)"),
+                row(HOTSPOT, "correct string coordinates", Map.of("x", "100", "y", "200"),
+                        true, "Tọa độ đúng: (100, 200)"),
+                row(HOTSPOT, "correct double coordinates", Map.of("x", 100.7, "y", 209.9),
+                        true, "Tọa độ đúng: (100, 200)"),
+                row(HOTSPOT_COLON, "correct colon key", Map.of("x", 100, "y", 200), true, "Tọa độ đúng: (100, 200)"),
+                row(HOTSPOT, "wrong outside tolerance", Map.of("x", 111, "y", 200), false, "Tọa độ đúng: (100, 200)"),
+                row(HOTSPOT, "malformed coordinate", Map.of("x", "abc", "y", 200), false, "Tọa độ không hợp lệ"),
+                row(HOTSPOT, "malformed missing y", Map.of("x", 100), false, "Tọa độ không hợp lệ"),
+                row(HOTSPOT, "malformed type", "100,200", false, "Định dạng hotspot không hợp lệ"),
+                row(HOTSPOT_BROKEN, "broken key", Map.of("x", 100, "y", 200), false, "Tọa độ hotspot không hợp lệ"),
+
+                // IMAGE_SELECTION
+                row(IMAGE_SELECTION, "correct id", A.toString(), true, "Mèo"),
+                row(IMAGE_SELECTION, "wrong id", B.toString(), false, "Mèo"),
+                row(IMAGE_SELECTION, "malformed uuid", "meo.png", false, GRADING_ERROR),
+
+                // DROPDOWN
+                row(DROPDOWN, "correct id", A.toString(), true, "Xanh"),
+                row(DROPDOWN, "wrong id", B.toString(), false, "Xanh"),
+                row(DROPDOWN, "malformed value instead of id", "blue", false, GRADING_ERROR),
+
+                // MATRIX
+                row(MATRIX, "correct cell", "r1-c2", true, "Hàng 1 - Cột 2"),
+                row(MATRIX, "wrong cell", "r1-c1", false, "Hàng 1 - Cột 2"),
+                row(MATRIX, "malformed coordinate", "r1c2", false, "Định dạng tọa độ không hợp lệ"),
+                row(MATRIX, "malformed extra part", "r1-c2-x", false, "Định dạng tọa độ không hợp lệ"),
+                row(MATRIX, "malformed type", Map.of("r1", "c2"), false, "Định dạng matrix không hợp lệ"),
+
+                // RANKING
+                row(RANKING, "correct ranks", Map.of(A.toString(), 1, B.toString(), "2"), true, RANKING_ANSWER),
+                row(RANKING, "wrong ranks", Map.of(A.toString(), 2, B.toString(), 1), false, RANKING_ANSWER),
+                row(RANKING, "wrong missing item", Map.of(A.toString(), 1), false, RANKING_ANSWER),
+                row(RANKING, "malformed rank", Map.of(A.toString(), "first", B.toString(), 2), false, RANKING_ANSWER),
+                row(RANKING, "malformed type", List.of(A.toString(), B.toString()), false,
+                        "Định dạng xếp hạng không hợp lệ")
+        );
+    }
+
+    private static final String ESSAY_ANSWER = "Bài luận hợp lệ (3-5 từ). Mẫu: Nước sôi ở 100 độ...";
+    private static final String MATCHING_ANSWER = "Cat → Meow; Dog → Woof";
+    private static final String RANKING_ANSWER = "Vàng (#1); Bạc (#2)";
+
+    @ParameterizedTest(name = "{0} / {1}")
+    @MethodSource("gradingTable")
+    void gradesLikeTheBaseline(QuestionType type, String label, Question question, Object submitted,
+                               boolean expectedCorrect, String expectedAnswer) {
+        AnswerGradingResult result = compiler.compile(question).grade(submitted);
+
+        assertThat(result.correct()).as("correct").isEqualTo(expectedCorrect);
+        assertThat(result.correctAnswer()).as("correctAnswer").isEqualTo(expectedAnswer);
+    }
+
+    @Test
+    void tableCoversCorrectWrongAndMalformedForEveryQuestionType() {
+        Map<QuestionType, Set<String>> kinds = gradingTable()
+                .map(Arguments::get)
+                .collect(Collectors.groupingBy(row -> (QuestionType) row[0],
+                        () -> new EnumMap<>(QuestionType.class),
+                        Collectors.mapping(row -> ((String) row[1]).split(" ")[0], Collectors.toSet())));
+
+        assertThat(kinds).containsOnlyKeys(QuestionType.values());
+        kinds.forEach((type, seen) ->
+                assertThat(seen).as(type.name()).contains("correct", "wrong", "malformed"));
+    }
+
+    @Test
+    void compiledKeyIsReusableAcrossSubmissions() {
+        AnswerKey key = compiler.compile(MULTIPLE_CHOICE);
+
+        assertThat(key.grade(List.of(A.toString(), B.toString())).correct()).isTrue();
+        assertThat(key.grade(List.of(A.toString())).correct()).isFalse();
+        assertThat(key.grade(List.of(B, A)).correct()).isTrue();
+    }
+
+    // ==================== HELPERS ====================
+
+    private static Arguments row(Question question, String label, Object submitted,
+                                 boolean correct, String correctAnswer) {
+        return arguments(question.getType(), label, question, submitted, correct, correctAnswer);
+    }
+
+    private static Question question(QuestionType type, Option... options) {
+        Question question = new Question();
+        question.setQuestionId(UUID.randomUUID());
+        question.setType(type);
+        question.setOptions(new ArrayList<>(List.of(options)));
+        return question;
+    }
+
+    private static UUID id(int n) {
+        return new UUID(0L, n);
+    }
+}
@@ -0,0 +1,84 @@
+package com.kkunquizapp.QuizAppBackend.game.grading;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Fixed vectors shared with my-frontend/src/utils/optionShuffle.test.ts: if
+ * either side changes, players see one order and are graded on another.
+ */
+class OptionShuffleTest {
+
+    /** (questionSeed, participantId, size) → order; same table as the frontend test. */
+    static Stream<Arguments> permutationVectors() {
+        return Stream.of(
+                arguments(0, "00000000-0000-0000-0000-000000000000", 4, new int[] {1, 2, 3, 0}),
+                arguments(123456789, "3f2504e0-4f89-11d3-9a0c-0305e82c3301", 4, new int[] {3, 0, 1, 2}),
+                arguments(-1, "9b2e4c1a-7d3f-4e8b-a5c6-1f0e2d3c4b5a", 6, new int[] {3, 1, 2, 4, 5, 0}),
+                arguments(Integer.MIN_VALUE, "c56a4180-65aa-42ec-a945-5fd21dec0538", 10,
+                        new int[] {7, 3, 4, 5, 8, 0, 9, 6, 1, 2}),
+                arguments(Integer.MAX_VALUE, "6ba7b810-9dad-11d1-80b4-00c04fd430c8", 2, new int[] {1, 0}),
+                arguments(-987654321, "f47ac10b-58cc-4372-a567-0e02b2c3d479", 5, new int[] {2, 3, 1, 4, 0}),
+                arguments(42, "f47ac10b-58cc-4372-a567-0e02b2c3d479", 1, new int[] {0})
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("permutationVectors")
+    void permutationMatchesTheFrontend(int questionSeed, String participantId, int size, int[] expected) {
+        assertThat(OptionShuffle.permutation(questionSeed, UUID.fromString(participantId), size))
+                .containsExactly(expected);
+    }
+
+    /** The frontend only receives the seed, but it is hashed the same way (fnv1a of "gameSeed:questionId"). */
+    static Stream<Arguments> questionSeedVectors() {
+        return Stream.of(
+                arguments(0L, "3f2504e0-4f89-11d3-9a0c-0305e82c3301", -1379942218),
+                arguments(8234567890123456789L, "c56a4180-65aa-42ec-a945-5fd21dec0538", 846997164),
+                arguments(-42L, "6ba7b810-9dad-11d1-80b4-00c04fd430c8", 52769081)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("questionSeedVectors")
+    void questionSeedIsStable(long gameSeed, String questionId, int expected) {
+        assertThat(OptionShuffle.questionSeed(gameSeed, UUID.fromString(questionId))).isEqualTo(expected);
+    }
+
+    @Test
+    void resolveMapsDisplayedPositionsBackToOptionIds() {
+        List<UUID> optionIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        UUID participantId = UUID.fromString("3f2504e0-4f89-11d3-9a0c-0305e82c3301");
+        // order = [3, 0, 1, 2]: vị trí 0 trên màn hình là option thứ 4
+        assertThat(OptionShuffle.resolve(0, optionIds, 123456789, participantId))
+                .isEqualTo(optionIds.get(3).toString());
+        assertThat(OptionShuffle.resolve(List.of(1, 3), optionIds, 123456789, participantId))
+                .isEqualTo(List.of(optionIds.get(0).toString(), optionIds.get(2).toString()));
+    }
+
+    @Test
+    void resolveWithoutSeedUsesCanonicalOrder() {
+        List<UUID> optionIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        assertThat(OptionShuffle.resolve(1, optionIds, null, UUID.randomUUID()))
+                .isEqualTo(optionIds.get(1).toString());
+    }
+
+    @Test
+    void resolveLeavesIdsAndInvalidPositionsUnchanged() {
+        List<UUID> optionIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        String id = optionIds.get(0).toString();
+        assertThat(OptionShuffle.resolve(id, optionIds, 7, UUID.randomUUID())).isEqualTo(id);
+        assertThat(OptionShuffle.resolve(5, optionIds, 7, UUID.randomUUID())).isEqualTo(5);
+        assertThat(OptionShuffle.resolve(List.of(0, -1), optionIds, null, UUID.randomUUID()))
+                .isEqualTo(List.of(id, -1));
+    }
+}
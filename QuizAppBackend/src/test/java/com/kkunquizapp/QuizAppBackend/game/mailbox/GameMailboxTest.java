@@ -0,0 +1,198 @@
+package com.kkunquizapp.QuizAppBackend.game.mailbox;
+
+import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GameMailboxTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final UUID gameId = UUID.randomUUID();
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void runsCommandsInArrivalOrderOneAtATime() throws Exception {
+        GameMailbox mailbox = new GameMailbox(registry, 64, 5_000);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        // Command đầu giữ actor lại để các command sau xếp hàng theo thứ tự đã biết
+        Future<?> blocker = callers.submit(() -> mailbox.ask(gameId, () -> {
+            running.countDown();
+            await(gate);
+            return null;
+        }));
+        await(running);
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            int n = i;
+            results.add(callers.submit(() -> mailbox.ask(gameId, () -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                executed.add(n);
+                inside.decrementAndGet();
+                return n;
+            })));
+            awaitDepth(i);
+        }
+        gate.countDown();
+
+        blocker.get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i + 1);
+        }
+        assertThat(executed).containsExactlyElementsOf(range(1, 20));
+        assertThat(maxInside.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWith429WhenTheMailboxIsFull() throws Exception {
+        GameMailbox mailbox = new GameMailbox(registry, 2, 5_000);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+
+        Future<?> blocker = callers.submit(() -> mailbox.ask(gameId, () -> {
+            running.countDown();
+            await(gate);
+            return null;
+        }));
+        await(running);
+        Future<Integer> first = callers.submit(() -> mailbox.ask(gameId, () -> 1));
+        Future<Integer> second = callers.submit(() -> mailbox.ask(gameId, () -> 2));
+        awaitDepth(2);
+
+        assertThatThrownBy(() -> mailbox.ask(gameId, () -> 3))
+                .isInstanceOfSatisfying(GameException.class, e -> {
+                    assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(e.getCode()).isEqualTo("MAILBOX_FULL");
+                });
+        assertThat(registry.get("game.mailbox.rejected").counter().count()).isEqualTo(1);
+
+        gate.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        // Hàng đợi đã trống → nhận lại bình thường
+        assertThat(mailbox.ask(gameId, () -> 4)).isEqualTo(4);
+    }
+
+    /**
+     * A command offered after the actor's last empty poll() but before it clears
+     * {@code running}: schedule() sees the actor still running and starts nothing,
+     * so the actor itself must notice the command on its way out.
+     */
+    @Test
+    void commandArrivingWhileTheActorGoesIdleIsNotStranded() throws Exception {
+        GameMailbox mailbox = new GameMailbox(registry, 64, 2_000);
+        AtomicInteger idles = new AtomicInteger();
+        List<Future<String>> late = new CopyOnWriteArrayList<>();
+        CountDownLatch queued = new CountDownLatch(1);
+
+        mailbox.beforeIdle(() -> {
+            if (idles.getAndIncrement() == 0) {
+                late.add(callers.submit(() -> mailbox.ask(gameId, () -> "late")));
+                try {
+                    awaitDepth(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                queued.countDown();
+            }
+        });
+
+        assertThat(mailbox.ask(gameId, () -> "first")).isEqualTo("first");
+        await(queued);
+        // Bị bỏ quên thì chỉ hết hạn ack (503) chứ không bao giờ chạy
+        assertThat(late.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("late");
+        assertThat(idles.get()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void timesOutWith503ButStillRunsTheCommand() throws Exception {
+        GameMailbox mailbox = new GameMailbox(registry, 64, 100);
+        CountDownLatch gate = new CountDownLatch(1);
+        CompletableFuture<Boolean> ran = new CompletableFuture<>();
+
+        assertThatThrownBy(() -> mailbox.ask(gameId, () -> {
+            await(gate);
+            ran.complete(true);
+            return null;
+        })).isInstanceOfSatisfying(GameException.class, e -> {
+            assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(e.getCode()).isEqualTo("MAILBOX_TIMEOUT");
+        });
+        assertThat(registry.get("game.answer.ack").timer().count()).isEqualTo(1);
+
+        gate.countDown();
+        assertThat(ran.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(mailbox.ask(gameId, () -> "next")).isEqualTo("next");
+    }
+
+    @Test
+    void rethrowsTheCommandsOwnException() {
+        GameMailbox mailbox = new GameMailbox(registry, 64, 5_000);
+        GameException notActive = new GameException("Game is not active", "GAME_NOT_ACTIVE", HttpStatus.CONFLICT);
+
+        assertThatThrownBy(() -> mailbox.ask(gameId, () -> {
+            throw notActive;
+        })).isSameAs(notActive);
+        assertThat(mailbox.ask(gameId, () -> 1)).isEqualTo(1);
+    }
+
+    // ==================== HELPERS ====================
+
+    /** Wait until the game's queue holds exactly {@code depth} commands (the running one is not counted). */
+    private void awaitDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("game.mailbox.depth").gauge().value() != depth) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("mailbox depth never reached " + depth);
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("latch not released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+}
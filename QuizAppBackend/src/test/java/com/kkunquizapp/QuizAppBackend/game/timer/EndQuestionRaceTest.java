@@ -0,0 +1,290 @@
+package com.kkunquizapp.QuizAppBackend.game.timer;
+
+import com.kkunquizapp.QuizAppBackend.game.cluster.GameOwnershipService;
+import com.kkunquizapp.QuizAppBackend.game.dto.AnswerResultDTO;
+import com.kkunquizapp.QuizAppBackend.game.dto.SubmitAnswerRequest;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEvent;
+import com.kkunquizapp.QuizAppBackend.game.event.GameEventPublisher;
+import com.kkunquizapp.QuizAppBackend.game.exception.GameException;
+import com.kkunquizapp.QuizAppBackend.game.grading.AnswerKey;
+import com.kkunquizapp.QuizAppBackend.game.journal.AnswerJournal;
+import com.kkunquizapp.QuizAppBackend.game.mailbox.GameMailbox;
+import com.kkunquizapp.QuizAppBackend.game.model.GameParticipant;
+import com.kkunquizapp.QuizAppBackend.game.model.Game;
+import com.kkunquizapp.QuizAppBackend.game.model.enums.GameStatus;
+import com.kkunquizapp.QuizAppBackend.game.service.GameScheduler;
+import com.kkunquizapp.QuizAppBackend.game.service.impl.GameServiceImpl;
+import com.kkunquizapp.QuizAppBackend.game.session.AnswerDistribution;
+import com.kkunquizapp.QuizAppBackend.game.session.GameSession;
+import com.kkunquizapp.QuizAppBackend.game.session.GameSessionRegistry;
+import com.kkunquizapp.QuizAppBackend.game.session.QuestionState;
+import com.kkunquizapp.QuizAppBackend.question.model.Question;
+import com.kkunquizapp.QuizAppBackend.question.repository.QuestionRepo;
+import com.kkunquizapp.QuizAppBackend.quiz.model.Quiz;
+import com.kkunquizapp.QuizAppBackend.user.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Constructor;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The last player answering ({@code revealEarly → fireNow}) and the question's
+ * own END_QUESTION deadline can land at the same moment; the room must still
+ * see exactly one QUESTION_ENDED. Real wheel + real {@code endQuestion}, only
+ * Redis / DB / broadcast are mocked.
+ */
+class EndQuestionRaceTest {
+
+    private static final int ROUNDS = 100;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Map<UUID, GameSession> sessions = new ConcurrentHashMap<>();
+    private final Queue<GameEvent> published = new ConcurrentLinkedQueue<>();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final AnswerJournal answerJournal = mock(AnswerJournal.class);
+    private final GameMailbox mailbox = new GameMailbox(registry, 64, 500);
+
+    private GameTimerService timerService;
+    private GameServiceImpl gameService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOps);
+        GameOwnershipService ownership = mock(GameOwnershipService.class);
+        when(ownership.isOwnedHere(any())).thenReturn(true);
+        ObjectProvider<GameScheduler> schedulerProvider = mock(ObjectProvider.class);
+
+        timerService = new GameTimerService(redisTemplate, schedulerProvider, ownership, registry, 1, 64, 4);
+
+        GameSessionRegistry sessionRegistry = mock(GameSessionRegistry.class);
+        when(sessionRegistry.find(any())).thenAnswer(inv -> Optional.ofNullable(sessions.get(inv.<UUID>getArgument(0))));
+        GameEventPublisher publisher = mock(GameEventPublisher.class);
+        doAnswer(inv -> published.add(inv.getArgument(0))).when(publisher).publish(any());
+
+        gameService = gameService(sessionRegistry, publisher);
+        when(schedulerProvider.getObject()).thenReturn(new GameScheduler(gameService, mock(QuestionRepo.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        timerService.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void earlyRevealRacingTheDeadlineEndsTheQuestionOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            GameSession session = liveGame();
+            timerService.schedule(session.getGameId(), GameTimerType.END_QUESTION, Duration.ofMillis(5), session.getHostId());
+            // Lệch dần quanh deadline: trước, đúng lúc, và khi wheel đã bắt đầu fire
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(round % 10 * 1_000L));
+            timerService.fireNow(session.getGameId(), GameTimerType.END_QUESTION);
+
+            awaitQuestionEnded(session.getGameId());
+            assertThat(questionEnded(session.getGameId()))
+                    .as("QUESTION_ENDED of round %d", round)
+                    .isEqualTo(1);
+        }
+        // Handler END_QUESTION cũng chỉ chạy một lần mỗi câu, không chỉ nhờ close() chặn lại
+        assertThat(registry.get("game.timer.firing.latency").tag("type", "END_QUESTION").timer().count())
+                .isEqualTo(ROUNDS);
+    }
+
+    /** Timer, early reveal and a rebuilt-session retry all reaching endQuestion: close() lets one through. */
+    @Test
+    void concurrentEndQuestionCallsPublishOneReveal() throws Exception {
+        GameSession session = liveGame();
+        timerService.schedule(session.getGameId(), GameTimerType.END_QUESTION, Duration.ofMillis(2), session.getHostId());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(callers.submit(() -> {
+                start.await();
+                gameService.endQuestion(session.getGameId());
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+
+        awaitQuestionEnded(session.getGameId());
+        assertThat(questionEnded(session.getGameId())).isEqualTo(1);
+    }
+
+    /** Player who was offline when the question opened, so the reveal didn't wait for them. */
+    @Test
+    void answerAfterEarlyRevealEarnsNothing() throws Exception {
+        UUID awaited = UUID.randomUUID();
+        UUID late = UUID.randomUUID();
+        GameSession session = liveGame(List.of(participant(awaited), participant(late)), Set.of(awaited));
+        UUID gameId = session.getGameId();
+        timerService.schedule(gameId, GameTimerType.END_QUESTION, Duration.ofSeconds(10), session.getHostId());
+
+        gameService.submitAnswer(gameId, awaited, answer(true));
+        awaitQuestionEnded(gameId);
+
+        assertThatThrownBy(() -> gameService.submitAnswer(gameId, late, answer(true)))
+                .isInstanceOf(GameException.class)
+                .hasMessage("Question already revealed");
+        gameService.skipQuestion(gameId, late);
+
+        assertThat(session.participant(late).snapshot().score()).isZero();
+        assertThat(session.participant(late).snapshot().skippedCount()).isZero();
+        // Journal đã flush lúc reveal: chỉ câu trả lời của người được chờ nằm trong đó
+        verify(answerJournal, times(1)).append(any(), any());
+    }
+
+    /** The first submit timed out in the mailbox but still ran; the client's retry must not fail. */
+    @Test
+    void answerRetriedAfterAMailboxTimeoutGetsTheFirstResult() throws Exception {
+        UUID player = UUID.randomUUID();
+        GameSession session = liveGame(List.of(participant(player), participant(UUID.randomUUID())), Set.of());
+        UUID gameId = session.getGameId();
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Actor của game đang bận → answer xếp hàng lâu hơn ack timeout
+        callers.submit(() -> mailbox.ask(gameId, () -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        busy.await();
+
+        assertThatThrownBy(() -> gameService.submitAnswer(gameId, player, answer(true)))
+                .isInstanceOf(GameException.class)
+                .hasMessage("Answer processing timed out");
+        release.countDown();
+
+        AnswerResultDTO retried = gameService.submitAnswer(gameId, player, answer(true));
+        assertThat(retried.isCorrect()).isTrue();
+        assertThat(retried.getPointsEarned()).isPositive();
+        assertThat(session.participant(player).snapshot().score()).isEqualTo(retried.getPointsEarned());
+        verify(answerJournal, times(1)).append(any(), any());
+    }
+
+    // ==================== HELPERS ====================
+
+    /** IN_PROGRESS game with its first question open and END_QUESTION not yet armed. */
+    private GameSession liveGame() {
+        return liveGame(List.of(), Set.of());
+    }
+
+    private GameSession liveGame(List<GameParticipant> participants, Set<UUID> awaiting) {
+        User host = new User();
+        host.setUserId(UUID.randomUUID());
+        Game game = Game.builder()
+                .gameId(UUID.randomUUID())
+                .host(host)
+                .quiz(Quiz.builder().quizId(UUID.randomUUID()).build())
+                .gameStatus(GameStatus.IN_PROGRESS)
+                .randomSeed(1L)
+                .build();
+
+        UUID questionId = UUID.randomUUID();
+        Question question = new Question();
+        question.setQuestionId(questionId);
+        AnswerKey key = new AnswerKey.TrueFalse(true, "Đúng");
+
+        Set<UUID> awaited = ConcurrentHashMap.newKeySet();
+        awaited.addAll(awaiting);
+        GameSession session = new GameSession(game, List.of(questionId, UUID.randomUUID()), participants);
+        session.startQuestion(new QuestionState(questionId, 0, Instant.now(), 10, 1000, null, question, key,
+                null, List.of(), null, AnswerDistribution.forQuestion(question, key),
+                awaited, new AtomicBoolean()));
+        sessions.put(game.getGameId(), session);
+        return session;
+    }
+
+    private GameParticipant participant(UUID participantId) {
+        return GameParticipant.builder().participantId(participantId).nickname("p-" + participantId).build();
+    }
+
+    private SubmitAnswerRequest answer(Object submitted) {
+        return SubmitAnswerRequest.builder().submittedAnswer(submitted).build();
+    }
+
+    /** Wait for the first reveal, then long enough for a duplicate from the other trigger to show up. */
+    private void awaitQuestionEnded(UUID gameId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (questionEnded(gameId) == 0) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("QUESTION_ENDED never published for game " + gameId);
+            }
+            Thread.sleep(1);
+        }
+        Thread.sleep(20);
+    }
+
+    private long questionEnded(UUID gameId) {
+        return published.stream()
+                .filter(event -> gameId.equals(event.getGameId()) && "QUESTION_ENDED".equals(event.getEventType()))
+                .count();
+    }
+
+    /** Every collaborator mocked except the timer service under test and the game's mailbox. */
+    private GameServiceImpl gameService(GameSessionRegistry sessionRegistry, GameEventPublisher publisher) throws Exception {
+        Constructor<?> constructor = GameServiceImpl.class.getConstructors()[0];
+        Object[] args = new Object[constructor.getParameterCount()];
+        Class<?>[] types = constructor.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == GameTimerService.class) {
+                args[i] = timerService;
+            } else if (types[i] == GameSessionRegistry.class) {
+                args[i] = sessionRegistry;
+            } else if (types[i] == GameEventPublisher.class) {
+                args[i] = publisher;
+            } else if (types[i] == GameMailbox.class) {
+                args[i] = mailbox;
+            } else if (types[i] == AnswerJournal.class) {
+                args[i] = answerJournal;
+            } else {
+                args[i] = mock(types[i]);
+            }
+        }
+        GameServiceImpl service = (GameServiceImpl) constructor.newInstance(args);
+        ReflectionTestUtils.setField(service, "leaderboardTopN", 10);
+        return service;
+    }
+}
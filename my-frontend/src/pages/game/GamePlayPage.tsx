@@ -27,6 +27,7 @@ import type {
   GameStatisticsDTO,
 } from "@/types/game";
 import OptionsRenderer from "@/components/layouts/question/OptionsRenderer";
+import { permuteOptions, toDisplayedPositions } from "@/utils/optionShuffle";
 
 interface GamePlayState {
   isHost: boolean;
@@ -240,7 +241,7 @@ const GamePlayPage: React.FC = () => {
           setTimeRemaining(question.timeLimitSeconds || 0);
           setState((prev) => ({
             ...prev,
-            currentQuestion: question.question,
+            currentQuestion: permuteOptions(question.question, participantId.current),
             answerResult: null,
           }));
           setIsAnswering(true);
@@ -308,7 +309,7 @@ const GamePlayPage: React.FC = () => {
 
     heartbeatRef.current = setInterval(() => {
       sendHeartbeat(gameId, participantId.current!);
-    }, 30000);
+    }, 10000);
 
     return () => {
       if (heartbeatRef.current) clearInterval(heartbeatRef.current);
@@ -341,7 +342,9 @@ const GamePlayPage: React.FC = () => {
       console.log("🎯 Using initial question from state");
       setState((prev) => ({
         ...prev,
-        currentQuestion: initialQuestionFromState.question,
+        currentQuestion: prev.isHost
+          ? initialQuestionFromState.question
+          : permuteOptions(initialQuestionFromState.question, participantId.current),
       }));
       setTimeRemaining(initialQuestionFromState.timeLimitSeconds || 30);
       setIsAnswering(true);
@@ -365,7 +368,11 @@ const GamePlayPage: React.FC = () => {
 
     setIsSubmittingAnswer(true);
     try {
-      submitAnswer(gameId, participantId.current, selectedAnswer);
+      submitAnswer(
+        gameId,
+        participantId.current,
+        toDisplayedPositions(state.currentQuestion, selectedAnswer)
+      );
       console.log("✅ Answer submitted");
     } catch (err) {
       console.error("❌ Failed to submit:", err);
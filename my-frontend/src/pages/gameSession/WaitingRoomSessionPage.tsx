@@ -12,10 +12,16 @@ import {
   setupHostListeners,
   setupParticipantListeners,
   clearParticipantSession,
+  sendHeartbeat,
 } from "@/services/gameService";
 import { webSocketService } from "@/services/webSocketService";
 import { useGameSessionValidator } from "@/hooks/useGameSessionValidator";
 import { handleApiError } from "@/utils/apiErrorHandler";
+import {
+  GameParticipantDTO,
+  ParticipantStatus,
+  RosterUpdatedData,
+} from "@/types/game";
 
 const WaitingRoomSessionPage = () => {
   const navigate = useNavigate();
@@ -87,6 +93,44 @@ const WaitingRoomSessionPage = () => {
     }
   };
 
+  // Áp delta roster trực tiếp, không gọi lại API danh sách người chơi
+  const applyRosterUpdate = (roster: RosterUpdatedData) => {
+    const removed = new Set([
+      ...(roster.left || []).map((p) => p.participantId),
+      ...(roster.kicked || []).map((p) => p.participantId),
+    ]);
+    const offline = new Set(roster.offline || []);
+    const online = new Set(roster.online || []);
+    setParticipants((prev) => {
+      const kept = prev
+        .filter((p) => !removed.has(p.participantId))
+        .map((p) =>
+          offline.has(p.participantId)
+            ? { ...p, connected: false }
+            : online.has(p.participantId)
+              ? { ...p, connected: true }
+              : p
+        );
+      const known = new Set(kept.map((p) => p.participantId));
+      const added = (roster.joined || [])
+        .filter((p) => !known.has(p.participantId))
+        .map(
+          (p) =>
+            ({
+              participantId: p.participantId,
+              gameId: gameId!,
+              nickname: p.nickname,
+              isAnonymous: p.isAnonymous,
+              score: 0,
+              status: ParticipantStatus.JOINED,
+              joinedAt: new Date().toISOString(),
+            }) as GameParticipantDTO
+        );
+      return [...kept, ...added];
+    });
+    setLastUpdate(Date.now());
+  };
+
   // ==================== WEBSOCKET SETUP ====================
   useEffect(() => {
     if (!gameId || isValidating || !isValid || !gameInfo) {
@@ -116,12 +160,8 @@ const WaitingRoomSessionPage = () => {
     if (isHost) {
       unsubscribeRef.current = setupHostListeners(gameId, {
         onGameEvent: (event) => {
-          if (
-            ["PARTICIPANT_JOINED", "PARTICIPANT_LEFT", "PARTICIPANT_KICKED"].includes(
-              event.eventType
-            )
-          ) {
-            loadParticipants();
+          if (event.eventType === "ROSTER_UPDATED") {
+            applyRosterUpdate(event.data as RosterUpdatedData);
           }
         },
         onParticipants: (participantsList) => {
@@ -139,12 +179,8 @@ const WaitingRoomSessionPage = () => {
         {
           // === THÊM MỚI: Xử lý khi có người join/leave/kick ===
           onGameEvent: (event) => {
-            if (
-              ["PARTICIPANT_JOINED", "PARTICIPANT_LEFT", "PARTICIPANT_KICKED"].includes(
-                event.eventType
-              )
-            ) {
-              loadParticipants();
+            if (event.eventType === "ROSTER_UPDATED") {
+              applyRosterUpdate(event.data as RosterUpdatedData);
             }
           },
           // ====================================================
@@ -181,6 +217,14 @@ const WaitingRoomSessionPage = () => {
     };
   }, [gameId, participantId, isValidating, isValid, gameInfo, isHost, navigate]);
 
+  // Heartbeat để server biết người chơi còn trong phòng chờ
+  useEffect(() => {
+    if (isHost || !gameId || !participantId || !isValid) return;
+    sendHeartbeat(gameId, participantId);
+    const heartbeat = setInterval(() => sendHeartbeat(gameId, participantId), 10000);
+    return () => clearInterval(heartbeat);
+  }, [gameId, participantId, isHost, isValid]);
+
   // ==================== HOST ACTIONS ====================
   const handleStartGame = async () => {
     if (!gameId || isStarting || participants.length === 0) return;
@@ -549,6 +593,7 @@ const WaitingRoomSessionPage = () => {
                 <div
                   key={p.participantId}
                   style={{
+                    opacity: p.connected === false ? 0.5 : 1,
                     padding: "1.2rem",
                     backgroundColor: isDark ? "#0f172a" : "#f8fafc",
                     borderRadius: "16px",
@@ -644,6 +644,7 @@ export const setupParticipantListeners = (
     webSocketService.subscribeToLeaderboard(gameId);
     webSocketService.subscribeToParticipants(gameId);
     webSocketService.subscribeToKickNotifications(gameId, participantId);
+    webSocketService.subscribeToPersonalRank(gameId, participantId);
 
     // Setup callbacks
     callbacks.onQuestion &&
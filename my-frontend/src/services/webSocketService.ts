@@ -11,6 +11,7 @@ import type {
     GameDetailDTO,
     GameStatisticsDTO,
     CurrentQuestionResponseDTO,
+    GameReplayDTO,
 } from "@/types/game";
 
 // ==================== TYPES ====================
@@ -66,6 +67,20 @@ type KickedCallback = (notification: any) => void;
 type ErrorCallback = (error: { error: string; type: string }) => void;
 type ConnectionCallback = (connected: boolean) => void;
 
+/**
+ * Sequence của một game: server cấp từ bộ đếm chung (Redis), nên event từ node khác
+ * có thể tới lệch thứ tự. contiguous = mọi sequence <= nó đã nhận (resume từ đây),
+ * seen = các sequence đã nhận gần đây để bỏ bản trùng.
+ */
+interface SequenceState {
+    contiguous: number;
+    high: number;
+    seen: Set<number>;
+}
+
+// Lùi quá khoảng này so với sequence lớn nhất → bộ đếm phía server đã bắt đầu lại
+const SEQUENCE_WINDOW = 512;
+
 // ==================== LOGGING ====================
 
 const DEBUG =
@@ -104,9 +119,14 @@ export class WebSocketService {
             errors: null as StompJs.StompSubscription | null,
             gameUpdates: null as StompJs.StompSubscription | null,
             currentQuestion: null as StompJs.StompSubscription | null,
+            replay: null as StompJs.StompSubscription | null,
         },
     };
 
+    // Sequence đã nhận của mỗi game và participantId dùng khi join phòng
+    private sequences = new Map<string, SequenceState>();
+    private roomParticipants = new Map<string, string | undefined>();
+
     // ✅ FIXED: Proper callback arrays with correct types
     private callbacks = {
         notification: [] as NotificationCallback[],
@@ -168,6 +188,7 @@ export class WebSocketService {
             log.info("✅ STOMP connected successfully");
             this.emitConnectionChange(true);
             this.resubscribeAll();
+            this.resumeGameRooms();
         };
 
         this.client.onStompError = (frame) => {
@@ -288,6 +309,7 @@ export class WebSocketService {
             log.debug("Already in game room:", gameId);
             return;
         }
+        this.roomParticipants.set(gameId, participantId);
 
         const sub = this.client.subscribe(destination, (msg) => {
             try {
@@ -296,6 +318,7 @@ export class WebSocketService {
                     "📨 Game event received from /topic/game/{gameId}:",
                     event.eventType
                 );
+                if (!this.acceptSequence(gameId, event)) return;
                 this.emitGameEvent(event);
             } catch (e) {
                 log.error("❌ Parse game event error:", e);
@@ -318,6 +341,8 @@ export class WebSocketService {
         const roomSub = this.subs.gameRoom.get(gameId);
         roomSub?.unsubscribe();
         this.subs.gameRoom.delete(gameId);
+        this.roomParticipants.delete(gameId);
+        this.sequences.delete(gameId);
 
         this.unsubscribeFromAllGameTopics(gameId);
 
@@ -506,6 +531,36 @@ export class WebSocketService {
         log.info(`✅ Subscribed to kick notifications: ${destination}`);
     }
 
+    /**
+     * Subscribe to PERSONAL_RANK of a guest participant.
+     * Người chơi đã đăng nhập nhận qua /user/queue/game-updates; guest không có
+     * Principal nên server gửi vào topic riêng của participant (node nào cũng nhận được).
+     * @param gameId - Game ID
+     * @param participantId - Participant ID
+     */
+    public subscribeToPersonalRank(gameId: string, participantId: string) {
+        if (!this.client?.connected) return;
+
+        const destination = `/topic/game/${gameId}/rank/${participantId}`;
+
+        if (this.subs.gameTopic.has(destination)) {
+            log.debug("Already subscribed to personal rank:", destination);
+            return;
+        }
+
+        const sub = this.client.subscribe(destination, (msg) => {
+            try {
+                const event: GameEvent = JSON.parse(msg.body);
+                this.emitGameEvent(event);
+            } catch (e) {
+                log.error("❌ Failed to parse personal rank:", e);
+            }
+        });
+
+        this.subs.gameTopic.set(destination, sub);
+        log.info(`✅ Subscribed to personal rank: ${destination}`);
+    }
+
     /**
      * Unsubscribe from all game-related topics
      * @param gameId - Game ID
@@ -545,6 +600,124 @@ export class WebSocketService {
         log.info(`📡 Requested current question for game ${gameId}`);
     }
 
+    // ==================== RESUME AFTER RECONNECT ====================
+
+    /**
+     * false nếu event đã nhận rồi (trùng giữa replay và topic).
+     * Sequence nhỏ hơn cái lớn nhất đã thấy vẫn được nhận: có thể do node khác phát.
+     */
+    private acceptSequence(gameId: string, event: GameEvent): boolean {
+        if (event.sequence == null) return true;
+        const sequence = event.sequence;
+        let state = this.sequences.get(gameId);
+        if (!state || sequence < state.high - SEQUENCE_WINDOW) {
+            if (state) log.info(`🔢 Event sequence of game ${gameId} restarted at ${sequence}`);
+            state = { contiguous: sequence - 1, high: sequence - 1, seen: new Set() };
+            this.sequences.set(gameId, state);
+        }
+        if (state.seen.has(sequence)) {
+            log.debug("Skipping duplicate event", event.eventType, sequence);
+            return false;
+        }
+        state.seen.add(sequence);
+        state.high = Math.max(state.high, sequence);
+        this.advanceSequence(state, state.contiguous);
+        return true;
+    }
+
+    /** Dời contiguous lên ít nhất from, qua mọi sequence liên tiếp đã nhận; bỏ các sequence quá cũ. */
+    private advanceSequence(state: SequenceState, from: number) {
+        const floor = state.high - SEQUENCE_WINDOW;
+        // Lỗ quá cũ (event không bao giờ tới) → thôi chờ, để resume không xin lại mãi
+        state.contiguous = Math.max(state.contiguous, from, floor);
+        while (state.seen.has(state.contiguous + 1)) state.contiguous++;
+        if (state.seen.size > SEQUENCE_WINDOW * 2) {
+            state.seen.forEach((sequence) => {
+                if (sequence < floor) state.seen.delete(sequence);
+            });
+        }
+    }
+
+    /** Server báo trạng thái đã tính tới sequence này (snapshot / hết replay). */
+    private markSequence(gameId: string, sequence: number) {
+        const state = this.sequences.get(gameId);
+        if (!state || sequence < state.high - SEQUENCE_WINDOW) {
+            this.sequences.set(gameId, { contiguous: sequence, high: sequence, seen: new Set() });
+            return;
+        }
+        state.high = Math.max(state.high, sequence);
+        this.advanceSequence(state, sequence);
+    }
+
+    /**
+     * Sau khi reconnect: subscribe lại các phòng đang ở và xin server
+     * các event bị lỡ kể từ sequence cuối cùng.
+     */
+    private resumeGameRooms() {
+        this.roomParticipants.forEach((participantId, gameId) => {
+            // Subscription cũ đã chết cùng kết nối cũ
+            this.subs.gameRoom.delete(gameId);
+            this.joinGameRoom(gameId, participantId);
+            if (participantId) {
+                this.subs.gameTopic.delete(`/topic/game/${gameId}/rank/${participantId}`);
+                this.subscribeToPersonalRank(gameId, participantId);
+            }
+
+            const body = { lastSequence: this.sequences.get(gameId)?.contiguous ?? 0 };
+            if (participantId) {
+                this.sendWithParticipantId(`/app/game/${gameId}/resume`, body, participantId);
+            } else {
+                this.send(`/app/game/${gameId}/resume`, body);
+            }
+            log.info(`📡 Resuming game ${gameId} after sequence ${body.lastSequence}`);
+        });
+    }
+
+    private handleReplay(replay: GameReplayDTO) {
+        const gameId = replay.gameId;
+
+        if (replay.mode === "SNAPSHOT") {
+            log.info(`🔄 [RESUME] Snapshot of game ${gameId} (status ${replay.status})`);
+            this.markSequence(gameId, replay.lastSequence);
+            const current = replay.currentQuestion;
+            if (current?.hasCurrentQuestion && !replay.questionRevealed) {
+                this.emitQuestion({ ...current, catchUp: true });
+            }
+            this.emitGameEvent({
+                gameId,
+                eventType: "GAME_SNAPSHOT" as GameEventType,
+                data: replay as any,
+                timestamp: new Date().toISOString(),
+            });
+            return;
+        }
+
+        const events = (replay.events || []).filter((event) => this.acceptSequence(gameId, event));
+        // Sequence trong khoảng này mà owner không có là do node khác phát → không xin lại nữa
+        this.markSequence(gameId, replay.lastSequence);
+        log.info(`🔄 [RESUME] Replaying ${events.length} missed events of game ${gameId}`);
+
+        // Chỉ hiện lại câu hỏi mới nhất nếu nó chưa kết thúc
+        let openQuestion: GameEvent | null = null;
+        events.forEach((event) => {
+            if (event.eventType === "QUESTION_STARTED") openQuestion = event;
+            if (event.eventType === "QUESTION_ENDED") openQuestion = null;
+            this.emitGameEvent(event);
+        });
+        if (openQuestion) {
+            const data = (openQuestion as GameEvent).data as any;
+            this.emitQuestion({
+                question: data.question,
+                questionNumber: data.questionNumber || 0,
+                totalQuestions: data.totalQuestions || 0,
+                timeLimitSeconds: data.timeLimit || data.question?.timeLimitSeconds || 0,
+                remainingTimeSeconds: 0,
+                hasCurrentQuestion: true,
+                catchUp: true,
+            });
+        }
+    }
+
     // ==================== USER PRIVATE QUEUES ====================
 
     /**
@@ -703,6 +876,15 @@ export class WebSocketService {
             }
         );
 
+        // Replay / snapshot sau khi reconnect
+        this.subs.userQueue.replay = sub("/queue/replay", (msg) => {
+            try {
+                this.handleReplay(JSON.parse(msg.body) as GameReplayDTO);
+            } catch (e) {
+                log.error("❌ Failed to parse replay:", e);
+            }
+        });
+
         // Kicked notification
         this.subs.userQueue.kicked = sub("/queue/kicked", (msg) => {
             try {
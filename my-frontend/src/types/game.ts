@@ -28,6 +28,7 @@ export enum GameEventType {
     PARTICIPANT_JOINED = "PARTICIPANT_JOINED",
     PARTICIPANT_LEFT = "PARTICIPANT_LEFT",
     PARTICIPANT_KICKED = "PARTICIPANT_KICKED",
+    ROSTER_UPDATED = "ROSTER_UPDATED",
     QUESTION_STARTED = "QUESTION_STARTED",
     QUESTION_ENDED = "QUESTION_ENDED",
     GAME_PAUSED = "GAME_PAUSED",
@@ -36,6 +37,9 @@ export enum GameEventType {
     GAME_CANCELLED = "GAME_CANCELLED",
     GAME_AUTO_ENDED = "GAME_AUTO_ENDED",
     GAME_START_FAILED = "GAME_START_FAILED",
+    PERSONAL_RANK = "PERSONAL_RANK",
+    ANSWER_DISTRIBUTION = "ANSWER_DISTRIBUTION",
+    GAME_SNAPSHOT = "GAME_SNAPSHOT", // Chỉ phát trên client sau khi resume bằng snapshot
 }
 
 // ==================== REQUEST DTOs ====================
@@ -133,6 +137,7 @@ export interface GameParticipantDTO {
     score: number;
     status: ParticipantStatus;
     joinedAt: string; // ISO
+    connected?: boolean; // Chỉ có trên client, từ ROSTER_UPDATED
 }
 
 export interface AnswerResultDTO {
@@ -153,6 +158,7 @@ export interface LeaderboardEntryDTO {
     currentStreak: number;
     averageTimeMs?: number | null;
     isAnonymous: boolean;
+    previousRank?: number | null;
 }
 
 export interface GameStatisticsDTO {
@@ -164,6 +170,16 @@ export interface GameStatisticsDTO {
     correctAnswers: number;
     averageScore: number;
     averageAccuracy: number;
+    questions?: QuestionStatsDTO[];
+}
+
+export interface QuestionStatsDTO {
+    questionId: string;
+    questionNumber: number;
+    answered: number;
+    correct: number;
+    skipped: number;
+    distribution: Record<string, number>;
 }
 
 export interface UserQuizStatsDTO {
@@ -237,14 +253,51 @@ export interface QuestionUpdateDTO {
  * ✅ NEW: Generic game event structure
  * Used for all WebSocket events from backend
  */
+// Histogram đáp án của câu đang mở (chỉ host nhận); final = true khi reveal
+export interface AnswerDistributionData {
+    questionId: string;
+    questionNumber: number;
+    answered: number;
+    correct: number;
+    skipped: number;
+    // optionId | "true"/"false" | "correct"/"incorrect" → số lượt chọn
+    counts: Record<string, number>;
+    activePlayers: number;
+    final: boolean;
+}
+
+// Join/leave/kick của một cửa sổ lobby gộp thành một frame
+export interface RosterUpdatedData {
+    joined: { participantId: string; nickname: string; isAnonymous: boolean }[];
+    left: { participantId: string; nickname: string }[];
+    kicked: { participantId: string; nickname: string; reason: string }[];
+    offline?: string[]; // Mất heartbeat / ngắt kết nối
+    online?: string[]; // Kết nối lại
+    playerCount: number;
+    mergedEvents: number;
+}
+
 export interface GameEvent<T = Record<string, any>> {
     gameId: string;
     eventType: GameEventType;
     userId?: string | null;
+    sequence?: number | null; // Tăng dần theo từng game, dùng để replay khi reconnect
     data: T;
     timestamp: string; // ISO string
 }
 
+// Trả lời /app/game/{id}/resume: các event bị lỡ, hoặc snapshot nếu lỡ quá nhiều
+export interface GameReplayDTO {
+    gameId: string;
+    mode: "EVENTS" | "SNAPSHOT";
+    lastSequence: number;
+    events?: GameEvent[] | null;
+    status?: string | null;
+    currentQuestion?: CurrentQuestionResponseDTO | null;
+    questionRevealed?: boolean;
+    score?: number | null;
+}
+
 // ==================== QUESTION TYPES ====================
 export type QuestionType =
     | "SINGLE_CHOICE"
@@ -432,6 +485,7 @@ export interface BaseQuestionDTO {
     hint?: string;
     difficulty?: string;
     shuffleOptions?: boolean;
+    optionShuffleSeed?: number | null; // Có khi game xáo đáp án theo từng người chơi
     caseInsensitive?: boolean;
     partialCredit?: boolean;
     allowMultipleCorrect?: boolean;
@@ -0,0 +1,60 @@
+// src/utils/optionShuffle.test.ts
+//
+// Cùng bảng vector với OptionShuffleTest.java ở backend: lệch một bit là người chơi
+// thấy một thứ tự nhưng được chấm theo thứ tự khác.
+// Chạy bằng `npm test` (node:test + --experimental-strip-types, cần Node >= 22.6).
+
+import { describe, it } from "node:test";
+import assert from "node:assert/strict";
+import type { QuestionResponseDTO } from "@/types/game";
+import { optionPermutation, permuteOptions, toDisplayedPositions } from "./optionShuffle.ts";
+
+// [questionSeed, participantId, size, order]
+const PERMUTATION_VECTORS: [number, string, number, number[]][] = [
+  [0, "00000000-0000-0000-0000-000000000000", 4, [1, 2, 3, 0]],
+  [123456789, "3f2504e0-4f89-11d3-9a0c-0305e82c3301", 4, [3, 0, 1, 2]],
+  [-1, "9b2e4c1a-7d3f-4e8b-a5c6-1f0e2d3c4b5a", 6, [3, 1, 2, 4, 5, 0]],
+  [-2147483648, "c56a4180-65aa-42ec-a945-5fd21dec0538", 10, [7, 3, 4, 5, 8, 0, 9, 6, 1, 2]],
+  [2147483647, "6ba7b810-9dad-11d1-80b4-00c04fd430c8", 2, [1, 0]],
+  [-987654321, "f47ac10b-58cc-4372-a567-0e02b2c3d479", 5, [2, 3, 1, 4, 0]],
+  [42, "f47ac10b-58cc-4372-a567-0e02b2c3d479", 1, [0]],
+];
+
+const question = (type: string, optionShuffleSeed: number | null) =>
+  ({
+    type,
+    optionShuffleSeed,
+    options: ["a", "b", "c", "d"].map((optionId) => ({ optionId })),
+  }) as unknown as QuestionResponseDTO;
+
+describe("optionPermutation", () => {
+  for (const [seed, participantId, size, order] of PERMUTATION_VECTORS) {
+    it(`seed ${seed}, participant ${participantId}, ${size} options`, () => {
+      assert.deepEqual(optionPermutation(seed, participantId, size), order);
+    });
+  }
+});
+
+describe("permuteOptions / toDisplayedPositions", () => {
+  const participantId = "3f2504e0-4f89-11d3-9a0c-0305e82c3301";
+
+  it("shows options in the player's order and submits their displayed positions", () => {
+    const shuffled = permuteOptions(question("SINGLE_CHOICE", 123456789), participantId);
+    assert.deepEqual(
+      (shuffled.options as any[]).map((option) => option.optionId),
+      ["d", "a", "b", "c"]
+    );
+    assert.equal(toDisplayedPositions(shuffled, "d"), 0);
+    assert.deepEqual(toDisplayedPositions(shuffled, ["a", "c"]), [1, 3]);
+  });
+
+  it("leaves unshuffled questions alone", () => {
+    const plain = question("SINGLE_CHOICE", null);
+    assert.equal(permuteOptions(plain, participantId), plain);
+    assert.equal(toDisplayedPositions(plain, "b"), "b");
+
+    const ordering = question("ORDERING", 123456789);
+    assert.equal(permuteOptions(ordering, participantId), ordering);
+    assert.equal(toDisplayedPositions(ordering, 3), 3);
+  });
+});
@@ -0,0 +1,61 @@
+// src/utils/optionShuffle.ts
+//
+// Thứ tự đáp án riêng cho từng người chơi, suy ra từ optionShuffleSeed của câu hỏi.
+// Phải khớp từng bit với OptionShuffle.java ở backend (FNV-1a 32 bit + mulberry32
+// + Fisher-Yates), nên mọi phép nhân đều đi qua Math.imul.
+
+import type { QuestionResponseDTO } from "@/types/game";
+
+const CHOICE_TYPES = ["SINGLE_CHOICE", "MULTIPLE_CHOICE", "IMAGE_SELECTION", "DROPDOWN"];
+
+const fnv1a = (value: string): number => {
+  let hash = 0x811c9dc5 | 0;
+  for (let i = 0; i < value.length; i++) {
+    hash ^= value.charCodeAt(i);
+    hash = Math.imul(hash, 0x01000193);
+  }
+  return hash;
+};
+
+/** order[displayedPosition] = canonical option index */
+export const optionPermutation = (questionSeed: number, participantId: string, size: number): number[] => {
+  const order = Array.from({ length: size }, (_, i) => i);
+  let state = fnv1a(`${questionSeed}:${participantId}`);
+  for (let i = size - 1; i > 0; i--) {
+    state = (state + 0x6d2b79f5) | 0;
+    let t = Math.imul(state ^ (state >>> 15), 1 | state);
+    t = (t + Math.imul(t ^ (t >>> 7), 61 | t)) ^ t;
+    const random = (t ^ (t >>> 14)) >>> 0;
+    const j = Math.floor((random * (i + 1)) / 4294967296);
+    [order[i], order[j]] = [order[j], order[i]];
+  }
+  return order;
+};
+
+const isShuffled = (question: QuestionResponseDTO): boolean =>
+  question.optionShuffleSeed != null && CHOICE_TYPES.includes(question.type);
+
+/** Question with its options in this player's order (unchanged if the game does not shuffle). */
+export const permuteOptions = (
+  question: QuestionResponseDTO,
+  participantId: string | null | undefined
+): QuestionResponseDTO => {
+  if (!participantId || !isShuffled(question) || !question.options?.length) return question;
+  const options = question.options as any[];
+  const order = optionPermutation(question.optionShuffleSeed as number, participantId, options.length);
+  return { ...question, options: order.map((index) => options[index]) } as QuestionResponseDTO;
+};
+
+/**
+ * Selected option id(s) → positions in the displayed (already permuted) list.
+ * The server maps positions back to option ids, so the submission does not
+ * depend on the canonical order.
+ */
+export const toDisplayedPositions = (question: QuestionResponseDTO, answer: any): any => {
+  if (!isShuffled(question) || answer == null) return answer;
+  const position = (id: any) => {
+    const index = (question.options as any[]).findIndex((option) => option.optionId === id);
+    return index >= 0 ? index : id;
+  };
+  return Array.isArray(answer) ? answer.map(position) : position(answer);
+};